@@ -0,0 +1,122 @@
+package it342.g4.e_vents.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import it342.g4.e_vents.config.JwtProperties;
+import it342.g4.e_vents.model.Act;
+import it342.g4.e_vents.model.Category;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Role;
+import it342.g4.e_vents.model.Tags;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+
+/**
+ * Builds detached entity graphs shaped like production data, so benchmarks
+ * run without a database or Spring context.
+ */
+final class BenchmarkData {
+
+    static final String JWT_SECRET = "asfsvs9d8fs9fs48f432bn23c4732319dw4fweih4jgke04ot6ls9ejg4m290sq0";
+
+    private BenchmarkData() {
+    }
+
+    static JwtProperties jwtProperties() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(JWT_SECRET);
+        properties.setExpirationMs(86400000);
+        return properties;
+    }
+
+    static User user(long id, String roleName) {
+        Role role = new Role();
+        role.setRoleId(2L);
+        role.setName(roleName);
+
+        User user = new User();
+        user.setUserId(id);
+        user.setFirstName("First" + id);
+        user.setLastName("Last" + id);
+        user.setEmail("user" + id + "@events.com");
+        user.setContactNumber("09171234567");
+        user.setCountry("Philippines");
+        user.setBirthdate(new Date(0));
+        user.setDateCreated(new Date());
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1nQGJrGsm0sT6R8bBmF3JZK");
+        user.setRole(role);
+        return user;
+    }
+
+    static Category category(long id, int tagCount) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setName("CATEGORY_" + id);
+        List<Tags> tags = new ArrayList<>();
+        for (int i = 0; i < tagCount; i++) {
+            Tags tag = new Tags();
+            tag.setTagId(id * 100 + i);
+            tag.setName("TAG_" + id + "_" + i);
+            tag.setCategory(category);
+            tags.add(tag);
+        }
+        category.setTags(tags);
+        return category;
+    }
+
+    static Event event(long id, int actCount, int tagsPerAct) {
+        Category category = category(1, tagsPerAct);
+        List<Act> lineup = new ArrayList<>();
+        for (int i = 0; i < actCount; i++) {
+            Act act = new Act();
+            act.setActId(id * 100 + i);
+            act.setName("Act " + i);
+            act.setDescription("Description of act " + i + " performing at event " + id);
+            act.setCategory(category);
+            act.setTags(new ArrayList<>(category.getTags()));
+            lineup.add(act);
+        }
+
+        Event event = new Event();
+        event.setEventId(id);
+        event.setName("Event " + id);
+        event.setDescription("A fairly typical event description that runs for a sentence or two.");
+        event.setDate(LocalDate.of(2026, 12, 1));
+        event.setTime(LocalTime.of(19, 30));
+        event.setVenue("SM Seaside Arena, Cebu City");
+        event.setUser(user(1, "ORGANIZER"));
+        event.setLineup(lineup);
+        return event;
+    }
+
+    static List<Ticket> tickets(int count) {
+        Event event = event(1, 3, 2);
+        TicketCategory ticketCategory = new TicketCategory();
+        ticketCategory.setTicketCategoryId(1L);
+        ticketCategory.setName("VIP");
+        ticketCategory.setPrice(2500.0);
+        ticketCategory.setDescription("Front row seats");
+        ticketCategory.setTotalTickets(count * 2);
+        ticketCategory.setTicketsSold(count);
+        ticketCategory.setStatus("AVAILABLE");
+        ticketCategory.setEvent(event);
+
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ticket ticket = new Ticket();
+            ticket.setTicketId((long) i + 1);
+            ticket.setTicketCategory(ticketCategory);
+            ticket.setUser(user(i + 10, "USER"));
+            ticket.setStatus("PURCHASED");
+            ticket.setPurchaseDate(LocalDateTime.of(2026, 10, 1, 10, 0).plusSeconds(i));
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+}
@@ -0,0 +1,86 @@
+package it342.g4.e_vents.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.Views;
+
+/**
+ * Jackson serialization of the entity graphs returned by the event and
+ * ticket endpoints, using the same mapper setup as the HTTP message converter,
+ * plus the summary view of the event list and the cost of gzipping the full list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter summaryWriter;
+    private List<Event> events;
+    private List<Ticket> tickets;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        summaryWriter = objectMapper.writerWithView(Views.Summary.class);
+        events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(BenchmarkData.event(i + 1, 3, 4));
+        }
+        tickets = BenchmarkData.tickets(size);
+    }
+
+    @Benchmark
+    public byte[] serializeEvents() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(events);
+    }
+
+    @Benchmark
+    public byte[] serializeEventSummaries() throws JsonProcessingException {
+        return summaryWriter.writeValueAsBytes(events);
+    }
+
+    @Benchmark
+    public byte[] serializeEventsGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, events);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeTickets() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tickets);
+    }
+}
@@ -0,0 +1,115 @@
+package it342.g4.e_vents.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it342.g4.e_vents.config.JwtProperties;
+import it342.g4.e_vents.config.SecurityConfig;
+import it342.g4.e_vents.security.JwtAuthenticationFilter;
+import it342.g4.e_vents.security.JwtUtils;
+import it342.g4.e_vents.security.TokenDenylist;
+import jakarta.servlet.ServletException;
+
+/**
+ * Per-request cost of authentication and authorization: JwtAuthenticationFilter
+ * (token parse, denylist check, claims-based principal) followed by the
+ * AuthorizationFilter with the application's URL rules. Neither touches the
+ * database, so this is the whole security overhead of a request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityFilterChainBenchmark {
+
+    private JwtAuthenticationFilter jwtFilter;
+    private AuthorizationFilter authorizationFilter;
+    private String userToken;
+    private String organizerToken;
+    private String adminToken;
+
+    @Setup
+    public void setUp() {
+        JwtProperties jwtProperties = BenchmarkData.jwtProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtUtils jwtUtils = new JwtUtils(jwtProperties);
+        TokenDenylist tokenDenylist = new TokenDenylist(jwtProperties, 100000, 0.01, meterRegistry);
+        // Some revoked tokens so the Bloom filter is not empty
+        for (int i = 0; i < 1000; i++) {
+            tokenDenylist.revokeToken("revoked-" + i, System.currentTimeMillis() + 60000);
+        }
+        jwtFilter = new JwtAuthenticationFilter(jwtUtils, tokenDenylist, meterRegistry);
+        authorizationFilter = new AuthorizationFilter(SecurityConfig.authorizationRules());
+
+        userToken = jwtUtils.generateToken(BenchmarkData.user(1, "USER"));
+        organizerToken = jwtUtils.generateToken(BenchmarkData.user(2, "ORGANIZER"));
+        adminToken = jwtUtils.generateToken(BenchmarkData.user(3, "ADMIN"));
+    }
+
+    @Benchmark
+    public int anonymousBrowse() throws ServletException, IOException {
+        return run("GET", "/api/events", null);
+    }
+
+    @Benchmark
+    public int userBrowse() throws ServletException, IOException {
+        return run("GET", "/api/events", userToken);
+    }
+
+    @Benchmark
+    public int userPurchase() throws ServletException, IOException {
+        return run("POST", "/api/tickets", userToken);
+    }
+
+    @Benchmark
+    public int organizerCreateEvent() throws ServletException, IOException {
+        return run("POST", "/api/events/create", organizerToken);
+    }
+
+    @Benchmark
+    public int adminListUsers() throws ServletException, IOException {
+        return run("GET", "/api/users/all", adminToken);
+    }
+
+    @Benchmark
+    public int userDeniedAdmin() throws ServletException, IOException {
+        return run("GET", "/api/users/all", userToken);
+    }
+
+    private int run(String method, String uri, String token) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            jwtFilter.doFilter(request, response, (req, res) ->
+                    authorizationFilter.doFilter(req, res, new MockFilterChain()));
+            return response.getStatus();
+        } catch (AccessDeniedException e) {
+            return 403;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
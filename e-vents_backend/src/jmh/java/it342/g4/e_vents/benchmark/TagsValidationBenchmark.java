@@ -0,0 +1,59 @@
+package it342.g4.e_vents.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it342.g4.e_vents.model.Category;
+import it342.g4.e_vents.model.Tags;
+import it342.g4.e_vents.service.TagsService;
+
+/**
+ * Tag/category consistency check run when acts are created or updated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TagsValidationBenchmark {
+
+    @Param({"3", "20"})
+    public int tagCount;
+
+    private TagsService tagsService;
+    private Category category;
+    private Category otherCategory;
+    private List<Tags> tags;
+
+    @Setup
+    public void setUp() {
+        // validateTagsForCategory does not touch the repository
+        tagsService = new TagsService(null, null);
+        category = BenchmarkData.category(1, tagCount);
+        otherCategory = BenchmarkData.category(2, 0);
+        tags = category.getTags();
+    }
+
+    @Benchmark
+    public boolean validTags() {
+        return tagsService.validateTagsForCategory(tags, category);
+    }
+
+    @Benchmark
+    public boolean invalidTags() {
+        return tagsService.validateTagsForCategory(tags, otherCategory);
+    }
+}
@@ -0,0 +1,57 @@
+package it342.g4.e_vents.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it342.g4.e_vents.security.TicketTokens;
+import it342.g4.e_vents.security.TicketTokens.TicketToken;
+
+/**
+ * Issue and verification of the signed QR ticket tokens. Verification is the
+ * per-scan cost at a gate before the in-memory duplicate check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketTokensBenchmark {
+
+    private TicketTokens ticketTokens;
+    private String token;
+    private String forged;
+
+    @Setup
+    public void setUp() {
+        ticketTokens = new TicketTokens(BenchmarkData.jwtProperties().getSecret());
+        token = ticketTokens.issue(1_234_567, 4_321, 98_765);
+        char last = token.charAt(token.length() - 1);
+        forged = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+    }
+
+    @Benchmark
+    public String issue() {
+        return ticketTokens.issue(1_234_567, 4_321, 98_765);
+    }
+
+    @Benchmark
+    public TicketToken verify() {
+        return ticketTokens.verify(token);
+    }
+
+    @Benchmark
+    public TicketToken verifyForged() {
+        return ticketTokens.verify(forged);
+    }
+}
@@ -0,0 +1,261 @@
+package it342.g4.e_vents.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that replicas sharing one database converge after a write made on
+ * another replica, within a bound. Start two backends on the same database,
+ * for example with the loadtest profile and a shared H2 file:
+ *
+ * <pre>
+ *   DB="jdbc:h2:file:/tmp/e-vents-cluster;AUTO_SERVER=TRUE;MODE=MySQL;DATABASE_TO_LOWER=TRUE"
+ *   mvn -Ploadtest spring-boot:run \
+ *       -Dspring-boot.run.arguments="--server.port=18080 --spring.datasource.url=$DB"
+ *   mvn -Ploadtest spring-boot:run \
+ *       -Dspring-boot.run.arguments="--server.port=18081 --spring.datasource.url=$DB --spring.jpa.hibernate.ddl-auto=none"
+ *   java src/loadtest/java/it342/g4/e_vents/loadtest/CacheConvergenceCheck.java \
+ *       --nodes http://localhost:18080,http://localhost:18081
+ * </pre>
+ *
+ * Each round writes on one node and polls the next until it reflects the
+ * write, alternating the writer:
+ * <ul>
+ *   <li>availability: a ticket bought on the writer shows up in the reader's sold count;</li>
+ *   <li>etag: the reader's ticket category ETag for the event changes (no stale 304);</li>
+ *   <li>denylist: an access token logged out on the writer is rejected by the reader.</li>
+ * </ul>
+ * Exits with status 1 if any probe exceeds the bound or never converges.
+ * CacheConvergenceTest covers convergence in the test suite with two
+ * contexts in one JVM; this harness measures it over HTTP between processes.
+ *
+ * Options: --nodes (comma separated), --rounds, --bound-ms, --timeout-ms,
+ * --users, --password, --admin-email, --admin-password.
+ */
+public class CacheConvergenceCheck {
+
+    // Same as LoadTestDataGenerator; repeated because this file runs on its own
+    private static final String EMAIL_PREFIX = "loadtest-user-";
+    private static final String EMAIL_DOMAIN = "@events.test";
+
+    private static final Pattern EVENT_ID = Pattern.compile("\"eventId\":(\\d+)");
+    private static final Pattern TICKET_CATEGORY_ID = Pattern.compile("\"ticketCategoryId\":(\\d+)");
+    private static final Pattern TICKETS_SOLD = Pattern.compile("\"ticketsSold\":(\\d+)");
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+    private static final Pattern USER_ID = Pattern.compile("\"userId\":(\\d+)");
+
+    private final List<String> nodes;
+    private final long timeoutMs;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, List<Long>> samples = new LinkedHashMap<>();
+
+    CacheConvergenceCheck(List<String> nodes, long timeoutMs) {
+        this.nodes = nodes;
+        this.timeoutMs = timeoutMs;
+        for (String probe : List.of("availability", "etag", "denylist")) {
+            samples.put(probe, new ArrayList<>());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<String> nodes = Arrays.stream(options.getOrDefault("nodes",
+                        "http://localhost:18080,http://localhost:18081").split(","))
+                .map(url -> url.endsWith("/") ? url.substring(0, url.length() - 1) : url)
+                .toList();
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "10"));
+        long boundMs = Long.parseLong(options.getOrDefault("bound-ms", "1500"));
+        long timeoutMs = Long.parseLong(options.getOrDefault("timeout-ms", "15000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        String password = options.getOrDefault("password", "loadtest123");
+        String adminEmail = options.getOrDefault("admin-email", "admin@events.com");
+        String adminPassword = options.getOrDefault("admin-password", "12345678");
+        if (nodes.size() < 2) {
+            throw new IllegalArgumentException("--nodes needs at least two base URLs");
+        }
+
+        CacheConvergenceCheck check = new CacheConvergenceCheck(nodes, timeoutMs);
+        long[] eventIds = ids(check.send(nodes.get(0), "GET", "/api/events", null, null, null).body(), EVENT_ID);
+        if (eventIds.length == 0) {
+            throw new IllegalStateException("No events found at " + nodes.get(0) + "; start the nodes with the loadtest profile");
+        }
+        for (int round = 0; round < rounds; round++) {
+            String writer = nodes.get(round % nodes.size());
+            String reader = nodes.get((round + 1) % nodes.size());
+            long eventId = eventIds[round % eventIds.length];
+            check.purchaseRound(writer, reader, eventId, EMAIL_PREFIX + (1 + round % users) + EMAIL_DOMAIN, password);
+            check.logoutRound(writer, reader, adminEmail, adminPassword);
+        }
+        System.exit(check.report(boundMs) ? 0 : 1);
+    }
+
+    /**
+     * Buys a ticket on the writer and waits for the reader's availability and ETag to change
+     */
+    private void purchaseRound(String writer, String reader, long eventId, String email, String password)
+            throws IOException, InterruptedException {
+        String available = send(reader, "GET", "/api/ticket-categories/event/" + eventId + "/available",
+                null, null, null).body();
+        long[] categoryIds = ids(available, TICKET_CATEGORY_ID);
+        if (categoryIds.length == 0) {
+            System.out.printf("event %d has nothing left to sell, skipped%n", eventId);
+            return;
+        }
+        long categoryId = categoryIds[0];
+        long soldBefore = ticketsSold(available, categoryId);
+        String etagBefore = send(reader, "GET", "/api/ticket-categories/event/" + eventId, null, null, null)
+                .headers().firstValue("ETag").orElse(null);
+
+        HttpResponse<String> login = login(writer, email, password);
+        String userId = match(login.body(), USER_ID);
+        HttpResponse<String> purchase = send(writer, "POST", "/api/tickets", "{\"user\":{\"userId\":" + userId + "},"
+                + "\"ticketCategory\":{\"ticketCategoryId\":" + categoryId + "}}", match(login.body(), TOKEN), null);
+        if (purchase.statusCode() != 200 && purchase.statusCode() != 201) {
+            throw new IllegalStateException("Purchase on " + writer + " failed: " + purchase.statusCode() + " " + purchase.body());
+        }
+        long committed = System.nanoTime();
+
+        await("availability", committed, () -> ticketsSold(send(reader, "GET",
+                "/api/ticket-categories/event/" + eventId + "/available", null, null, null).body(), categoryId) > soldBefore);
+        if (etagBefore != null) {
+            await("etag", committed, () -> send(reader, "GET", "/api/ticket-categories/event/" + eventId,
+                    null, null, etagBefore).statusCode() == 200);
+        }
+    }
+
+    /**
+     * Logs out an access token on the writer and waits for the reader to reject it
+     */
+    private void logoutRound(String writer, String reader, String email, String password)
+            throws IOException, InterruptedException {
+        String token = match(login(writer, email, password).body(), TOKEN);
+        if (send(reader, "GET", "/api/users/count", null, token, null).statusCode() != 200) {
+            throw new IllegalStateException("Reader " + reader + " does not accept a fresh admin token");
+        }
+        send(writer, "POST", "/api/users/logout", null, token, null);
+        long committed = System.nanoTime();
+        await("denylist", committed, () -> send(reader, "GET", "/api/users/count", null, token, null)
+                .statusCode() != 200);
+    }
+
+    private interface Condition {
+        boolean holds() throws IOException, InterruptedException;
+    }
+
+    private void await(String probe, long since, Condition condition) throws IOException, InterruptedException {
+        long deadline = since + timeoutMs * 1_000_000L;
+        while (!condition.holds()) {
+            if (System.nanoTime() > deadline) {
+                samples.get(probe).add(Long.MAX_VALUE);
+                System.out.printf("%-12s did not converge within %d ms%n", probe, timeoutMs);
+                return;
+            }
+            Thread.sleep(10);
+        }
+        samples.get(probe).add((System.nanoTime() - since) / 1_000_000L);
+    }
+
+    private boolean report(long boundMs) {
+        boolean ok = true;
+        System.out.printf("%n%-12s %7s %9s %9s %9s%n", "Probe", "Rounds", "p50 ms", "Max ms", "Bound");
+        for (Map.Entry<String, List<Long>> entry : samples.entrySet()) {
+            long[] sorted = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+            if (sorted.length == 0) {
+                continue;
+            }
+            long max = sorted[sorted.length - 1];
+            boolean within = max <= boundMs;
+            ok &= within;
+            System.out.printf("%-12s %7d %9s %9s %9s%n", entry.getKey(), sorted.length,
+                    format(sorted[(sorted.length - 1) / 2]), format(max), within ? "ok" : "EXCEEDED");
+        }
+        return ok;
+    }
+
+    private HttpResponse<String> login(String node, String email, String password)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = send(node, "POST", "/api/users/login?email="
+                + URLEncoder.encode(email, StandardCharsets.UTF_8) + "&password="
+                + URLEncoder.encode(password, StandardCharsets.UTF_8), null, null, null);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login as " + email + " on " + node + " failed: " + response.statusCode());
+        }
+        return response;
+    }
+
+    private HttpResponse<String> send(String node, String method, String path, String json, String token,
+                                      String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+                .timeout(Duration.ofSeconds(30))
+                .method(method, json != null ? HttpRequest.BodyPublishers.ofString(json) : HttpRequest.BodyPublishers.noBody());
+        if (json != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Sold count of one category in a list of categories; -1 if it is not listed
+    private static long ticketsSold(String body, long categoryId) {
+        int start = body.indexOf("\"ticketCategoryId\":" + categoryId + ",");
+        if (start < 0) {
+            return -1;
+        }
+        int end = body.indexOf("\"ticketCategoryId\":", start + 1);
+        String category = end < 0 ? body.substring(start) : body.substring(start, end);
+        String sold = match(category, TICKETS_SOLD);
+        return sold != null ? Long.parseLong(sold) : -1;
+    }
+
+    private static String format(long ms) {
+        return ms == Long.MAX_VALUE ? "timeout" : Long.toString(ms);
+    }
+
+    private static long[] ids(String body, Pattern pattern) {
+        Matcher matcher = pattern.matcher(body);
+        List<Long> ids = new ArrayList<>();
+        while (matcher.find()) {
+            long id = Long.parseLong(matcher.group(1));
+            if (!ids.contains(id)) {
+                ids.add(id);
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static String match(String body, Pattern pattern) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "true";
+            options.put(key, value);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,386 @@
+package it342.g4.e_vents.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load driver replaying a sale-day traffic mix against a
+ * running backend, typically one started with the "loadtest" profile:
+ *
+ * <pre>
+ *   mvn -Ploadtest spring-boot:run
+ *   java src/loadtest/java/it342/g4/e_vents/loadtest/LoadDriver.java --duration 60 --concurrency 32
+ * </pre>
+ *
+ * Runs as a single source file on the JDK alone. Each virtual user logs in as
+ * one of the seeded users, then loops over weighted operations until the
+ * deadline. Samples from the warm-up period are discarded; the report lists
+ * throughput and latency percentiles per endpoint and can be written as JSON
+ * with --json.
+ *
+ * Options: --base-url, --duration (s), --warmup (s), --concurrency, --users,
+ * --password, --think-ms, --json (output file).
+ */
+public class LoadDriver {
+
+    // Same as LoadTestDataGenerator; repeated because this file runs on its own
+    private static final String EMAIL_PREFIX = "loadtest-user-";
+    private static final String EMAIL_DOMAIN = "@events.test";
+
+    private static final Pattern EVENT_ID = Pattern.compile("\"eventId\":(\\d+)");
+    private static final Pattern TICKET_CATEGORY_ID = Pattern.compile("\"ticketCategoryId\":(\\d+)");
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+    private static final Pattern USER_ID = Pattern.compile("\"userId\":(\\d+)");
+
+    /** Sale-day mix: mostly browsing, a steady share of purchases. */
+    private enum Operation {
+        BROWSE_EVENTS("GET /api/events", 25),
+        VIEW_EVENT("GET /api/events/{id}", 15),
+        VIEW_CATEGORIES("GET /api/ticket-categories/event/{id}/available", 25),
+        LOGIN("POST /api/users/login", 5),
+        PURCHASE("POST /api/tickets", 15),
+        RATE_EVENT("POST /api/ratings", 5),
+        AVERAGE_RATING("GET /api/ratings/average/{id}", 10);
+
+        final String label;
+        final int weight;
+
+        Operation(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+
+    private final String baseUrl;
+    private final int users;
+    private final String password;
+    private final long thinkMs;
+    private final HttpClient client;
+
+    private long[] eventIds;
+    private long[] ticketCategoryIds;
+
+    LoadDriver(String baseUrl, int users, String password, long thinkMs) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.users = users;
+        this.password = password;
+        this.thinkMs = thinkMs;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        String password = options.getOrDefault("password", "loadtest123");
+        long thinkMs = Long.parseLong(options.getOrDefault("think-ms", "0"));
+
+        LoadDriver driver = new LoadDriver(baseUrl, users, password, thinkMs);
+        driver.discoverCatalog();
+        System.out.printf("Target %s: %d events, %d ticket categories; %d virtual users for %ds (+%ds warm-up)%n",
+                baseUrl, driver.eventIds.length, driver.ticketCategoryIds.length,
+                concurrency, durationSeconds, warmupSeconds);
+
+        Map<Operation, Stats> stats = driver.run(concurrency, warmupSeconds, durationSeconds);
+        report(stats, durationSeconds, System.out);
+        if (options.containsKey("json")) {
+            Files.writeString(Path.of(options.get("json")), toJson(stats, durationSeconds, concurrency));
+        }
+    }
+
+    private void discoverCatalog() throws IOException, InterruptedException {
+        eventIds = ids(get("/api/events").body(), EVENT_ID);
+        ticketCategoryIds = ids(get("/api/ticket-categories/available").body(), TICKET_CATEGORY_ID);
+        if (eventIds.length == 0 || ticketCategoryIds.length == 0) {
+            throw new IllegalStateException("No events or ticket categories found at " + baseUrl
+                    + "; start the backend with the loadtest profile");
+        }
+    }
+
+    private Map<Operation, Stats> run(int concurrency, int warmupSeconds, int durationSeconds)
+            throws InterruptedException {
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        List<Map<Operation, Stats>> perThread = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Map<Operation, Stats> local = newStatsMap();
+            perThread.add(local);
+            pool.execute(() -> new VirtualUser(local).run(measureFrom, deadline));
+        }
+        pool.shutdown();
+        pool.awaitTermination(warmupSeconds + durationSeconds + 60L, TimeUnit.SECONDS);
+
+        Map<Operation, Stats> merged = newStatsMap();
+        perThread.forEach(local -> local.forEach((op, s) -> merged.get(op).merge(s)));
+        return merged;
+    }
+
+    private final class VirtualUser {
+        private final Map<Operation, Stats> stats;
+        private final int totalWeight = Arrays.stream(Operation.values()).mapToInt(op -> op.weight).sum();
+        private long userId;
+        private String token;
+
+        VirtualUser(Map<Operation, Stats> stats) {
+            this.stats = stats;
+        }
+
+        void run(long measureFrom, long deadline) {
+            execute(Operation.LOGIN, measureFrom);
+            while (System.nanoTime() < deadline) {
+                execute(pick(), measureFrom);
+                if (thinkMs > 0) {
+                    try {
+                        Thread.sleep(thinkMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private Operation pick() {
+            int r = ThreadLocalRandom.current().nextInt(totalWeight);
+            for (Operation op : Operation.values()) {
+                r -= op.weight;
+                if (r < 0) {
+                    return op;
+                }
+            }
+            return Operation.BROWSE_EVENTS;
+        }
+
+        private void execute(Operation op, long measureFrom) {
+            long start = System.nanoTime();
+            int status;
+            try {
+                HttpResponse<String> response = send(op);
+                status = response.statusCode();
+                String id = op == Operation.LOGIN && status == 200 ? match(response.body(), USER_ID) : null;
+                if (id != null) {
+                    token = match(response.body(), TOKEN);
+                    userId = Long.parseLong(id);
+                }
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (start >= measureFrom) {
+                stats.get(op).record(System.nanoTime() - start, status);
+            }
+        }
+
+        private HttpResponse<String> send(Operation op) throws IOException, InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long eventId = eventIds[random.nextInt(eventIds.length)];
+            switch (op) {
+                case BROWSE_EVENTS:
+                    return get("/api/events");
+                case VIEW_EVENT:
+                    return get("/api/events/" + eventId);
+                case VIEW_CATEGORIES:
+                    return get("/api/ticket-categories/event/" + eventId + "/available");
+                case LOGIN:
+                    String email = EMAIL_PREFIX + (1 + random.nextInt(users)) + EMAIL_DOMAIN;
+                    return post("/api/users/login?email=" + encode(email) + "&password=" + encode(password),
+                            null, null);
+                case PURCHASE:
+                    long ticketCategoryId = ticketCategoryIds[random.nextInt(ticketCategoryIds.length)];
+                    return post("/api/tickets", "{\"user\":{\"userId\":" + userId + "},"
+                            + "\"ticketCategory\":{\"ticketCategoryId\":" + ticketCategoryId + "}}", null);
+                case RATE_EVENT:
+                    return post("/api/ratings?ratingValue=" + (1 + random.nextInt(5)) + "&entityId=" + eventId
+                            + "&entityType=EVENT", null, String.valueOf(userId));
+                case AVERAGE_RATING:
+                    return get("/api/ratings/average/" + eventId + "?entityType=EVENT");
+                default:
+                    throw new IllegalStateException("Unknown operation " + op);
+            }
+        }
+
+        private HttpResponse<String> post(String path, String json, String userIdHeader)
+                throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(json != null ? HttpRequest.BodyPublishers.ofString(json) : HttpRequest.BodyPublishers.noBody());
+            if (json != null) {
+                request.header("Content-Type", "application/json");
+            }
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            if (userIdHeader != null) {
+                request.header("User-Id", userIdHeader);
+            }
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET();
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** Latency samples and status counts of one operation. */
+    private static final class Stats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private final Map<Integer, Long> statuses = new LinkedHashMap<>();
+
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            statuses.merge(status, 1L, Long::sum);
+            if (status < 200 || status >= 400) {
+                errors++;
+            }
+        }
+
+        void merge(Stats other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+            other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    private static void report(Map<Operation, Stats> stats, int durationSeconds, PrintStream out) {
+        out.printf("%n%-50s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Req/s", "Errors", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "Max ms");
+        Stats total = new Stats();
+        for (Operation op : Operation.values()) {
+            Stats s = stats.get(op);
+            total.merge(s);
+            printRow(out, op.label, s, durationSeconds);
+        }
+        printRow(out, "TOTAL", total, durationSeconds);
+        out.println();
+        for (Operation op : Operation.values()) {
+            out.printf("%-50s statuses %s%n", op.label, stats.get(op).statuses);
+        }
+    }
+
+    private static void printRow(PrintStream out, String label, Stats s, int durationSeconds) {
+        long[] sorted = s.sorted();
+        out.printf("%-50s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, s.count,
+                (double) s.count / durationSeconds, s.errors, percentileMs(sorted, 50), percentileMs(sorted, 90),
+                percentileMs(sorted, 95), percentileMs(sorted, 99), percentileMs(sorted, 100));
+    }
+
+    private static String toJson(Map<Operation, Stats> stats, int durationSeconds, int concurrency) {
+        StringBuilder json = new StringBuilder("{\"durationSeconds\":").append(durationSeconds)
+                .append(",\"concurrency\":").append(concurrency).append(",\"endpoints\":[");
+        boolean first = true;
+        for (Operation op : Operation.values()) {
+            Stats s = stats.get(op);
+            long[] sorted = s.sorted();
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append(String.format(Locale.ROOT,
+                    "{\"endpoint\":\"%s\",\"requests\":%d,\"throughput\":%.2f,\"errors\":%d,"
+                            + "\"p50\":%.3f,\"p90\":%.3f,\"p95\":%.3f,\"p99\":%.3f,\"max\":%.3f}",
+                    op.label, s.count, (double) s.count / durationSeconds, s.errors,
+                    percentileMs(sorted, 50), percentileMs(sorted, 90), percentileMs(sorted, 95),
+                    percentileMs(sorted, 99), percentileMs(sorted, 100)));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static Map<Operation, Stats> newStatsMap() {
+        Map<Operation, Stats> map = new LinkedHashMap<>();
+        for (Operation op : Operation.values()) {
+            map.put(op, new Stats());
+        }
+        return map;
+    }
+
+    private static long[] ids(String body, Pattern pattern) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.results().mapToLong(m -> Long.parseLong(m.group(1))).distinct().toArray();
+    }
+
+    private static String match(String body, Pattern pattern) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "true";
+            options.put(key, value);
+        }
+        return options;
+    }
+}
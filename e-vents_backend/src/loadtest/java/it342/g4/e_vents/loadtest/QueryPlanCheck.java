@@ -0,0 +1,288 @@
+package it342.g4.e_vents.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that the repository queries are answered from an index. Runs
+ * EXPLAIN on the SQL of each selective repository method, with
+ * representative values, and fails if any table in a plan is read by a full
+ * scan. QueryPlanTest does the same in the build with the SQL Hibernate
+ * generates, on H2; this check is for a deployed MySQL schema, whose indexes
+ * are patched by hand from db/indexes.sql. Works against MySQL and against
+ * the H2 database of the loadtest profile; for H2 the backend has to use a
+ * file database so this process can open it too:
+ *
+ * <pre>
+ *   DB="jdbc:h2:file:/tmp/e-vents-plans;AUTO_SERVER=TRUE;MODE=MySQL;DATABASE_TO_LOWER=TRUE"
+ *   mvn -Ploadtest spring-boot:run \
+ *       -Dspring-boot.run.arguments="--spring.datasource.url=$DB"
+ *   java -cp ~/.m2/repository/com/h2database/h2/2.3.232/h2-2.3.232.jar \
+ *       src/loadtest/java/it342/g4/e_vents/loadtest/QueryPlanCheck.java --url "$DB" --user sa
+ * </pre>
+ *
+ * Modifying queries are explained as the SELECT of their WHERE clause, which
+ * is what decides how they find their rows. Queries that read a whole table
+ * on purpose (findAll, findByIsActiveTrue, the count*ByIsActiveTrue totals,
+ * substring searches and the per-type/per-user aggregates of the
+ * notification purge) are not listed. Add a probe here with every new
+ * repository query. Exits with status 1 if any plan has a full scan.
+ *
+ * Options: --url, --user, --password.
+ */
+public class QueryPlanCheck {
+
+    // H2 names the access path of each table in a comment: /* public.tickets.tableScan */ or /* public.idx: cond */
+    private static final Pattern H2_ACCESS = Pattern.compile("/\\* ([\\w.]+)(:[^*]*)? \\*/");
+
+    private static final Map<String, String> PROBES = new LinkedHashMap<>();
+
+    static {
+        // TicketRepository
+        probe("TicketRepository.findByUserUserIdAndIsActiveTrue",
+                "SELECT t.* FROM tickets t WHERE t.user_id = 1 AND t.is_active = TRUE");
+        probe("TicketRepository.findByTicketCategoryEventEventIdAndIsActiveTrue",
+                "SELECT t.* FROM tickets t JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "WHERE tc.event_id = 1 AND t.is_active = TRUE");
+        probe("TicketRepository.findByTicketCategoryTicketCategoryIdAndIsActiveTrue",
+                "SELECT t.* FROM tickets t WHERE t.ticket_category_id = 1 AND t.is_active = TRUE");
+        probe("TicketRepository.findByStatus",
+                "SELECT t.* FROM tickets t WHERE t.status = 'REFUNDED'");
+        probe("TicketRepository.findByTicketIdAndIsActiveTrue",
+                "SELECT t.* FROM tickets t WHERE t.ticket_id = 1 AND t.is_active = TRUE");
+        probe("TicketRepository.streamAttendeesByEventId",
+                "SELECT t.ticket_id, tc.name, u.email FROM tickets t "
+                        + "JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "JOIN events e ON e.event_id = tc.event_id JOIN users u ON u.user_id = t.user_id "
+                        + "WHERE e.event_id = 1 AND t.is_active = TRUE AND t.status <> 'REFUNDED' ORDER BY t.ticket_id");
+        probe("TicketRepository.streamPurchasesByEventId",
+                "SELECT tc.ticket_category_id, tc.price, t.purchase_date FROM tickets t "
+                        + "JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "WHERE tc.event_id = 1 AND t.purchase_date IS NOT NULL AND t.status <> 'REFUNDED'");
+        probe("TicketRepository.findRefundableChunk",
+                "SELECT t.ticket_id FROM tickets t JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "WHERE tc.event_id = 1 AND t.ticket_id > 0 AND t.is_active = TRUE AND t.status <> 'REFUNDED' "
+                        + "ORDER BY t.ticket_id LIMIT 500");
+        probe("TicketRepository.streamAdmittingTicketsByEventId",
+                "SELECT t.ticket_id FROM tickets t JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "WHERE tc.event_id = 1 AND t.is_active = TRUE AND t.status <> 'REFUNDED' "
+                        + "AND t.modified_at >= TIMESTAMP '2026-01-01 00:00:00' ORDER BY t.ticket_id");
+        probe("TicketRepository.findRevokedTicketIdsByEventId",
+                "SELECT t.ticket_id FROM tickets t JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "WHERE tc.event_id = 1 AND (t.is_active = FALSE OR t.status = 'REFUNDED')");
+        probe("TicketRepository.findIdsByEventId",
+                "SELECT t.ticket_id FROM tickets t JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+                        + "WHERE tc.event_id = 1 ORDER BY t.ticket_id LIMIT 500");
+        probe("TicketRepository.markRefunded",
+                "SELECT t.ticket_id FROM tickets t WHERE t.ticket_id IN (1, 2, 3) AND t.is_active = TRUE "
+                        + "AND t.status <> 'REFUNDED'");
+
+        // TicketCategoryRepository
+        probe("TicketCategoryRepository.findByStatus",
+                "SELECT tc.* FROM ticket_categories tc WHERE tc.status = 'CLOSED'");
+        probe("TicketCategoryRepository.existsByName",
+                "SELECT tc.ticket_category_id FROM ticket_categories tc WHERE tc.name = 'VIP' LIMIT 1");
+        probe("TicketCategoryRepository.findByEventEventIdAndIsActiveTrue",
+                "SELECT tc.* FROM ticket_categories tc WHERE tc.event_id = 1 AND tc.is_active = TRUE");
+        probe("TicketCategoryRepository.findAvailableTicketCategoriesByEventId",
+                "SELECT tc.* FROM ticket_categories tc WHERE tc.event_id = 1 AND tc.total_tickets > tc.tickets_sold "
+                        + "AND tc.is_active = TRUE AND tc.status <> 'CLOSED'");
+        probe("TicketCategoryRepository.reserveTicket",
+                "SELECT tc.ticket_category_id FROM ticket_categories tc WHERE tc.ticket_category_id = 1 "
+                        + "AND tc.tickets_sold < tc.total_tickets AND tc.status <> 'CLOSED'");
+        probe("TicketCategoryRepository.closeSalesByEventId",
+                "SELECT tc.ticket_category_id FROM ticket_categories tc WHERE tc.event_id = 1 AND tc.status <> 'CLOSED'");
+
+        // RatingRepository
+        probe("RatingRepository.findByRatedEntityIdAndRatedEntityTypeAndIsActiveTrue",
+                "SELECT r.* FROM ratings r WHERE r.rated_entity_id = 1 AND r.rated_entity_type = 'EVENT' "
+                        + "AND r.is_active = TRUE");
+        probe("RatingRepository.findByRatedEntityIdAndRatedEntityType",
+                "SELECT r.* FROM ratings r WHERE r.rated_entity_id = 1 AND r.rated_entity_type = 'EVENT'");
+        probe("RatingRepository.findByUserUserIdAndIsActiveTrue",
+                "SELECT r.* FROM ratings r WHERE r.user_id = 1 AND r.is_active = TRUE");
+
+        // NotificationRepository
+        probe("NotificationRepository.findByUserUserIdAndIsActiveTrue",
+                "SELECT n.* FROM notifications n WHERE n.user_id = 1 AND n.is_active = TRUE");
+        probe("NotificationRepository.findByUserUserIdAndReadFalseAndIsActiveTrue",
+                "SELECT n.* FROM notifications n WHERE n.user_id = 1 AND n.`read` = FALSE AND n.is_active = TRUE");
+        probe("NotificationRepository.findIdsByEventId",
+                "SELECT n.notification_id FROM notifications n WHERE n.event_id = 1 ORDER BY n.notification_id LIMIT 500");
+        probe("NotificationRepository.deleteByTypeCreatedBefore",
+                "SELECT n.notification_id FROM notifications n WHERE n.type = 'SYSTEM' "
+                        + "AND n.created_at < TIMESTAMP '2026-01-01 00:00:00' LIMIT 1000");
+        probe("NotificationRepository.deleteReadBefore",
+                "SELECT n.notification_id FROM notifications n WHERE n.read_at < TIMESTAMP '2026-01-01 00:00:00' LIMIT 1000");
+        probe("NotificationRepository.findNewestIdOverCap",
+                "SELECT n.notification_id FROM notifications n WHERE n.user_id = 1 "
+                        + "ORDER BY n.notification_id DESC LIMIT 1 OFFSET 200");
+        probe("NotificationRepository.deleteByUserUpTo",
+                "SELECT n.notification_id FROM notifications n WHERE n.user_id = 1 AND n.notification_id <= 1000 LIMIT 1000");
+
+        // EventRepository
+        probe("EventRepository.findByStatus",
+                "SELECT e.* FROM events e WHERE e.status = 'SCHEDULED'");
+        probe("EventRepository.findStartsByStatusUntil",
+                "SELECT e.event_id, e.date, e.time FROM events e WHERE e.status = 'SCHEDULED' AND e.date <= DATE '2026-01-01'");
+        probe("EventRepository.findStartsByStatusBetween",
+                "SELECT e.event_id, e.date, e.time FROM events e WHERE e.status = 'SCHEDULED' "
+                        + "AND e.date BETWEEN DATE '2026-01-01' AND DATE '2026-01-02'");
+        probe("EventRepository.findScheduleById",
+                "SELECT e.status, e.date, e.time FROM events e WHERE e.event_id = 1");
+        probe("EventRepository.findArchivable",
+                "SELECT e.event_id FROM events e WHERE e.status IN ('COMPLETED', 'CANCELLED') "
+                        + "AND e.date < DATE '2026-01-01' AND NOT EXISTS (SELECT 1 FROM refund_jobs r "
+                        + "WHERE r.event_id = e.event_id AND r.status = 'RUNNING') ORDER BY e.date LIMIT 20");
+        probe("EventRepository.deleteLineup",
+                "SELECT l.lineup_act_id FROM events_lineup l WHERE l.events_event_id = 1");
+
+        // UserRepository
+        probe("UserRepository.findByEmail",
+                "SELECT u.* FROM users u WHERE u.email = 'admin@events.com'");
+        probe("UserRepository.findIdsByIsActiveFalse",
+                "SELECT u.user_id FROM users u WHERE u.is_active = FALSE");
+
+        // RefreshTokenRepository
+        probe("RefreshTokenRepository.findByTokenHash",
+                "SELECT r.* FROM refresh_tokens r WHERE r.token_hash = 'x'");
+        probe("RefreshTokenRepository.revokeFamily",
+                "SELECT r.refresh_token_id FROM refresh_tokens r WHERE r.family_id = 'x' AND r.revoked = FALSE");
+        probe("RefreshTokenRepository.revokeAllForUser",
+                "SELECT r.refresh_token_id FROM refresh_tokens r WHERE r.user_id = 1 AND r.revoked = FALSE");
+        probe("RefreshTokenRepository.deleteExpiredBefore",
+                "SELECT r.refresh_token_id FROM refresh_tokens r WHERE r.expires_at < TIMESTAMP '2026-01-01 00:00:00'");
+
+        // Catalog lookups by name
+        probe("ActRepository.findByName", "SELECT a.* FROM acts a WHERE a.name = 'x'");
+        probe("TagsRepository.findByName", "SELECT t.* FROM tags t WHERE t.name = 'x'");
+        probe("TagsRepository.findByCategory", "SELECT t.* FROM tags t WHERE t.category_id = 1");
+        probe("CategoryRepository.findByName", "SELECT c.* FROM categories c WHERE c.name = 'x'");
+        probe("RoleRepository.findByName", "SELECT r.* FROM roles r WHERE r.name = 'ADMIN'");
+
+        // Background jobs
+        probe("RefundJobRepository.findByStatus", "SELECT r.* FROM refund_jobs r WHERE r.status = 'RUNNING'");
+        probe("OutboxEventRepository.findBatch",
+                "SELECT o.* FROM outbox_events o WHERE o.event_id > 0 ORDER BY o.event_id LIMIT 500");
+        probe("CacheInvalidationRepository.findBatch",
+                "SELECT c.* FROM cache_invalidations c WHERE c.id > 0 ORDER BY c.id LIMIT 1000");
+        probe("CacheInvalidationRepository.deleteIssuedBefore",
+                "SELECT c.id FROM cache_invalidations c WHERE c.issued_at < 0");
+        probe("EventReminderRepository.deleteStartedBefore",
+                "SELECT r.event_reminder_id FROM event_reminders r WHERE r.starts_at < TIMESTAMP '2026-01-01 00:00:00' LIMIT 1000");
+
+        // SalesRollupRepository
+        probe("SalesRollupRepository.recordRefund",
+                "SELECT s.sales_rollup_id FROM sales_rollups s WHERE s.ticket_category_id = 1 "
+                        + "AND s.bucket_start = TIMESTAMP '2026-01-01 00:00:00'");
+        probe("SalesRollupRepository.sumByTicketCategory",
+                "SELECT s.ticket_category_id, SUM(s.tickets_sold) FROM sales_rollups s WHERE s.event_id = 1 "
+                        + "GROUP BY s.ticket_category_id");
+        probe("SalesRollupRepository.findEventBuckets",
+                "SELECT s.* FROM sales_rollups s WHERE s.event_id = 1 AND s.bucket_start >= TIMESTAMP '2026-01-01 00:00:00' "
+                        + "AND s.bucket_start < TIMESTAMP '2026-01-02 00:00:00' ORDER BY s.bucket_start");
+        probe("SalesRollupRepository.findTicketCategoryBuckets",
+                "SELECT s.* FROM sales_rollups s WHERE s.ticket_category_id = 1 "
+                        + "AND s.bucket_start >= TIMESTAMP '2026-01-01 00:00:00' "
+                        + "AND s.bucket_start < TIMESTAMP '2026-01-02 00:00:00' ORDER BY s.bucket_start");
+
+        // CheckInRepository
+        probe("CheckInRepository.findTicketIdsByEventId", "SELECT c.ticket_id FROM check_ins c WHERE c.event_id = 1");
+
+        // Archive reads
+        probe("ArchivedEventRepository.findByStatus", "SELECT e.* FROM events_archive e WHERE e.status = 'COMPLETED'");
+        probe("ArchivedTicketCategoryRepository.findByEventId",
+                "SELECT tc.* FROM ticket_categories_archive tc WHERE tc.event_id = 1");
+        probe("ArchivedTicketRepository.findByUserIdAndIsActiveTrue",
+                "SELECT t.* FROM tickets_archive t WHERE t.user_id = 1 AND t.is_active = TRUE");
+        probe("ArchivedTicketRepository.findByEventIdAndIsActiveTrue",
+                "SELECT t.* FROM tickets_archive t WHERE t.event_id = 1 AND t.is_active = TRUE");
+        probe("ArchivedNotificationRepository.findByUserIdAndIsActiveTrue",
+                "SELECT n.* FROM notifications_archive n WHERE n.user_id = 1 AND n.is_active = TRUE");
+    }
+
+    private static void probe(String method, String sql) {
+        PROBES.put(method, sql);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Map<String, String> options = parseOptions(args);
+        String url = options.getOrDefault("url", "jdbc:h2:file:/tmp/e-vents-plans;AUTO_SERVER=TRUE;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        int scans = 0;
+        try (Connection connection = DriverManager.getConnection(url,
+                options.getOrDefault("user", "sa"), options.getOrDefault("password", ""))) {
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            System.out.printf("%-72s %s%n", "Repository method", "Access");
+            for (Map.Entry<String, String> probe : PROBES.entrySet()) {
+                List<String> access = mysql ? explainMysql(connection, probe.getValue())
+                        : explainH2(connection, probe.getValue());
+                boolean scan = access.stream().anyMatch(path -> path.startsWith("SCAN "));
+                if (scan) {
+                    scans++;
+                }
+                System.out.printf("%-72s %s%n", probe.getKey(), String.join(", ", access));
+            }
+        }
+        System.out.printf("%n%d queries, %d with a full scan%n", PROBES.size(), scans);
+        System.exit(scans == 0 ? 0 : 1);
+    }
+
+    /**
+     * Access path per table: "SCAN table" for a full table or index scan, the index used otherwise
+     */
+    private static List<String> explainMysql(Connection connection, String sql) throws SQLException {
+        List<String> access = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                String table = rows.getString("table");
+                String type = rows.getString("type");
+                if (table == null || type == null) {
+                    // No table to read, e.g. an impossible WHERE
+                    continue;
+                }
+                access.add("ALL".equals(type) || "index".equals(type) ? "SCAN " + table
+                        : table + " by " + rows.getString("key"));
+            }
+        }
+        return access;
+    }
+
+    private static List<String> explainH2(Connection connection, String sql) throws SQLException {
+        List<String> access = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            rows.next();
+            Matcher matcher = H2_ACCESS.matcher(rows.getString(1));
+            while (matcher.find()) {
+                String path = matcher.group(1);
+                // An index without a condition is read from end to end
+                access.add(path.endsWith(".tableScan") || matcher.group(2) == null
+                        ? "SCAN " + path.replace(".tableScan", "") : path);
+            }
+        }
+        return access;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "";
+            options.put(key, value);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,212 @@
+package it342.g4.e_vents.cluster;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.model.CacheInvalidation;
+import it342.g4.e_vents.repository.CacheInvalidationRepository;
+import it342.g4.e_vents.util.TransactionHooks;
+
+/**
+ * Keeps the in-process caches of all replicas coherent through the shared
+ * database. A cache publishes the keys it changed; once the transaction
+ * commits they are queued, coalesced, and written to cache_invalidations in
+ * one batch per flush interval. Every node polls the table and hands rows
+ * from other nodes to the listeners of their region, so a change made on one
+ * node is visible everywhere within flush-interval + poll-interval.
+ *
+ * Row IDs are handed out at insert and become visible at commit, so the poll
+ * keeps a watermark below the first recent gap and re-reads past it; rows
+ * already applied are remembered until the watermark passes them. A gap
+ * older than the gap timeout is a rolled-back insert and is skipped.
+ *
+ * Invalidation is best effort: if a node dies between commit and flush its
+ * last changes are not broadcast, and the caches' own expiry bounds how long
+ * the other nodes serve them.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    /**
+     * Applies a change made on another node
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param key The changed entry, or null for the whole region
+         * @param issuedAtMillis When the origin node made the change
+         */
+        void invalidate(String key, long issuedAtMillis);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String INSERT_INVALIDATION =
+            "INSERT INTO cache_invalidations (region, cache_key, origin, issued_at) VALUES (?, ?, ?, ?)";
+
+    static final String PURGE_JOB = "cache-invalidation-purge";
+
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeases jobLeases;
+    private final String nodeId;
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final long retentionMillis;
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    // Coalesces repeated changes of one entry between flushes; the value is the latest change time
+    private final Map<Entry, Long> outgoing = new ConcurrentHashMap<>();
+    private final Counter published;
+    private final Counter applied;
+
+    // Only touched by the scheduled poll
+    private long watermark = -1;
+    private final Set<Long> appliedAboveWatermark = new HashSet<>();
+
+    @Autowired
+    public CacheInvalidationBus(CacheInvalidationRepository cacheInvalidationRepository, JdbcTemplate jdbcTemplate,
+                                JobLeases jobLeases, NodeIdentity nodeIdentity,
+                                @Value("${cluster.cache-bus.batch-size:1000}") int batchSize,
+                                @Value("${cluster.cache-bus.gap-timeout:5s}") Duration gapTimeout,
+                                @Value("${cluster.cache-bus.retention:10m}") Duration retention,
+                                MeterRegistry meterRegistry) {
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeases = jobLeases;
+        this.nodeId = nodeIdentity.getId();
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeout.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.published = Counter.builder("events.cache.invalidations")
+                .tag("direction", "published")
+                .description("Cache invalidations exchanged with other nodes")
+                .register(meterRegistry);
+        this.applied = Counter.builder("events.cache.invalidations")
+                .tag("direction", "applied")
+                .description("Cache invalidations exchanged with other nodes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the listener that applies a region's changes made on other nodes
+     * @param region Region name, at most 32 characters
+     * @param listener Called on the poll thread; must be quick and thread-safe
+     */
+    public void subscribe(String region, Listener listener) {
+        listeners.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Broadcasts a changed entry to the other nodes once the current transaction commits
+     * @param region Region name
+     * @param key The changed entry, or null for the whole region
+     */
+    public void publish(String region, String key) {
+        TransactionHooks.afterCommit(() -> outgoing.merge(new Entry(region, key), System.currentTimeMillis(), Math::max));
+    }
+
+    /**
+     * Writes queued invalidations in one batch. A failed batch is queued again for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${cluster.cache-bus.flush-interval-ms:200}")
+    public void flush() {
+        if (outgoing.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(outgoing.size());
+        Map<Entry, Long> taken = new HashMap<>();
+        for (Iterator<Map.Entry<Entry, Long>> it = outgoing.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Entry, Long> change = it.next();
+            it.remove();
+            taken.put(change.getKey(), change.getValue());
+            rows.add(new Object[] {change.getKey().region(), change.getKey().key(), nodeId, change.getValue()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_INVALIDATION, rows);
+            published.increment(rows.size());
+        } catch (DataAccessException e) {
+            taken.forEach((entry, issuedAt) -> outgoing.merge(entry, issuedAt, Math::max));
+            logger.warn("Could not publish {} cache invalidations, retrying: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Applies invalidations published by other nodes
+     */
+    @Scheduled(fixedDelayString = "${cluster.cache-bus.poll-interval-ms:500}")
+    public void poll() {
+        if (watermark < 0) {
+            // Caches start empty, so history from before this node started is irrelevant
+            watermark = cacheInvalidationRepository.findMaxId();
+            return;
+        }
+        List<CacheInvalidation> rows = cacheInvalidationRepository.findBatch(watermark, PageRequest.of(0, batchSize));
+        long settled = System.currentTimeMillis() - gapTimeoutMillis;
+        long contiguous = watermark;
+        boolean gap = false;
+        for (CacheInvalidation row : rows) {
+            if (row.getId() != contiguous + 1 && row.getIssuedAt() > settled) {
+                gap = true;
+            }
+            if (!gap) {
+                contiguous = row.getId();
+            }
+            if (appliedAboveWatermark.add(row.getId()) && !nodeId.equals(row.getOrigin())) {
+                apply(row);
+            }
+        }
+        watermark = contiguous;
+        appliedAboveWatermark.removeIf(id -> id <= watermark);
+    }
+
+    /**
+     * Deletes invalidations every node has long since applied
+     */
+    @Scheduled(fixedDelayString = "${cluster.cache-bus.purge-interval-ms:60000}")
+    @Transactional
+    public void purge() {
+        if (!jobLeases.isOwner(PURGE_JOB)) {
+            return;
+        }
+        cacheInvalidationRepository.deleteIssuedBefore(System.currentTimeMillis() - retentionMillis);
+    }
+
+    private void apply(CacheInvalidation row) {
+        List<Listener> regionListeners = listeners.get(row.getRegion());
+        if (regionListeners == null) {
+            return;
+        }
+        for (Listener listener : regionListeners) {
+            try {
+                listener.invalidate(row.getCacheKey(), row.getIssuedAt());
+            } catch (RuntimeException e) {
+                logger.warn("Cache invalidation {}/{} failed: {}", row.getRegion(), row.getCacheKey(), e.getMessage());
+            }
+        }
+        applied.increment();
+    }
+
+    private record Entry(String region, String key) {
+    }
+}
@@ -0,0 +1,245 @@
+package it342.g4.e_vents.cluster;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import it342.g4.e_vents.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Runs per-event work at a point in time, once for the whole cluster.
+ * Subclasses say which items exist and what to do when one is due; this
+ * class keeps them in order.
+ *
+ * Upcoming items wait in a queue ordered by due time, so a tick only looks
+ * at its head. The queue holds the items due within the horizon and is
+ * refilled by {@link #reload}, which subclasses run on a schedule with a
+ * range query, never a scan. Event writes on any replica reschedule their
+ * event through the cache invalidation bus. Every replica keeps the queue,
+ * but only the holder of the job lease runs items, and it reloads when it
+ * takes the lease over, since items that came due while another replica
+ * led were dropped here.
+ *
+ * Each item has a key, at most one live item per key; an item replaced
+ * while queued is skipped when it reaches the head. An item whose run
+ * throws is queued again.
+ *
+ * @param <K> Key of an item, such as the event ID
+ * @param <T> A scheduled item
+ */
+public abstract class HorizonScheduler<K, T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(HorizonScheduler.class);
+
+    private final String job;
+    private final String region;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final JobLeases jobLeases;
+    private final Duration horizon;
+    private final int maxPerTick;
+
+    // All guarded by this; pending holds the live item of each key, older ones in the queue are skipped
+    private final PriorityQueue<T> queue = new PriorityQueue<>(Comparator.comparing(this::dueAt));
+    private final Map<K, T> pending = new HashMap<>();
+    private LocalDateTime loadedUntil = LocalDateTime.MIN;
+
+    // Only touched by the scheduled tick
+    private boolean leading;
+
+    /**
+     * @param job Name of the job lease
+     * @param region Cache invalidation bus region for reschedules
+     * @param horizon How far ahead the queue is filled
+     * @param maxPerTick Most items run by one tick
+     */
+    protected HorizonScheduler(String job, String region, CacheInvalidationBus cacheInvalidationBus,
+                               JobLeases jobLeases, Duration horizon, int maxPerTick) {
+        this.job = job;
+        this.region = region;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.jobLeases = jobLeases;
+        this.horizon = horizon;
+        this.maxPerTick = maxPerTick;
+    }
+
+    // Not in the constructor, the callbacks need the subclass fields
+    @PostConstruct
+    void subscribe() {
+        cacheInvalidationBus.subscribe(region, (key, issuedAt) -> {
+            if (key != null) {
+                load(Long.valueOf(key));
+            } else {
+                reload();
+            }
+        });
+    }
+
+    protected abstract K keyOf(T item);
+
+    protected abstract LocalDateTime dueAt(T item);
+
+    /**
+     * Items due up to a point in time, including overdue ones that should still run
+     * @param now The current time
+     * @param until End of the horizon
+     */
+    protected abstract List<T> findDue(LocalDateTime now, LocalDateTime until);
+
+    /**
+     * An event's current items, whenever they are due
+     * @param eventId The event ID
+     * @param now The current time
+     */
+    protected abstract List<T> findByEventId(Long eventId, LocalDateTime now);
+
+    /**
+     * Every key an event's items can have, so stale ones are dropped when it changes
+     */
+    protected abstract List<K> keysOf(Long eventId);
+
+    /**
+     * Runs a due item on the lease holder
+     * @param item The item
+     * @param now Time of the tick
+     * @throws RuntimeException to have the item queued again
+     */
+    protected abstract void run(T item, LocalDateTime now);
+
+    /**
+     * The item in log messages, e.g. "the 1h reminder of event 12"
+     */
+    protected abstract String describe(T item);
+
+    /**
+     * Re-reads an event's items once the current transaction commits, here
+     * and on the other replicas, after it was created, edited or deleted
+     * @param eventId The event ID
+     */
+    public void reschedule(Long eventId) {
+        if (eventId != null) {
+            TransactionHooks.afterCommit(() -> load(eventId));
+            cacheInvalidationBus.publish(region, eventId.toString());
+        }
+    }
+
+    /**
+     * Reloads the queue here and on the other replicas, after events were written in bulk
+     */
+    public void rescheduleAll() {
+        TransactionHooks.afterCommit(this::reload);
+        cacheInvalidationBus.publish(region, null);
+    }
+
+    /**
+     * Loads the queue once startup data is in place; the first scheduled
+     * reload runs before the command line runners
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Refills the queue with every item due before now + horizon
+     */
+    public void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(horizon);
+        List<T> found = findDue(now, until);
+        synchronized (this) {
+            found.forEach(this::enqueue);
+            loadedUntil = until;
+        }
+    }
+
+    /**
+     * Runs the items that are due, at most max-per-tick per call
+     */
+    public void tick() {
+        boolean owner = isOwner();
+        if (owner && !leading) {
+            reload();
+        }
+        leading = owner;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && !dueAt(queue.peek()).isAfter(now) && due.size() < maxPerTick) {
+                T item = queue.poll();
+                if (pending.remove(keyOf(item), item)) {
+                    due.add(item);
+                }
+            }
+        }
+        if (!owner) {
+            // The leader runs them
+            return;
+        }
+        for (T item : due) {
+            try {
+                run(item, now);
+            } catch (RuntimeException e) {
+                logger.warn("Could not run {}, retrying: {}", describe(item), e.getMessage());
+                synchronized (this) {
+                    enqueue(item);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues an item that became known after the last reload, such as the
+     * next step of an item that just ran; later ones are picked up by a reload
+     */
+    protected void offer(T item) {
+        synchronized (this) {
+            if (!dueAt(item).isAfter(loadedUntil)) {
+                enqueue(item);
+            }
+        }
+    }
+
+    /**
+     * @return true if this node holds the job lease
+     */
+    protected boolean isOwner() {
+        return jobLeases.isOwner(job);
+    }
+
+    /**
+     * Start of an event from the date and time columns of a projection row
+     */
+    protected static LocalDateTime startOf(Object date, Object time) {
+        return LocalDateTime.of((LocalDate) date, (LocalTime) time);
+    }
+
+    private void load(Long eventId) {
+        List<T> items = findByEventId(eventId, LocalDateTime.now());
+        synchronized (this) {
+            keysOf(eventId).forEach(pending::remove);
+            items.forEach(this::offer);
+        }
+    }
+
+    // Caller holds this
+    private void enqueue(T item) {
+        T previous = pending.put(keyOf(item), item);
+        if (!item.equals(previous)) {
+            queue.add(item);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package it342.g4.e_vents.cluster;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.repository.JobLeaseRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Leader election per scheduled job, so work that must happen once for the
+ * whole cluster runs on one replica at a time. Every replica keeps calling
+ * the job's @Scheduled method; the method returns early unless
+ * {@link #isOwner} says this node holds the job's lease in job_leases.
+ *
+ * Leases are renewed on a dedicated thread, so a long job on the shared
+ * scheduler thread cannot make its own lease lapse. Expiry is set and
+ * checked on the database's clock; an owner measures its own lease from
+ * before each renewal and treats it as lost a safety margin early, which
+ * covers the renewal round trip and drift between the clocks' rates. A node
+ * that dies or stops renewing loses its jobs to the next replica that tries
+ * within lease-ttl + renew-interval; a node that shuts down releases them
+ * at once.
+ *
+ * A node paused past its lease, by a long GC or a stalled connection, still
+ * believes it owns the job when it resumes. Every takeover therefore bumps
+ * the lease's fencing token, and jobs whose writes must not be repeated call
+ * {@link #fence} in each transaction with the token they started with, so a
+ * stale owner's transaction rolls back instead of committing. Jobs also keep
+ * their writes conditional and check ownership between batches.
+ */
+@Component
+public class JobLeases {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeases.class);
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Duration ttl;
+    private final long validNanos;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService renewer;
+
+    @Autowired
+    public JobLeases(JobLeaseRepository jobLeaseRepository, PlatformTransactionManager transactionManager,
+                     NodeIdentity nodeIdentity,
+                     @Value("${cluster.lease.ttl:10s}") Duration ttl,
+                     @Value("${cluster.lease.renew-interval:2s}") Duration renewInterval,
+                     @Value("${cluster.lease.safety-margin:2s}") Duration safetyMargin,
+                     MeterRegistry meterRegistry) {
+        if (safetyMargin.plus(renewInterval).compareTo(ttl) >= 0) {
+            throw new IllegalArgumentException("cluster.lease.ttl must exceed renew-interval + safety-margin");
+        }
+        this.jobLeaseRepository = jobLeaseRepository;
+        // Never joins the caller's transaction: a lease must commit on its own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeIdentity.getId();
+        this.ttl = ttl;
+        this.validNanos = ttl.minus(safetyMargin).toNanos();
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renewAll, renewInterval.toMillis(), renewInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        Gauge.builder("events.cluster.leases.held", leases, l -> l.values().stream().filter(Lease::valid).count())
+                .description("Cluster-wide jobs this node currently runs")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether this node should run a cluster-wide job now. The first
+     * call for a job registers it and tries to take its lease; after that the
+     * lease is renewed or taken over in the background.
+     * @param jobName The job, at most 64 characters
+     * @return true if this node holds the job's lease
+     */
+    public boolean isOwner(String jobName) {
+        Lease lease = leases.get(jobName);
+        if (lease == null) {
+            Lease registered = new Lease(jobName);
+            lease = leases.putIfAbsent(jobName, registered);
+            if (lease == null) {
+                lease = registered;
+                acquire(lease);
+            }
+        }
+        return lease.valid();
+    }
+
+    /**
+     * The fencing token of a job's lease, to be passed to {@link #fence} by
+     * every transaction of one run
+     * @param jobName The job
+     * @return The token, or 0 if this node does not hold the lease, which no fence accepts
+     */
+    public long fencingToken(String jobName) {
+        Lease lease = leases.get(jobName);
+        return lease != null && lease.valid() ? lease.fencingToken : 0;
+    }
+
+    /**
+     * Checks in the caller's transaction that a job's lease still carries the
+     * token, and keeps the lease row share-locked until that transaction ends,
+     * so another node cannot take the lease over while it commits
+     * @param jobName The job
+     * @param fencingToken The token from {@link #fencingToken}
+     * @throws LeaseLostException if the lease was taken over since, which rolls the transaction back
+     */
+    public void fence(String jobName, long fencingToken) {
+        if (jobLeaseRepository.findByJobNameAndFencingToken(jobName, fencingToken).isEmpty()) {
+            throw new LeaseLostException(jobName);
+        }
+    }
+
+    /**
+     * Releases every lease this node holds so other nodes take the jobs over without waiting
+     */
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+        for (Lease lease : leases.values()) {
+            if (lease.valid()) {
+                lease.validUntil = System.nanoTime();
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            jobLeaseRepository.release(lease.jobName, nodeId));
+                } catch (RuntimeException e) {
+                    logger.warn("Could not release job lease {}: {}", lease.jobName, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void renewAll() {
+        for (Lease lease : leases.values()) {
+            acquire(lease);
+        }
+    }
+
+    // Renews a held lease, or tries to take one over; synchronized per lease against the first isOwner call
+    private void acquire(Lease lease) {
+        synchronized (lease) {
+            // Taken before the round trip, so the local validity never outlasts the row
+            long started = System.nanoTime();
+            long ttlMicros = ttl.toNanos() / 1000;
+            boolean wasOwner = lease.valid();
+            try {
+                Long token = transactionTemplate.execute(status -> {
+                    // Renewal also succeeds if the lease only lapsed locally, since nobody else can hold it then
+                    if (jobLeaseRepository.renew(lease.jobName, nodeId, ttlMicros) == 1
+                            || jobLeaseRepository.takeOver(lease.jobName, nodeId, ttlMicros) == 1
+                            || jobLeaseRepository.insertIfAbsent(lease.jobName, nodeId, ttlMicros) == 1) {
+                        return jobLeaseRepository.findFencingToken(lease.jobName, nodeId).orElse(null);
+                    }
+                    return null;
+                });
+                if (token != null) {
+                    lease.fencingToken = token;
+                    lease.validUntil = started + validNanos;
+                    if (!wasOwner) {
+                        logger.info("Node {} took over job {}", nodeId, lease.jobName);
+                    }
+                } else {
+                    lease.validUntil = started;
+                    if (wasOwner) {
+                        logger.warn("Node {} lost job {} to another node", nodeId, lease.jobName);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Keeps the lease until it lapses locally; the next renewal may still succeed
+                logger.warn("Could not renew job lease {}: {}", lease.jobName, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Lease {
+        private final String jobName;
+        // System.nanoTime() until which this node may run the job
+        private volatile long validUntil = System.nanoTime();
+        // Token of the last renewal or takeover, written before validUntil
+        private volatile long fencingToken;
+
+        private Lease(String jobName) {
+            this.jobName = jobName;
+        }
+
+        private boolean valid() {
+            return validUntil - System.nanoTime() > 0;
+        }
+    }
+}
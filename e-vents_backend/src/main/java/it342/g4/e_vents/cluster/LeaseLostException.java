@@ -0,0 +1,13 @@
+package it342.g4.e_vents.cluster;
+
+/**
+ * Thrown inside a cluster-wide job's transaction when another node has taken
+ * the job's lease over since this node read its fencing token. The
+ * transaction rolls back, so nothing the stale owner wrote is committed.
+ */
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(String jobName) {
+        super("Job lease " + jobName + " was taken over by another node");
+    }
+}
@@ -0,0 +1,43 @@
+package it342.g4.e_vents.cluster;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Name of this instance among the replicas sharing the database. Defaults to
+ * the host name (the container ID under Docker) plus a random suffix, so a
+ * restarted container is a new node and never mistakes another node's
+ * messages or leases for its own.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    @Autowired
+    public NodeIdentity(@Value("${cluster.node-id:}") String configuredId) {
+        this.id = configuredId.isBlank() ? hostName() + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : configuredId;
+    }
+
+    /**
+     * @return This instance's node ID, at most 64 characters
+     */
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        try {
+            String name = InetAddress.getLocalHost().getHostName();
+            return name.length() > 48 ? name.substring(0, 48) : name;
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package it342.g4.e_vents.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import it342.g4.e_vents.service.CatalogVersions.Stamp;
+
+/**
+ * Conditional GET handling for the catalog endpoints. The Cache-Control
+ * directive is configured per endpoint under http.cache.cache-control.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "http.cache")
+public class HttpCachePolicy {
+    private String defaultCacheControl = "no-cache"; // Clients may store but must revalidate
+    private Map<String, String> cacheControl = new HashMap<>();
+
+    public String getDefaultCacheControl() {
+        return defaultCacheControl;
+    }
+
+    public void setDefaultCacheControl(String defaultCacheControl) {
+        this.defaultCacheControl = defaultCacheControl;
+    }
+
+    public Map<String, String> getCacheControl() {
+        return cacheControl;
+    }
+
+    public void setCacheControl(Map<String, String> cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Answers 304 if the client already has the current representation,
+     * otherwise builds the body. The stamp must be taken before the body
+     * is loaded, so a concurrent write can only make the ETag older than
+     * the data, never newer.
+     * @param request The current request
+     * @param endpoint The endpoint key under http.cache.cache-control
+     * @param stamp The catalog stamp
+     * @param body Loads the response body
+     * @return 304 with no body, or 200 with the body
+     */
+    public <T> ResponseEntity<T> conditional(WebRequest request, String endpoint, Stamp stamp, Supplier<T> body) {
+        String directive = cacheControl.getOrDefault(endpoint, defaultCacheControl);
+        if (request.checkNotModified(stamp.etag(), stamp.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, directive)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, directive)
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .body(body.get());
+    }
+}
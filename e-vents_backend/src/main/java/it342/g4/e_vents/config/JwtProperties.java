@@ -7,7 +7,8 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "jwt")
 public class JwtProperties {
     private String secret; // Should be in application.properties
-    private long expirationMs; // 24 hours
+    private long expirationMs; // Access token lifetime
+    private long refreshExpirationMs; // Refresh token lifetime
 
     public String getSecret() {
         return secret;
@@ -24,4 +25,12 @@ public class JwtProperties {
     public void setExpirationMs(long expirationMs) {
         this.expirationMs = expirationMs;
     }
+
+    public long getRefreshExpirationMs() {
+        return refreshExpirationMs;
+    }
+
+    public void setRefreshExpirationMs(long refreshExpirationMs) {
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
 }
@@ -0,0 +1,32 @@
+package it342.g4.e_vents.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.metrics.SqlStatementInspector;
+
+/**
+ * Micrometer instrumentation. HTTP, Hikari pool and JVM metrics come from
+ * Spring Boot Actuator; this adds @Timed support for services and the
+ * Hibernate hook behind the per-request statement count.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(
+            @Value("${metrics.sql.sample-rate:0}") double sampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new SqlStatementInspector(sampleRate));
+    }
+}
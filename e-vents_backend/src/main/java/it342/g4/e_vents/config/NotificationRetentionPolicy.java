@@ -0,0 +1,64 @@
+package it342.g4.e_vents.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * How long notifications are kept. Each notification type has a TTL counted
+ * from creation, configured under notifications.retention.ttl; types without
+ * one use the default. A read notification also expires read-ttl after it was
+ * read, and each user keeps at most max-per-user notifications, newest first.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notifications.retention")
+public class NotificationRetentionPolicy {
+    private Duration defaultTtl = Duration.ofDays(90);
+    private Map<String, Duration> ttl = new HashMap<>();
+    private Duration readTtl = Duration.ofDays(30);
+    private int maxPerUser = 200;
+
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    public void setDefaultTtl(Duration defaultTtl) {
+        this.defaultTtl = defaultTtl;
+    }
+
+    public Map<String, Duration> getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Map<String, Duration> ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getReadTtl() {
+        return readTtl;
+    }
+
+    public void setReadTtl(Duration readTtl) {
+        this.readTtl = readTtl;
+    }
+
+    public int getMaxPerUser() {
+        return maxPerUser;
+    }
+
+    public void setMaxPerUser(int maxPerUser) {
+        this.maxPerUser = maxPerUser;
+    }
+
+    /**
+     * TTL of a notification type
+     * @param type The type, possibly null
+     * @return The configured TTL, or the default one
+     */
+    public Duration ttlOf(String type) {
+        return type != null ? ttl.getOrDefault(type, defaultTtl) : defaultTtl;
+    }
+}
@@ -0,0 +1,18 @@
+package it342.g4.e_vents.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled housekeeping tasks (token denylist compaction,
+ * expired refresh token cleanup), the refund worker for cancelled events,
+ * the outbox relay, event lifecycle transitions, event reminders, event
+ * archiving, the notification purge, the check-in flush and the cache
+ * invalidation bus.
+ * Tasks that must run once for the whole cluster return early unless this
+ * node holds their lease (see JobLeases).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,22 +1,53 @@
 package it342.g4.e_vents.config;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import it342.g4.e_vents.model.enums.Role;
+import it342.g4.e_vents.security.AuthenticatedUser;
 import it342.g4.e_vents.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Configuration
 @EnableWebSecurity
@@ -29,9 +60,51 @@ public class SecurityConfig {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
     }
     
+    /**
+     * BCrypt encoder at the configured cost. Hashes stored at a lower cost are
+     * upgraded on the user's next successful login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Bounded pool that runs password checks off the request threads. When all
+     * workers are busy and the queue is full, new logins are rejected instead of
+     * letting BCrypt take every core from the rest of the API.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(@Value("${security.login.hashing.threads:0}") int threads,
+                                                   @Value("${security.login.hashing.queue-capacity:100}") int queueCapacity,
+                                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hashing");
+    }
+
+    /**
+     * Runs the database work that follows a password hash, such as saving a new
+     * user or issuing a login's refresh token, so hashing threads only hash and
+     * no request thread waits for either. Its queue is unbounded because the
+     * hashing pool already bounds how much work arrives.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService authCompletionExecutor(@Value("${security.login.completion.threads:8}") int threads,
+                                                  MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "auth-completion-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "auth.completion");
     }
     
     @Bean
@@ -54,7 +127,18 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Enable CORS with our configuration
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .anyRequest().permitAll()
+                // Streamed responses finish on an async dispatch that carries no token; the request was authorized already
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .anyRequest().access(requestAuthorization(authorizationRules()))
+            )
+            // Browsers on the admin pages go to the login page, API clients get JSON
+            .exceptionHandling(ex -> ex
+                .defaultAuthenticationEntryPointFor(new LoginUrlAuthenticationEntryPoint("/login"), antMatcher("/admin/**"))
+                .defaultAuthenticationEntryPointFor((request, response, e) ->
+                        writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "Authentication required"),
+                        AnyRequestMatcher.INSTANCE)
+                .accessDeniedHandler((request, response, e) ->
+                        writeError(response, HttpServletResponse.SC_FORBIDDEN, "Insufficient role for this operation"))
             )
             // Use JWT instead of sessions
             .sessionManagement(session -> session
@@ -65,4 +149,105 @@ public class SecurityConfig {
         
         return http.build();
     }
+
+    /**
+     * URL authorization rules. Roles are read from the access token's role claim
+     * by JwtAuthenticationFilter, so no rule needs a database lookup. Paths not
+     * listed stay public. Static so the rules can be benchmarked without a context.
+     * @return Authorization manager for the whole URL space
+     */
+    public static AuthorizationManager<HttpServletRequest> authorizationRules() {
+        AuthorizationManager<RequestAuthorizationContext> admin = AuthorityAuthorizationManager.hasRole(Role.ADMIN.name());
+        AuthorizationManager<RequestAuthorizationContext> organizer =
+                AuthorityAuthorizationManager.hasAnyRole(Role.ORGANIZER.name(), Role.ADMIN.name());
+        AuthorizationManager<RequestAuthorizationContext> authenticated = AuthenticatedAuthorizationManager.authenticated();
+        AuthorizationManager<RequestAuthorizationContext> permitAll = (authentication, context) -> new AuthorizationDecision(true);
+
+        return RequestMatcherDelegatingAuthorizationManager.builder()
+                // Only the health probe is public; metrics and info are for operators
+                .add(antMatcher(HttpMethod.GET, "/actuator/health/**"), permitAll)
+                .add(antMatcher("/actuator/**"), admin)
+                // Administration: admin pages, user, role, category and tag management
+                .add(antMatcher("/admin/**"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/users/all"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/users/count"), admin)
+                .add(antMatcher(HttpMethod.DELETE, "/api/users/*/delete"), admin)
+                .add(antMatcher(HttpMethod.PUT, "/api/users/*/deactivate"), admin)
+                .add(antMatcher(HttpMethod.PUT, "/api/users/restore/*"), admin)
+                .add(writeMatcher("/api/roles/**"), admin)
+                .add(writeMatcher("/api/categories/**"), admin)
+                .add(writeMatcher("/api/tags/**"), admin)
+                // Users edit their own profile; UserController also checks the password change is for the caller
+                .add(antMatcher(HttpMethod.PUT, "/api/users/{id}"), adminOrSelf("id"))
+                .add(antMatcher(HttpMethod.POST, "/api/users/change-password"), authenticated)
+                // Notifications are written by the system; recipients read theirs and mark them read
+                .add(antMatcher(HttpMethod.GET, "/api/notifications"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/notifications/all"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/notifications/count"), permitAll)
+                .add(antMatcher(HttpMethod.GET, "/api/notifications/user/{userId}/**"), adminOrSelf("userId"))
+                .add(antMatcher(HttpMethod.GET, "/api/notifications/*"), authenticated)
+                .add(antMatcher(HttpMethod.PUT, "/api/notifications/*/read"), authenticated)
+                .add(writeMatcher("/api/notifications/**"), admin)
+                // Ticket administration and attendee data; NotificationController and
+                // TicketController check that a single record belongs to the caller
+                .add(antMatcher(HttpMethod.GET, "/api/tickets"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/all"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/export"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/status/*"), admin)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/count"), permitAll)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/event/**"), organizer)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/category/*"), organizer)
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/user/{userId}"), adminOrSelf("userId"))
+                .add(antMatcher(HttpMethod.GET, "/api/tickets/*"), authenticated)
+                .add(antMatcher(HttpMethod.PUT, "/api/tickets/**"), admin)
+                .add(antMatcher(HttpMethod.DELETE, "/api/tickets/**"), admin)
+                // Event writes: events, their lineups and ticket categories, imports and sales analytics
+                .add(writeMatcher("/api/events/**"), organizer)
+                .add(antMatcher(HttpMethod.GET, "/api/events/edit/*"), organizer)
+                .add(writeMatcher("/api/acts/**"), organizer)
+                .add(writeMatcher("/api/ticket-categories/**"), organizer)
+                .add(antMatcher("/api/import/**"), organizer)
+                .add(antMatcher("/api/analytics/**"), organizer)
+                // Gate staff scan tickets; holders fetch their own ticket's QR token
+                .add(antMatcher(HttpMethod.GET, "/api/checkin/tickets/*/token"), authenticated)
+                .add(antMatcher("/api/checkin/**"), organizer)
+                // Attendee actions; RatingService checks a rating belongs to the caller before changing it
+                .add(antMatcher(HttpMethod.POST, "/api/tickets"), authenticated)
+                .add(antMatcher(HttpMethod.POST, "/api/payment/**"), authenticated)
+                .add(writeMatcher("/api/ratings/**"), authenticated)
+                .add(AnyRequestMatcher.INSTANCE, permitAll)
+                .build();
+    }
+
+    /**
+     * Allows admins and the user whose ID is the given path variable, using the
+     * user ID from the access token
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> adminOrSelf(String variable) {
+        return (authentication, context) -> {
+            Authentication caller = authentication.get();
+            boolean allowed = caller != null && caller.getPrincipal() instanceof AuthenticatedUser principal
+                    && (principal.isAdmin() || String.valueOf(principal.getUserId()).equals(context.getVariables().get(variable)));
+            return new AuthorizationDecision(allowed);
+        };
+    }
+
+    private static AuthorizationManager<RequestAuthorizationContext> requestAuthorization(
+            AuthorizationManager<HttpServletRequest> rules) {
+        return (authentication, context) -> {
+            AuthorizationResult result = rules.authorize(authentication, context.getRequest());
+            return new AuthorizationDecision(result != null && result.isGranted());
+        };
+    }
+
+    private static RequestMatcher writeMatcher(String pattern) {
+        return new OrRequestMatcher(antMatcher(HttpMethod.POST, pattern), antMatcher(HttpMethod.PUT, pattern),
+                antMatcher(HttpMethod.DELETE, pattern));
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
 }
@@ -1,29 +1,48 @@
 package it342.g4.e_vents.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.util.List;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public WebConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
     @Override
     public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
         configurer
-            .defaultContentType(MediaType.APPLICATION_JSON)
+            // JSON first, then anything, so */* still reaches endpoints that produce other types (event streams)
+            .defaultContentType(MediaType.APPLICATION_JSON, MediaType.ALL)
             .favorParameter(false)
             .ignoreAcceptHeader(false)
             .mediaType("json", MediaType.APPLICATION_JSON);
     }
 
+    @Override
+    public void addViewControllers(ViewControllerRegistry registry) {
+        // Sign-in page for the admin dashboard
+        registry.addViewController("/login").setViewName("login");
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+        // Boot's mapper, so spring.jackson.* settings and Module beans apply
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(objectMapper);
         converter.setSupportedMediaTypes(List.of(MediaType.APPLICATION_JSON));
         converters.add(converter);
     }
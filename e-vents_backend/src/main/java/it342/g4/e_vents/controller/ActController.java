@@ -7,13 +7,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import it342.g4.e_vents.config.HttpCachePolicy;
 import it342.g4.e_vents.model.Act;
 import it342.g4.e_vents.service.ActService;
+import it342.g4.e_vents.service.CatalogVersions;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Collections;
 import java.util.List;
@@ -29,24 +33,33 @@ import java.util.Map;
 public class ActController {
 
     private final ActService actService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCachePolicy httpCachePolicy;
     
     @Autowired
-    public ActController(ActService actService) {
+    public ActController(ActService actService, CatalogVersions catalogVersions, HttpCachePolicy httpCachePolicy) {
         this.actService = actService;
+        this.catalogVersions = catalogVersions;
+        this.httpCachePolicy = httpCachePolicy;
     }
     
     /**
-     * Retrieves all active acts
+     * Retrieves all active acts, or 304 if the client's copy is current
+     * @param request The current request, for conditional headers
      * @return List of all active acts
      */
     @GetMapping
     @Operation(summary = "Get all active acts", description = "Retrieves a list of all active acts in the system")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved list of active acts", 
-                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Act.class)))
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Act.class))),
+        @ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent by the client", content = @Content)
     })
-    public ResponseEntity<List<Act>> getAllActs() {
-        return ResponseEntity.ok(actService.getAllActiveActs());
+    public ResponseEntity<List<Act>> getAllActs(WebRequest request) {
+        // Acts embed their category (with its tags) and their tags
+        return httpCachePolicy.conditional(request, "acts",
+                catalogVersions.stamp(Catalog.ACTS, Catalog.CATEGORIES, Catalog.TAGS),
+                actService::getAllActiveActs);
     }
     
     /**
@@ -25,6 +25,7 @@ import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for admin dashboard
@@ -171,11 +172,13 @@ public class AdminController {
     @PostMapping("/users/new")
     public String createUser(@ModelAttribute User user, RedirectAttributes redirectAttributes) {
         try {
-            userService.registerUser(user);
+            // Rare admin form, so it waits for the hash instead of going async like the API
+            userService.registerUser(user).join();
             redirectAttributes.addFlashAttribute("successMessage", "User created successfully");
             return "redirect:/admin?entityType=users";
         } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage", "Error creating user: " + e.getMessage());
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            redirectAttributes.addFlashAttribute("errorMessage", "Error creating user: " + cause.getMessage());
             return "redirect:/admin/users/new";
         }
     }
@@ -0,0 +1,121 @@
+package it342.g4.e_vents.controller;
+
+import it342.g4.e_vents.dto.EventSalesSummary;
+import it342.g4.e_vents.dto.SalesTimeSeriesPoint;
+import it342.g4.e_vents.service.SalesAnalyticsService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+/**
+ * Controller for sales analytics used by the organizer dashboard
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+@Tag(name = "Analytics", description = "Sales analytics APIs")
+public class AnalyticsController {
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    @Autowired
+    public AnalyticsController(SalesAnalyticsService salesAnalyticsService) {
+        this.salesAnalyticsService = salesAnalyticsService;
+    }
+
+    /**
+     * Retrieves revenue and sell-through of an event per ticket category
+     * @param eventId The event ID
+     * @return Sales summary or error
+     */
+    @GetMapping("/events/{eventId}/summary")
+    @Operation(summary = "Get event sales summary", description = "Returns revenue and sell-through percentage of an event, per ticket category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Summary computed",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = EventSalesSummary.class))),
+        @ApiResponse(responseCode = "404", description = "Event not found", content = @Content)
+    })
+    public ResponseEntity<?> getEventSummary(
+            @Parameter(description = "ID of the event") @PathVariable Long eventId) {
+        try {
+            return ResponseEntity.ok(salesAnalyticsService.getEventSummary(eventId));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Retrieves the sale-day curve of an event
+     * @param eventId The event ID
+     * @param ticketCategoryId Optional ticket category filter
+     * @param from Optional inclusive start
+     * @param to Optional exclusive end
+     * @param interval Bucket width in minutes
+     * @return Time series or error
+     */
+    @GetMapping("/events/{eventId}/timeseries")
+    @Operation(summary = "Get event sales time series", description = "Returns tickets sold, revenue, purchases per minute and cumulative sell-through "
+            + "per time bucket, based on ticket purchase dates. Buckets without sales are omitted.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Time series computed",
+                     content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = SalesTimeSeriesPoint.class)))),
+        @ApiResponse(responseCode = "400", description = "Invalid interval or range", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Event or ticket category not found", content = @Content)
+    })
+    public ResponseEntity<?> getEventTimeSeries(
+            @Parameter(description = "ID of the event") @PathVariable Long eventId,
+            @Parameter(description = "Restrict the curve to one ticket category") @RequestParam(required = false) Long ticketCategoryId,
+            @Parameter(description = "Inclusive start (ISO date-time), defaults to the first sale")
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Exclusive end (ISO date-time), defaults to now")
+                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Bucket width in minutes") @RequestParam(defaultValue = "1") int interval) {
+        try {
+            return ResponseEntity.ok(salesAnalyticsService.getEventTimeSeries(eventId, ticketCategoryId, from, to, interval));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Recomputes the sales rollups of an event from its tickets
+     * @param eventId The event ID
+     * @return Number of rebuilt buckets or error
+     */
+    @PostMapping("/events/{eventId}/rebuild")
+    @Operation(summary = "Rebuild event sales rollups", description = "Recomputes the pre-aggregated sales of an event from its tickets, "
+            + "e.g. for tickets sold before analytics were enabled")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rollups rebuilt", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Event not found", content = @Content)
+    })
+    public ResponseEntity<?> rebuildEventRollups(
+            @Parameter(description = "ID of the event") @PathVariable Long eventId) {
+        try {
+            return ResponseEntity.ok(Collections.singletonMap("buckets", salesAnalyticsService.rebuildEventRollups(eventId)));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+}
@@ -7,13 +7,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import it342.g4.e_vents.config.HttpCachePolicy;
 import it342.g4.e_vents.model.Category;
+import it342.g4.e_vents.service.CatalogVersions;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import it342.g4.e_vents.service.CategoryService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Collections;
 import java.util.List;
@@ -29,24 +33,34 @@ import java.util.Map;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCachePolicy httpCachePolicy;
     
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersions catalogVersions,
+                              HttpCachePolicy httpCachePolicy) {
         this.categoryService = categoryService;
+        this.catalogVersions = catalogVersions;
+        this.httpCachePolicy = httpCachePolicy;
     }
     
     /**
-     * Retrieves all active categories
+     * Retrieves all active categories, or 304 if the client's copy is current
+     * @param request The current request, for conditional headers
      * @return List of all active categories
      */
     @GetMapping
     @Operation(summary = "Get all active categories", description = "Retrieves a list of all active categories in the system")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved list of active categories", 
-                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class)))
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Category.class))),
+        @ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent by the client", content = @Content)
     })
-    public ResponseEntity<List<Category>> getAllActiveCategories() {
-        return ResponseEntity.ok(categoryService.getAllActiveCategories());
+    public ResponseEntity<List<Category>> getAllActiveCategories(WebRequest request) {
+        // Categories embed their tags
+        return httpCachePolicy.conditional(request, "categories",
+                catalogVersions.stamp(Catalog.CATEGORIES, Catalog.TAGS),
+                categoryService::getAllActiveCategories);
     }
     
     /**
@@ -0,0 +1,189 @@
+package it342.g4.e_vents.controller;
+
+import it342.g4.e_vents.dto.CheckInRequest;
+import it342.g4.e_vents.dto.CheckInResult;
+import it342.g4.e_vents.dto.ScanLogEntry;
+import it342.g4.e_vents.service.AuthService;
+import it342.g4.e_vents.service.CheckInManifestService;
+import it342.g4.e_vents.service.CheckInService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for QR ticket tokens and gate check-in
+ */
+@RestController
+@RequestMapping("/api/checkin")
+@CrossOrigin(origins = "*")
+@Tag(name = "Check-in", description = "Ticket tokens and gate check-in APIs")
+public class CheckInController {
+
+    private final CheckInService checkInService;
+    private final CheckInManifestService checkInManifestService;
+    private final AuthService authService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CheckInController(CheckInService checkInService, CheckInManifestService checkInManifestService,
+                             AuthService authService, ObjectMapper objectMapper) {
+        this.checkInService = checkInService;
+        this.checkInManifestService = checkInManifestService;
+        this.authService = authService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Retrieves the signed token shown as a QR code on a ticket
+     * @param ticketId The ticket ID
+     * @return The token or error
+     */
+    @GetMapping("/tickets/{ticketId}/token")
+    @Operation(summary = "Get a ticket's QR token", description = "Returns the signed token of a ticket; only its holder or an admin may get it")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Token issued", content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Ticket was refunded or deactivated", content = @Content),
+        @ApiResponse(responseCode = "403", description = "Caller does not hold the ticket", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Ticket not found", content = @Content)
+    })
+    public ResponseEntity<?> getTicketToken(
+            @Parameter(description = "ID of the ticket", required = true) @PathVariable Long ticketId) {
+        try {
+            String token = checkInService.issueToken(ticketId, authService.getCurrentPrincipal());
+            return ResponseEntity.ok(Map.of("ticketId", ticketId, "token", token));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks in a batch of tokens scanned at a gate
+     * @param eventId The event the gate admits to
+     * @param request Gate name and scanned tokens
+     * @return One result per token, in order, or error
+     */
+    @PostMapping("/events/{eventId}/scans")
+    @Operation(summary = "Check in scanned tickets",
+               description = "Verifies a batch of scanned tokens and admits each ticket once. Results are returned in the order of the tokens.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed",
+                     content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CheckInResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized batch", content = @Content)
+    })
+    public ResponseEntity<?> checkIn(
+            @Parameter(description = "ID of the event", required = true) @PathVariable Long eventId,
+            @Parameter(description = "Gate name and scanned tokens", required = true) @RequestBody CheckInRequest request) {
+        try {
+            return ResponseEntity.ok(checkInService.checkIn(eventId, request.getGate(), request.getTokens()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Counts the tickets of an event checked in so far
+     * @param eventId The event ID
+     * @return Count of admissions
+     */
+    @GetMapping("/events/{eventId}/count")
+    @Operation(summary = "Count check-ins", description = "Returns how many tickets of an event have been checked in")
+    public ResponseEntity<Map<String, Long>> countCheckedIn(
+            @Parameter(description = "ID of the event", required = true) @PathVariable Long eventId) {
+        return ResponseEntity.ok(Collections.singletonMap("checkedIn", checkInService.countCheckedIn(eventId)));
+    }
+
+    /**
+     * Streams the manifest scanner devices use to validate tickets offline
+     * @param eventId The event ID
+     * @param since Version of the manifest the device holds, for a delta
+     * @return Binary manifest or error
+     */
+    @GetMapping("/events/{eventId}/manifest")
+    @Operation(summary = "Download a check-in manifest",
+               description = "Streams the valid and revoked ticket IDs of an event in a compact binary format. "
+                       + "With since, only tickets changed after that manifest version are listed.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Manifest streamed",
+                     content = @Content(mediaType = CheckInManifestService.CONTENT_TYPE)),
+        @ApiResponse(responseCode = "400", description = "Unknown manifest version", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Event not found", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> getManifest(
+            @Parameter(description = "ID of the event", required = true) @PathVariable Long eventId,
+            @Parameter(description = "Manifest version the device holds") @RequestParam(required = false) Long since) {
+        try {
+            checkInManifestService.requireVersion(since);
+            checkInManifestService.requireEvent(eventId);
+        } catch (EntityNotFoundException e) {
+            return streamError(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return streamError(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CheckInManifestService.CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"event-" + eventId + ".manifest\"")
+                .body(out -> checkInManifestService.writeManifest(eventId, since, out));
+    }
+
+    /**
+     * Uploads the scans a device recorded while offline
+     * @param eventId The event the device admitted to
+     * @param entries Logged scans
+     * @return One result per scan, in upload order, or error
+     */
+    @PostMapping("/events/{eventId}/scan-logs")
+    @Operation(summary = "Reconcile an offline scan log",
+               description = "Replays scans recorded offline in the order they happened. Duplicate or revoked "
+                       + "results point at tickets the device let in that should have been stopped.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Log reconciled",
+                     content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CheckInResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized log", content = @Content)
+    })
+    public ResponseEntity<?> reconcileScanLog(
+            @Parameter(description = "ID of the event", required = true) @PathVariable Long eventId,
+            @Parameter(description = "Scans recorded offline", required = true) @RequestBody List<ScanLogEntry> entries) {
+        try {
+            return ResponseEntity.ok(checkInService.reconcile(eventId, entries));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    // Streaming handlers must declare StreamingResponseBody, so errors are written the same way
+    private ResponseEntity<StreamingResponseBody> streamError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Collections.singletonMap("error", message)));
+    }
+}
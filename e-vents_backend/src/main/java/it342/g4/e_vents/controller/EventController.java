@@ -5,6 +5,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,8 +17,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,9 +31,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import it342.g4.e_vents.config.HttpCachePolicy;
 import it342.g4.e_vents.model.Act;
 import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Views;
 import it342.g4.e_vents.service.ActService;
+import it342.g4.e_vents.service.CatalogVersions;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import it342.g4.e_vents.service.EventService;
 import jakarta.persistence.EntityNotFoundException;
 
@@ -41,27 +50,50 @@ import jakarta.persistence.EntityNotFoundException;
 @Tag(name = "Event", description = "Event management APIs")
 public class EventController {
 
+    private static final Logger logger = LoggerFactory.getLogger(EventController.class);
+
     private final EventService eventService;
     private final ActService actService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCachePolicy httpCachePolicy;
 
     @Autowired
-    public EventController(EventService eventService, ActService actService) {
+    public EventController(EventService eventService, ActService actService, CatalogVersions catalogVersions,
+                           HttpCachePolicy httpCachePolicy) {
         this.eventService = eventService;
         this.actService = actService;
+        this.catalogVersions = catalogVersions;
+        this.httpCachePolicy = httpCachePolicy;
     }
 
     /**
-     * Retrieves all events
+     * Retrieves all events, or 304 if the client's copy is current
+     * @param view "summary" for list-page fields only, otherwise the full event graph
+     * @param request The current request, for conditional headers
      * @return List of all events
      */
     @GetMapping()
     @Operation(summary = "Get all events", description = "Retrieves a list of all events in the system")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved list of events",
-                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Event.class)))
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Event.class))),
+        @ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent by the client", content = @Content)
     })
-    public ResponseEntity<List<Event>> getAllEvents() {
-        return ResponseEntity.ok(eventService.getAllEvents());
+    public ResponseEntity<MappingJacksonValue> getAllEvents(
+            @Parameter(description = "Set to 'summary' to omit descriptions, hosts and nested category/tag objects")
+            @RequestParam(required = false) String view,
+            WebRequest request) {
+        boolean summary = "summary".equalsIgnoreCase(view);
+        // Events embed their lineup (with categories and tags) and their host
+        return httpCachePolicy.conditional(request, "events",
+                catalogVersions.stamp(Catalog.EVENTS, Catalog.ACTS, Catalog.CATEGORIES, Catalog.TAGS, Catalog.USERS),
+                () -> {
+                    MappingJacksonValue body = new MappingJacksonValue(eventService.getAllEvents());
+                    if (summary) {
+                        body.setSerializationView(Views.Summary.class);
+                    }
+                    return body;
+                });
     }
 
     /**
@@ -102,8 +134,40 @@ public class EventController {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved list of cancelled events",
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Event.class)))
     })
-    public ResponseEntity<List<Event>> getCancelledEvents() {
-        return ResponseEntity.ok(eventService.getEventsByStatus("CANCELLED"));
+    public ResponseEntity<List<Event>> getCancelledEvents(
+            @Parameter(description = "Also return cancelled events moved to the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(eventService.getEventsByStatus(Event.STATUS_CANCELLED, includeArchived));
+    }
+
+    /**
+     * Retrieves all ongoing events
+     * @return List of all ongoing events
+     */
+    @GetMapping("/ongoing")
+    @Operation(summary = "Get all ongoing events", description = "Retrieves a list of all events with ONGOING status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved list of ongoing events",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Event.class)))
+    })
+    public ResponseEntity<List<Event>> getOngoingEvents() {
+        return ResponseEntity.ok(eventService.getOngoingEvents());
+    }
+
+    /**
+     * Retrieves all completed events
+     * @return List of all completed events
+     */
+    @GetMapping("/completed")
+    @Operation(summary = "Get all completed events", description = "Retrieves a list of all events with COMPLETED status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved list of completed events",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Event.class)))
+    })
+    public ResponseEntity<List<Event>> getCompletedEvents(
+            @Parameter(description = "Also return completed events moved to the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(eventService.getEventsByStatus(Event.STATUS_COMPLETED, includeArchived));
     }
 
     /**
@@ -119,9 +183,11 @@ public class EventController {
         @ApiResponse(responseCode = "404", description = "Event not found", content = @Content)
     })
     public ResponseEntity<Event> getEventById(
-            @Parameter(description = "ID of the event to retrieve") @PathVariable Long id) {
+            @Parameter(description = "ID of the event to retrieve") @PathVariable Long id,
+            @Parameter(description = "Also look for the event in the archive")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
-            return ResponseEntity.ok(eventService.getEventById(id));
+            return ResponseEntity.ok(eventService.getEventById(id, includeArchived));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
@@ -176,8 +242,7 @@ public class EventController {
             @Parameter(description = "Event object to be created", required = true)
             @RequestBody Event event) {
         try {
-            // Log the incoming request for debugging
-            System.out.println("Received event creation request: " + event.getName());
+            logger.debug("Received event creation request: {}", event.getName());
 
             // Validate required fields
             if (event.getName() == null || event.getName().trim().isEmpty()) {
@@ -239,14 +304,12 @@ public class EventController {
             // Create the event
             Event createdEvent = eventService.createEvent(event);
 
-            // Log the created event for debugging
-            System.out.println("Created event with ID: " + createdEvent.getEventId());
-            System.out.println("Event name: " + createdEvent.getName());
+            logger.info("Created event {} ({})", createdEvent.getEventId(), createdEvent.getName());
 
             // Return with status 201 Created and the complete event object
             return ResponseEntity.status(HttpStatus.CREATED).body(createdEvent);
         } catch (Exception e) {
-            e.printStackTrace(); // Log the full stack trace for debugging
+            logger.error("Failed to create event {}", event.getName(), e);
             return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Failed to create event", "message", e.getMessage()));
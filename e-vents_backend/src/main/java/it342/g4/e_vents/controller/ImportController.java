@@ -0,0 +1,93 @@
+package it342.g4.e_vents.controller;
+
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import it342.g4.e_vents.dto.ImportReport;
+import it342.g4.e_vents.service.BulkImportService;
+import it342.g4.e_vents.util.DataFormat;
+
+/**
+ * Controller for bulk CSV/NDJSON imports. The request body is read as a raw
+ * stream (not multipart) so uploads are processed while they arrive.
+ */
+@RestController
+@RequestMapping("/api/import")
+@CrossOrigin(origins = "*")
+@Tag(name = "Import", description = "Bulk import APIs")
+public class ImportController {
+
+    private final BulkImportService bulkImportService;
+
+    @Autowired
+    public ImportController(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    /**
+     * Imports events from a CSV or NDJSON body
+     * @param contentType The request content type
+     * @param body The raw request body
+     * @return Import report with per-row errors
+     */
+    @PostMapping(value = "/events", consumes = {DataFormat.TEXT_CSV_VALUE, DataFormat.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk import events", description = "Streams events from a CSV (text/csv) or NDJSON (application/x-ndjson) body. "
+            + "Columns: name, description, date, time, venue, userId, status, lineup (act IDs or names separated by ';')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished, see report for rejected rows",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportReport.class)))
+    })
+    public ResponseEntity<ImportReport> importEvents(
+            @RequestHeader("Content-Type") String contentType, InputStream body) {
+        return ResponseEntity.ok(bulkImportService.importEvents(body, DataFormat.fromContentType(contentType)));
+    }
+
+    /**
+     * Imports acts from a CSV or NDJSON body
+     * @param contentType The request content type
+     * @param body The raw request body
+     * @return Import report with per-row errors
+     */
+    @PostMapping(value = "/acts", consumes = {DataFormat.TEXT_CSV_VALUE, DataFormat.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk import acts", description = "Streams acts from a CSV (text/csv) or NDJSON (application/x-ndjson) body. "
+            + "Columns: name, description, category, tags (tag names separated by ';')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished, see report for rejected rows",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportReport.class)))
+    })
+    public ResponseEntity<ImportReport> importActs(
+            @RequestHeader("Content-Type") String contentType, InputStream body) {
+        return ResponseEntity.ok(bulkImportService.importActs(body, DataFormat.fromContentType(contentType)));
+    }
+
+    /**
+     * Imports ticket categories from a CSV or NDJSON body
+     * @param contentType The request content type
+     * @param body The raw request body
+     * @return Import report with per-row errors
+     */
+    @PostMapping(value = "/ticket-categories", consumes = {DataFormat.TEXT_CSV_VALUE, DataFormat.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk import ticket categories", description = "Streams ticket categories from a CSV (text/csv) or NDJSON (application/x-ndjson) body. "
+            + "Columns: eventId, name, price, totalTickets, description, status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished, see report for rejected rows",
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportReport.class)))
+    })
+    public ResponseEntity<ImportReport> importTicketCategories(
+            @RequestHeader("Content-Type") String contentType, InputStream body) {
+        return ResponseEntity.ok(bulkImportService.importTicketCategories(body, DataFormat.fromContentType(contentType)));
+    }
+}
@@ -1,11 +1,14 @@
 package it342.g4.e_vents.controller;
 
 import it342.g4.e_vents.model.Notification;
+import it342.g4.e_vents.security.AuthenticatedUser;
+import it342.g4.e_vents.service.AuthService;
 import it342.g4.e_vents.service.NotificationService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,10 +33,12 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final AuthService authService;
     
     @Autowired
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, AuthService authService) {
         this.notificationService = notificationService;
+        this.authService = authService;
     }
     
     /**
@@ -65,21 +70,26 @@ public class NotificationController {
     }
     
     /**
-     * Retrieves a notification by ID
+     * Retrieves a notification by ID, for its recipient or an admin
      * @param id The notification ID
-     * @return The notification or 404 if not found
+     * @return The notification, 403 if the caller may not see it, or 404 if not found
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get notification by ID", description = "Retrieves a specific notification by its ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the notification", 
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Notification.class))),
+        @ApiResponse(responseCode = "403", description = "Caller is not the recipient", content = @Content),
         @ApiResponse(responseCode = "404", description = "Notification not found", content = @Content)
     })
-    public ResponseEntity<Notification> getNotificationById(
+    public ResponseEntity<?> getNotificationById(
             @Parameter(description = "ID of the notification to retrieve", required = true) @PathVariable Long id) {
+        AuthenticatedUser caller = authService.getCurrentPrincipal();
         return notificationService.getNotificationById(id)
-                .map(ResponseEntity::ok)
+                .<ResponseEntity<?>>map(notification -> notificationService.isRecipient(notification, caller)
+                        ? ResponseEntity.ok(notification)
+                        : ResponseEntity.status(HttpStatus.FORBIDDEN)
+                                .body(Collections.singletonMap("error", "Only the recipient can view this notification")))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -95,8 +105,10 @@ public class NotificationController {
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Notification.class)))
     })
     public ResponseEntity<List<Notification>> getNotificationsByUserId(
-            @Parameter(description = "ID of the user to get notifications for", required = true) @PathVariable Long userId) {
-        return ResponseEntity.ok(notificationService.getNotificationsByUserId(userId));
+            @Parameter(description = "ID of the user to get notifications for", required = true) @PathVariable Long userId,
+            @Parameter(description = "Also return notifications about archived events")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(notificationService.getNotificationsByUserId(userId, includeArchived));
     }
     
     /**
@@ -181,17 +193,21 @@ public class NotificationController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Notification successfully marked as read", 
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Notification.class))),
+        @ApiResponse(responseCode = "403", description = "Caller is not the recipient", content = @Content),
         @ApiResponse(responseCode = "404", description = "Notification not found", content = @Content),
         @ApiResponse(responseCode = "400", description = "Bad request", content = @Content)
     })
     public ResponseEntity<?> markNotificationAsRead(
             @Parameter(description = "ID of the notification to mark as read", required = true) @PathVariable Long id) {
         try {
-            Notification updatedNotification = notificationService.markNotificationAsRead(id);
+            Notification updatedNotification = notificationService.markNotificationAsRead(id, authService.getCurrentPrincipal());
             return ResponseEntity.ok(updatedNotification);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Collections.singletonMap("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Collections.singletonMap("error", e.getMessage()));
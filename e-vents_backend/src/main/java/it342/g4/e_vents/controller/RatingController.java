@@ -1,6 +1,7 @@
 package it342.g4.e_vents.controller;
 
 import it342.g4.e_vents.model.Rating;
+import it342.g4.e_vents.service.AuthService;
 import it342.g4.e_vents.service.RatingService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.Max;
@@ -8,6 +9,7 @@ import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,10 +32,12 @@ import java.util.Map;
 @Tag(name = "Rating", description = "Rating management APIs")
 public class RatingController {
     private final RatingService ratingService;
+    private final AuthService authService;
 
     @Autowired
-    public RatingController(RatingService ratingService) {
+    public RatingController(RatingService ratingService, AuthService authService) {
         this.ratingService = ratingService;
+        this.authService = authService;
     }
 
     /**
@@ -118,13 +122,14 @@ public class RatingController {
      * 
      * @param ratingId The ID of the rating to update
      * @param message The new message content
-     * @return The updated Rating object, or HTTP 404 if rating not found
+     * @return The updated Rating object, HTTP 403 if the caller is not its author, or HTTP 404 if rating not found
      */
     @PutMapping("/{ratingId}")
     @Operation(summary = "Update rating message", description = "Updates an existing rating's message")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Rating successfully updated", 
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Rating.class))),
+        @ApiResponse(responseCode = "403", description = "Caller did not write the rating", content = @Content),
         @ApiResponse(responseCode = "404", description = "Rating not found", content = @Content)
     })
     public ResponseEntity<?> updateRating(
@@ -133,11 +138,14 @@ public class RatingController {
             @Parameter(description = "New message content", required = true) 
             @RequestParam String message) {
         try {
-            Rating rating = ratingService.updateRating(ratingId, message);
+            Rating rating = ratingService.updateRating(ratingId, message, authService.getCurrentPrincipal());
             return ResponseEntity.ok(rating);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -145,24 +153,28 @@ public class RatingController {
      * Deletes a rating by its ID
      * 
      * @param ratingId The ID of the rating to delete
-     * @return Success message, or HTTP 404 if rating not found
+     * @return Success message, HTTP 403 if the caller is not its author, or HTTP 404 if rating not found
      */
     @DeleteMapping("/{ratingId}")
     @Operation(summary = "Delete rating", description = "Deletes a rating by its ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Rating successfully deleted", 
                      content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "403", description = "Caller did not write the rating", content = @Content),
         @ApiResponse(responseCode = "404", description = "Rating not found", content = @Content)
     })
     public ResponseEntity<?> deleteRating(
             @Parameter(description = "ID of the rating to delete", required = true) 
             @PathVariable Long ratingId) {
         try {
-            ratingService.deleteRating(ratingId);
+            ratingService.deleteRating(ratingId, authService.getCurrentPrincipal());
             return ResponseEntity.ok(Map.of("message", "Rating deleted successfully"));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
         }
     }
 
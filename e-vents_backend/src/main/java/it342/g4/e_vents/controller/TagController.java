@@ -1,7 +1,10 @@
 package it342.g4.e_vents.controller;
 
+import it342.g4.e_vents.config.HttpCachePolicy;
 import it342.g4.e_vents.model.Category;
 import it342.g4.e_vents.model.Tags;
+import it342.g4.e_vents.service.CatalogVersions;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import it342.g4.e_vents.service.CategoryService;
 import it342.g4.e_vents.service.TagsService;
 import jakarta.persistence.EntityNotFoundException;
@@ -9,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -33,25 +37,34 @@ public class TagController {
 
     private final TagsService tagsService;
     private final CategoryService categoryService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCachePolicy httpCachePolicy;
 
     @Autowired
-    public TagController(TagsService tagsService, CategoryService categoryService) {
+    public TagController(TagsService tagsService, CategoryService categoryService,
+                         CatalogVersions catalogVersions, HttpCachePolicy httpCachePolicy) {
         this.tagsService = tagsService;
         this.categoryService = categoryService;
+        this.catalogVersions = catalogVersions;
+        this.httpCachePolicy = httpCachePolicy;
     }
 
     /**
-     * Retrieves all active tags
+     * Retrieves all active tags, or 304 if the client's copy is current
+     * @param request The current request, for conditional headers
      * @return List of all active tags
      */
     @GetMapping
     @Operation(summary = "Get all active tags", description = "Retrieves a list of all active tags in the system")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved list of active tags", 
-                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Tags.class)))
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Tags.class))),
+        @ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent by the client", content = @Content)
     })
-    public ResponseEntity<List<Tags>> getAllActiveTags() {
-        return ResponseEntity.ok(tagsService.getAllActiveTags());
+    public ResponseEntity<List<Tags>> getAllActiveTags(WebRequest request) {
+        // Tags embed their category's name and status
+        return httpCachePolicy.conditional(request, "tags", catalogVersions.stamp(Catalog.TAGS, Catalog.CATEGORIES),
+                tagsService::getAllActiveTags);
     }
 
     /**
@@ -1,12 +1,20 @@
 package it342.g4.e_vents.controller;
 
+import it342.g4.e_vents.config.HttpCachePolicy;
 import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.service.AvailabilityStream;
+import it342.g4.e_vents.service.CatalogVersions;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import it342.g4.e_vents.service.TicketCategoryService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,6 +27,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for ticket category-related operations
@@ -30,10 +39,17 @@ import java.util.Map;
 public class TicketCategoryController {
 
     private final TicketCategoryService ticketCategoryService;
+    private final CatalogVersions catalogVersions;
+    private final HttpCachePolicy httpCachePolicy;
+    private final AvailabilityStream availabilityStream;
     
     @Autowired
-    public TicketCategoryController(TicketCategoryService ticketCategoryService) {
+    public TicketCategoryController(TicketCategoryService ticketCategoryService, CatalogVersions catalogVersions,
+                                    HttpCachePolicy httpCachePolicy, AvailabilityStream availabilityStream) {
         this.ticketCategoryService = ticketCategoryService;
+        this.catalogVersions = catalogVersions;
+        this.httpCachePolicy = httpCachePolicy;
+        this.availabilityStream = availabilityStream;
     }
     
     /**
@@ -130,19 +146,26 @@ public class TicketCategoryController {
     }
     
     /**
-     * Retrieves ticket categories by event ID
+     * Retrieves ticket categories by event ID, or 304 if the client's copy is current
      * @param eventId The event ID
+     * @param request The current request, for conditional headers
      * @return List of active ticket categories for the specified event
      */
     @GetMapping("/event/{eventId}")
     @Operation(summary = "Get ticket categories by event ID", description = "Retrieves all active ticket categories for a specific event")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved ticket categories for the event", 
-                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = TicketCategory.class)))
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = TicketCategory.class))),
+        @ApiResponse(responseCode = "304", description = "Not modified since the ETag or date sent by the client", content = @Content)
     })
     public ResponseEntity<List<TicketCategory>> getTicketCategoriesByEventId(
-            @Parameter(description = "ID of the event to retrieve ticket categories for", required = true) @PathVariable Long eventId) {
-        return ResponseEntity.ok(ticketCategoryService.getTicketCategoriesByEventId(eventId));
+            @Parameter(description = "ID of the event to retrieve ticket categories for", required = true) @PathVariable Long eventId,
+            WebRequest request) {
+        // Each ticket category embeds the full event: lineup, categories, tags and host
+        return httpCachePolicy.conditional(request, "ticket-categories",
+                catalogVersions.ticketCategoriesStamp(eventId,
+                        Catalog.EVENTS, Catalog.ACTS, Catalog.CATEGORIES, Catalog.TAGS, Catalog.USERS),
+                () -> ticketCategoryService.getTicketCategoriesByEventId(eventId));
     }
     
     /**
@@ -162,6 +185,35 @@ public class TicketCategoryController {
         return ResponseEntity.ok(ticketCategoryService.getAvailableTicketCategoriesByEventId(eventId));
     }
     
+    /**
+     * Streams availability changes for an event as server-sent events
+     * @param eventId The event ID
+     * @return The event stream, or 503 if the server has too many open streams
+     */
+    @GetMapping(value = "/event/{eventId}/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream ticket availability for an event", 
+               description = "Opens a server-sent event stream. The first 'availability' event lists every active ticket category " +
+                             "of the event; later ones list only the categories whose counts changed, a few times per second at most.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream opened", 
+                     content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+        @ApiResponse(responseCode = "503", description = "Too many open streams; retry later")
+    })
+    public ResponseEntity<SseEmitter> streamAvailability(
+            @Parameter(description = "ID of the event to watch", required = true) @PathVariable Long eventId) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .header("X-Accel-Buffering", "no")
+                    .body(availabilityStream.subscribe(eventId));
+        } catch (RejectedExecutionException e) {
+            // The stream handler only accepts an emitter body, so the rejection carries no error map
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+    }
+    
     /**
      * Creates a new ticket category
      * @param ticketCategory Ticket category data from request body
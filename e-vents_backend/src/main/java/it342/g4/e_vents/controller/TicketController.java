@@ -1,5 +1,6 @@
 package it342.g4.e_vents.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,16 +9,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.enums.Role;
+import it342.g4.e_vents.security.AuthenticatedUser;
+import it342.g4.e_vents.service.AuthService;
+import it342.g4.e_vents.service.RefundService;
+import it342.g4.e_vents.service.TicketExportService;
 import it342.g4.e_vents.service.TicketService;
+import it342.g4.e_vents.util.DataFormat;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controller for ticket-related operations
@@ -29,10 +40,19 @@ import java.util.Map;
 public class TicketController {
 
     private final TicketService ticketService;
+    private final TicketExportService ticketExportService;
+    private final ObjectMapper objectMapper;
+    private final RefundService refundService;
+    private final AuthService authService;
     
     @Autowired
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, TicketExportService ticketExportService,
+                            ObjectMapper objectMapper, RefundService refundService, AuthService authService) {
         this.ticketService = ticketService;
+        this.ticketExportService = ticketExportService;
+        this.objectMapper = objectMapper;
+        this.refundService = refundService;
+        this.authService = authService;
     }
     
     /**
@@ -64,21 +84,30 @@ public class TicketController {
     }
     
     /**
-     * Retrieves an active ticket by ID
+     * Retrieves an active ticket by ID, for its holder, organizers and admins
      * @param id The ticket ID
-     * @return The ticket or 404 if not found
+     * @return The ticket, 403 if the caller may not see it, or 404 if not found
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get ticket by ID", description = "Retrieves a specific active ticket by its ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the ticket", 
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Ticket.class))),
+        @ApiResponse(responseCode = "403", description = "Caller does not hold the ticket", content = @Content),
         @ApiResponse(responseCode = "404", description = "Ticket not found", content = @Content)
     })
-    public ResponseEntity<Ticket> getActiveTicketById(
+    public ResponseEntity<?> getActiveTicketById(
             @Parameter(description = "ID of the ticket to retrieve") @PathVariable Long id) {
+        AuthenticatedUser caller = authService.getCurrentPrincipal();
         return ticketService.getActiveTicketById(id)
-                .map(ResponseEntity::ok)
+                .<ResponseEntity<?>>map(ticket -> {
+                    boolean holder = ticket.getUser() != null && caller != null && caller.canActFor(ticket.getUser().getUserId());
+                    if (!holder && (caller == null || !Role.ORGANIZER.name().equals(caller.getRole()))) {
+                        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                                .body(Collections.singletonMap("error", "Only the ticket holder can view this ticket"));
+                    }
+                    return ResponseEntity.ok(ticket);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -94,8 +123,10 @@ public class TicketController {
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Ticket.class)))
     })
     public ResponseEntity<List<Ticket>> getTicketsByUserId(
-            @Parameter(description = "ID of the user to retrieve tickets for") @PathVariable Long userId) {
-        return ResponseEntity.ok(ticketService.getTicketsByUserId(userId));
+            @Parameter(description = "ID of the user to retrieve tickets for") @PathVariable Long userId,
+            @Parameter(description = "Also return tickets of archived events")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(ticketService.getTicketsByUserId(userId, includeArchived));
     }
     
     /**
@@ -110,8 +141,112 @@ public class TicketController {
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = Ticket.class)))
     })
     public ResponseEntity<List<Ticket>> getTicketsByEventId(
-            @Parameter(description = "ID of the event to retrieve tickets for") @PathVariable Long eventId) {
-        return ResponseEntity.ok(ticketService.getTicketsByEventId(eventId));
+            @Parameter(description = "ID of the event to retrieve tickets for") @PathVariable Long eventId,
+            @Parameter(description = "Also return tickets moved to the archive with the event")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(ticketService.getTicketsByEventId(eventId, includeArchived));
+    }
+    
+    /**
+     * Retrieves the progress of refunding a cancelled event's tickets
+     * @param eventId The event ID
+     * @return The refund job or error
+     */
+    @GetMapping("/event/{eventId}/refund")
+    @Operation(summary = "Get event refund progress", 
+               description = "Retrieves the status of the background refund started when the event was cancelled")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved refund progress", 
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "404", description = "The event was never cancelled", content = @Content)
+    })
+    public ResponseEntity<?> getEventRefund(
+            @Parameter(description = "ID of the cancelled event", required = true) @PathVariable Long eventId) {
+        return refundService.getEventRefund(eventId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Collections.singletonMap("error", "No refund found for event ID: " + eventId)));
+    }
+    
+    /**
+     * Streams the attendee list of an event as CSV or NDJSON
+     * @param eventId The event ID
+     * @param format Output format (csv or ndjson)
+     * @param gzip Whether to gzip the response body
+     * @return Streaming attendee list or error
+     */
+    @GetMapping("/event/{eventId}/export")
+    @Operation(summary = "Export attendee list", description = "Streams all active tickets of an event with their holders as CSV or NDJSON, "
+            + "optionally gzip-encoded. Memory use is constant regardless of event size.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Attendee list streamed",
+                     content = {@Content(mediaType = "text/csv"), @Content(mediaType = "application/x-ndjson")}),
+        @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Event not found", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportAttendees(
+            @Parameter(description = "ID of the event to export attendees for") @PathVariable Long eventId,
+            @Parameter(description = "Output format: csv or ndjson") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Gzip the response body") @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            DataFormat dataFormat = DataFormat.fromParameter(format);
+            ticketExportService.requireEvent(eventId);
+            return streamExport("event-" + eventId + "-attendees", dataFormat, gzip,
+                    out -> ticketExportService.exportAttendees(eventId, dataFormat, out));
+        } catch (EntityNotFoundException e) {
+            return streamError(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return streamError(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    /**
+     * Streams every active ticket as CSV or NDJSON
+     * @param format Output format (csv or ndjson)
+     * @param gzip Whether to gzip the response body
+     * @return Streaming ticket list or error
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Export all tickets", description = "Streams all active tickets with their holders as CSV or NDJSON, optionally gzip-encoded")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tickets streamed",
+                     content = {@Content(mediaType = "text/csv"), @Content(mediaType = "application/x-ndjson")}),
+        @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportAllTickets(
+            @Parameter(description = "Output format: csv or ndjson") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Gzip the response body") @RequestParam(defaultValue = "false") boolean gzip) {
+        try {
+            DataFormat dataFormat = DataFormat.fromParameter(format);
+            return streamExport("tickets", dataFormat, gzip,
+                    out -> ticketExportService.exportAllTickets(dataFormat, out));
+        } catch (IllegalArgumentException e) {
+            return streamError(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    private ResponseEntity<StreamingResponseBody> streamExport(String fileName, DataFormat format, boolean gzip,
+                                                               StreamingResponseBody body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + "." + format.getExtension() + "\"");
+        if (!gzip) {
+            return response.body(body);
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                    body.writeTo(gzipOut);
+                    gzipOut.finish();
+                });
+    }
+    
+    // Streaming handlers must declare StreamingResponseBody, so errors are written the same way
+    private ResponseEntity<StreamingResponseBody> streamError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Collections.singletonMap("error", message)));
     }
     
     /**
@@ -228,7 +363,33 @@ public class TicketController {
     }
     
     /**
-     * Deactivates (soft-deletes) a ticket
+     * Refunds a ticket and returns its seat to the ticket category
+     * @param id The ticket ID to refund
+     * @return The refunded ticket or error
+     */
+    @PutMapping("/{id}/refund")
+    @Operation(summary = "Refund a ticket", description = "Marks a ticket as refunded and makes its seat available again")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ticket successfully refunded", 
+                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Ticket.class))),
+        @ApiResponse(responseCode = "400", description = "Ticket already refunded or deactivated", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Ticket not found", content = @Content)
+    })
+    public ResponseEntity<?> refundTicket(
+            @Parameter(description = "ID of the ticket to refund", required = true) @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(refundService.refundTicket(id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Deactivates (soft-deletes) a ticket and returns its seat to the ticket category
      * @param id The ticket ID to deactivate
      * @return Success message or error
      */
@@ -263,6 +424,7 @@ public class TicketController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Ticket successfully restored", 
                      content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "400", description = "Ticket was refunded, its event cancelled, or its category sold out", content = @Content),
         @ApiResponse(responseCode = "404", description = "Ticket not found", content = @Content)
     })
     public ResponseEntity<?> restoreTicket(
@@ -3,10 +3,17 @@ package it342.g4.e_vents.controller;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,6 +21,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -26,10 +34,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import it342.g4.e_vents.dto.UserSummary;
 import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.model.enums.Role;
+import it342.g4.e_vents.security.AuthenticatedUser;
+import it342.g4.e_vents.security.JwtAuthenticationFilter;
 import it342.g4.e_vents.security.JwtUtils;
+import io.jsonwebtoken.Claims;
+import it342.g4.e_vents.security.LoginThrottledException;
+import it342.g4.e_vents.security.TokenDenylist;
+import it342.g4.e_vents.service.AuthService;
+import it342.g4.e_vents.service.RefreshTokenService;
 import it342.g4.e_vents.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,17 +63,31 @@ public class UserController {
     private final UserService userService;
 
     private final JwtUtils jwtUtils;
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenDenylist tokenDenylist;
+
+    private final AuthService authService;
+
+    private final ExecutorService authCompletionExecutor;
     
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     
     @Autowired
-    public UserController(UserService userService, JwtUtils jwtUtils) {
+    public UserController(UserService userService, JwtUtils jwtUtils, RefreshTokenService refreshTokenService,
+                          TokenDenylist tokenDenylist, AuthService authService,
+                          @Qualifier("authCompletionExecutor") ExecutorService authCompletionExecutor) {
         this.userService = userService;
         this.jwtUtils = jwtUtils;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenDenylist = tokenDenylist;
+        this.authService = authService;
+        this.authCompletionExecutor = authCompletionExecutor;
     }
     
     /**
-     * Registers a new user
+     * Registers a new user. The password is hashed on a bounded pool so the request thread is released.
      * @param user User data from request body
      * @return The registered user or error message
      */
@@ -64,9 +96,10 @@ public class UserController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User successfully registered", 
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid input or email already exists", content = @Content)
+        @ApiResponse(responseCode = "400", description = "Invalid input or email already exists", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Registration temporarily unavailable, retry shortly", content = @Content)
     })
-    public ResponseEntity<?> registerUser(
+    public CompletableFuture<ResponseEntity<?>> registerUser(
         @Parameter(description = "User object to be registered", required = true) @RequestBody User user) {
         if (user.getFirstName() == null) user.setFirstName("");
         if (user.getLastName() == null) user.setLastName("");
@@ -75,34 +108,32 @@ public class UserController {
         if (user.getCountry() == null) user.setCountry("");
         if (user.getPassword() == null) user.setPassword("");
         try {
-            User registeredUser = userService.registerUser(user);
-            
-            // Generate JWT token
-            String token = jwtUtils.generateToken(registeredUser);
-            
-            // Create response with token and user info
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("userId", registeredUser.getUserId());
-            response.put("email", registeredUser.getEmail());
-            response.put("firstName", registeredUser.getFirstName());
-            response.put("lastName", registeredUser.getLastName());
-            response.put("role", registeredUser.getRole() != null ? registeredUser.getRole().getName() : "USER");
-            response.put("country", registeredUser.getCountry());
-            response.put("birthdate", registeredUser.getBirthdate());
-            response.put("contactNumber", registeredUser.getContactNumber());
-            response.put("dateCreated", registeredUser.getDateCreated());
-            
-            return ResponseEntity.ok(response);
+            // Continues on the auth completion pool that saved the user
+            return userService.registerUser(user)
+                    .<ResponseEntity<?>>thenApply(registeredUser -> {
+                        // Registration signs the user in, so it issues the same token pair as login
+                        Map<String, Object> response = tokenResponse(UserSummary.from(registeredUser),
+                                refreshTokenService.issue(registeredUser.getUserId()));
+                        response.put("country", registeredUser.getCountry());
+                        response.put("birthdate", registeredUser.getBirthdate());
+                        response.put("contactNumber", registeredUser.getContactNumber());
+                        response.put("dateCreated", registeredUser.getDateCreated());
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> ResponseEntity.badRequest().body(causeOf(e).getMessage()));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingBusy("Registration"));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        } 
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
     }
 
     /**
-     * Authenticates a user
+     * Authenticates a user. Attempts are rate limited per IP and per email, and the
+     * password check runs on a bounded hashing pool so the request thread is released.
      * @param email User's email
      * @param password User's password
+     * @param request The HTTP request, for the client address
      * @return The authenticated user or error message
      */
      @PostMapping("/login")
@@ -110,30 +141,130 @@ public class UserController {
      @ApiResponses(value = {
          @ApiResponse(responseCode = "200", description = "Authentication successful", 
                       content = @Content(mediaType = "application/json")),
-         @ApiResponse(responseCode = "401", description = "Invalid credentials", content = @Content)
+         @ApiResponse(responseCode = "401", description = "Invalid credentials", content = @Content),
+         @ApiResponse(responseCode = "429", description = "Too many login attempts", content = @Content),
+         @ApiResponse(responseCode = "503", description = "Login temporarily unavailable, retry shortly", content = @Content)
      })
-    public ResponseEntity<?> login(
+    public CompletableFuture<ResponseEntity<?>> login(
             @Parameter(description = "User's email address", required = true) @RequestParam String email, 
-            @Parameter(description = "User's password", required = true) @RequestParam String password) {
+            @Parameter(description = "User's password", required = true) @RequestParam String password,
+            HttpServletRequest request) {
         try {
-            User user = userService.login(email, password);
-            
-            // Generate JWT token
-            String token = jwtUtils.generateToken(user);
-            
-            // Create response with token and user info
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("userId", user.getUserId());
-            response.put("email", user.getEmail());
-            response.put("firstName", user.getFirstName());
-            response.put("lastName", user.getLastName());
-            response.put("role", user.getRole() != null ? user.getRole().getName() : "USER");
-            
-            return ResponseEntity.ok(response);
+            boolean secure = request.isSecure();
+            // Issuing the refresh token is database work, so it moves off the hashing pool
+            return userService.login(email, password, request.getRemoteAddr())
+                    .<ResponseEntity<?>>thenApplyAsync(user -> loginResponse(user, secure), authCompletionExecutor)
+                    .exceptionally(e -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(causeOf(e).getMessage()));
+        } catch (LoginThrottledException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Collections.singletonMap("error", e.getMessage())));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingBusy("Login"));
         } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage()));
+        }
+    }
+
+    // The hashing pool is saturated; the client should retry shortly
+    private static ResponseEntity<?> hashingBusy(String action) {
+        logger.warn("Password hashing pool saturated, rejecting {}", action.toLowerCase());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Collections.singletonMap("error", action + " is busy, please try again"));
+    }
+
+    private static Throwable causeOf(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private ResponseEntity<?> loginResponse(User user, boolean secure) {
+        UserSummary summary = UserSummary.from(user);
+        Map<String, Object> body = tokenResponse(summary, refreshTokenService.issue(user.getUserId()));
+        if (!Role.ADMIN.name().equals(summary.getRole())) {
+            return ResponseEntity.ok(body);
+        }
+        // The server-rendered admin pages cannot send a bearer header, so admins also get the token as a cookie
+        ResponseCookie cookie = adminTokenCookie((String) body.get("token"), jwtUtils.getExpirationMs() / 1000, secure);
+        return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString()).body(body);
+    }
+
+    private static ResponseCookie adminTokenCookie(String token, long maxAgeSeconds, boolean secure) {
+        return ResponseCookie.from(JwtAuthenticationFilter.ADMIN_TOKEN_COOKIE, token)
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite("Strict")
+                .path("/admin")
+                .maxAge(maxAgeSeconds)
+                .build();
+    }
+
+    private Map<String, Object> tokenResponse(UserSummary user, String refreshToken) {
+        // Generate JWT token
+        String token = jwtUtils.generateToken(user);
+        
+        // Create response with token and user info
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", token);
+        response.put("refreshToken", refreshToken);
+        response.put("expiresIn", jwtUtils.getExpirationMs() / 1000);
+        response.put("userId", user.getUserId());
+        response.put("email", user.getEmail());
+        response.put("firstName", user.getFirstName());
+        response.put("lastName", user.getLastName());
+        response.put("role", user.getRole());
+        return response;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token
+     * @param refreshToken The refresh token from login or the previous refresh
+     * @return New tokens and user info, or 401 if the refresh token is not valid
+     */
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh access token", description = "Rotates the refresh token and issues a new short-lived access token")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tokens refreshed", 
+                     content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "401", description = "Refresh token invalid, expired or already used", content = @Content)
+    })
+    public ResponseEntity<?> refresh(
+            @Parameter(description = "Refresh token", required = true) @RequestParam String refreshToken) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+            return ResponseEntity.ok(tokenResponse(rotation.user(), rotation.refreshToken()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Ends the caller's session: revokes the refresh token and the access token
+     * @param refreshToken The session's refresh token
+     * @param authorization Bearer access token, revoked until it expires
+     * @return Success message
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "Log out", description = "Revokes the refresh token and the current access token")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Logged out", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> logout(
+            @Parameter(description = "Refresh token") @RequestParam(required = false) String refreshToken,
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            HttpServletRequest request) {
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
         }
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            Claims claims = jwtUtils.parseClaims(authorization.substring(7));
+            if (claims != null && claims.getExpiration() != null) {
+                tokenDenylist.revokeToken(claims.getId(), claims.getExpiration().getTime());
+            }
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, adminTokenCookie("", 0, request.isSecure()).toString())
+                .body(Collections.singletonMap("message", "Logged out successfully"));
     }
 
     /**
@@ -250,30 +381,44 @@ public class UserController {
     }
 
     /**
-     * Changes a user's password
+     * Changes the caller's password; admins may change any user's
      * @param req Request containing email and new password
      * @return Success message or error
      */
     @PostMapping("/change-password")
-    @Operation(summary = "Change user password", description = "Updates a user's password by their email address")
+    @Operation(summary = "Change user password", description = "Updates a user's password by their email address; only the user themselves or an admin may change it")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Password successfully changed", 
                      content = @Content(mediaType = "application/json")),
+        @ApiResponse(responseCode = "403", description = "Caller may not change this user's password", content = @Content),
         @ApiResponse(responseCode = "404", description = "User not found", content = @Content),
-        @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content)
+        @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Password change temporarily unavailable, retry shortly", content = @Content)
     })
-    public ResponseEntity<?> changePassword(
+    public CompletableFuture<ResponseEntity<?>> changePassword(
             @Parameter(description = "Request containing email and new password", required = true) 
             @RequestBody ChangePasswordRequest req) {
+        AuthenticatedUser caller = authService.getCurrentPrincipal();
+        if (caller == null || (!caller.isAdmin() && !caller.getEmail().equalsIgnoreCase(req.getEmail()))) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Collections.singletonMap("error", "You can only change your own password")));
+        }
         try {
-            boolean changed = userService.changePasswordByEmail(req.getEmail(), req.getPassword());
-            if (changed) {
-                return ResponseEntity.ok(Collections.singletonMap("message", "Password changed successfully"));
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Collections.singletonMap("error", "User not found"));
-            }
+            return userService.changePasswordByEmail(req.getEmail(), req.getPassword())
+                    .<ResponseEntity<?>>thenApply(changed -> {
+                        if (changed) {
+                            return ResponseEntity.ok(Collections.singletonMap("message", "Password changed successfully"));
+                        } else {
+                            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Collections.singletonMap("error", "User not found"));
+                        }
+                    })
+                    .exceptionally(e -> ResponseEntity.badRequest()
+                            .body(Collections.singletonMap("error", causeOf(e).getMessage())));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingBusy("Password change"));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", e.getMessage())));
         }
     }
 
@@ -305,7 +450,7 @@ public class UserController {
     })
     public ResponseEntity<?> userExists(
             @Parameter(description = "Email address to check", required = true) @RequestParam(required = false) String email) {
-        System.out.println("Incoming email: " + email);
+        logger.debug("Checking if user exists: {}", email);
         if (email == null || email.trim().isEmpty()) {
             return ResponseEntity.badRequest().body("Email parameter is required");
         }
@@ -321,7 +466,7 @@ public class UserController {
      * @return The updated user or 404 if not found
      */
     @PutMapping("/{id}")
-    @Operation(summary = "Update user profile", description = "Updates a user's profile information")
+    @Operation(summary = "Update user profile", description = "Updates a user's profile information; only admins can change the role")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User successfully updated", 
                      content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
@@ -334,6 +479,11 @@ public class UserController {
         try {
             logger.info("Updating user with ID: {}", id);
             logger.debug("Update payload: {}", updatedUser);
+            AuthenticatedUser caller = authService.getCurrentPrincipal();
+            if (caller == null || !caller.isAdmin()) {
+                // The body is the whole profile, so a role sent by a non-admin is ignored rather than rejected
+                updatedUser.setRole(null);
+            }
             
             return userService.updateUser(id, updatedUser)
                     .map(user -> {
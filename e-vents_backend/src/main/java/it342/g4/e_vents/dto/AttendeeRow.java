@@ -0,0 +1,82 @@
+package it342.g4.e_vents.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of a ticket and its holder used by the streaming export.
+ * Selected with a JPQL constructor expression so no Ticket/User/Event
+ * entities are loaded into the persistence context.
+ */
+public class AttendeeRow {
+    private final Long ticketId;
+    private final String status;
+    private final LocalDateTime purchaseDate;
+    private final Long eventId;
+    private final Long ticketCategoryId;
+    private final String ticketCategoryName;
+    private final Double price;
+    private final Long userId;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+
+    public AttendeeRow(Long ticketId, String status, LocalDateTime purchaseDate, Long eventId,
+                       Long ticketCategoryId, String ticketCategoryName, Double price,
+                       Long userId, String firstName, String lastName, String email) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.purchaseDate = purchaseDate;
+        this.eventId = eventId;
+        this.ticketCategoryId = ticketCategoryId;
+        this.ticketCategoryName = ticketCategoryName;
+        this.price = price;
+        this.userId = userId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getPurchaseDate() {
+        return purchaseDate;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public Long getTicketCategoryId() {
+        return ticketCategoryId;
+    }
+
+    public String getTicketCategoryName() {
+        return ticketCategoryName;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
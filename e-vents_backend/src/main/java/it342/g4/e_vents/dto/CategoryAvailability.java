@@ -0,0 +1,32 @@
+package it342.g4.e_vents.dto;
+
+/**
+ * Remaining tickets of one ticket category, as pushed on the availability stream
+ */
+public class CategoryAvailability {
+    private final Long ticketCategoryId;
+    private final int totalTickets;
+    private final int ticketsSold;
+
+    public CategoryAvailability(Long ticketCategoryId, int totalTickets, int ticketsSold) {
+        this.ticketCategoryId = ticketCategoryId;
+        this.totalTickets = totalTickets;
+        this.ticketsSold = ticketsSold;
+    }
+
+    public Long getTicketCategoryId() {
+        return ticketCategoryId;
+    }
+
+    public int getTotalTickets() {
+        return totalTickets;
+    }
+
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public int getAvailableTickets() {
+        return Math.max(0, totalTickets - ticketsSold);
+    }
+}
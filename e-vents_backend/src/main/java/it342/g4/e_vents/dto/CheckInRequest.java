@@ -0,0 +1,34 @@
+package it342.g4.e_vents.dto;
+
+import java.util.List;
+
+/**
+ * A batch of tokens scanned at one gate
+ */
+public class CheckInRequest {
+    private String gate;
+    private List<String> tokens;
+
+    public CheckInRequest() {}
+
+    public CheckInRequest(String gate, List<String> tokens) {
+        this.gate = gate;
+        this.tokens = tokens;
+    }
+
+    public String getGate() {
+        return gate;
+    }
+
+    public void setGate(String gate) {
+        this.gate = gate;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
@@ -0,0 +1,40 @@
+package it342.g4.e_vents.dto;
+
+/**
+ * Outcome of one scanned token, in the order the tokens were sent
+ */
+public class CheckInResult {
+
+    public enum Outcome {
+        // First valid scan; the holder may enter
+        ADMITTED,
+        // The ticket was already checked in
+        DUPLICATE,
+        // The ticket was refunded or deactivated
+        REVOKED,
+        // Valid token for another event
+        WRONG_EVENT,
+        // Malformed or forged token
+        INVALID
+    }
+
+    private final Long ticketId;
+    private final Outcome outcome;
+
+    public CheckInResult(Long ticketId, Outcome outcome) {
+        this.ticketId = ticketId;
+        this.outcome = outcome;
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isAdmitted() {
+        return outcome == Outcome.ADMITTED;
+    }
+}
@@ -0,0 +1,121 @@
+package it342.g4.e_vents.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Revenue and sell-through of an event, broken down by ticket category.
+ */
+public class EventSalesSummary {
+    private final Long eventId;
+    private final String eventName;
+    private final int totalTickets;
+    private final int ticketsSold;
+    private final double revenue;
+    private final double sellThroughPercent;
+    private final List<CategorySales> categories;
+
+    public EventSalesSummary(Long eventId, String eventName, int totalTickets, int ticketsSold,
+                             double revenue, double sellThroughPercent, List<CategorySales> categories) {
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.totalTickets = totalTickets;
+        this.ticketsSold = ticketsSold;
+        this.revenue = revenue;
+        this.sellThroughPercent = sellThroughPercent;
+        this.categories = categories;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public int getTotalTickets() {
+        return totalTickets;
+    }
+
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public double getSellThroughPercent() {
+        return sellThroughPercent;
+    }
+
+    public List<CategorySales> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Sales of a single ticket category
+     */
+    public static class CategorySales {
+        private final Long ticketCategoryId;
+        private final String name;
+        private final Double price;
+        private final int totalTickets;
+        private final int ticketsSold;
+        private final double revenue;
+        private final double sellThroughPercent;
+        private final LocalDateTime firstSale;
+        private final LocalDateTime lastSale;
+
+        public CategorySales(Long ticketCategoryId, String name, Double price, int totalTickets, int ticketsSold,
+                             double revenue, double sellThroughPercent,
+                             LocalDateTime firstSale, LocalDateTime lastSale) {
+            this.ticketCategoryId = ticketCategoryId;
+            this.name = name;
+            this.price = price;
+            this.totalTickets = totalTickets;
+            this.ticketsSold = ticketsSold;
+            this.revenue = revenue;
+            this.sellThroughPercent = sellThroughPercent;
+            this.firstSale = firstSale;
+            this.lastSale = lastSale;
+        }
+
+        public Long getTicketCategoryId() {
+            return ticketCategoryId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        public int getTotalTickets() {
+            return totalTickets;
+        }
+
+        public int getTicketsSold() {
+            return ticketsSold;
+        }
+
+        public double getRevenue() {
+            return revenue;
+        }
+
+        public double getSellThroughPercent() {
+            return sellThroughPercent;
+        }
+
+        public LocalDateTime getFirstSale() {
+            return firstSale;
+        }
+
+        public LocalDateTime getLastSale() {
+            return lastSale;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package it342.g4.e_vents.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One bucket of a sale-day curve. Cumulative values include all sales
+ * before the bucket, also those before the requested range.
+ */
+public class SalesTimeSeriesPoint {
+    private final LocalDateTime bucketStart;
+    private final int ticketsSold;
+    private final double revenue;
+    private final double purchasesPerMinute;
+    private final long cumulativeTicketsSold;
+    private final double cumulativeRevenue;
+    private final double cumulativeSellThroughPercent;
+
+    public SalesTimeSeriesPoint(LocalDateTime bucketStart, int ticketsSold, double revenue,
+                                double purchasesPerMinute, long cumulativeTicketsSold,
+                                double cumulativeRevenue, double cumulativeSellThroughPercent) {
+        this.bucketStart = bucketStart;
+        this.ticketsSold = ticketsSold;
+        this.revenue = revenue;
+        this.purchasesPerMinute = purchasesPerMinute;
+        this.cumulativeTicketsSold = cumulativeTicketsSold;
+        this.cumulativeRevenue = cumulativeRevenue;
+        this.cumulativeSellThroughPercent = cumulativeSellThroughPercent;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public double getPurchasesPerMinute() {
+        return purchasesPerMinute;
+    }
+
+    public long getCumulativeTicketsSold() {
+        return cumulativeTicketsSold;
+    }
+
+    public double getCumulativeRevenue() {
+        return cumulativeRevenue;
+    }
+
+    public double getCumulativeSellThroughPercent() {
+        return cumulativeSellThroughPercent;
+    }
+}
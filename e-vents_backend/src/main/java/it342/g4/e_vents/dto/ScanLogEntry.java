@@ -0,0 +1,44 @@
+package it342.g4.e_vents.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A scan recorded by a device while it was offline
+ */
+public class ScanLogEntry {
+    private String token;
+    private String gate;
+    private LocalDateTime scannedAt;
+
+    public ScanLogEntry() {}
+
+    public ScanLogEntry(String token, String gate, LocalDateTime scannedAt) {
+        this.token = token;
+        this.gate = gate;
+        this.scannedAt = scannedAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getGate() {
+        return gate;
+    }
+
+    public void setGate(String gate) {
+        this.gate = gate;
+    }
+
+    public LocalDateTime getScannedAt() {
+        return scannedAt;
+    }
+
+    public void setScannedAt(LocalDateTime scannedAt) {
+        this.scannedAt = scannedAt;
+    }
+}
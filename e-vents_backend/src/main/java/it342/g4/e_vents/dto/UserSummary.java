@@ -0,0 +1,54 @@
+package it342.g4.e_vents.dto;
+
+import it342.g4.e_vents.model.User;
+
+/**
+ * The few user fields needed to identify a caller and issue tokens. Cached
+ * by UserSummaryCache so these lookups do not load the User entity.
+ */
+public class UserSummary {
+    private final Long userId;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String role;
+    private final boolean active;
+
+    public UserSummary(Long userId, String email, String firstName, String lastName, String role, boolean active) {
+        this.userId = userId;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.role = role;
+        this.active = active;
+    }
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getUserId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getRole() != null ? user.getRole().getName() : "USER", user.isActive());
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
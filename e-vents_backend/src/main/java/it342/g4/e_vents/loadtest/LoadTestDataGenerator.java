@@ -0,0 +1,232 @@
+package it342.g4.e_vents.loadtest;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.service.EventLifecycle;
+import it342.g4.e_vents.service.EventReminders;
+import it342.g4.e_vents.service.SalesAnalyticsService;
+
+/**
+ * Seeds the embedded database of the "loadtest" profile with synthetic users,
+ * events, ticket categories, sold tickets and ratings. Runs once the regular
+ * startup data exists. All users share one password, hashed once, so seeding
+ * thousands of users does not spend minutes in BCrypt.
+ */
+@Component
+@Profile("loadtest")
+public class LoadTestDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestDataGenerator.class);
+
+    public static final String EMAIL_PREFIX = "loadtest-user-";
+    public static final String EMAIL_DOMAIN = "@events.test";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] CATEGORY_NAMES = {"General Admission", "VIP", "VVIP", "Box", "Standing"};
+    private static final double[] CATEGORY_PRICES = {1500, 3500, 7500, 12000, 900};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final SalesAnalyticsService salesAnalyticsService;
+    private final EventLifecycle eventLifecycle;
+    private final EventReminders eventReminders;
+
+    @Value("${loadtest.seed.users:1000}")
+    private int userCount;
+
+    @Value("${loadtest.seed.events:50}")
+    private int eventCount;
+
+    @Value("${loadtest.seed.ticket-categories-per-event:3}")
+    private int categoriesPerEvent;
+
+    @Value("${loadtest.seed.tickets-per-category:2000}")
+    private int ticketsPerCategory;
+
+    @Value("${loadtest.seed.sold-tickets:20000}")
+    private int soldTickets;
+
+    @Value("${loadtest.seed.ratings:2000}")
+    private int ratingCount;
+
+    @Value("${loadtest.seed.password:loadtest123}")
+    private String password;
+
+    @Value("${loadtest.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Autowired
+    public LoadTestDataGenerator(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+                                 SalesAnalyticsService salesAnalyticsService, EventLifecycle eventLifecycle,
+                                 EventReminders eventReminders) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.salesAnalyticsService = salesAnalyticsService;
+        this.eventLifecycle = eventLifecycle;
+        this.eventReminders = eventReminders;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE email LIKE ?", Integer.class, EMAIL_PREFIX + "%");
+        if (existing != null && existing > 0) {
+            logger.info("Load-test data already present ({} users), skipping seed", existing);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Random random = new Random(randomSeed);
+
+        List<Long> userIds = seedUsers();
+        List<Long> eventIds = seedEvents(random);
+        List<long[]> categories = seedTicketCategories(eventIds);
+        int tickets = seedTickets(random, userIds, categories);
+        int ratings = seedRatings(random, userIds, eventIds);
+        eventIds.forEach(salesAnalyticsService::rebuildEventRollups);
+        eventLifecycle.rescheduleAll();
+        eventReminders.rescheduleAll();
+
+        logger.info("Seeded {} users, {} events, {} ticket categories, {} tickets and {} ratings in {} ms",
+                userIds.size(), eventIds.size(), categories.size(), tickets, ratings,
+                System.currentTimeMillis() - start);
+    }
+
+    private List<Long> seedUsers() {
+        Long roleId = jdbcTemplate.queryForObject("SELECT role_id FROM roles WHERE name = 'USER'", Long.class);
+        String hash = passwordEncoder.encode(password);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= userCount; i++) {
+            rows.add(new Object[] {"Load", "User " + i, Date.valueOf(LocalDate.of(1995, 1, 1)),
+                    EMAIL_PREFIX + i + EMAIL_DOMAIN, "09170000000", "Philippines", roleId, hash, now});
+            if (rows.size() == BATCH_SIZE || i == userCount) {
+                jdbcTemplate.batchUpdate("INSERT INTO users (first_name, last_name, birthdate, email, contact_number, "
+                        + "country, role_id, password, is_active, date_created) VALUES (?, ?, ?, ?, ?, ?, ?, ?, TRUE, ?)",
+                        rows);
+                rows.clear();
+            }
+        }
+        return jdbcTemplate.queryForList("SELECT user_id FROM users WHERE email LIKE ? ORDER BY user_id",
+                Long.class, EMAIL_PREFIX + "%");
+    }
+
+    private List<Long> seedEvents(Random random) {
+        Long organizerId = jdbcTemplate.queryForObject("SELECT MIN(u.user_id) FROM users u "
+                + "JOIN roles r ON r.role_id = u.role_id WHERE r.name IN ('ORGANIZER', 'ADMIN')", Long.class);
+        List<Long> actIds = jdbcTemplate.queryForList("SELECT act_id FROM acts", Long.class);
+        LocalDate today = LocalDate.now();
+
+        List<Object[]> rows = new ArrayList<>(eventCount);
+        for (int i = 1; i <= eventCount; i++) {
+            rows.add(new Object[] {"Load Test Event " + i, "Synthetic event " + i + " for load testing",
+                    Date.valueOf(today.plusDays(7 + random.nextInt(90))), Time.valueOf(LocalTime.of(19, 0)),
+                    "Venue " + (1 + random.nextInt(10)), organizerId, Event.STATUS_SCHEDULED,
+                    Date.valueOf(today)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO events (name, description, date, time, venue, user_id, status, "
+                + "is_active, date_created) VALUES (?, ?, ?, ?, ?, ?, ?, TRUE, ?)", rows);
+        List<Long> eventIds = jdbcTemplate.queryForList(
+                "SELECT event_id FROM events WHERE name LIKE 'Load Test Event %' ORDER BY event_id", Long.class);
+
+        if (!actIds.isEmpty()) {
+            List<Object[]> lineup = new ArrayList<>(eventIds.size());
+            for (Long eventId : eventIds) {
+                lineup.add(new Object[] {eventId, actIds.get(random.nextInt(actIds.size()))});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO events_lineup (events_event_id, lineup_act_id) VALUES (?, ?)", lineup);
+        }
+        return eventIds;
+    }
+
+    // Returns [ticketCategoryId, eventId] pairs
+    private List<long[]> seedTicketCategories(List<Long> eventIds) {
+        int perEvent = Math.min(categoriesPerEvent, CATEGORY_NAMES.length);
+        List<Object[]> rows = new ArrayList<>(eventIds.size() * perEvent);
+        for (Long eventId : eventIds) {
+            for (int c = 0; c < perEvent; c++) {
+                rows.add(new Object[] {CATEGORY_NAMES[c], CATEGORY_PRICES[c], ticketsPerCategory, eventId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ticket_categories (name, price, total_tickets, tickets_sold, status, "
+                + "is_active, event_id) VALUES (?, ?, ?, 0, 'AVAILABLE', TRUE, ?)", rows);
+
+        List<long[]> categories = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            for (Long id : jdbcTemplate.queryForList("SELECT ticket_category_id FROM ticket_categories "
+                    + "WHERE event_id = ? ORDER BY ticket_category_id", Long.class, eventId)) {
+                categories.add(new long[] {id, eventId});
+            }
+        }
+        return categories;
+    }
+
+    // Leaves at least half of every category unsold so purchases keep succeeding under load
+    private int seedTickets(Random random, List<Long> userIds, List<long[]> categories) {
+        if (categories.isEmpty() || userIds.isEmpty()) {
+            return 0;
+        }
+        int[] sold = new int[categories.size()];
+        int limit = Math.min(soldTickets, categories.size() * (ticketsPerCategory / 2));
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < limit; i++) {
+            int c;
+            do {
+                c = random.nextInt(categories.size());
+            } while (sold[c] >= ticketsPerCategory / 2);
+            sold[c]++;
+            rows.add(new Object[] {categories.get(c)[0], userIds.get(random.nextInt(userIds.size())),
+                    Timestamp.valueOf(now.minusSeconds(random.nextInt(14 * 24 * 3600)))});
+            if (rows.size() == BATCH_SIZE || i == limit - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO tickets (ticket_category_id, user_id, status, purchase_date, "
+                        + "is_active) VALUES (?, ?, 'PURCHASED', ?, TRUE)", rows);
+                rows.clear();
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>(categories.size());
+        for (int c = 0; c < categories.size(); c++) {
+            updates.add(new Object[] {sold[c], categories.get(c)[0]});
+        }
+        jdbcTemplate.batchUpdate("UPDATE ticket_categories SET tickets_sold = ? WHERE ticket_category_id = ?", updates);
+        return limit;
+    }
+
+    private int seedRatings(Random random, List<Long> userIds, List<Long> eventIds) {
+        if (userIds.isEmpty() || eventIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(ratingCount);
+        for (int i = 0; i < ratingCount; i++) {
+            rows.add(new Object[] {1 + random.nextInt(5), eventIds.get(random.nextInt(eventIds.size())),
+                    userIds.get(random.nextInt(userIds.size())), now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ratings (rating_value, rated_entity_id, rated_entity_type, user_id, "
+                + "is_active, created_at) VALUES (?, ?, 'EVENT', ?, TRUE, ?)", rows);
+        return ratingCount;
+    }
+}
@@ -0,0 +1,35 @@
+package it342.g4.e_vents.metrics;
+
+/**
+ * Per-thread count of SQL statements issued through Hibernate. Started and
+ * stopped around each request by {@link DbStatementMetricsFilter}; calls made
+ * outside a request are ignored.
+ */
+public final class DbStatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private DbStatementCounter() {
+    }
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    public static void increment() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    /**
+     * Stops counting on the current thread
+     * @return Statements counted since {@link #start()}, or 0 if not started
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+}
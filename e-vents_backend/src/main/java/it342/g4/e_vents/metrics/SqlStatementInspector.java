@@ -0,0 +1,35 @@
+package it342.g4.e_vents.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts every statement Hibernate prepares for the per-request metric and
+ * logs a random sample of them. Replaces spring.jpa.show-sql, which printed
+ * every statement to stdout.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementInspector.class);
+
+    private final double sampleRate;
+
+    /**
+     * @param sampleRate Fraction of statements to log, between 0 (none) and 1 (all)
+     */
+    public SqlStatementInspector(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        DbStatementCounter.increment();
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            logger.info("Sampled SQL: {}", sql);
+        }
+        return sql;
+    }
+}
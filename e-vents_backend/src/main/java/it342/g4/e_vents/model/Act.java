@@ -8,11 +8,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javax.imageio.ImageIO;
-import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonView;
 
 @Entity
-@Table(name = "acts")
+@Table(name = "acts", indexes = @Index(name = "idx_act_name", columnList = "name"))
 public class Act {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,13 +38,13 @@ public class Act {
         joinColumns = @JoinColumn(name = "act_id"),
         inverseJoinColumns = @JoinColumn(name = "tag_id")
     )
-    @JsonManagedReference
     private List<Tags> tags = new ArrayList<>();
 
     @ManyToMany(mappedBy = "lineup")
-    @JsonBackReference
+    @JsonIgnore
     private List<Event> events;
 
+    @JsonView(Views.Summary.class)
     public Long getActId() {
         return actId;
     }
@@ -53,6 +53,7 @@ public class Act {
         this.actId = actId;
     }
 
+    @JsonView(Views.Summary.class)
     public String getName() {
         return name;
     }
@@ -105,6 +106,7 @@ public class Act {
      * Helper method to get the category name
      * @return The name of the category this act belongs to
      */
+    @JsonView(Views.Summary.class)
     public String getCategoryName() {
         return category != null ? category.getName() : null;
     }
@@ -113,6 +115,7 @@ public class Act {
      * Helper method to get tag names as a comma-separated string
      * @return Comma-separated string of tag names
      */
+    @JsonView(Views.Summary.class)
     public String getTagNames() {
         if (tags == null || tags.isEmpty()) {
             return "";
@@ -0,0 +1,107 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import jakarta.persistence.*;
+
+/**
+ * A completed or cancelled event moved out of the events table once it is
+ * older than the archive retention, with the act IDs of its lineup. Rows are
+ * copied over by ArchiveService and never written through JPA.
+ */
+@Entity
+@Table(name = "events_archive",
+       indexes = @Index(name = "idx_event_archive_status_date", columnList = "status, date"))
+public class ArchivedEvent {
+
+    // Same ID the event had while it was live
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private LocalTime time;
+
+    @Column(nullable = false)
+    private String venue;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "events_lineup_archive", joinColumns = @JoinColumn(name = "event_id"))
+    @Column(name = "act_id")
+    private List<Long> lineupActIds;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "is_active", nullable = false)
+    private boolean isActive;
+
+    @Column(name = "date_created", nullable = false)
+    private LocalDate dateCreated;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public String getVenue() {
+        return venue;
+    }
+
+    public List<Long> getLineupActIds() {
+        return lineupActIds;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    public LocalDate getDateCreated() {
+        return dateCreated;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
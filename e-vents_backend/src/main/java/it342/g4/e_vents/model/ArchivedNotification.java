@@ -0,0 +1,91 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * A notification about an archived event. Rows are copied over by
+ * ArchiveService and never written through JPA.
+ */
+@Entity
+@Table(name = "notifications_archive",
+       indexes = @Index(name = "idx_notification_archive_user", columnList = "user_id"))
+public class ArchivedNotification {
+
+    @Id
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    private String title;
+
+    @Column(length = 1000)
+    private String message;
+
+    private String type;
+
+    @Column(name = "`read`", nullable = false)
+    private boolean read;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "is_active", nullable = false)
+    private boolean isActive;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getNotificationId() {
+        return notificationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,88 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * A ticket of an archived event. The event ID is copied from the ticket's
+ * category so a user's or an event's history is one index lookup. Rows are
+ * copied over by ArchiveService and never written through JPA.
+ */
+@Entity
+@Table(name = "tickets_archive",
+       indexes = {@Index(name = "idx_ticket_archive_user", columnList = "user_id"),
+                  @Index(name = "idx_ticket_archive_event", columnList = "event_id")})
+public class ArchivedTicket {
+
+    @Id
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Column(name = "ticket_category_id", nullable = false)
+    private Long ticketCategoryId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "purchase_date", nullable = false)
+    private LocalDateTime purchaseDate;
+
+    @Column(name = "refund_date")
+    private LocalDateTime refundDate;
+
+    @Column(name = "is_active", nullable = false)
+    private boolean isActive;
+
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public Long getTicketCategoryId() {
+        return ticketCategoryId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getPurchaseDate() {
+        return purchaseDate;
+    }
+
+    public LocalDateTime getRefundDate() {
+        return refundDate;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
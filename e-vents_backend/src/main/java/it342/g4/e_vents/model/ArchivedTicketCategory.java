@@ -0,0 +1,86 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * A ticket category of an archived event. Rows are copied over by
+ * ArchiveService and never written through JPA.
+ */
+@Entity
+@Table(name = "ticket_categories_archive",
+       indexes = @Index(name = "idx_ticket_category_archive_event", columnList = "event_id"))
+public class ArchivedTicketCategory {
+
+    @Id
+    @Column(name = "ticket_category_id")
+    private Long ticketCategoryId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Double price;
+
+    @Lob
+    private String description;
+
+    @Column(name = "total_tickets", nullable = false)
+    private int totalTickets;
+
+    @Column(name = "tickets_sold", nullable = false)
+    private int ticketsSold;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "is_active", nullable = false)
+    private boolean isActive;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public Long getTicketCategoryId() {
+        return ticketCategoryId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getTotalTickets() {
+        return totalTickets;
+    }
+
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return isActive;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
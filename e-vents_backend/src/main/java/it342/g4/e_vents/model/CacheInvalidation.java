@@ -0,0 +1,74 @@
+package it342.g4.e_vents.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A cache entry that changed on one instance and must be dropped by the
+ * others. Rows are written in batches by CacheInvalidationBus, never through
+ * JPA, and are deleted after a few minutes.
+ */
+@Entity
+@Table(name = "cache_invalidations",
+       indexes = @Index(name = "idx_cache_invalidation_issued", columnList = "issued_at"))
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String region;
+
+    // Entry within the region; null for the whole region
+    @Column(name = "cache_key", length = 128)
+    private String cacheKey;
+
+    // Node that made the change; it skips its own rows
+    @Column(nullable = false, length = 64)
+    private String origin;
+
+    // Epoch millis of the change on the origin node
+    @Column(name = "issued_at", nullable = false)
+    private long issuedAt;
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(long issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+}
@@ -0,0 +1,62 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * First admission of a ticket at a gate. Keyed by ticket so a ticket can only
+ * be checked in once; later scans are duplicates and are not stored. Rows are
+ * written in batches by CheckInService, never through JPA.
+ */
+@Entity
+@Table(name = "check_ins",
+       indexes = @Index(name = "idx_check_in_event", columnList = "event_id"))
+public class CheckIn {
+    @Id
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(length = 32)
+    private String gate;
+
+    @Column(name = "checked_in_at", nullable = false)
+    private LocalDateTime checkedInAt;
+
+    // Getters and setters
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Long ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getGate() {
+        return gate;
+    }
+
+    public void setGate(String gate) {
+        this.gate = gate;
+    }
+
+    public LocalDateTime getCheckedInAt() {
+        return checkedInAt;
+    }
+
+    public void setCheckedInAt(LocalDateTime checkedInAt) {
+        this.checkedInAt = checkedInAt;
+    }
+}
@@ -6,8 +6,7 @@ import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
 
-import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonView;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -15,6 +14,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
@@ -22,12 +22,15 @@ import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = @Index(name = "idx_event_status_date", columnList = "status, date"))
 public class Event {
     // Status constants
     public static final String STATUS_SCHEDULED = "SCHEDULED";
     public static final String STATUS_POSTPONED = "POSTPONED";
     public static final String STATUS_CANCELLED = "CANCELLED";
+    // Set by EventLifecycle when the event starts and once it has ended
+    public static final String STATUS_ONGOING = "ONGOING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -51,7 +54,6 @@ public class Event {
     private String venue;
 
     @ManyToMany(fetch = FetchType.EAGER)
-    @JsonManagedReference
     private List<Act> lineup;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -68,6 +70,7 @@ public class Event {
     @Column(nullable = false, updatable = false)
     private LocalDate dateCreated;
 
+    @JsonView(Views.Summary.class)
     public String getVenue() {
         return venue;
     }
@@ -76,6 +79,7 @@ public class Event {
         this.venue = venue;
     }
 
+    @JsonView(Views.Summary.class)
     public Long getEventId() {
         return eventId;
     }
@@ -84,6 +88,7 @@ public class Event {
         this.eventId = eventId;
     }
 
+    @JsonView(Views.Summary.class)
     public String getName() {
         return name;
     }
@@ -92,6 +97,7 @@ public class Event {
         this.name = name;
     }
 
+    @JsonView(Views.Summary.class)
     public LocalDate getDate() {
         return date;
     }
@@ -100,6 +106,7 @@ public class Event {
         this.date = date;
     }
 
+    @JsonView(Views.Summary.class)
     public LocalTime getTime() {
         return time;
     }
@@ -108,6 +115,7 @@ public class Event {
         this.time = time;
     }
 
+    @JsonView(Views.Summary.class)
     public List<Act> getLineup() {
         return lineup;
     }
@@ -116,6 +124,7 @@ public class Event {
         this.lineup = lineup;
     }
 
+    @JsonView(Views.Summary.class)
     public String getStatus() {
         return status;
     }
@@ -139,6 +148,7 @@ public class Event {
         this.user = user;
     }
     
+    @JsonView(Views.Summary.class)
     public boolean isActive() {
         return isActive;
     }
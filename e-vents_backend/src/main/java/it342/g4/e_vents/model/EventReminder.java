@@ -0,0 +1,80 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * A reminder that was sent to the ticket holders of an event. The unique
+ * key makes sending idempotent: EventReminders claims the row in the same
+ * transaction that queues the notifications, so a reminder is sent once
+ * however often it is queued, including across restarts and by different
+ * replicas. The start time is part of the key so that a rescheduled event
+ * is reminded again.
+ */
+@Entity
+@Table(name = "event_reminders",
+       uniqueConstraints = @UniqueConstraint(name = "uk_event_reminder",
+                                             columnNames = {"event_id", "offset_minutes", "starts_at"}),
+       indexes = @Index(name = "idx_event_reminder_starts_at", columnList = "starts_at"))
+public class EventReminder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_reminder_id")
+    private Long eventReminderId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    // How long before the start the reminder was due
+    @Column(name = "offset_minutes", nullable = false)
+    private int offsetMinutes;
+
+    @Column(name = "starts_at", nullable = false)
+    private LocalDateTime startsAt;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    // Getters and setters
+
+    public Long getEventReminderId() {
+        return eventReminderId;
+    }
+
+    public void setEventReminderId(Long eventReminderId) {
+        this.eventReminderId = eventReminderId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public int getOffsetMinutes() {
+        return offsetMinutes;
+    }
+
+    public void setOffsetMinutes(int offsetMinutes) {
+        this.offsetMinutes = offsetMinutes;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
@@ -4,8 +4,18 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications",
+       indexes = {@Index(name = "idx_notification_user", columnList = "user_id, notification_id"),
+                  @Index(name = "idx_notification_type_created", columnList = "type, created_at"),
+                  @Index(name = "idx_notification_read_at", columnList = "read_at"),
+                  @Index(name = "idx_notification_user_unread", columnList = "user_id, `read`, is_active"),
+                  @Index(name = "idx_notification_event", columnList = "event_id, notification_id")})
 public class Notification {
+    public static final String TYPE_SYSTEM = "SYSTEM";
+    public static final String TYPE_TICKET = "TICKET";
+    public static final String TYPE_EVENT_UPDATE = "EVENT_UPDATE";
+    public static final String TYPE_REMINDER = "REMINDER";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long notificationId;
@@ -19,7 +29,7 @@ public class Notification {
     @Column(length = 1000)
     private String message;
 
-    private String type; // "EVENT_UPDATE", "REMINDER", "SYSTEM", etc.
+    private String type; // One of the TYPE_ constants; decides how long the notification is kept
 
     @Column(name = "`read`")
     private boolean read;
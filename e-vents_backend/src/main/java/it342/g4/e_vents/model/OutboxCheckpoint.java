@@ -0,0 +1,60 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * How far one outbox handler has got. The checkpoint is moved in the same
+ * transaction as the handler's own writes, so those are applied once even
+ * if the relay crashes or another instance processes the same batch.
+ */
+@Entity
+@Table(name = "outbox_checkpoints")
+public class OutboxCheckpoint {
+    @Id
+    @Column(length = 64)
+    private String handler;
+
+    // Outbox events with an ID up to this one have been handled
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public OutboxCheckpoint() {
+    }
+
+    public OutboxCheckpoint(String handler, long lastEventId, LocalDateTime updatedAt) {
+        this.handler = handler;
+        this.lastEventId = lastEventId;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and setters
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    public long getLastEventId() {
+        return lastEventId;
+    }
+
+    public void setLastEventId(long lastEventId) {
+        this.lastEventId = lastEventId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,92 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * A domain event written in the same transaction as the state change it
+ * describes, so it exists exactly when the change commits. OutboxRelay
+ * hands committed events to their handlers in ID order.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    public static final String TICKET_PURCHASED = "TICKET_PURCHASED";
+    public static final String EVENT_CANCELLED = "EVENT_CANCELLED";
+    public static final String EVENT_POSTPONED = "EVENT_POSTPONED";
+    public static final String EVENT_REMINDER = "EVENT_REMINDER";
+    public static final String RATING_CREATED = "RATING_CREATED";
+    public static final String USER_REGISTERED = "USER_REGISTERED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(nullable = false, length = 32)
+    private String type;
+
+    // ID of the ticket, event, rating or user the event is about
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    // JSON object
+    @Column(nullable = false, length = 2000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String type, Long aggregateId, String payload, LocalDateTime createdAt) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and setters
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
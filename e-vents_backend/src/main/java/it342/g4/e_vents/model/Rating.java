@@ -6,7 +6,9 @@ import jakarta.validation.constraints.Min;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ratings")
+@Table(name = "ratings",
+       indexes = {@Index(name = "idx_rating_entity", columnList = "rated_entity_id, rated_entity_type, is_active"),
+                  @Index(name = "idx_rating_user_active", columnList = "user_id, is_active")})
 public class Rating {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
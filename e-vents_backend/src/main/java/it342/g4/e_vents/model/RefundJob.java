@@ -0,0 +1,104 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Progress of refunding every ticket of a cancelled event. Tickets are
+ * refunded in ticket ID order, one chunk per transaction, and the last
+ * refunded ID is committed with each chunk, so a restart resumes where
+ * the previous run stopped.
+ */
+@Entity
+@Table(name = "refund_jobs",
+       indexes = @Index(name = "idx_refund_job_status", columnList = "status"))
+public class RefundJob {
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    // The event was restored or rescheduled before every ticket was refunded
+    public static final String STATUS_STOPPED = "STOPPED";
+
+    // One job per event; cancelling the event again restarts it
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    // Tickets with an ID up to this one have been processed
+    @Column(name = "last_ticket_id", nullable = false)
+    private long lastTicketId;
+
+    @Column(name = "tickets_refunded", nullable = false)
+    private long ticketsRefunded;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Guards against two workers committing the same chunk
+    @Version
+    private long version;
+
+    // Getters and setters
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getLastTicketId() {
+        return lastTicketId;
+    }
+
+    public void setLastTicketId(long lastTicketId) {
+        this.lastTicketId = lastTicketId;
+    }
+
+    public long getTicketsRefunded() {
+        return ticketsRefunded;
+    }
+
+    public void setTicketsRefunded(long ticketsRefunded) {
+        this.ticketsRefunded = ticketsRefunded;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
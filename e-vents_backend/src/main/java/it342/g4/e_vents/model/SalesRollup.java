@@ -0,0 +1,87 @@
+package it342.g4.e_vents.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Pre-aggregated ticket sales per ticket category and minute. Rows are
+ * upserted on every purchase so analytics never scan the tickets table.
+ */
+@Entity
+@Table(name = "sales_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollup_bucket",
+                                             columnNames = {"ticket_category_id", "bucket_start"}),
+       indexes = @Index(name = "idx_sales_rollup_event_bucket", columnList = "event_id, bucket_start"))
+public class SalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sales_rollup_id")
+    private Long salesRollupId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "ticket_category_id", nullable = false)
+    private Long ticketCategoryId;
+
+    // Purchase time truncated to the minute
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "tickets_sold", nullable = false)
+    private int ticketsSold;
+
+    @Column(nullable = false)
+    private Double revenue;
+
+    // Getters and setters
+
+    public Long getSalesRollupId() {
+        return salesRollupId;
+    }
+
+    public void setSalesRollupId(Long salesRollupId) {
+        this.salesRollupId = salesRollupId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Long getTicketCategoryId() {
+        return ticketCategoryId;
+    }
+
+    public void setTicketCategoryId(Long ticketCategoryId) {
+        this.ticketCategoryId = ticketCategoryId;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public void setTicketsSold(int ticketsSold) {
+        this.ticketsSold = ticketsSold;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "tags")
+@Table(name = "tags", indexes = @Index(name = "idx_tag_name", columnList = "name"))
 public class Tags {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -83,7 +83,7 @@ public class Tags {
     }
     
     @ManyToMany(mappedBy = "tags")
-    @JsonBackReference
+    @JsonIgnore
     private List<Act> acts = new ArrayList<>();
     
     public List<Act> getActs() {
@@ -4,8 +4,14 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets",
+       indexes = {@Index(name = "idx_ticket_category_modified", columnList = "ticket_category_id, modified_at"),
+                  @Index(name = "idx_ticket_user_active", columnList = "user_id, is_active"),
+                  @Index(name = "idx_ticket_status", columnList = "status")})
 public class Ticket {
+    public static final String STATUS_PURCHASED = "PURCHASED";
+    public static final String STATUS_REFUNDED = "REFUNDED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "ticket_id")
@@ -25,8 +31,16 @@ public class Ticket {
     @Column(nullable = false)
     private LocalDateTime purchaseDate;
     
+    // Set once the ticket is refunded; its seat is back in the category's inventory
+    @Column(name = "refund_date")
+    private LocalDateTime refundDate;
+    
     @Column(name = "is_active", nullable = false)
     private boolean isActive = true;
+    
+    // Last time the ticket started or stopped admitting entry; check-in manifest deltas are built from it
+    @Column(name = "modified_at")
+    private LocalDateTime modifiedAt;
 
     // Getters and setters
 
@@ -70,6 +84,22 @@ public class Ticket {
         this.purchaseDate = purchaseDate;
     }
     
+    public LocalDateTime getRefundDate() {
+        return refundDate;
+    }
+
+    public void setRefundDate(LocalDateTime refundDate) {
+        this.refundDate = refundDate;
+    }
+    
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(LocalDateTime modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+    
     public boolean isActive() {
         return isActive;
     }
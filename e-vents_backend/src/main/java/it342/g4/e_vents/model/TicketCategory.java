@@ -1,10 +1,22 @@
 package it342.g4.e_vents.model;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.*;
 
+// Edits write only the columns they change, so saving a category never overwrites
+// a ticketsSold value that purchases and refunds adjusted in the database meanwhile
 @Entity
-@Table(name = "ticket_categories")
+@DynamicUpdate
+@Table(name = "ticket_categories",
+       indexes = {@Index(name = "idx_ticket_category_event_active", columnList = "event_id, is_active"),
+                  @Index(name = "idx_ticket_category_status", columnList = "status"),
+                  @Index(name = "idx_ticket_category_name", columnList = "name")})
 public class TicketCategory {
+    public static final String STATUS_AVAILABLE = "AVAILABLE";
+    // Sales closed when the event started; no further purchases
+    public static final String STATUS_CLOSED = "CLOSED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "ticket_category_id")
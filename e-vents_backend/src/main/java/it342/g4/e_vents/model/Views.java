@@ -0,0 +1,17 @@
+package it342.g4.e_vents.model;
+
+/**
+ * Jackson views for the entity graphs. Properties without a view are left
+ * out when a view is active, so a view lists only what it keeps.
+ */
+public final class Views {
+
+    /**
+     * List-page fields: no descriptions, hosts or nested category/tag objects
+     */
+    public interface Summary {
+    }
+
+    private Views() {
+    }
+}
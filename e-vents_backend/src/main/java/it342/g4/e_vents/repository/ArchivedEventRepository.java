@@ -0,0 +1,41 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.ArchivedEvent;
+
+@Repository
+public interface ArchivedEventRepository extends JpaRepository<ArchivedEvent, Long> {
+    List<ArchivedEvent> findByStatus(String status);
+
+    /**
+     * Copies an event row into the archive, keeping its ID
+     * @param eventId The event ID
+     * @param archivedAt The archiving time
+     * @return 1 if the event was copied
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO events_archive (event_id, name, description, date, time, venue, user_id, "
+            + "status, is_active, date_created, archived_at) SELECT e.event_id, e.name, e.description, e.date, "
+            + "e.time, e.venue, e.user_id, e.status, e.is_active, e.date_created, :archivedAt "
+            + "FROM events e WHERE e.event_id = :id", nativeQuery = true)
+    int copyFromEvents(@Param("id") Long eventId, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Copies an event's lineup into the archive; run once, together with {@link #copyFromEvents}
+     * @param eventId The event ID
+     * @return Number of acts copied
+     */
+    @Modifying
+    @Query(value = "INSERT INTO events_lineup_archive (event_id, act_id) "
+            + "SELECT l.events_event_id, l.lineup_act_id FROM events_lineup l WHERE l.events_event_id = :id",
+            nativeQuery = true)
+    int copyLineup(@Param("id") Long eventId);
+}
@@ -0,0 +1,32 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.ArchivedNotification;
+
+@Repository
+public interface ArchivedNotificationRepository extends JpaRepository<ArchivedNotification, Long> {
+    List<ArchivedNotification> findByUserIdAndIsActiveTrue(Long userId);
+
+    /**
+     * Copies notifications into the archive, keeping their IDs
+     * @param notificationIds The notification IDs
+     * @param archivedAt The archiving time
+     * @return Number of notifications copied
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notifications_archive (notification_id, user_id, title, message, type, "
+            + "`read`, created_at, read_at, event_id, is_active, archived_at) SELECT n.notification_id, n.user_id, "
+            + "n.title, n.message, n.type, n.`read`, n.created_at, n.read_at, n.event_id, n.is_active, :archivedAt "
+            + "FROM notifications n WHERE n.notification_id IN (:ids)", nativeQuery = true)
+    int copyFromNotifications(@Param("ids") Collection<Long> notificationIds,
+                              @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -0,0 +1,30 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.ArchivedTicketCategory;
+
+@Repository
+public interface ArchivedTicketCategoryRepository extends JpaRepository<ArchivedTicketCategory, Long> {
+    List<ArchivedTicketCategory> findByEventId(Long eventId);
+
+    /**
+     * Copies the ticket categories of an event into the archive, keeping their IDs
+     * @param eventId The event ID
+     * @param archivedAt The archiving time
+     * @return Number of categories copied
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO ticket_categories_archive (ticket_category_id, name, price, description, "
+            + "total_tickets, tickets_sold, status, is_active, event_id, archived_at) SELECT tc.ticket_category_id, "
+            + "tc.name, tc.price, tc.description, tc.total_tickets, tc.tickets_sold, tc.status, tc.is_active, "
+            + "tc.event_id, :archivedAt FROM ticket_categories tc WHERE tc.event_id = :eventId", nativeQuery = true)
+    int copyFromTicketCategories(@Param("eventId") Long eventId, @Param("archivedAt") LocalDateTime archivedAt);
+}
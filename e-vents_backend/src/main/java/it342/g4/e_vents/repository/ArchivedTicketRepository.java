@@ -0,0 +1,34 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.ArchivedTicket;
+
+@Repository
+public interface ArchivedTicketRepository extends JpaRepository<ArchivedTicket, Long> {
+    List<ArchivedTicket> findByUserIdAndIsActiveTrue(Long userId);
+    List<ArchivedTicket> findByEventIdAndIsActiveTrue(Long eventId);
+
+    /**
+     * Copies tickets into the archive, keeping their IDs
+     * @param ticketIds The ticket IDs
+     * @param archivedAt The archiving time
+     * @return Number of tickets copied
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO tickets_archive (ticket_id, ticket_category_id, event_id, user_id, status, "
+            + "purchase_date, refund_date, is_active, modified_at, archived_at) SELECT t.ticket_id, "
+            + "t.ticket_category_id, tc.event_id, t.user_id, t.status, t.purchase_date, t.refund_date, t.is_active, "
+            + "t.modified_at, :archivedAt FROM tickets t "
+            + "JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+            + "WHERE t.ticket_id IN (:ids)", nativeQuery = true)
+    int copyFromTickets(@Param("ids") Collection<Long> ticketIds, @Param("archivedAt") LocalDateTime archivedAt);
+}
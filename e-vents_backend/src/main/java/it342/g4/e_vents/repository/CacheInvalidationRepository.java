@@ -0,0 +1,32 @@
+package it342.g4.e_vents.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.CacheInvalidation;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    /**
+     * Invalidations after a watermark, in ID order
+     * @param afterId Only rows with a greater ID are returned
+     * @param pageable Batch size; the page number must be 0
+     * @return The invalidations
+     */
+    @Query("SELECT c FROM CacheInvalidation c WHERE c.id > :afterId ORDER BY c.id")
+    List<CacheInvalidation> findBatch(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CacheInvalidation c")
+    long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM CacheInvalidation c WHERE c.issuedAt < :cutoff")
+    int deleteIssuedBefore(@Param("cutoff") long cutoffMillis);
+}
@@ -0,0 +1,19 @@
+package it342.g4.e_vents.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.CheckIn;
+
+@Repository
+public interface CheckInRepository extends JpaRepository<CheckIn, Long> {
+
+    @Query("SELECT c.ticketId FROM CheckIn c WHERE c.eventId = :eventId")
+    List<Long> findTicketIdsByEventId(@Param("eventId") Long eventId);
+
+    long countByEventId(Long eventId);
+}
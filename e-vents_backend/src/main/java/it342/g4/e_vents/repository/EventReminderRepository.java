@@ -0,0 +1,33 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.EventReminder;
+
+@Repository
+public interface EventReminderRepository extends JpaRepository<EventReminder, Long> {
+
+    /**
+     * Records a reminder as sent unless it already was
+     * @return 1 if this call claimed the reminder, 0 if it had been sent before
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO event_reminders (event_id, offset_minutes, starts_at, sent_at) "
+            + "VALUES (:eventId, :offsetMinutes, :startsAt, :now)", nativeQuery = true)
+    int claim(@Param("eventId") Long eventId, @Param("offsetMinutes") int offsetMinutes,
+              @Param("startsAt") LocalDateTime startsAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes up to limit records of reminders for events that started before the cutoff
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM event_reminders WHERE starts_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteStartedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -1,7 +1,19 @@
 package it342.g4.e_vents.repository;
 
 import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.RefundJob;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<Event, Long> {
     /**
@@ -9,4 +21,115 @@ public interface EventRepository extends JpaRepository<Event, Long> {
      * @return Number of active events
      */
     long countByIsActiveTrue();
+
+    /**
+     * Events in a status, by the (status, date) index
+     * @param status The status
+     * @return Events with that status
+     */
+    List<Event> findByStatus(String status);
+
+    /**
+     * Events in a status, by the (status, date) index
+     * @param status The status
+     * @param pageable Page to return
+     * @return Events with that status
+     */
+    List<Event> findByStatus(String status, Pageable pageable);
+
+    /**
+     * Status of an event as stored, ignoring unsaved changes to a loaded instance
+     * @param eventId The event ID
+     * @return The stored status, if the event exists
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT e.status FROM Event e WHERE e.eventId = :id")
+    Optional<String> findStoredStatusById(@Param("id") Long eventId);
+
+    /**
+     * Start times of the events in a status that start on or before a day
+     * @param status The status
+     * @param lastDate Last start date to include
+     * @return Rows of [eventId, date, time]
+     */
+    @Query("SELECT e.eventId, e.date, e.time FROM Event e WHERE e.status = :status AND e.date <= :lastDate")
+    List<Object[]> findStartsByStatusUntil(@Param("status") String status, @Param("lastDate") LocalDate lastDate);
+
+    /**
+     * Start times of the events in a status that start between two days
+     * @param status The status
+     * @param firstDate First start date to include
+     * @param lastDate Last start date to include
+     * @return Rows of [eventId, date, time]
+     */
+    @Query("SELECT e.eventId, e.date, e.time FROM Event e "
+            + "WHERE e.status = :status AND e.date BETWEEN :firstDate AND :lastDate")
+    List<Object[]> findStartsByStatusBetween(@Param("status") String status, @Param("firstDate") LocalDate firstDate,
+                                             @Param("lastDate") LocalDate lastDate);
+
+    /**
+     * Status and start time of one event
+     * @param eventId The event ID
+     * @return A single row of [status, date, time], or none if the event does not exist
+     */
+    @Query("SELECT e.status, e.date, e.time FROM Event e WHERE e.eventId = :id")
+    List<Object[]> findScheduleById(@Param("id") Long eventId);
+
+    /**
+     * Moves an event to its next lifecycle status if it is still in the
+     * expected one and starts no later than the given moment, so a stale
+     * transition for an event that was rescheduled changes nothing
+     * @param eventId The event ID
+     * @param from The expected current status
+     * @param to The new status
+     * @param date Date of the latest start time that qualifies
+     * @param time Time of the latest start time that qualifies
+     * @return 1 if the event moved, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.status = :to WHERE e.eventId = :id AND e.status = :from "
+            + "AND (e.date < :date OR (e.date = :date AND e.time <= :time))")
+    int transition(@Param("id") Long eventId, @Param("from") String from, @Param("to") String to,
+                   @Param("date") LocalDate date, @Param("time") LocalTime time);
+
+    /**
+     * Completed or cancelled events that took place before a day and have no
+     * refund still running, oldest first
+     * @param cutoff Events on this day or later are kept
+     * @param pageable Maximum number of events; the page number must be 0
+     * @return Event IDs
+     */
+    @Query("SELECT e.eventId FROM Event e WHERE e.status IN ('" + Event.STATUS_COMPLETED + "', '"
+            + Event.STATUS_CANCELLED + "') AND e.date < :cutoff AND NOT EXISTS (SELECT r FROM RefundJob r "
+            + "WHERE r.eventId = e.eventId AND r.status = '" + RefundJob.STATUS_RUNNING + "') ORDER BY e.date")
+    List<Long> findArchivable(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    /**
+     * Checks again, inside an archiving transaction, that an event may still be archived
+     * @param eventId The event ID
+     * @param cutoff Events on this day or later are kept
+     * @return 1 if the event is completed or cancelled and older than the cutoff, 0 otherwise
+     */
+    @Query("SELECT COUNT(e) FROM Event e WHERE e.eventId = :id AND e.status IN ('" + Event.STATUS_COMPLETED
+            + "', '" + Event.STATUS_CANCELLED + "') AND e.date < :cutoff")
+    long countArchivable(@Param("id") Long eventId, @Param("cutoff") LocalDate cutoff);
+
+    /**
+     * Removes an event's lineup rows, which a bulk delete of the event leaves behind
+     * @param eventId The event ID
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM events_lineup WHERE events_event_id = :id", nativeQuery = true)
+    int deleteLineup(@Param("id") Long eventId);
+
+    /**
+     * Deletes an event row without loading it; its lineup, ticket categories
+     * and notifications must already be gone
+     * @param eventId The event ID
+     * @return 1 if the event was deleted
+     */
+    @Modifying
+    @Query("DELETE FROM Event e WHERE e.eventId = :id")
+    int deleteRow(@Param("id") Long eventId);
 }
@@ -0,0 +1,79 @@
+package it342.g4.e_vents.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.JobLease;
+import jakarta.persistence.LockModeType;
+
+/**
+ * Lease expiry is computed and compared on the database's clock, so the
+ * nodes' own clocks never decide who owns a job.
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Extends the caller's own lease
+     * @param jobName The job
+     * @param owner The caller's node ID
+     * @param ttlMicros Lease duration from now, in microseconds
+     * @return 1 if the caller still held the lease, 0 if it lapsed or was taken over
+     */
+    @Modifying
+    @Query(value = "UPDATE job_leases SET expires_at = TIMESTAMPADD(MICROSECOND, :ttlMicros, CURRENT_TIMESTAMP(6)) "
+            + "WHERE job_name = :jobName AND owner = :owner AND expires_at >= CURRENT_TIMESTAMP(6)", nativeQuery = true)
+    int renew(@Param("jobName") String jobName, @Param("owner") String owner, @Param("ttlMicros") long ttlMicros);
+
+    /**
+     * Takes over a lease that has lapsed or was released, with the next fencing token
+     * @param jobName The job
+     * @param owner The caller's node ID
+     * @param ttlMicros Lease duration from now, in microseconds
+     * @return 1 if the caller now holds the lease, 0 if it is held by a live node
+     */
+    @Modifying
+    @Query(value = "UPDATE job_leases SET owner = :owner, fencing_token = fencing_token + 1, "
+            + "expires_at = TIMESTAMPADD(MICROSECOND, :ttlMicros, CURRENT_TIMESTAMP(6)) "
+            + "WHERE job_name = :jobName AND expires_at < CURRENT_TIMESTAMP(6)", nativeQuery = true)
+    int takeOver(@Param("jobName") String jobName, @Param("owner") String owner, @Param("ttlMicros") long ttlMicros);
+
+    /**
+     * Creates the lease of a job no node has run before, unless another node just did
+     * @return 1 if this call created it, and so holds the lease
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_leases (job_name, owner, fencing_token, expires_at) "
+            + "VALUES (:jobName, :owner, 1, TIMESTAMPADD(MICROSECOND, :ttlMicros, CURRENT_TIMESTAMP(6)))",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("jobName") String jobName, @Param("owner") String owner,
+                       @Param("ttlMicros") long ttlMicros);
+
+    /**
+     * Gives up a lease so another node can take it over without waiting for it to lapse
+     * @return 1 if the caller held the lease
+     */
+    @Modifying
+    @Query(value = "UPDATE job_leases SET expires_at = CURRENT_TIMESTAMP(6) WHERE job_name = :jobName AND owner = :owner",
+            nativeQuery = true)
+    int release(@Param("jobName") String jobName, @Param("owner") String owner);
+
+    /**
+     * @return The fencing token of a lease the caller holds
+     */
+    @Query("SELECT l.fencingToken FROM JobLease l WHERE l.jobName = :jobName AND l.owner = :owner")
+    Optional<Long> findFencingToken(@Param("jobName") String jobName, @Param("owner") String owner);
+
+    /**
+     * Reads a lease with a shared lock held until the caller's transaction
+     * ends, if it still carries the token. A takeover waits for that lock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<JobLease> findByJobNameAndFencingToken(String jobName, long fencingToken);
+}
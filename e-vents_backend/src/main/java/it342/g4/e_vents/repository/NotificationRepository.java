@@ -1,19 +1,119 @@
 package it342.g4.e_vents.repository;
 
 import it342.g4.e_vents.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByIsActiveTrue();
-    List<Notification> findByUserUserIdAndIsActiveTrue(Long userId);
-    List<Notification> findByUserUserIdAndReadFalseAndIsActiveTrue(Long userId);
-    
+
+    // Filter on the foreign key; the derived queries LEFT JOIN users, which H2 cannot reorder
+    @Query("SELECT n FROM Notification n WHERE n.user.userId = :userId AND n.isActive = true")
+    List<Notification> findByUserUserIdAndIsActiveTrue(@Param("userId") Long userId);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.userId = :userId AND n.read = false AND n.isActive = true")
+    List<Notification> findByUserUserIdAndReadFalseAndIsActiveTrue(@Param("userId") Long userId);
+
     /**
      * Count active notifications in the system
      * @return Number of active notifications
      */
     long countByIsActiveTrue();
+
+    /**
+     * Next chunk of an event's notifications to archive, in ID order
+     * @param eventId The event ID
+     * @param pageable Chunk size; the page number must be 0
+     * @return Notification IDs
+     */
+    @Query("SELECT n.notificationId FROM Notification n WHERE n.event.eventId = :eventId ORDER BY n.notificationId")
+    List<Long> findIdsByEventId(@Param("eventId") Long eventId, Pageable pageable);
+
+    /**
+     * Deletes notifications without loading them
+     * @param notificationIds The notification IDs
+     * @return Number of notifications deleted
+     */
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.notificationId IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> notificationIds);
+
+    /**
+     * Oldest creation time per notification type, read from the (type, created_at) index
+     * @return Rows of [type, oldest createdAt]; the type is null for untyped notifications
+     */
+    @Query("SELECT n.type, MIN(n.createdAt) FROM Notification n GROUP BY n.type")
+    List<Object[]> findOldestCreatedAtByType();
+
+    /**
+     * Deletes up to limit notifications of a type created before the cutoff
+     * @return Number of deleted notifications
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE type = :type AND created_at < :cutoff LIMIT :limit",
+           nativeQuery = true)
+    int deleteByTypeCreatedBefore(@Param("type") String type, @Param("cutoff") LocalDateTime cutoff,
+                                  @Param("limit") int limit);
+
+    /**
+     * Deletes up to limit untyped notifications created before the cutoff
+     * @return Number of deleted notifications
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE type IS NULL AND created_at < :cutoff LIMIT :limit",
+           nativeQuery = true)
+    int deleteUntypedCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Time the longest-read notification was read
+     * @return The oldest readAt, or null if no notification has been read
+     */
+    @Query("SELECT MIN(n.readAt) FROM Notification n")
+    LocalDateTime findOldestReadAt();
+
+    /**
+     * Deletes up to limit notifications read before the cutoff
+     * @return Number of deleted notifications
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE read_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteReadBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Users holding more notifications than the cap
+     * @param cap Notifications a user may keep
+     * @param pageable Maximum number of users; the page number must be 0
+     * @return User IDs
+     */
+    @Query("SELECT n.user.userId FROM Notification n WHERE n.user IS NOT NULL "
+            + "GROUP BY n.user.userId HAVING COUNT(n) > :cap")
+    List<Long> findUserIdsOverCap(@Param("cap") long cap, Pageable pageable);
+
+    /**
+     * Newest notification of a user that falls outside the cap
+     * @param userId The user ID
+     * @param cap Notifications the user may keep
+     * @return The notification ID; it and every older one of the user are over the cap
+     */
+    @Query(value = "SELECT notification_id FROM notifications WHERE user_id = :userId "
+            + "ORDER BY notification_id DESC LIMIT 1 OFFSET :cap", nativeQuery = true)
+    Optional<Long> findNewestIdOverCap(@Param("userId") Long userId, @Param("cap") int cap);
+
+    /**
+     * Deletes up to limit notifications of a user with an ID up to maxId
+     * @return Number of deleted notifications
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE user_id = :userId AND notification_id <= :maxId LIMIT :limit",
+           nativeQuery = true)
+    int deleteByUserUpTo(@Param("userId") Long userId, @Param("maxId") long maxId, @Param("limit") int limit);
 }
@@ -0,0 +1,39 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.OutboxCheckpoint;
+
+@Repository
+public interface OutboxCheckpointRepository extends JpaRepository<OutboxCheckpoint, String> {
+
+    /**
+     * Moves a handler's checkpoint forward if nobody moved it since it was read
+     * @param handler The handler name
+     * @param expected The checkpoint the caller read
+     * @param lastEventId The new checkpoint
+     * @param now The update time
+     * @return 1 if this call moved the checkpoint, 0 if another relay got there first
+     */
+    @Modifying
+    @Query("UPDATE OutboxCheckpoint c SET c.lastEventId = :lastEventId, c.updatedAt = :now "
+            + "WHERE c.handler = :handler AND c.lastEventId = :expected")
+    int advance(@Param("handler") String handler, @Param("expected") long expected,
+                @Param("lastEventId") long lastEventId, @Param("now") LocalDateTime now);
+
+    /**
+     * Creates a handler's checkpoint unless another instance already did
+     * @return 1 if this call created it
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO outbox_checkpoints (handler, last_event_id, updated_at) "
+            + "VALUES (:handler, :lastEventId, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("handler") String handler, @Param("lastEventId") long lastEventId,
+                       @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,42 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Next events after a checkpoint, in ID order
+     * @param afterEventId Only events with a greater ID are returned
+     * @param pageable Batch size; the page number must be 0
+     * @return The events
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.eventId > :afterEventId ORDER BY e.eventId")
+    List<OutboxEvent> findBatch(@Param("afterEventId") long afterEventId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.eventId), 0) FROM OutboxEvent e")
+    long findMaxEventId();
+
+    /**
+     * Deletes up to limit handled events older than the cutoff
+     * @param maxEventId Highest event ID every handler is past
+     * @param cutoff Only events created before this time are deleted
+     * @param limit Maximum number of rows to delete
+     * @return Number of deleted events
+     */
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE event_id <= :maxEventId AND created_at < :cutoff LIMIT :limit",
+           nativeQuery = true)
+    int deleteHandled(@Param("maxEventId") long maxEventId, @Param("cutoff") LocalDateTime cutoff,
+                      @Param("limit") int limit);
+}
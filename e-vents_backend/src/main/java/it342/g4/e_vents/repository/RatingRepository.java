@@ -3,6 +3,8 @@ package it342.g4.e_vents.repository;
 import it342.g4.e_vents.model.Rating;
 import it342.g4.e_vents.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +13,11 @@ import java.util.List;
 public interface RatingRepository extends JpaRepository<Rating, Long> {
     List<Rating> findByRatedEntityIdAndRatedEntityTypeAndIsActiveTrue(Long entityId, Rating.EntityType entityType);
     List<Rating> findByUserAndIsActiveTrue(User user);
+
+    // Filters on the foreign key; the derived query LEFT JOINs users, which H2 cannot reorder
+    @Query("SELECT r FROM Rating r WHERE r.user.userId = :userId AND r.isActive = true")
+    List<Rating> findByUserUserIdAndIsActiveTrue(@Param("userId") Long userId);
+
     List<Rating> findByRatedEntityIdAndRatedEntityType(Long entityId, Rating.EntityType entityType);
     
     /**
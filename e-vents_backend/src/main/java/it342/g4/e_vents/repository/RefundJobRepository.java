@@ -0,0 +1,29 @@
+package it342.g4.e_vents.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import it342.g4.e_vents.model.RefundJob;
+
+@Repository
+public interface RefundJobRepository extends JpaRepository<RefundJob, Long> {
+    List<RefundJob> findByStatus(String status);
+
+    /**
+     * Stops a running job. Bumps the version, so a worker chunk that read the
+     * job before this commits fails and is rolled back.
+     * @param eventId The event ID
+     * @param now The time of the change
+     * @return 1 if the job was running
+     */
+    @Modifying
+    @Query("UPDATE RefundJob j SET j.status = '" + RefundJob.STATUS_STOPPED + "', j.completedAt = :now, "
+            + "j.version = j.version + 1 WHERE j.eventId = :eventId AND j.status = '" + RefundJob.STATUS_RUNNING + "'")
+    int stop(@Param("eventId") Long eventId, @Param("now") LocalDateTime now);
+}
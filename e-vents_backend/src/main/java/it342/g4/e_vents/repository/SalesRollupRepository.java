@@ -0,0 +1,107 @@
+package it342.g4.e_vents.repository;
+
+import it342.g4.e_vents.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    /**
+     * Adds one sale to the minute bucket of a ticket category, creating the bucket if needed
+     * @param eventId The event ID
+     * @param ticketCategoryId The ticket category ID
+     * @param bucketStart The purchase time truncated to the minute
+     * @param price The price the ticket was sold at
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollups (event_id, ticket_category_id, bucket_start, tickets_sold, revenue) "
+            + "VALUES (:eventId, :ticketCategoryId, :bucketStart, 1, :price) "
+            + "ON DUPLICATE KEY UPDATE tickets_sold = tickets_sold + 1, revenue = revenue + :price",
+            nativeQuery = true)
+    int recordSale(@Param("eventId") Long eventId,
+                   @Param("ticketCategoryId") Long ticketCategoryId,
+                   @Param("bucketStart") LocalDateTime bucketStart,
+                   @Param("price") Double price);
+
+    /**
+     * Removes refunded sales from the minute bucket they were recorded in
+     * @param ticketCategoryId The ticket category ID
+     * @param bucketStart The purchase time truncated to the minute
+     * @param count Number of refunded tickets
+     * @param amount Refunded revenue
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Query(value = "UPDATE sales_rollups SET tickets_sold = GREATEST(tickets_sold - :count, 0), "
+            + "revenue = GREATEST(revenue - :amount, 0) "
+            + "WHERE ticket_category_id = :ticketCategoryId AND bucket_start = :bucketStart",
+            nativeQuery = true)
+    int recordRefund(@Param("ticketCategoryId") Long ticketCategoryId,
+                     @Param("bucketStart") LocalDateTime bucketStart,
+                     @Param("count") int count,
+                     @Param("amount") double amount);
+
+    /**
+     * Totals per ticket category of an event
+     * @param eventId The event ID
+     * @return Rows of [ticketCategoryId, ticketsSold, revenue, firstSale, lastSale]
+     */
+    @Query("SELECT r.ticketCategoryId, SUM(r.ticketsSold), SUM(r.revenue), MIN(r.bucketStart), MAX(r.bucketStart) "
+            + "FROM SalesRollup r WHERE r.eventId = :eventId GROUP BY r.ticketCategoryId")
+    List<Object[]> sumByTicketCategory(@Param("eventId") Long eventId);
+
+    /**
+     * Minute buckets of an event in a time range, oldest first
+     * @param eventId The event ID
+     * @param from Inclusive lower bound
+     * @param to Exclusive upper bound
+     * @return Rollup rows ordered by bucket start
+     */
+    @Query("SELECT r FROM SalesRollup r WHERE r.eventId = :eventId "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<SalesRollup> findEventBuckets(@Param("eventId") Long eventId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    /**
+     * Minute buckets of a single ticket category in a time range, oldest first
+     * @param ticketCategoryId The ticket category ID
+     * @param from Inclusive lower bound
+     * @param to Exclusive upper bound
+     * @return Rollup rows ordered by bucket start
+     */
+    @Query("SELECT r FROM SalesRollup r WHERE r.ticketCategoryId = :ticketCategoryId "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<SalesRollup> findTicketCategoryBuckets(@Param("ticketCategoryId") Long ticketCategoryId,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    /**
+     * Sales of an event before a point in time, used as the cumulative baseline of a time series
+     * @return A single row of [ticketsSold, revenue]
+     */
+    @Query("SELECT COALESCE(SUM(r.ticketsSold), 0), COALESCE(SUM(r.revenue), 0) FROM SalesRollup r "
+            + "WHERE r.eventId = :eventId AND r.bucketStart < :before")
+    List<Object[]> sumEventBefore(@Param("eventId") Long eventId, @Param("before") LocalDateTime before);
+
+    /**
+     * Sales of a ticket category before a point in time
+     * @return A single row of [ticketsSold, revenue]
+     */
+    @Query("SELECT COALESCE(SUM(r.ticketsSold), 0), COALESCE(SUM(r.revenue), 0) FROM SalesRollup r "
+            + "WHERE r.ticketCategoryId = :ticketCategoryId AND r.bucketStart < :before")
+    List<Object[]> sumTicketCategoryBefore(@Param("ticketCategoryId") Long ticketCategoryId,
+                                           @Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.eventId = :eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+}
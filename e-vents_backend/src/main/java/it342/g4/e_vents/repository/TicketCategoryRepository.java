@@ -2,7 +2,9 @@ package it342.g4.e_vents.repository;
 
 import it342.g4.e_vents.model.TicketCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -13,16 +15,19 @@ public interface TicketCategoryRepository extends JpaRepository<TicketCategory,
     List<TicketCategory> findByStatus(String status);
     List<TicketCategory> findByNameContainingIgnoreCaseAndIsActiveTrue(String name);
     
-    @Query("SELECT tc FROM TicketCategory tc WHERE tc.totalTickets > tc.ticketsSold AND tc.isActive = true")
+    @Query("SELECT tc FROM TicketCategory tc WHERE tc.totalTickets > tc.ticketsSold AND tc.isActive = true "
+            + "AND tc.status <> '" + TicketCategory.STATUS_CLOSED + "'")
     List<TicketCategory> findAvailableTicketCategories();
     
     boolean existsByName(String name);
     
     // Find ticket categories by event ID
-    List<TicketCategory> findByEventEventIdAndIsActiveTrue(Long eventId);
+    @Query("SELECT tc FROM TicketCategory tc WHERE tc.event.eventId = :eventId AND tc.isActive = true")
+    List<TicketCategory> findByEventEventIdAndIsActiveTrue(@Param("eventId") Long eventId);
     
     // Find available ticket categories for an event
-    @Query("SELECT tc FROM TicketCategory tc WHERE tc.event.eventId = ?1 AND tc.totalTickets > tc.ticketsSold AND tc.isActive = true")
+    @Query("SELECT tc FROM TicketCategory tc WHERE tc.event.eventId = ?1 AND tc.totalTickets > tc.ticketsSold AND tc.isActive = true "
+            + "AND tc.status <> '" + TicketCategory.STATUS_CLOSED + "'")
     List<TicketCategory> findAvailableTicketCategoriesByEventId(Long eventId);
     
     /**
@@ -30,4 +35,55 @@ public interface TicketCategoryRepository extends JpaRepository<TicketCategory,
      * @return Number of active ticket categories
      */
     long countByIsActiveTrue();
+
+    /**
+     * Takes one seat of a category if any is left and sales are open. The check
+     * and the increment are a single row update, so concurrent purchases can
+     * never oversell or buy into a category whose sales just closed.
+     * @param ticketCategoryId The ticket category ID
+     * @return 1 if a seat was taken, 0 if the category is sold out, closed or does not exist
+     */
+    @Modifying
+    @Query("UPDATE TicketCategory tc SET tc.ticketsSold = tc.ticketsSold + 1 "
+            + "WHERE tc.ticketCategoryId = :id AND tc.ticketsSold < tc.totalTickets "
+            + "AND tc.status <> '" + TicketCategory.STATUS_CLOSED + "'")
+    int reserveTicket(@Param("id") Long ticketCategoryId);
+
+    /**
+     * Stops ticket sales of every category of an event
+     * @param eventId The event ID
+     * @return Number of categories closed
+     */
+    @Modifying
+    @Query("UPDATE TicketCategory tc SET tc.status = '" + TicketCategory.STATUS_CLOSED + "' "
+            + "WHERE tc.event.eventId = :eventId AND tc.status <> '" + TicketCategory.STATUS_CLOSED + "'")
+    int closeSalesByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Returns seats to a category after refunds or cancellations
+     * @param ticketCategoryId The ticket category ID
+     * @param count Number of seats to return
+     * @return Number of affected rows
+     */
+    @Modifying
+    @Query("UPDATE TicketCategory tc SET tc.ticketsSold = "
+            + "CASE WHEN tc.ticketsSold > :count THEN tc.ticketsSold - :count ELSE 0 END "
+            + "WHERE tc.ticketCategoryId = :id")
+    int releaseTickets(@Param("id") Long ticketCategoryId, @Param("count") int count);
+
+    @Query("SELECT tc.ticketsSold FROM TicketCategory tc WHERE tc.ticketCategoryId = :id")
+    Optional<Integer> findTicketsSold(@Param("id") Long ticketCategoryId);
+
+    // Reads the stored status even when the category is already loaded in the persistence context
+    @Query("SELECT tc.status FROM TicketCategory tc WHERE tc.ticketCategoryId = :id")
+    Optional<String> findStatusById(@Param("id") Long ticketCategoryId);
+
+    /**
+     * Deletes the ticket categories of an event without loading them; their tickets must already be gone
+     * @param eventId The event ID
+     * @return Number of categories deleted
+     */
+    @Modifying
+    @Query("DELETE FROM TicketCategory tc WHERE tc.event.eventId = :eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
 }
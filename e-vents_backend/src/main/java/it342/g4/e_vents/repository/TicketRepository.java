@@ -1,17 +1,37 @@
 package it342.g4.e_vents.repository;
 
+import it342.g4.e_vents.dto.AttendeeRow;
 import it342.g4.e_vents.model.Ticket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByIsActiveTrue();
-    List<Ticket> findByUserUserIdAndIsActiveTrue(Long userId);
-    List<Ticket> findByTicketCategoryEventEventIdAndIsActiveTrue(Long eventId);
-    List<Ticket> findByTicketCategoryTicketCategoryIdAndIsActiveTrue(Long ticketCategoryId);
+
+    // Filter on the foreign key; derived queries on a nested property LEFT JOIN the parent
+    // table, which H2 cannot reorder
+    @Query("SELECT t FROM Ticket t WHERE t.user.userId = :userId AND t.isActive = true")
+    List<Ticket> findByUserUserIdAndIsActiveTrue(@Param("userId") Long userId);
+
+    @Query("SELECT t FROM Ticket t JOIN t.ticketCategory tc WHERE tc.event.eventId = :eventId AND t.isActive = true")
+    List<Ticket> findByTicketCategoryEventEventIdAndIsActiveTrue(@Param("eventId") Long eventId);
+
+    @Query("SELECT t FROM Ticket t WHERE t.ticketCategory.ticketCategoryId = :ticketCategoryId AND t.isActive = true")
+    List<Ticket> findByTicketCategoryTicketCategoryIdAndIsActiveTrue(@Param("ticketCategoryId") Long ticketCategoryId);
+
     List<Ticket> findByStatus(String status);
     Optional<Ticket> findByTicketIdAndIsActiveTrue(Long ticketId);
     
@@ -20,4 +40,157 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
      * @return Number of active tickets
      */
     long countByIsActiveTrue();
+
+    /**
+     * Streams the active, unrefunded tickets of an event as flat attendee rows, ordered by ticket ID.
+     * Must be consumed inside a transaction and closed by the caller.
+     * @param eventId The event ID
+     * @return Stream of attendee rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new it342.g4.e_vents.dto.AttendeeRow(t.ticketId, t.status, t.purchaseDate, e.eventId, "
+            + "tc.ticketCategoryId, tc.name, tc.price, u.userId, u.firstName, u.lastName, u.email) "
+            + "FROM Ticket t JOIN t.ticketCategory tc JOIN tc.event e JOIN t.user u "
+            + "WHERE e.eventId = :eventId AND t.isActive = true AND t.status <> 'REFUNDED' ORDER BY t.ticketId")
+    Stream<AttendeeRow> streamAttendeesByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Streams every active, unrefunded ticket as flat attendee rows, ordered by ticket ID.
+     * Must be consumed inside a transaction and closed by the caller.
+     * @return Stream of attendee rows
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new it342.g4.e_vents.dto.AttendeeRow(t.ticketId, t.status, t.purchaseDate, e.eventId, "
+            + "tc.ticketCategoryId, tc.name, tc.price, u.userId, u.firstName, u.lastName, u.email) "
+            + "FROM Ticket t JOIN t.ticketCategory tc JOIN tc.event e JOIN t.user u "
+            + "WHERE t.isActive = true AND t.status <> 'REFUNDED' ORDER BY t.ticketId")
+    Stream<AttendeeRow> streamAllActiveAttendees();
+
+    /**
+     * Streams the unrefunded purchases of an event for rebuilding its sales rollups.
+     * Must be consumed inside a transaction and closed by the caller.
+     * @param eventId The event ID
+     * @return Stream of [ticketCategoryId, price, purchaseDate]
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT tc.ticketCategoryId, tc.price, t.purchaseDate FROM Ticket t JOIN t.ticketCategory tc "
+            + "WHERE tc.event.eventId = :eventId AND t.purchaseDate IS NOT NULL AND t.status <> 'REFUNDED'")
+    Stream<Object[]> streamPurchasesByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Next chunk of an event's tickets that still hold a seat, in ticket ID order
+     * @param eventId The event ID
+     * @param afterTicketId Only tickets with a greater ID are returned
+     * @param pageable Chunk size; the page number must be 0
+     * @return Rows of [ticketId, ticketCategoryId, price, purchaseDate]
+     */
+    @Query("SELECT t.ticketId, tc.ticketCategoryId, tc.price, t.purchaseDate FROM Ticket t JOIN t.ticketCategory tc "
+            + "WHERE tc.event.eventId = :eventId AND t.ticketId > :afterTicketId "
+            + "AND t.isActive = true AND t.status <> 'REFUNDED' ORDER BY t.ticketId")
+    List<Object[]> findRefundableChunk(@Param("eventId") Long eventId,
+                                       @Param("afterTicketId") long afterTicketId,
+                                       Pageable pageable);
+
+    /**
+     * Marks tickets as refunded. Tickets already refunded or deactivated are
+     * skipped, so concurrent refunds of the same ticket return its seat once.
+     * @param ticketIds The ticket IDs
+     * @param refundDate The refund time
+     * @return Number of tickets this call refunded
+     */
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = 'REFUNDED', t.refundDate = :refundDate, t.modifiedAt = :refundDate "
+            + "WHERE t.ticketId IN :ids AND t.isActive = true AND t.status <> 'REFUNDED'")
+    int markRefunded(@Param("ids") Collection<Long> ticketIds, @Param("refundDate") LocalDateTime refundDate);
+
+    /**
+     * Deactivates a ticket that still holds its seat. Refunded tickets are
+     * skipped, so a ticket refunded concurrently returns its seat only once.
+     * @param ticketId The ticket ID
+     * @param modifiedAt The time of the change
+     * @return 1 if this call deactivated the ticket and should release its seat, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Ticket t SET t.isActive = false, t.modifiedAt = :modifiedAt "
+            + "WHERE t.ticketId = :id AND t.isActive = true AND t.status <> 'REFUNDED'")
+    int deactivateHoldingSeat(@Param("id") Long ticketId, @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Deactivates a ticket whatever its status
+     * @param ticketId The ticket ID
+     * @param modifiedAt The time of the change
+     * @return 1 if this call deactivated the ticket, 0 if it was already inactive
+     */
+    @Modifying
+    @Query("UPDATE Ticket t SET t.isActive = false, t.modifiedAt = :modifiedAt "
+            + "WHERE t.ticketId = :id AND t.isActive = true")
+    int deactivate(@Param("id") Long ticketId, @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Restores a deactivated ticket unless it was refunded or its event cancelled
+     * @param ticketId The ticket ID
+     * @param modifiedAt The time of the change
+     * @return 1 if this call restored the ticket, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Ticket t SET t.isActive = true, t.modifiedAt = :modifiedAt "
+            + "WHERE t.ticketId = :id AND t.isActive = false AND t.status <> 'REFUNDED' "
+            + "AND EXISTS (SELECT c FROM TicketCategory c WHERE c.ticketCategoryId = t.ticketCategory.ticketCategoryId "
+            + "AND c.event.status <> 'CANCELLED')")
+    int restore(@Param("id") Long ticketId, @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Tickets of an event that no longer admit anyone
+     * @param eventId The event ID
+     * @return IDs of deactivated or refunded tickets
+     */
+    @Query("SELECT t.ticketId FROM Ticket t WHERE t.ticketCategory.event.eventId = :eventId "
+            + "AND (t.isActive = false OR t.status = 'REFUNDED')")
+    List<Long> findRevokedTicketIdsByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Streams the tickets of an event that admit entry, ordered by ticket ID.
+     * Must be consumed inside a transaction and closed by the caller.
+     * @param eventId The event ID
+     * @param modifiedSince If not null, only tickets changed at or after this time
+     * @return Stream of [ticketId, ticketCategoryId]
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.ticketId, tc.ticketCategoryId FROM Ticket t JOIN t.ticketCategory tc "
+            + "WHERE tc.event.eventId = :eventId AND t.isActive = true AND t.status <> 'REFUNDED' "
+            + "AND (:since IS NULL OR t.modifiedAt >= :since) ORDER BY t.ticketId")
+    Stream<Object[]> streamAdmittingTicketsByEventId(@Param("eventId") Long eventId,
+                                                     @Param("since") LocalDateTime modifiedSince);
+
+    /**
+     * Streams the IDs of an event's deactivated or refunded tickets in ascending order.
+     * Must be consumed inside a transaction and closed by the caller.
+     * @param eventId The event ID
+     * @param modifiedSince If not null, only tickets changed at or after this time
+     * @return Stream of ticket IDs
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.ticketId FROM Ticket t WHERE t.ticketCategory.event.eventId = :eventId "
+            + "AND (t.isActive = false OR t.status = 'REFUNDED') "
+            + "AND (:since IS NULL OR t.modifiedAt >= :since) ORDER BY t.ticketId")
+    Stream<Long> streamRevokedTicketIdsByEventId(@Param("eventId") Long eventId,
+                                                 @Param("since") LocalDateTime modifiedSince);
+
+    /**
+     * Next chunk of an event's tickets to archive, in ticket ID order
+     * @param eventId The event ID
+     * @param pageable Chunk size; the page number must be 0
+     * @return Ticket IDs
+     */
+    @Query("SELECT t.ticketId FROM Ticket t WHERE t.ticketCategory.event.eventId = :eventId ORDER BY t.ticketId")
+    List<Long> findIdsByEventId(@Param("eventId") Long eventId, Pageable pageable);
+
+    /**
+     * Deletes tickets without loading them
+     * @param ticketIds The ticket IDs
+     * @return Number of tickets deleted
+     */
+    @Modifying
+    @Query("DELETE FROM Ticket t WHERE t.ticketId IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ticketIds);
 }
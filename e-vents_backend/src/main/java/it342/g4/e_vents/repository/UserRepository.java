@@ -1,9 +1,15 @@
 package it342.g4.e_vents.repository;
 
+import it342.g4.e_vents.dto.UserSummary;
 import it342.g4.e_vents.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +22,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Number of active users
      */
     long countByIsActiveTrue();
+
+    /**
+     * IDs of deactivated users
+     * @return List of user IDs
+     */
+    @Query("SELECT u.userId FROM User u WHERE u.isActive = false")
+    List<Long> findIdsByIsActiveFalse();
+
+    /**
+     * The fields of a user needed to identify a caller, without loading the entity
+     * @param userId The user ID
+     * @return Optional containing the summary if the user exists
+     */
+    @Query("SELECT new it342.g4.e_vents.dto.UserSummary(u.userId, u.email, u.firstName, u.lastName, "
+            + "COALESCE(r.name, 'USER'), u.isActive) FROM User u LEFT JOIN u.role r WHERE u.userId = :userId")
+    Optional<UserSummary> findSummaryById(@Param("userId") Long userId);
+
+    /**
+     * Replace a user's password hash without loading and merging the entity
+     * @param userId The user ID
+     * @param password The new password hash
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.userId = :userId")
+    void updatePassword(@Param("userId") Long userId, @Param("password") String password);
 }
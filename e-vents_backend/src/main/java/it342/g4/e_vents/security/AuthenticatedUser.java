@@ -0,0 +1,60 @@
+package it342.g4.e_vents.security;
+
+import java.security.Principal;
+
+import it342.g4.e_vents.model.enums.Role;
+
+/**
+ * Principal put in the security context by JwtAuthenticationFilter, built
+ * from the access token's claims alone. getName() is the email, as before,
+ * so code reading Authentication.getName() is unaffected. There is no
+ * active flag: deactivating a user revokes their tokens through the
+ * TokenDenylist, so a deactivated user never gets this far.
+ */
+public class AuthenticatedUser implements Principal {
+
+    private final Long userId;
+    private final String email;
+    private final String role;
+
+    public AuthenticatedUser(Long userId, String email, String role) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return Role.ADMIN.name().equals(role);
+    }
+
+    /**
+     * Whether this caller may act on a user's own data: the user themselves or an admin
+     * @param ownerId The user ID owning the data
+     * @return true if allowed
+     */
+    public boolean canActFor(Long ownerId) {
+        return isAdmin() || (userId != null && userId.equals(ownerId));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
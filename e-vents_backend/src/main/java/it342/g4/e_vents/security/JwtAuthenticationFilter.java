@@ -1,55 +1,133 @@
 package it342.g4.e_vents.security;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Cookie carrying the access token for the server-rendered admin pages, which send no Authorization header
+    public static final String ADMIN_TOKEN_COOKIE = "access_token";
+
+    // Endpoints that establish or end a session; a stale access token sent along must not block them
+    private static final Set<String> SESSION_PATHS = Set.of(
+            "/api/users/login", "/api/users/register", "/api/users/refresh", "/api/users/logout");
+
     private final JwtUtils jwtUtils;
+    private final TokenDenylist tokenDenylist;
+    private final MeterRegistry meterRegistry;
+    private final Timer authenticatedTimer;
+    private final Timer invalidTimer;
+    private final Timer revokedTimer;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtUtils jwtUtils) {
+    public JwtAuthenticationFilter(JwtUtils jwtUtils, TokenDenylist tokenDenylist, MeterRegistry meterRegistry) {
         this.jwtUtils = jwtUtils;
+        this.tokenDenylist = tokenDenylist;
+        this.meterRegistry = meterRegistry;
+        this.authenticatedTimer = tokenTimer("authenticated");
+        this.invalidTimer = tokenTimer("invalid");
+        this.revokedTimer = tokenTimer("revoked");
+    }
+
+    // Times token parsing only, not the rest of the filter chain
+    private Timer tokenTimer(String outcome) {
+        return Timer.builder("events.auth.jwt")
+                .description("Time spent validating the bearer token of a request")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return SESSION_PATHS.contains(request.getRequestURI());
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
-        String header = request.getHeader("Authorization");
+        String token = resolveToken(request);
         
-        if (header == null || !header.startsWith("Bearer ")) {
+        if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
         
-        String token = header.substring(7);
+        Timer.Sample sample = Timer.start(meterRegistry);
         
-        if (!jwtUtils.validateToken(token)) {
-            filterChain.doFilter(request, response);
+        Claims claims = jwtUtils.parseClaims(token);
+        if (claims == null) {
+            sample.stop(invalidTimer);
+            rejectToken(request, response, filterChain, "Access token is invalid or expired");
+            return;
+        }
+        
+        Number userId = claims.get("id", Number.class);
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        if (tokenDenylist.isRevoked(claims.getId(), userId != null ? userId.longValue() : null, issuedAt)) {
+            sample.stop(revokedTimer);
+            rejectToken(request, response, filterChain, "Access token has been revoked");
             return;
         }
         
-        String email = jwtUtils.getEmailFromToken(token);
+        // The principal is built from the claims alone, no user lookup per request
+        AuthenticatedUser principal = new AuthenticatedUser(userId != null ? userId.longValue() : null,
+                claims.getSubject(), claims.get("role", String.class));
+        sample.stop(authenticatedTimer);
         
-        // For the simplified approach, we're not concerned with roles/authorities
-        // Just creating an authenticated token with no specific authorities
+        // Authorities come from the verified role claim, so authorization needs no database round trip
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                email, null, new ArrayList<>());
+                principal, null, JwtUtils.getAuthorities(claims));
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private String resolveToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        if (request.getRequestURI().startsWith("/admin") && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (ADMIN_TOKEN_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    // 401 tells the client to use its refresh token (RFC 6750 invalid_token). Admin pages instead
+    // continue unauthenticated, so the security config redirects the browser to the login page.
+    private void rejectToken(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                             String message) throws IOException, ServletException {
+        if (request.getRequestURI().startsWith("/admin")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -1,21 +1,24 @@
 package it342.g4.e_vents.security;
 
 import java.security.Key;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import it342.g4.e_vents.config.JwtProperties;
+import it342.g4.e_vents.dto.UserSummary;
 import it342.g4.e_vents.model.User;
 
 @Component
@@ -23,43 +26,62 @@ public class JwtUtils {
     
     private final JwtProperties jwtProperties;
     private final Key key;
+    // Immutable and thread-safe; building one per call costs more than verifying the token
+    private final JwtParser parser;
     
     @Autowired
     public JwtUtils(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
         this.key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
     
     public String generateToken(User user) {
+        return generateToken(UserSummary.from(user));
+    }
+    
+    public String generateToken(UserSummary user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("id", user.getUserId());
-        // We still include the role info in the token, but it won't be used for authorization
-        claims.put("role", user.getRole() != null ? user.getRole().getName() : "USER");
+        // Authorization reads the role from here, never from the database
+        claims.put("role", user.getRole());
         
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(user.getEmail())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtProperties.getExpirationMs()))
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
     
+    /**
+     * Parses and verifies a token in one pass
+     * @param token The compact JWT
+     * @return The token's claims, or null if the signature is invalid or the token expired
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public long getExpirationMs() {
+        return jwtProperties.getExpirationMs();
+    }
+
     public String getEmailFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
+        return parser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
     
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (JwtException e) {
             return false;
@@ -67,11 +89,22 @@ public class JwtUtils {
     }
     
     /**
-     * For simplified authentication, we return a standard list of authorities.
-     * This ensures any authenticated user has the same level of access.
+     * Authorities of a token's holder, e.g. ROLE_ADMIN for role claim ADMIN
+     * @param token The compact JWT
+     * @return The holder's authorities, empty if the token is invalid
      */
     public List<SimpleGrantedAuthority> getAuthoritiesFromToken(String token) {
-        // Instead of checking roles, we just give every authenticated user a standard authority
-        return new ArrayList<>(); // Empty authorities list - just being authenticated is enough
+        Claims claims = parseClaims(token);
+        return claims != null ? getAuthorities(claims) : List.of();
+    }
+
+    /**
+     * Authorities derived from verified claims alone
+     * @param claims Claims of a verified token
+     * @return A single ROLE_ authority for the role claim, or none if the claim is missing
+     */
+    public static List<SimpleGrantedAuthority> getAuthorities(Claims claims) {
+        String role = claims.get("role", String.class);
+        return role != null && !role.isBlank() ? List.of(new SimpleGrantedAuthority("ROLE_" + role)) : List.of();
     }
 }
\ No newline at end of file
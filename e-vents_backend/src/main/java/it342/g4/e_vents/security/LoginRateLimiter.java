@@ -0,0 +1,132 @@
+package it342.g4.e_vents.security;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Token-bucket limits for login attempts, keyed by client IP and by email.
+ * Checked before the password hash is touched so a burst of bad attempts
+ * costs a map lookup instead of a BCrypt round.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    private final int ipCapacity;
+    private final double ipRefillPerNano;
+    private final int emailCapacity;
+    private final double emailRefillPerNano;
+    private final int maxTrackedKeys;
+    private final Counter ipThrottled;
+    private final Counter emailThrottled;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${security.login.rate-limit.ip.capacity:20}") int ipCapacity,
+                            @Value("${security.login.rate-limit.ip.per-minute:10}") int ipPerMinute,
+                            @Value("${security.login.rate-limit.email.capacity:5}") int emailCapacity,
+                            @Value("${security.login.rate-limit.email.per-minute:5}") int emailPerMinute,
+                            @Value("${security.login.rate-limit.max-tracked-keys:100000}") int maxTrackedKeys,
+                            MeterRegistry meterRegistry) {
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerNano = ipPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.emailCapacity = emailCapacity;
+        this.emailRefillPerNano = emailPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.ipThrottled = throttledCounter(meterRegistry, "ip");
+        this.emailThrottled = throttledCounter(meterRegistry, "email");
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("events.auth.login.throttled")
+                .description("Login attempts rejected by the rate limiter")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the client's IP bucket and one from the email's bucket
+     * @param clientIp Remote address of the request
+     * @param email Email the client is trying to log in as
+     * @throws LoginThrottledException if either bucket is empty
+     */
+    public void acquire(String clientIp, String email) {
+        long now = System.nanoTime();
+        sweepIfNeeded(now);
+
+        long ipWait = bucket("ip:" + clientIp, ipCapacity, ipRefillPerNano).tryConsume(now);
+        if (ipWait > 0) {
+            ipThrottled.increment();
+            throw new LoginThrottledException(ipWait);
+        }
+        String emailKey = "email:" + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+        long emailWait = bucket(emailKey, emailCapacity, emailRefillPerNano).tryConsume(now);
+        if (emailWait > 0) {
+            emailThrottled.increment();
+            throw new LoginThrottledException(emailWait);
+        }
+    }
+
+    private TokenBucket bucket(String key, int capacity, double refillPerNano) {
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerNano));
+    }
+
+    // Full buckets carry no state worth keeping, so drop them once the map grows large
+    private void sweepIfNeeded(long now) {
+        long last = lastSweep.get();
+        if (buckets.size() < maxTrackedKeys || now - last < SWEEP_INTERVAL_NANOS
+                || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static final class TokenBucket {
+
+        private final int capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, double refillPerNano) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        // Returns 0 when a token was taken, otherwise the nanoseconds until one is available
+        synchronized long tryConsume(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return refillPerNano > 0 ? (long) Math.ceil((1 - tokens) / refillPerNano) : Long.MAX_VALUE;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package it342.g4.e_vents.security;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thrown when a login attempt exceeds the per-IP or per-email rate limit.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterNanos) {
+        super("Too many login attempts, please try again later");
+        this.retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(Math.min(retryAfterNanos,
+                TimeUnit.HOURS.toNanos(1))) + 1);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,134 @@
+package it342.g4.e_vents.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signed ticket tokens for QR codes. A token carries the ticket, event and
+ * ticket category IDs as varints followed by a truncated HMAC-SHA256 over
+ * them, base64url-encoded, so a gate can check it without the database.
+ * A typical token is about 35 characters, which fits a small QR code.
+ */
+@Component
+public class TicketTokens {
+
+    private static final byte VERSION = 1;
+    private static final int MAC_LENGTH = 16;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * IDs a valid token was issued for
+     */
+    public record TicketToken(long ticketId, long eventId, long ticketCategoryId) {
+    }
+
+    private final SecretKeySpec key;
+    // Mac instances are not thread-safe and costly to create
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public TicketTokens(@Value("${checkin.token-secret:${jwt.secret}}") String secret) {
+        // Derived from the configured secret so a ticket token can never double as an access token signature
+        this.key = new SecretKeySpec(hmac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                "ticket-token".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    /**
+     * Issues the token printed on a ticket
+     * @param ticketId The ticket ID
+     * @param eventId The event the ticket admits to
+     * @param ticketCategoryId The ticket category ID
+     * @return The base64url token
+     */
+    public String issue(long ticketId, long eventId, long ticketCategoryId) {
+        byte[] buffer = new byte[1 + 3 * 10 + MAC_LENGTH];
+        buffer[0] = VERSION;
+        int length = 1;
+        length = writeVarLong(buffer, length, ticketId);
+        length = writeVarLong(buffer, length, eventId);
+        length = writeVarLong(buffer, length, ticketCategoryId);
+        Mac mac = macs.get();
+        mac.update(buffer, 0, length);
+        System.arraycopy(mac.doFinal(), 0, buffer, length, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Arrays.copyOf(buffer, length + MAC_LENGTH));
+    }
+
+    /**
+     * Checks a token's signature and decodes it
+     * @param token The scanned token
+     * @return The decoded IDs, or null if the token is malformed or forged
+     */
+    public TicketToken verify(String token) {
+        if (token == null || token.isEmpty() || token.length() > 96) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length < 1 + 3 + MAC_LENGTH || bytes[0] != VERSION) {
+            return null;
+        }
+        int payloadLength = bytes.length - MAC_LENGTH;
+        Mac mac = macs.get();
+        mac.update(bytes, 0, payloadLength);
+        byte[] expected = Arrays.copyOf(mac.doFinal(), MAC_LENGTH);
+        if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(bytes, payloadLength, bytes.length))) {
+            return null;
+        }
+        long[] ids = new long[3];
+        int position = 1;
+        for (int i = 0; i < ids.length; i++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position >= payloadLength || shift > 63) {
+                    return null;
+                }
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            ids[i] = value;
+        }
+        return position == payloadLength ? new TicketToken(ids[0], ids[1], ids[2]) : null;
+    }
+
+    private static int writeVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        return newMac(key).doFinal(data);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package it342.g4.e_vents.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.config.JwtProperties;
+import it342.g4.e_vents.util.BloomFilter;
+
+/**
+ * In-memory revocation list for access tokens, checked on every authenticated
+ * request without touching the database. Individual tokens are revoked by jti:
+ * a Bloom filter answers the common "not revoked" case and the exact set
+ * resolves its false positives. Users are revoked with a cut-off time; every
+ * token issued to them up to that moment is rejected. Entries are dropped once
+ * the tokens they cover have expired, so the list stays bounded by the access
+ * token lifetime. Revocations are broadcast on the cache invalidation bus so
+ * a logged-out token is rejected by every replica.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    static final String TOKEN_REGION = "denylist-token";
+    static final String USER_REGION = "denylist-user";
+
+    // jti -> token expiry (epoch ms)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // userId -> tokens issued at or before this time (epoch ms) are revoked
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final long accessTokenTtlMs;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+
+    /**
+     * Creates a denylist local to this process
+     */
+    public TokenDenylist(JwtProperties jwtProperties, int expectedEntries, double falsePositiveRate,
+                         MeterRegistry meterRegistry) {
+        this(jwtProperties, null, expectedEntries, falsePositiveRate, meterRegistry);
+    }
+
+    @Autowired
+    public TokenDenylist(JwtProperties jwtProperties, CacheInvalidationBus cacheInvalidationBus,
+                         @Value("${jwt.denylist.expected-entries:100000}") int expectedEntries,
+                         @Value("${jwt.denylist.false-positive-rate:0.01}") double falsePositiveRate,
+                         MeterRegistry meterRegistry) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.accessTokenTtlMs = jwtProperties.getExpirationMs();
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        Gauge.builder("events.auth.denylist.size", revokedTokens, Map::size)
+                .description("Entries in the access token denylist")
+                .tag("type", "token")
+                .register(meterRegistry);
+        Gauge.builder("events.auth.denylist.size", revokedUsers, Map::size)
+                .description("Entries in the access token denylist")
+                .tag("type", "user")
+                .register(meterRegistry);
+        if (cacheInvalidationBus != null) {
+            cacheInvalidationBus.subscribe(TOKEN_REGION, (key, issuedAt) -> {
+                // jti:expiry
+                int separator = key != null ? key.lastIndexOf(':') : -1;
+                if (separator > 0) {
+                    addToken(key.substring(0, separator), Long.parseLong(key.substring(separator + 1)));
+                }
+            });
+            cacheInvalidationBus.subscribe(USER_REGION, (key, issuedAt) -> {
+                if (key != null) {
+                    revokedUsers.merge(Long.valueOf(key), issuedAt, Math::max);
+                }
+            });
+        }
+    }
+
+    /**
+     * Revokes a single access token
+     * @param jti The token's ID claim
+     * @param expiresAtMillis The token's expiry; the entry is kept until then
+     */
+    public void revokeToken(String jti, long expiresAtMillis) {
+        if (addToken(jti, expiresAtMillis) && cacheInvalidationBus != null) {
+            cacheInvalidationBus.publish(TOKEN_REGION, jti + ":" + expiresAtMillis);
+        }
+    }
+
+    /**
+     * Revokes every access token issued to a user up to now
+     * @param userId The user ID
+     */
+    public void revokeUser(Long userId) {
+        revokedUsers.merge(userId, System.currentTimeMillis(), Math::max);
+        if (cacheInvalidationBus != null) {
+            cacheInvalidationBus.publish(USER_REGION, userId.toString());
+        }
+    }
+
+    /**
+     * Revokes every access token issued to a user up to now, on this node only.
+     * For state each node rebuilds from the database itself, such as inactive
+     * users at startup.
+     * @param userId The user ID
+     */
+    public void revokeUserLocally(Long userId) {
+        revokedUsers.merge(userId, System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Checks an access token against the denylist
+     * @param jti The token's ID claim, may be null for tokens issued before jti was added
+     * @param userId The token's user ID claim
+     * @param issuedAtMillis The token's issued-at time
+     * @return true if the token must be rejected
+     */
+    public boolean isRevoked(String jti, Long userId, long issuedAtMillis) {
+        if (userId != null) {
+            Long cutoff = revokedUsers.get(userId);
+            if (cutoff != null && issuedAtMillis <= cutoff) {
+                return true;
+            }
+        }
+        return jti != null && filter.mightContain(jti) && revokedTokens.containsKey(jti);
+    }
+
+    private synchronized boolean addToken(String jti, long expiresAtMillis) {
+        if (jti == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return false;
+        }
+        revokedTokens.put(jti, expiresAtMillis);
+        filter.add(jti);
+        return true;
+    }
+
+    /**
+     * Drops entries whose tokens have expired and rebuilds the Bloom filter from
+     * the remaining ones, which also clears the bits of removed entries.
+     */
+    @Scheduled(fixedDelayString = "${jwt.denylist.compact-interval-ms:60000}")
+    public synchronized void compact() {
+        long now = System.currentTimeMillis();
+        int tokensBefore = revokedTokens.size();
+        int usersBefore = revokedUsers.size();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(cutoff -> cutoff + accessTokenTtlMs <= now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedTokens.size() * 2), falsePositiveRate);
+        revokedTokens.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+
+        if (tokensBefore != revokedTokens.size() || usersBefore != revokedUsers.size()) {
+            logger.debug("Compacted token denylist: {} -> {} tokens, {} -> {} users",
+                    tokensBefore, revokedTokens.size(), usersBefore, revokedUsers.size());
+        }
+    }
+}
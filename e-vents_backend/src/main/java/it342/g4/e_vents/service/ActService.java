@@ -1,9 +1,11 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Act;
 import it342.g4.e_vents.model.Tags;
 import it342.g4.e_vents.repository.ActRepository;
 import it342.g4.e_vents.repository.TagsRepository;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import it342.g4.e_vents.service.TagsService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,17 +20,21 @@ import java.util.stream.Collectors;
  * Service for managing Act entities
  */
 @Service
+@Timed("events.service")
 public class ActService {
 
     private final ActRepository actRepository;
     private final TagsRepository tagsRepository;
     private final TagsService tagsService;
+    private final CatalogVersions catalogVersions;
     
     @Autowired
-    public ActService(ActRepository actRepository, TagsRepository tagsRepository, TagsService tagsService) {
+    public ActService(ActRepository actRepository, TagsRepository tagsRepository, TagsService tagsService,
+                      CatalogVersions catalogVersions) {
         this.actRepository = actRepository;
         this.tagsRepository = tagsRepository;
         this.tagsService = tagsService;
+        this.catalogVersions = catalogVersions;
     }
 
     /**
@@ -110,7 +116,9 @@ public class ActService {
         // Process tags if they exist
         processTags(act);
         
-        return actRepository.save(act);
+        Act saved = actRepository.save(act);
+        catalogVersions.bump(Catalog.ACTS);
+        return saved;
     }
     
     /**
@@ -160,6 +168,7 @@ public class ActService {
         Act act = getActById(id);
         act.setActive(false);
         actRepository.save(act);
+        catalogVersions.bump(Catalog.ACTS);
     }
     
     /**
@@ -171,6 +180,7 @@ public class ActService {
         Act act = getActById(id);
         act.setActive(true);
         actRepository.save(act);
+        catalogVersions.bump(Catalog.ACTS);
     }
     
     /**
@@ -183,6 +193,7 @@ public class ActService {
             throw new EntityNotFoundException("Act not found with ID: " + id);
         }
         actRepository.deleteById(id);
+        catalogVersions.bump(Catalog.ACTS);
     }
     
     /**
@@ -0,0 +1,379 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.cluster.LeaseLostException;
+import it342.g4.e_vents.model.Act;
+import it342.g4.e_vents.model.ArchivedEvent;
+import it342.g4.e_vents.model.ArchivedNotification;
+import it342.g4.e_vents.model.ArchivedTicket;
+import it342.g4.e_vents.model.ArchivedTicketCategory;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Notification;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.ActRepository;
+import it342.g4.e_vents.repository.ArchivedEventRepository;
+import it342.g4.e_vents.repository.ArchivedNotificationRepository;
+import it342.g4.e_vents.repository.ArchivedTicketCategoryRepository;
+import it342.g4.e_vents.repository.ArchivedTicketRepository;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.NotificationRepository;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import it342.g4.e_vents.repository.UserRepository;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
+
+/**
+ * Moves completed and cancelled events out of the live tables once they are
+ * older than the retention period, together with their ticket categories,
+ * tickets and notifications, and reads them back for history requests.
+ *
+ * Tickets and notifications are moved in chunks, one transaction per chunk
+ * that copies the rows into the archive table and deletes them from the live
+ * one; the event itself, its lineup and its categories go last, in one
+ * transaction. The live tables therefore always hold exactly what is left to
+ * move, so an interrupted run resumes on the next one without a checkpoint.
+ * Every chunk checks again that the event may be archived, so an event that
+ * is restored in the meantime keeps whatever has not been moved yet.
+ *
+ * Archived rows keep their IDs and are returned as detached Event, Ticket and
+ * Notification instances, so history responses look like live ones. Check-ins,
+ * ratings and sales rollups reference events by ID only and stay where they are.
+ * One replica at a time runs the archiver (see JobLeases), and every
+ * transaction is fenced by its lease, so a former owner cannot delete rows.
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    static final String JOB = "event-archiver";
+
+    private final EventRepository eventRepository;
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final TicketRepository ticketRepository;
+    private final NotificationRepository notificationRepository;
+    private final ArchivedEventRepository archivedEventRepository;
+    private final ArchivedTicketCategoryRepository archivedTicketCategoryRepository;
+    private final ArchivedTicketRepository archivedTicketRepository;
+    private final ArchivedNotificationRepository archivedNotificationRepository;
+    private final UserRepository userRepository;
+    private final ActRepository actRepository;
+    private final CatalogVersions catalogVersions;
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int chunkSize;
+    private final int maxEventsPerRun;
+    private final Counter archivedEvents;
+    private final Counter archivedTickets;
+    private final Counter archivedNotifications;
+
+    @Autowired
+    public ArchiveService(EventRepository eventRepository, TicketCategoryRepository ticketCategoryRepository,
+                          TicketRepository ticketRepository, NotificationRepository notificationRepository,
+                          ArchivedEventRepository archivedEventRepository,
+                          ArchivedTicketCategoryRepository archivedTicketCategoryRepository,
+                          ArchivedTicketRepository archivedTicketRepository,
+                          ArchivedNotificationRepository archivedNotificationRepository,
+                          UserRepository userRepository, ActRepository actRepository,
+                          CatalogVersions catalogVersions, TicketAvailabilityCache ticketAvailabilityCache,
+                          JobLeases jobLeases, PlatformTransactionManager transactionManager,
+                          @Value("${archive.retention:90d}") Duration retention,
+                          @Value("${archive.chunk-size:500}") int chunkSize,
+                          @Value("${archive.max-events-per-run:20}") int maxEventsPerRun,
+                          MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.ticketRepository = ticketRepository;
+        this.notificationRepository = notificationRepository;
+        this.archivedEventRepository = archivedEventRepository;
+        this.archivedTicketCategoryRepository = archivedTicketCategoryRepository;
+        this.archivedTicketRepository = archivedTicketRepository;
+        this.archivedNotificationRepository = archivedNotificationRepository;
+        this.userRepository = userRepository;
+        this.actRepository = actRepository;
+        this.catalogVersions = catalogVersions;
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.jobLeases = jobLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.maxEventsPerRun = maxEventsPerRun;
+        this.archivedEvents = archivedCounter(meterRegistry, "events");
+        this.archivedTickets = archivedCounter(meterRegistry, "tickets");
+        this.archivedNotifications = archivedCounter(meterRegistry, "notifications");
+    }
+
+    private static Counter archivedCounter(MeterRegistry meterRegistry, String table) {
+        return Counter.builder("events.archive.rows")
+                .tag("table", table)
+                .description("Rows moved to the archive tables")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archives up to max-events-per-run events that are past the retention period
+     */
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}")
+    public void archive() {
+        if (!jobLeases.isOwner(JOB)) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(retention.toDays());
+        long fencingToken = jobLeases.fencingToken(JOB);
+        for (Long eventId : eventRepository.findArchivable(cutoff, PageRequest.of(0, maxEventsPerRun))) {
+            if (!jobLeases.isOwner(JOB)) {
+                return;
+            }
+            try {
+                archiveEvent(eventId, cutoff, fencingToken);
+            } catch (LeaseLostException e) {
+                logger.info("Stopped archiving: {}", e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Could not archive event {}, retrying on the next run: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    private void archiveEvent(Long eventId, LocalDate cutoff, long fencingToken) {
+        LocalDateTime now = LocalDateTime.now();
+        long tickets = moveChunks(eventId, cutoff, fencingToken, archivedTickets,
+                ticketRepository::findIdsByEventId, ids -> {
+            int copied = archivedTicketRepository.copyFromTickets(ids, now);
+            ticketRepository.deleteByIds(ids);
+            return copied;
+        });
+        long notifications = moveChunks(eventId, cutoff, fencingToken, archivedNotifications,
+                notificationRepository::findIdsByEventId, ids -> {
+            int copied = archivedNotificationRepository.copyFromNotifications(ids, now);
+            notificationRepository.deleteByIds(ids);
+            return copied;
+        });
+        if (tickets < 0 || notifications < 0) {
+            return;
+        }
+        Boolean archived = transactionTemplate.execute(status -> {
+            jobLeases.fence(JOB, fencingToken);
+            if (eventRepository.countArchivable(eventId, cutoff) == 0) {
+                return false;
+            }
+            archivedTicketCategoryRepository.copyFromTicketCategories(eventId, now);
+            archivedEventRepository.copyFromEvents(eventId, now);
+            archivedEventRepository.copyLineup(eventId);
+            eventRepository.deleteLineup(eventId);
+            ticketCategoryRepository.deleteByEventId(eventId);
+            eventRepository.deleteRow(eventId);
+            catalogVersions.bump(Catalog.EVENTS);
+            catalogVersions.bumpTicketCategories(eventId);
+            ticketAvailabilityCache.invalidate(eventId);
+            return true;
+        });
+        if (Boolean.TRUE.equals(archived)) {
+            archivedEvents.increment();
+            logger.info("Archived event {} with {} tickets and {} notifications", eventId, tickets, notifications);
+        }
+    }
+
+    private interface IdChunks {
+        List<Long> find(Long eventId, Pageable pageable);
+    }
+
+    private interface ChunkMove {
+        int move(List<Long> ids);
+    }
+
+    /**
+     * Moves an event's rows one chunk per transaction until none are left
+     * @return Number of rows moved, or -1 if the event can no longer be archived
+     */
+    private long moveChunks(Long eventId, LocalDate cutoff, long fencingToken, Counter counter, IdChunks chunks,
+                            ChunkMove move) {
+        long total = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                jobLeases.fence(JOB, fencingToken);
+                if (eventRepository.countArchivable(eventId, cutoff) == 0) {
+                    return -1;
+                }
+                List<Long> ids = chunks.find(eventId, PageRequest.of(0, chunkSize));
+                return ids.isEmpty() ? 0 : move.move(ids);
+            });
+            if (moved == null || moved < 0) {
+                return -1;
+            }
+            if (moved == 0) {
+                return total;
+            }
+            total += moved;
+            counter.increment(moved);
+        }
+    }
+
+    // ---- History reads
+
+    /**
+     * Looks up an archived event
+     * @param eventId The event ID
+     * @return The event as it was archived, if it was
+     */
+    public Optional<Event> findArchivedEvent(Long eventId) {
+        return archivedEventRepository.findById(eventId).map(event -> toEvents(List.of(event)).get(0));
+    }
+
+    /**
+     * Archived events in a status
+     * @param status COMPLETED or CANCELLED; other statuses are never archived
+     * @return The archived events
+     */
+    public List<Event> getArchivedEventsByStatus(String status) {
+        return toEvents(archivedEventRepository.findByStatus(status));
+    }
+
+    /**
+     * Active archived tickets of a user
+     * @param userId The user ID
+     * @return The tickets, with their archived categories and events
+     */
+    public List<Ticket> getArchivedTicketsByUserId(Long userId) {
+        return toTickets(archivedTicketRepository.findByUserIdAndIsActiveTrue(userId));
+    }
+
+    /**
+     * Active archived tickets of an event
+     * @param eventId The event ID
+     * @return The tickets, with their archived categories and events
+     */
+    public List<Ticket> getArchivedTicketsByEventId(Long eventId) {
+        return toTickets(archivedTicketRepository.findByEventIdAndIsActiveTrue(eventId));
+    }
+
+    /**
+     * Active archived notifications of a user
+     * @param userId The user ID
+     * @return The notifications, with their archived events
+     */
+    public List<Notification> getArchivedNotificationsByUserId(Long userId) {
+        List<ArchivedNotification> archived = archivedNotificationRepository.findByUserIdAndIsActiveTrue(userId);
+        Map<Long, User> users = byId(userRepository.findAllById(ids(archived, ArchivedNotification::getUserId)),
+                User::getUserId);
+        Map<Long, Event> events = byId(toEvents(archivedEventRepository.findAllById(
+                ids(archived, ArchivedNotification::getEventId))), Event::getEventId);
+        List<Notification> notifications = new ArrayList<>(archived.size());
+        for (ArchivedNotification row : archived) {
+            Notification notification = new Notification(users.get(row.getUserId()), row.getTitle(),
+                    row.getMessage(), row.getType(), events.get(row.getEventId()));
+            notification.setNotificationId(row.getNotificationId());
+            notification.setRead(row.isRead());
+            notification.setCreatedAt(row.getCreatedAt());
+            notification.setReadAt(row.getReadAt());
+            notification.setActive(row.isActive());
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+
+    private List<Ticket> toTickets(List<ArchivedTicket> archived) {
+        Map<Long, User> users = byId(userRepository.findAllById(ids(archived, ArchivedTicket::getUserId)),
+                User::getUserId);
+        Map<Long, Event> events = byId(toEvents(archivedEventRepository.findAllById(
+                ids(archived, ArchivedTicket::getEventId))), Event::getEventId);
+        Map<Long, TicketCategory> categories = byId(toTicketCategories(
+                archivedTicketCategoryRepository.findAllById(ids(archived, ArchivedTicket::getTicketCategoryId)),
+                events), TicketCategory::getTicketCategoryId);
+        List<Ticket> tickets = new ArrayList<>(archived.size());
+        for (ArchivedTicket row : archived) {
+            Ticket ticket = new Ticket();
+            ticket.setTicketId(row.getTicketId());
+            ticket.setTicketCategory(categories.get(row.getTicketCategoryId()));
+            ticket.setUser(users.get(row.getUserId()));
+            ticket.setStatus(row.getStatus());
+            ticket.setPurchaseDate(row.getPurchaseDate());
+            ticket.setRefundDate(row.getRefundDate());
+            ticket.setModifiedAt(row.getModifiedAt());
+            ticket.setActive(row.isActive());
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    private static List<TicketCategory> toTicketCategories(List<ArchivedTicketCategory> archived,
+                                                           Map<Long, Event> events) {
+        List<TicketCategory> categories = new ArrayList<>(archived.size());
+        for (ArchivedTicketCategory row : archived) {
+            TicketCategory category = new TicketCategory();
+            category.setTicketCategoryId(row.getTicketCategoryId());
+            category.setName(row.getName());
+            category.setPrice(row.getPrice());
+            category.setDescription(row.getDescription());
+            category.setTotalTickets(row.getTotalTickets());
+            category.setTicketsSold(row.getTicketsSold());
+            category.setStatus(row.getStatus());
+            category.setActive(row.isActive());
+            category.setEvent(events.get(row.getEventId()));
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    private List<Event> toEvents(List<ArchivedEvent> archived) {
+        Map<Long, User> users = byId(userRepository.findAllById(ids(archived, ArchivedEvent::getUserId)),
+                User::getUserId);
+        Set<Long> actIds = new HashSet<>();
+        archived.forEach(event -> actIds.addAll(event.getLineupActIds()));
+        Map<Long, Act> acts = byId(actRepository.findAllById(actIds), Act::getActId);
+        List<Event> events = new ArrayList<>(archived.size());
+        for (ArchivedEvent row : archived) {
+            Event event = new Event();
+            event.setEventId(row.getEventId());
+            event.setName(row.getName());
+            event.setDescription(row.getDescription());
+            event.setDate(row.getDate());
+            event.setTime(row.getTime());
+            event.setVenue(row.getVenue());
+            event.setLineup(row.getLineupActIds().stream().map(acts::get).filter(act -> act != null).toList());
+            event.setUser(users.get(row.getUserId()));
+            event.setStatus(row.getStatus());
+            event.setActive(row.isActive());
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static <T> Set<Long> ids(Collection<T> rows, Function<T, Long> id) {
+        return rows.stream().map(id).filter(value -> value != null).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> byId(Collection<T> rows, Function<T, Long> id) {
+        return rows.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
@@ -1,24 +1,42 @@
 package it342.g4.e_vents.service;
 
-import it342.g4.e_vents.model.User;
-import it342.g4.e_vents.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.dto.UserSummary;
+import it342.g4.e_vents.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
+@Timed("events.service")
 public class AuthService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserSummaryCache userSummaryCache;
 
-    public User getCurrentUser() {
+    /**
+     * Returns the caller as resolved from the access token, without a database lookup
+     * @return The authenticated principal, or null for anonymous requests
+     */
+    public AuthenticatedUser getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser principal)) {
             return null;
         }
-        String email = authentication.getName();
-        return userRepository.findByEmail(email).orElse(null);
+        return principal;
+    }
+
+    /**
+     * Returns the caller's current profile summary, from the user summary cache
+     * @return The summary, or null for anonymous requests and deleted users
+     */
+    public UserSummary getCurrentUser() {
+        AuthenticatedUser principal = getCurrentPrincipal();
+        if (principal == null) {
+            return null;
+        }
+        return userSummaryCache.get(principal.getUserId()).orElse(null);
     }
 }
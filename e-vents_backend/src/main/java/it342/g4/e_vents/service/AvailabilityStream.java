@@ -0,0 +1,282 @@
+package it342.g4.e_vents.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.dto.CategoryAvailability;
+import it342.g4.e_vents.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-sent availability updates per event. Purchases and capacity edits
+ * publish a category's new counts; a flusher sends the latest value of each
+ * changed category at most max-updates-per-second times, however fast tickets
+ * sell. Each subscriber is written to by the fan-out pool one message at a
+ * time, and updates that arrive while a slow client is still being written to
+ * are merged into its next message instead of queueing up. Sales made on
+ * other replicas arrive through the cache invalidation bus and are sent as
+ * a fresh snapshot of the event.
+ */
+@Component
+public class AvailabilityStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityStream.class);
+
+    static final String EVENT_NAME = "availability";
+
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService fanout;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final Counter messagesSent;
+
+    @Autowired
+    public AvailabilityStream(TicketAvailabilityCache ticketAvailabilityCache,
+                              CacheInvalidationBus cacheInvalidationBus,
+                              @Value("${availability.stream.max-updates-per-second:4}") int maxUpdatesPerSecond,
+                              @Value("${availability.stream.heartbeat:20s}") Duration heartbeat,
+                              @Value("${availability.stream.timeout:30m}") Duration timeout,
+                              @Value("${availability.stream.max-subscribers:10000}") int maxSubscribers,
+                              @Value("${availability.stream.fanout-threads:4}") int fanoutThreads,
+                              MeterRegistry meterRegistry) {
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.timeoutMs = timeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("availability-flush"));
+        this.fanout = Executors.newFixedThreadPool(fanoutThreads, daemonThreads("availability-fanout"));
+
+        long flushIntervalMs = Math.max(1, 1000 / Math.max(1, maxUpdatesPerSecond));
+        scheduler.scheduleAtFixedRate(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("events.availability.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open availability streams")
+                .register(meterRegistry);
+        this.messagesSent = Counter.builder("events.availability.stream.messages")
+                .description("Availability messages written to subscribers")
+                .register(meterRegistry);
+        // Subscribed after the cache, whose listener has evicted the event by the time this one runs
+        cacheInvalidationBus.subscribe(TicketAvailabilityCache.REGION, (key, issuedAt) -> {
+            if (key != null) {
+                republish(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * Opens a stream for an event. The first message lists every active
+     * category; later messages list only the categories that changed.
+     * @param eventId The event ID
+     * @return The emitter to return from the controller
+     * @throws RejectedExecutionException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Long eventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many availability subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        channels.compute(eventId, (id, channel) -> {
+            Channel target = channel != null ? channel : new Channel();
+            target.subscribers.add(subscriber);
+            return target;
+        });
+        Runnable unsubscribe = () -> unsubscribe(eventId, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        // Clients (EventSource) reconnect on their own after the server ends the stream
+        emitter.onTimeout(emitter::complete);
+
+        try {
+            subscriber.offer(ticketAvailabilityCache.snapshot(eventId));
+        } catch (RuntimeException e) {
+            emitter.completeWithError(e);
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * Publishes a category's counts once the current transaction commits.
+     * Nothing is kept for events nobody is watching.
+     * @param eventId The event the category belongs to
+     * @param ticketCategoryId The ticket category ID
+     * @param totalTickets The category's capacity
+     * @param ticketsSold Tickets sold so far
+     */
+    public void publish(Long eventId, Long ticketCategoryId, int totalTickets, int ticketsSold) {
+        TransactionHooks.afterCommit(() -> {
+            Channel channel = channels.get(eventId);
+            if (channel != null) {
+                channel.changes.put(ticketCategoryId,
+                        new CategoryAvailability(ticketCategoryId, totalTickets, ticketsSold));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        fanout.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    private void flush() {
+        try {
+            for (Channel channel : channels.values()) {
+                if (channel.changes.isEmpty()) {
+                    continue;
+                }
+                List<CategoryAvailability> batch = drain(channel.changes);
+                for (Subscriber subscriber : channel.subscribers) {
+                    subscriber.offer(batch);
+                }
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task for good
+            logger.warn("Availability flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.heartbeatDue = true;
+                subscriber.schedule();
+            }
+        }
+    }
+
+    private void unsubscribe(Long eventId, Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscriberCount.decrementAndGet();
+            channels.computeIfPresent(eventId, (id, channel) -> {
+                channel.subscribers.remove(subscriber);
+                return channel.subscribers.isEmpty() ? null : channel;
+            });
+        }
+    }
+
+    // Re-sends every category of a watched event after it changed on another replica
+    private void republish(Long eventId) {
+        Channel channel = channels.get(eventId);
+        if (channel != null) {
+            for (CategoryAvailability availability : ticketAvailabilityCache.snapshot(eventId)) {
+                channel.changes.put(availability.getTicketCategoryId(), availability);
+            }
+        }
+    }
+
+    // Removes entries one by one so a value published meanwhile is kept for the next round
+    private static List<CategoryAvailability> drain(Map<Long, CategoryAvailability> pending) {
+        List<CategoryAvailability> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, CategoryAvailability> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+        return batch;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Channel {
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        // Latest counts per category since the last flush
+        private final Map<Long, CategoryAvailability> changes = new ConcurrentHashMap<>();
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<Long, CategoryAvailability> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Collection<CategoryAvailability> updates) {
+            for (CategoryAvailability update : updates) {
+                pending.put(update.getTicketCategoryId(), update);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed.get() && draining.compareAndSet(false, true)) {
+                try {
+                    fanout.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false); // Shutting down
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                while (!closed.get()) {
+                    List<CategoryAvailability> batch = drain(pending);
+                    if (!batch.isEmpty()) {
+                        emitter.send(SseEmitter.event().name(EVENT_NAME).data(batch, MediaType.APPLICATION_JSON));
+                        messagesSent.increment();
+                        heartbeatDue = false;
+                    } else if (heartbeatDue) {
+                        heartbeatDue = false;
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        break;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; completing triggers the completion callback
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty() || heartbeatDue) {
+                schedule();
+            }
+        }
+    }
+}
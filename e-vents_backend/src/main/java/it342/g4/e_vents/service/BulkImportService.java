@@ -0,0 +1,749 @@
+package it342.g4.e_vents.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.dto.ImportReport;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
+import it342.g4.e_vents.util.CsvUtils;
+import it342.g4.e_vents.util.DataFormat;
+
+/**
+ * Streams CSV or NDJSON uploads into the events, acts and ticket_categories
+ * tables. Rows are validated against lookups cached for the duration of a
+ * run and written with JDBC batches, one transaction per chunk, so an upload
+ * is never held in memory as a whole.
+ */
+@Service
+@Timed("events.service")
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private static final String LIST_SEPARATOR = ";";
+    private static final String DEFAULT_TICKET_CATEGORY_STATUS = TicketCategory.STATUS_AVAILABLE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersions catalogVersions;
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final EventLifecycle eventLifecycle;
+    private final EventReminders eventReminders;
+    private final int chunkSize;
+
+    @Autowired
+    public BulkImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, CatalogVersions catalogVersions,
+                             TicketAvailabilityCache ticketAvailabilityCache, EventLifecycle eventLifecycle,
+                             EventReminders eventReminders,
+                             @Value("${import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.catalogVersions = catalogVersions;
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.eventLifecycle = eventLifecycle;
+        this.eventReminders = eventReminders;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports events. Columns: name, description, date (yyyy-MM-dd), time (HH:mm),
+     * venue, userId, status (optional), lineup (act IDs or names separated by ';')
+     * @param in The upload stream
+     * @param format The upload format
+     * @return The import report
+     */
+    public ImportReport importEvents(InputStream in, DataFormat format) {
+        Lookups lookups = new Lookups();
+        ImportReport report = runImport(in, format, row -> toEventRow(row, lookups), this::insertEvents);
+        catalogVersions.bump(Catalog.EVENTS);
+        eventLifecycle.rescheduleAll();
+        eventReminders.rescheduleAll();
+        return report;
+    }
+
+    /**
+     * Imports acts. Columns: name, description, category (ID or name),
+     * tags (tag names separated by ';', all belonging to the category)
+     * @param in The upload stream
+     * @param format The upload format
+     * @return The import report
+     */
+    public ImportReport importActs(InputStream in, DataFormat format) {
+        Lookups lookups = new Lookups();
+        ImportReport report = runImport(in, format, row -> toActRow(row, lookups), this::insertActs);
+        catalogVersions.bump(Catalog.ACTS);
+        return report;
+    }
+
+    /**
+     * Imports ticket categories. Columns: eventId, name, price, totalTickets,
+     * description (optional), status (optional, defaults to AVAILABLE)
+     * @param in The upload stream
+     * @param format The upload format
+     * @return The import report
+     */
+    public ImportReport importTicketCategories(InputStream in, DataFormat format) {
+        Lookups lookups = new Lookups();
+        return runImport(in, format, row -> toTicketCategoryRow(row, lookups), this::insertTicketCategories);
+    }
+
+    // ---------------------------------------------------------------------
+    // Import loop
+    // ---------------------------------------------------------------------
+
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(Map<String, String> row);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(List<T> rows);
+    }
+
+    private <T> ImportReport runImport(InputStream in, DataFormat format, RowParser<T> parser, ChunkWriter<T> writer) {
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkRows = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+
+        try (RowSource source = openSource(in, format)) {
+            for (;;) {
+                Map<String, String> row;
+                String malformed = null;
+                try {
+                    row = source.next();
+                } catch (MalformedRowException e) {
+                    // The source has moved past the bad record; report it like any rejected row
+                    row = Map.of();
+                    malformed = e.getMessage();
+                }
+                if (row == null) {
+                    break;
+                }
+                rowNumber++;
+                report.incrementRowsRead();
+                try {
+                    if (malformed != null) {
+                        throw new IllegalArgumentException(malformed);
+                    }
+                    chunk.add(parser.parse(row));
+                    chunkRows.add(rowNumber);
+                } catch (IllegalArgumentException e) {
+                    report.addError(rowNumber, e.getMessage());
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, chunkRows, writer, report);
+                }
+            }
+            flush(chunk, chunkRows, writer, report);
+        } catch (IOException e) {
+            // Unreadable input: keep whatever was committed and report where parsing stopped
+            flush(chunk, chunkRows, writer, report);
+            report.addError(rowNumber + 1, "Unreadable input: " + e.getMessage());
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Bulk import finished: {} read, {} imported, {} failed in {} ms",
+                report.getRowsRead(), report.getRowsImported(), report.getRowsFailed(), report.getDurationMs());
+        return report;
+    }
+
+    /**
+     * Writes a chunk in one transaction. If the batch fails, the chunk is
+     * retried row by row so the report can name the offending rows.
+     */
+    private <T> void flush(List<T> chunk, List<Long> chunkRows, ChunkWriter<T> writer, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.write(chunk));
+            report.addRowsImported(chunk.size());
+        } catch (DataAccessException e) {
+            logger.warn("Import chunk failed, retrying {} rows individually: {}", chunk.size(), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                List<T> single = List.of(chunk.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writer.write(single));
+                    report.addRowsImported(1);
+                } catch (DataAccessException rowError) {
+                    report.addError(chunkRows.get(i), rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    // ---------------------------------------------------------------------
+    // Row parsing and validation
+    // ---------------------------------------------------------------------
+
+    private record EventRow(String name, String description, LocalDate date, LocalTime time,
+                            String venue, long userId, String status, List<Long> actIds) {
+    }
+
+    private record ActRow(String name, String description, long categoryId, List<Long> tagIds) {
+    }
+
+    private record TicketCategoryRow(long eventId, String name, double price, int totalTickets,
+                                     String description, String status) {
+    }
+
+    private EventRow toEventRow(Map<String, String> row, Lookups lookups) {
+        String name = required(row, "name");
+        String venue = required(row, "venue");
+        LocalDate date = parseDate(required(row, "date"));
+        LocalTime time = parseTime(required(row, "time"));
+        long userId = parseLong(row, "userId");
+        if (!lookups.userExists(userId)) {
+            throw new IllegalArgumentException("User not found with ID: " + userId);
+        }
+
+        String status = optional(row, "status");
+        if (status == null) {
+            status = Event.STATUS_SCHEDULED;
+        } else if (!Event.STATUS_SCHEDULED.equals(status) && !Event.STATUS_POSTPONED.equals(status)
+                && !Event.STATUS_CANCELLED.equals(status)) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+
+        List<Long> actIds = new ArrayList<>();
+        for (String act : splitList(required(row, "lineup"))) {
+            actIds.add(lookups.resolveAct(act));
+        }
+        if (actIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one act/lineup is required");
+        }
+
+        return new EventRow(name, optional(row, "description"), date, time, venue, userId, status, actIds);
+    }
+
+    private ActRow toActRow(Map<String, String> row, Lookups lookups) {
+        String name = required(row, "name");
+        long categoryId = lookups.resolveCategory(required(row, "category"));
+
+        List<Long> tagIds = new ArrayList<>();
+        String tags = optional(row, "tags");
+        if (tags != null) {
+            for (String tag : splitList(tags)) {
+                TagRef ref = lookups.resolveTag(tag);
+                if (ref.categoryId() != categoryId) {
+                    throw new IllegalArgumentException("Tag " + tag + " does not belong to the act's category");
+                }
+                tagIds.add(ref.tagId());
+            }
+        }
+
+        // Reserve the name last so a rejected row does not block a corrected one
+        lookups.reserveActName(name);
+        return new ActRow(name, optional(row, "description"), categoryId, tagIds);
+    }
+
+    private TicketCategoryRow toTicketCategoryRow(Map<String, String> row, Lookups lookups) {
+        long eventId = parseLong(row, "eventId");
+        if (!lookups.eventExists(eventId)) {
+            throw new IllegalArgumentException("Event not found with ID: " + eventId);
+        }
+
+        String name = required(row, "name");
+        double price = parseDouble(row, "price");
+        if (price < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        long totalTickets = parseLong(row, "totalTickets");
+        if (totalTickets < 0 || totalTickets > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid totalTickets: " + totalTickets);
+        }
+
+        String status = optional(row, "status");
+        if (status == null) {
+            status = DEFAULT_TICKET_CATEGORY_STATUS;
+        } else if (!TicketCategory.STATUS_AVAILABLE.equals(status) && !TicketCategory.STATUS_CLOSED.equals(status)) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+        return new TicketCategoryRow(eventId, name, price, (int) totalTickets, optional(row, "description"), status);
+    }
+
+    private static String required(Map<String, String> row, String column) {
+        String value = optional(row, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required column: " + column);
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> row, String column) {
+        String value = row.get(column.toLowerCase(Locale.ROOT));
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static long parseLong(Map<String, String> row, String column) {
+        String value = required(row, column);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static double parseDouble(Map<String, String> row, String column) {
+        String value = required(row, column);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date (expected yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static LocalTime parseTime(String value) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time (expected HH:mm): " + value);
+        }
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(LIST_SEPARATOR)) {
+            String trimmed = item.trim();
+            if (!trimmed.isEmpty()) {
+                items.add(trimmed);
+            }
+        }
+        return items;
+    }
+
+    // ---------------------------------------------------------------------
+    // JDBC batch writers
+    // ---------------------------------------------------------------------
+
+    private void insertEvents(List<EventRow> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        Date today = Date.valueOf(LocalDate.now());
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(
+                        "INSERT INTO events (name, description, date, time, venue, user_id, status, is_active, date_created) "
+                                + "VALUES (?, ?, ?, ?, ?, ?, ?, true, ?)",
+                        new String[] {"event_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        EventRow row = rows.get(i);
+                        ps.setString(1, row.name());
+                        ps.setString(2, row.description());
+                        ps.setDate(3, Date.valueOf(row.date()));
+                        ps.setTime(4, Time.valueOf(row.time()));
+                        ps.setString(5, row.venue());
+                        ps.setLong(6, row.userId());
+                        ps.setString(7, row.status());
+                        ps.setDate(8, today);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<long[]> lineup = new ArrayList<>();
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            long eventId = generatedId(generated.get(i));
+            for (Long actId : rows.get(i).actIds()) {
+                lineup.add(new long[] {eventId, actId});
+            }
+        }
+        insertPairs("INSERT INTO events_lineup (events_event_id, lineup_act_id) VALUES (?, ?)", lineup);
+    }
+
+    private void insertActs(List<ActRow> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(
+                        "INSERT INTO acts (name, description, category_id, is_active) VALUES (?, ?, ?, true)",
+                        new String[] {"act_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ActRow row = rows.get(i);
+                        ps.setString(1, row.name());
+                        ps.setString(2, row.description());
+                        ps.setLong(3, row.categoryId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<long[]> actTags = new ArrayList<>();
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            long actId = generatedId(generated.get(i));
+            for (Long tagId : rows.get(i).tagIds()) {
+                actTags.add(new long[] {actId, tagId});
+            }
+        }
+        insertPairs("INSERT INTO act_tags (act_id, tag_id) VALUES (?, ?)", actTags);
+    }
+
+    private void insertTicketCategories(List<TicketCategoryRow> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO ticket_categories (event_id, name, price, total_tickets, tickets_sold, description, status, is_active) "
+                        + "VALUES (?, ?, ?, ?, 0, ?, ?, true)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        TicketCategoryRow row = rows.get(i);
+                        ps.setLong(1, row.eventId());
+                        ps.setString(2, row.name());
+                        ps.setDouble(3, row.price());
+                        ps.setInt(4, row.totalTickets());
+                        ps.setString(5, row.description());
+                        ps.setString(6, row.status());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+        // Registered in the chunk's transaction, so a rolled-back chunk bumps nothing
+        rows.stream().map(TicketCategoryRow::eventId).distinct().forEach(eventId -> {
+            catalogVersions.bumpTicketCategories(eventId);
+            ticketAvailabilityCache.invalidate(eventId);
+        });
+    }
+
+    private void insertPairs(String sql, List<long[]> pairs) {
+        if (pairs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, pairs.get(i)[0]);
+                ps.setLong(2, pairs.get(i)[1]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return pairs.size();
+            }
+        });
+    }
+
+    private static long generatedId(Map<String, Object> keys) {
+        // MySQL reports the key as GENERATED_KEY, other drivers use the column name
+        Object value = keys.values().iterator().next();
+        return ((Number) value).longValue();
+    }
+
+    // ---------------------------------------------------------------------
+    // Lookups cached for a single run
+    // ---------------------------------------------------------------------
+
+    private record TagRef(long tagId, long categoryId) {
+    }
+
+    /**
+     * Reference data resolved once per import run. Categories, tags and act
+     * names are small enough to load up front; users and events are checked
+     * on first use and memoized.
+     */
+    private class Lookups {
+        private Map<String, Long> categoriesByName;
+        private Set<Long> categoryIds;
+        private Map<String, TagRef> tagsByName;
+        private Map<String, Long> actsByName;
+        private Set<Long> actIds;
+        private final Map<Long, Boolean> users = new HashMap<>();
+        private final Map<Long, Boolean> events = new HashMap<>();
+
+        long resolveCategory(String value) {
+            if (categoriesByName == null) {
+                categoriesByName = new HashMap<>();
+                categoryIds = new HashSet<>();
+                jdbcTemplate.query("SELECT category_id, name FROM categories WHERE is_active = true", rs -> {
+                    categoriesByName.put(rs.getString("name").toUpperCase(Locale.ROOT), rs.getLong("category_id"));
+                    categoryIds.add(rs.getLong("category_id"));
+                });
+            }
+            Long id = categoriesByName.get(value.toUpperCase(Locale.ROOT));
+            if (id == null && isNumeric(value) && categoryIds.contains(Long.parseLong(value))) {
+                id = Long.parseLong(value);
+            }
+            if (id == null) {
+                throw new IllegalArgumentException("Category not found: " + value);
+            }
+            return id;
+        }
+
+        TagRef resolveTag(String name) {
+            if (tagsByName == null) {
+                tagsByName = new HashMap<>();
+                jdbcTemplate.query("SELECT tag_id, name, category_id FROM tags WHERE is_active = true", rs -> {
+                    tagsByName.put(rs.getString("name").toUpperCase(Locale.ROOT),
+                            new TagRef(rs.getLong("tag_id"), rs.getLong("category_id")));
+                });
+            }
+            TagRef ref = tagsByName.get(name.toUpperCase(Locale.ROOT));
+            if (ref == null) {
+                throw new IllegalArgumentException("Tag not found: " + name);
+            }
+            return ref;
+        }
+
+        long resolveAct(String value) {
+            loadActs();
+            if (isNumeric(value) && actIds.contains(Long.parseLong(value))) {
+                return Long.parseLong(value);
+            }
+            Long id = actsByName.get(value.toLowerCase(Locale.ROOT));
+            if (id == null || id < 0) {
+                throw new IllegalArgumentException("Act not found: " + value);
+            }
+            return id;
+        }
+
+        void reserveActName(String name) {
+            loadActs();
+            String key = name.toLowerCase(Locale.ROOT);
+            if (actsByName.containsKey(key)) {
+                throw new IllegalArgumentException("Act already exists: " + name);
+            }
+            // Placeholder ID: the name only needs to be claimed for duplicate detection
+            actsByName.put(key, -1L);
+        }
+
+        boolean userExists(long userId) {
+            return users.computeIfAbsent(userId, id -> exists("SELECT COUNT(*) FROM users WHERE user_id = ?", id));
+        }
+
+        boolean eventExists(long eventId) {
+            return events.computeIfAbsent(eventId, id -> exists("SELECT COUNT(*) FROM events WHERE event_id = ? AND is_active = true", id));
+        }
+
+        private void loadActs() {
+            if (actsByName != null) {
+                return;
+            }
+            actsByName = new HashMap<>();
+            actIds = new HashSet<>();
+            jdbcTemplate.query("SELECT act_id, name, is_active FROM acts", rs -> {
+                long id = rs.getLong("act_id");
+                // Inactive acts still own their name but cannot join a lineup
+                actsByName.putIfAbsent(rs.getString("name").toLowerCase(Locale.ROOT),
+                        rs.getBoolean("is_active") ? id : -1L);
+                if (rs.getBoolean("is_active")) {
+                    actIds.add(id);
+                }
+            });
+        }
+
+        private boolean exists(String sql, long id) {
+            Long count = jdbcTemplate.queryForObject(sql, Long.class, id);
+            return count != null && count > 0;
+        }
+
+        private boolean isNumeric(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!Character.isDigit(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return !value.isEmpty() && value.length() < 19;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Row sources
+    // ---------------------------------------------------------------------
+
+    private interface RowSource extends Closeable {
+        /**
+         * @return The next row keyed by lower-cased column name, or null at end of input
+         * @throws MalformedRowException if the next record cannot be read as a row; the source
+         *         moves past it, so reading can go on
+         */
+        Map<String, String> next() throws IOException;
+    }
+
+    private static class MalformedRowException extends IOException {
+        MalformedRowException(String message) {
+            super(message);
+        }
+    }
+
+    private RowSource openSource(InputStream in, DataFormat format) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (format == DataFormat.NDJSON) {
+            return new NdjsonRowSource(reader, objectMapper.readerFor(JsonNode.class));
+        }
+        return new CsvRowSource(reader);
+    }
+
+    private static class CsvRowSource implements RowSource {
+        private final BufferedReader reader;
+        private List<String> header;
+
+        CsvRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                List<String> columns = CsvUtils.readRecord(reader);
+                if (columns == null) {
+                    return null;
+                }
+                header = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    // Tolerate a UTF-8 byte order mark on the first header cell
+                    header.add(column.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+                }
+            }
+
+            List<String> fields;
+            do {
+                fields = CsvUtils.readRecord(reader);
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                row.put(header.get(i), fields.get(i));
+            }
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private final ObjectReader jsonReader;
+
+        NdjsonRowSource(BufferedReader reader, ObjectReader jsonReader) {
+            this.reader = reader;
+            this.jsonReader = jsonReader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            // One object per line, so a bad line never affects the next one
+            JsonNode node;
+            try {
+                node = jsonReader.readTree(line);
+            } catch (JsonProcessingException e) {
+                throw new MalformedRowException("Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (node == null || !node.isObject()) {
+                throw new MalformedRowException("Expected a JSON object per line");
+            }
+
+            Map<String, String> row = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                row.put(field.getKey().toLowerCase(Locale.ROOT), asText(field.getValue()));
+            }
+            return row;
+        }
+
+        private static String asText(JsonNode value) {
+            if (value.isNull()) {
+                return null;
+            }
+            if (value.isArray()) {
+                // Arrays (lineup, tags) map onto the same ';'-separated form as CSV
+                List<String> items = new ArrayList<>();
+                value.forEach(item -> items.add(item.asText()));
+                return String.join(LIST_SEPARATOR, items);
+            }
+            return value.asText();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
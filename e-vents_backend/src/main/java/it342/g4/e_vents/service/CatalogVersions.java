@@ -0,0 +1,139 @@
+package it342.g4.e_vents.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.util.TransactionHooks;
+
+/**
+ * In-memory version counters for the catalog tables, plus one counter per
+ * event for its ticket categories. Service write methods bump the counters,
+ * and the catalog GET endpoints turn them into ETags so an unchanged catalog
+ * answers 304 without a query.
+ *
+ * Counters live in this process; a restart starts a new epoch so ETags
+ * handed out before it never match again. Bumps are broadcast on the cache
+ * invalidation bus and bump the same counter on the other replicas, so no
+ * replica answers 304 for a catalog another one has changed.
+ */
+@Component
+public class CatalogVersions {
+
+    /**
+     * Tables whose rows appear in catalog responses
+     */
+    public enum Catalog {
+        EVENTS, ACTS, CATEGORIES, TAGS, USERS
+    }
+
+    static final String REGION = "catalog";
+    static final String TICKET_CATEGORIES_REGION = "ticket-categories";
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Catalog, Version> tables = new ConcurrentHashMap<>();
+    private final Map<Long, Version> ticketCategoriesByEvent = new ConcurrentHashMap<>();
+    // Shared by events whose ticket categories have not changed since startup
+    private final Version unchanged = new Version();
+
+    @Autowired
+    public CatalogVersions(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        for (Catalog catalog : Catalog.values()) {
+            tables.put(catalog, new Version());
+        }
+        cacheInvalidationBus.subscribe(REGION, (key, issuedAt) -> {
+            if (key != null) {
+                tables.get(Catalog.valueOf(key)).increment();
+            }
+        });
+        cacheInvalidationBus.subscribe(TICKET_CATEGORIES_REGION, (key, issuedAt) -> {
+            if (key != null) {
+                ticketCategoriesByEvent.computeIfAbsent(Long.valueOf(key), id -> new Version()).increment();
+            }
+        });
+    }
+
+    /**
+     * ETag and last-modified time of a response built from some catalogs
+     * @param etag Weak entity tag, so it survives gzip encoding of the response
+     * @param lastModified Epoch millis of the most recent change
+     */
+    public record Stamp(String etag, long lastModified) {
+    }
+
+    /**
+     * Marks a catalog as changed once the current transaction commits
+     * @param catalog The catalog that was written
+     */
+    public void bump(Catalog catalog) {
+        afterCommit(tables.get(catalog));
+        cacheInvalidationBus.publish(REGION, catalog.name());
+    }
+
+    /**
+     * Marks an event's ticket categories as changed once the current transaction commits
+     * @param eventId The event ID
+     */
+    public void bumpTicketCategories(Long eventId) {
+        if (eventId != null) {
+            afterCommit(ticketCategoriesByEvent.computeIfAbsent(eventId, id -> new Version()));
+            cacheInvalidationBus.publish(TICKET_CATEGORIES_REGION, eventId.toString());
+        }
+    }
+
+    /**
+     * Stamp for a response built from the given catalogs
+     * @param catalogs Every catalog whose rows are serialized in the response
+     * @return The current stamp
+     */
+    public Stamp stamp(Catalog... catalogs) {
+        return stamp(null, catalogs);
+    }
+
+    /**
+     * Stamp for an event's ticket categories, which embed the event itself
+     * @param eventId The event ID
+     * @param catalogs Every other catalog whose rows are serialized in the response
+     * @return The current stamp
+     */
+    public Stamp ticketCategoriesStamp(Long eventId, Catalog... catalogs) {
+        return stamp(ticketCategoriesByEvent.getOrDefault(eventId, unchanged), catalogs);
+    }
+
+    private Stamp stamp(Version extra, Catalog... catalogs) {
+        // Tomcat skips compression for strong ETags, and the tag covers every encoding of the body
+        StringBuilder etag = new StringBuilder("W/\"").append(epoch);
+        long lastModified = 0;
+        for (Catalog catalog : catalogs) {
+            Version version = tables.get(catalog);
+            etag.append('-').append(version.counter.get());
+            lastModified = Math.max(lastModified, version.lastModified);
+        }
+        if (extra != null) {
+            etag.append('-').append(extra.counter.get());
+            lastModified = Math.max(lastModified, extra.lastModified);
+        }
+        return new Stamp(etag.append('"').toString(), lastModified);
+    }
+
+    // Bumping before commit would let a concurrent reader pair the new version with the old rows
+    private static void afterCommit(Version version) {
+        TransactionHooks.afterCommit(version::increment);
+    }
+
+    private static final class Version {
+        private final AtomicLong counter = new AtomicLong();
+        private volatile long lastModified = System.currentTimeMillis();
+
+        private void increment() {
+            lastModified = System.currentTimeMillis();
+            counter.incrementAndGet();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Category;
 import it342.g4.e_vents.repository.CategoryRepository;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,13 +13,16 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("events.service")
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, CatalogVersions catalogVersions) {
         this.categoryRepository = categoryRepository;
+        this.catalogVersions = catalogVersions;
     }
 
     /**
@@ -93,7 +98,9 @@ public class CategoryService {
             category.setActive(true);
         }
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        catalogVersions.bump(Catalog.CATEGORIES);
+        return saved;
     }
 
     /**
@@ -107,6 +114,7 @@ public class CategoryService {
         
         category.setActive(false);
         categoryRepository.save(category);
+        catalogVersions.bump(Catalog.CATEGORIES);
     }
 
     /**
@@ -120,6 +128,7 @@ public class CategoryService {
         
         category.setActive(true);
         categoryRepository.save(category);
+        catalogVersions.bump(Catalog.CATEGORIES);
     }
 
     /**
@@ -131,6 +140,7 @@ public class CategoryService {
             throw new EntityNotFoundException("Category not found with ID: " + id);
         }
         categoryRepository.deleteById(id);
+        catalogVersions.bump(Catalog.CATEGORIES);
     }
 
     /**
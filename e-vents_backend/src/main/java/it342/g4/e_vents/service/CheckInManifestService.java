@@ -0,0 +1,155 @@
+package it342.g4.e_vents.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Builds the binary check-in manifest scanner devices download to validate
+ * tickets while offline. Rows are streamed from a database cursor straight
+ * into the output, so memory stays constant no matter how many tickets an
+ * event has.
+ *
+ * Layout, all integers big-endian unless noted:
+ * <pre>
+ *   "EVMF"  magic
+ *   byte    format version (1)
+ *   long    event ID
+ *   long    manifest version; pass it as "since" to get the next delta
+ *   long    base version, 0 for a full manifest
+ *   valid   repeated [varint ticket ID delta, varint ticket category ID], ended by a 0 delta
+ *   revoked repeated [varint ticket ID delta], ended by a 0 delta
+ *   int     CRC32 of everything before it
+ * </pre>
+ * Ticket IDs in each section are ascending and delta-encoded from 0; varints
+ * are unsigned LEB128. A delta lists tickets whose state changed since the
+ * base version: a valid entry (re)admits a ticket and a revoked entry stops
+ * it, so applying the same delta twice is harmless.
+ *
+ * Devices read the ticket and category IDs from a scanned token without
+ * checking its signature, which needs the server's key; the server checks
+ * every signature again when the scan log is uploaded.
+ */
+@Service
+@Timed("events.service")
+public class CheckInManifestService {
+
+    public static final String CONTENT_TYPE = "application/vnd.e-vents.checkin-manifest";
+
+    private static final byte[] MAGIC = {'E', 'V', 'M', 'F'};
+    private static final byte FORMAT_VERSION = 1;
+
+    private final TicketRepository ticketRepository;
+    private final EventRepository eventRepository;
+    private final long deltaOverlapMillis;
+
+    @Autowired
+    public CheckInManifestService(TicketRepository ticketRepository, EventRepository eventRepository,
+                                  @Value("${checkin.manifest.delta-overlap:2m}") Duration deltaOverlap) {
+        this.ticketRepository = ticketRepository;
+        this.eventRepository = eventRepository;
+        this.deltaOverlapMillis = deltaOverlap.toMillis();
+    }
+
+    /**
+     * Verifies that an event exists before a response is committed
+     * @param eventId The event ID
+     * @throws EntityNotFoundException if the event is not found
+     */
+    public void requireEvent(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException("Event not found with ID: " + eventId);
+        }
+    }
+
+    /**
+     * Verifies that a device's manifest version can be the base of a delta
+     * @param since The version, or null for a full manifest
+     * @throws IllegalArgumentException if since is not a version this server could have issued
+     */
+    public void requireVersion(Long since) {
+        if (since != null && (since <= 0 || since > System.currentTimeMillis())) {
+            throw new IllegalArgumentException("Unknown manifest version: " + since);
+        }
+    }
+
+    /**
+     * Writes an event's manifest to the output stream
+     * @param eventId The event ID
+     * @param since Version of the manifest the device holds, or null for a full manifest
+     * @param out The destination stream (not closed)
+     * @throws IllegalArgumentException if since is not a version this server issued
+     */
+    @Transactional(readOnly = true)
+    public void writeManifest(Long eventId, Long since, OutputStream out) throws IOException {
+        requireVersion(since);
+        // Taken before reading, so changes committed while the manifest streams are in the next delta
+        long version = System.currentTimeMillis();
+        // Rows are stamped before their transaction commits, so a delta reaches back a little further
+        LocalDateTime modifiedSince = since == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(since - deltaOverlapMillis), ZoneId.systemDefault());
+
+        CRC32 crc = new CRC32();
+        // Buffered in front of the checksum so the CRC is updated a block at a time
+        DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(out, crc), 64 * 1024));
+        data.write(MAGIC);
+        data.writeByte(FORMAT_VERSION);
+        data.writeLong(eventId);
+        data.writeLong(version);
+        data.writeLong(since != null ? since : 0);
+
+        try (Stream<Object[]> rows = ticketRepository.streamAdmittingTicketsByEventId(eventId, modifiedSince)) {
+            long previous = 0;
+            for (Iterator<Object[]> it = rows.iterator(); it.hasNext(); ) {
+                Object[] row = it.next();
+                long ticketId = (Long) row[0];
+                writeVarLong(data, ticketId - previous);
+                writeVarLong(data, (Long) row[1]);
+                previous = ticketId;
+            }
+            data.writeByte(0);
+        }
+        try (Stream<Long> ticketIds = ticketRepository.streamRevokedTicketIdsByEventId(eventId, modifiedSince)) {
+            long previous = 0;
+            for (Iterator<Long> it = ticketIds.iterator(); it.hasNext(); ) {
+                long ticketId = it.next();
+                writeVarLong(data, ticketId - previous);
+                previous = ticketId;
+            }
+            data.writeByte(0);
+        }
+
+        data.flush();
+        // Written past the checksummed stream
+        new DataOutputStream(out).writeInt((int) crc.getValue());
+        out.flush();
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,397 @@
+package it342.g4.e_vents.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.dto.CheckInResult;
+import it342.g4.e_vents.dto.CheckInResult.Outcome;
+import it342.g4.e_vents.dto.ScanLogEntry;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.enums.Role;
+import it342.g4.e_vents.repository.CheckInRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import it342.g4.e_vents.security.AuthenticatedUser;
+import it342.g4.e_vents.security.TicketTokens;
+import it342.g4.e_vents.security.TicketTokens.TicketToken;
+import it342.g4.e_vents.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Gate check-in. Scanned tokens are verified by signature, and each event's
+ * admitted and revoked tickets are kept in bitsets indexed by ticket ID, so
+ * a scan touches no database. The bitsets are loaded from the database on
+ * an event's first scan; admissions are queued and written to check_ins in
+ * batches by a scheduled flush, with INSERT IGNORE so a retried batch or a
+ * second instance cannot record a ticket twice.
+ *
+ * Devices that lose their connection validate against a downloaded manifest
+ * (see CheckInManifestService) and upload their scan log afterwards, which
+ * is replayed through the same bitsets.
+ *
+ * The admitted bitsets are local to this instance: scans of one event should
+ * be routed to the same instance for duplicates to be caught at the gate.
+ * Revocations are broadcast on the cache invalidation bus, and the other
+ * replicas reload the event's revoked set, so a refund on one instance stops
+ * the ticket at every gate.
+ */
+@Service
+@Timed("events.service")
+public class CheckInService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInService.class);
+
+    static final String REVOKED_REGION = "checkin-revoked";
+
+    private static final String INSERT_CHECK_IN =
+            "INSERT IGNORE INTO check_ins (ticket_id, event_id, gate, checked_in_at) VALUES (?, ?, ?, ?)";
+
+    private final TicketRepository ticketRepository;
+    private final CheckInRepository checkInRepository;
+    private final TicketTokens ticketTokens;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final int maxBatchSize;
+    private final int flushBatchSize;
+    private final int maxLogSize;
+    private final long gateIdleNanos;
+    private final Map<Long, Gate> gates = new ConcurrentHashMap<>();
+    private final Queue<PendingCheckIn> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Map<Outcome, Counter> scans = new EnumMap<>(Outcome.class);
+
+    @Autowired
+    public CheckInService(TicketRepository ticketRepository, CheckInRepository checkInRepository,
+                          TicketTokens ticketTokens, JdbcTemplate jdbcTemplate,
+                          CacheInvalidationBus cacheInvalidationBus,
+                          @Value("${checkin.max-batch-size:500}") int maxBatchSize,
+                          @Value("${checkin.flush-batch-size:1000}") int flushBatchSize,
+                          @Value("${checkin.max-log-size:20000}") int maxLogSize,
+                          @Value("${checkin.gate-idle:6h}") Duration gateIdle,
+                          MeterRegistry meterRegistry) {
+        this.ticketRepository = ticketRepository;
+        this.checkInRepository = checkInRepository;
+        this.ticketTokens = ticketTokens;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.maxBatchSize = maxBatchSize;
+        this.flushBatchSize = flushBatchSize;
+        this.maxLogSize = maxLogSize;
+        this.gateIdleNanos = gateIdle.toNanos();
+        for (Outcome outcome : Outcome.values()) {
+            scans.put(outcome, Counter.builder("events.checkin.scans")
+                    .tag("outcome", outcome.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("events.checkin.pending", pendingCount, AtomicInteger::get)
+                .description("Admissions not yet written to the database")
+                .register(meterRegistry);
+        cacheInvalidationBus.subscribe(REVOKED_REGION, (key, issuedAt) -> {
+            if (key != null) {
+                reloadRevoked(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * Issues the QR token of a ticket to its holder or an admin
+     * @param ticketId The ticket ID
+     * @param caller The authenticated caller
+     * @return The signed token
+     * @throws EntityNotFoundException if the ticket is not found
+     * @throws AccessDeniedException if the caller neither holds the ticket nor is an admin
+     * @throws IllegalStateException if the ticket was refunded or deactivated
+     */
+    public String issueToken(Long ticketId, AuthenticatedUser caller) {
+        Ticket ticket = ticketRepository.findById(ticketId)
+                .orElseThrow(() -> new EntityNotFoundException("Ticket not found with ID: " + ticketId));
+        boolean holder = caller != null && ticket.getUser() != null
+                && ticket.getUser().getUserId().equals(caller.getUserId());
+        if (!holder && (caller == null || !Role.ADMIN.name().equals(caller.getRole()))) {
+            throw new AccessDeniedException("Only the ticket holder can get its token");
+        }
+        if (!ticket.isActive() || Ticket.STATUS_REFUNDED.equals(ticket.getStatus())) {
+            throw new IllegalStateException("Ticket no longer admits entry");
+        }
+        return ticketTokens.issue(ticket.getTicketId(), ticket.getTicketCategory().getEvent().getEventId(),
+                ticket.getTicketCategory().getTicketCategoryId());
+    }
+
+    /**
+     * Checks in a batch of scanned tokens for an event
+     * @param eventId The event the gate admits to
+     * @param gate Optional gate name, stored with each admission
+     * @param tokens Scanned tokens
+     * @return One result per token, in order
+     * @throws IllegalArgumentException if the batch is empty or too large
+     */
+    public List<CheckInResult> checkIn(Long eventId, String gate, List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            throw new IllegalArgumentException("No tokens to check in");
+        }
+        if (tokens.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " tokens per batch");
+        }
+        String gateName = gateName(gate);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Signatures are checked before taking the event's lock
+        Scan[] batch = new Scan[tokens.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Scan(i, ticketTokens.verify(tokens.get(i)), gateName, now);
+        }
+        return admit(eventId, batch);
+    }
+
+    /**
+     * Reconciles the scan log a device recorded while offline. Scans are
+     * replayed in the order they happened, so when two devices admitted the
+     * same ticket the earlier scan keeps the admission and the later one is
+     * reported as a duplicate. Admissions keep the time of the offline scan.
+     * @param eventId The event the device admitted to
+     * @param entries Logged scans
+     * @return One result per entry, in the order of the upload
+     * @throws IllegalArgumentException if the log is empty or too large
+     */
+    public List<CheckInResult> reconcile(Long eventId, List<ScanLogEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("No scans to reconcile");
+        }
+        if (entries.size() > maxLogSize) {
+            throw new IllegalArgumentException("At most " + maxLogSize + " scans per upload");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Scan[] batch = new Scan[entries.size()];
+        for (int i = 0; i < batch.length; i++) {
+            ScanLogEntry entry = entries.get(i);
+            if (entry == null) {
+                batch[i] = new Scan(i, null, null, now);
+                continue;
+            }
+            // A device clock ahead of ours must not date admissions in the future
+            LocalDateTime scannedAt = entry.getScannedAt() == null || entry.getScannedAt().isAfter(now)
+                    ? now : entry.getScannedAt();
+            batch[i] = new Scan(i, ticketTokens.verify(entry.getToken()), gateName(entry.getGate()), scannedAt);
+        }
+        Arrays.sort(batch, Comparator.comparing(Scan::at));
+        return admit(eventId, batch);
+    }
+
+    /**
+     * Number of tickets of an event checked in so far
+     * @param eventId The event ID
+     * @return Admissions, including those not yet written to the database
+     */
+    public long countCheckedIn(Long eventId) {
+        Gate state = gates.get(eventId);
+        if (state != null) {
+            synchronized (state) {
+                return state.admitted.cardinality();
+            }
+        }
+        return checkInRepository.countByEventId(eventId);
+    }
+
+    /**
+     * Stops refunded or deactivated tickets at the gate once the current transaction commits
+     * @param eventId The event ID
+     * @param ticketIds The tickets that no longer admit entry
+     */
+    public void ticketsRevoked(Long eventId, Collection<Long> ticketIds) {
+        TransactionHooks.afterCommit(() -> updateRevoked(eventId, ticketIds, true));
+        cacheInvalidationBus.publish(REVOKED_REGION, eventId.toString());
+    }
+
+    /**
+     * Lets a restored ticket through again once the current transaction commits
+     * @param eventId The event ID
+     * @param ticketId The restored ticket
+     */
+    public void ticketRestored(Long eventId, Long ticketId) {
+        TransactionHooks.afterCommit(() -> updateRevoked(eventId, List.of(ticketId), false));
+        cacheInvalidationBus.publish(REVOKED_REGION, eventId.toString());
+    }
+
+    /**
+     * Writes queued admissions to check_ins. A failed batch is put back and
+     * retried on the next run; the gate keeps admitting meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${checkin.flush-interval-ms:500}")
+    public void flush() {
+        List<PendingCheckIn> batch = new ArrayList<>(Math.min(flushBatchSize, Math.max(1, pendingCount.get())));
+        while (true) {
+            batch.clear();
+            PendingCheckIn next;
+            while (batch.size() < flushBatchSize && (next = pending.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(INSERT_CHECK_IN, batch, batch.size(), (statement, checkIn) -> {
+                    statement.setLong(1, checkIn.ticketId());
+                    statement.setLong(2, checkIn.eventId());
+                    statement.setString(3, checkIn.gate());
+                    statement.setTimestamp(4, Timestamp.valueOf(checkIn.checkedInAt()));
+                });
+            } catch (DataAccessException e) {
+                pending.addAll(batch);
+                logger.warn("Could not write {} check-ins, retrying: {}", batch.size(), e.getMessage());
+                return;
+            }
+            pendingCount.addAndGet(-batch.size());
+            for (PendingCheckIn checkIn : batch) {
+                synchronized (checkIn.state()) {
+                    checkIn.state().unflushed--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the bitsets of events nobody has scanned for a while. Events with
+     * admissions still queued are kept, so a reload never misses them.
+     */
+    @Scheduled(fixedDelayString = "${checkin.gate-eviction-interval-ms:600000}")
+    public void evictIdleGates() {
+        long now = System.nanoTime();
+        gates.entrySet().removeIf(entry -> {
+            Gate state = entry.getValue();
+            synchronized (state) {
+                return state.unflushed == 0 && now - state.lastUsed > gateIdleNanos;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Admits scans in array order under the event's lock
+     * @return One result per scan, placed at its index
+     */
+    private List<CheckInResult> admit(Long eventId, Scan[] batch) {
+        Gate state = gates.computeIfAbsent(eventId, this::loadGate);
+        CheckInResult[] results = new CheckInResult[batch.length];
+        int admitted = 0;
+        synchronized (state) {
+            state.lastUsed = System.nanoTime();
+            for (Scan scan : batch) {
+                TicketToken token = scan.token();
+                Outcome outcome;
+                if (token == null || token.ticketId() > Integer.MAX_VALUE) {
+                    outcome = Outcome.INVALID;
+                } else if (token.eventId() != eventId) {
+                    outcome = Outcome.WRONG_EVENT;
+                } else {
+                    int index = (int) token.ticketId();
+                    if (state.revoked.get(index)) {
+                        outcome = Outcome.REVOKED;
+                    } else if (state.admitted.get(index)) {
+                        outcome = Outcome.DUPLICATE;
+                    } else {
+                        state.admitted.set(index);
+                        pending.add(new PendingCheckIn(token.ticketId(), eventId, scan.gate(), scan.at(), state));
+                        admitted++;
+                        outcome = Outcome.ADMITTED;
+                    }
+                }
+                scans.get(outcome).increment();
+                results[scan.index()] = new CheckInResult(token != null ? token.ticketId() : null, outcome);
+            }
+            state.unflushed += admitted;
+        }
+        pendingCount.addAndGet(admitted);
+        return Arrays.asList(results);
+    }
+
+    private static String gateName(String gate) {
+        return gate != null && gate.length() > 32 ? gate.substring(0, 32) : gate;
+    }
+
+    private Gate loadGate(Long eventId) {
+        Gate state = new Gate();
+        for (Long ticketId : checkInRepository.findTicketIdsByEventId(eventId)) {
+            state.admitted.set(Math.toIntExact(ticketId));
+        }
+        for (Long ticketId : ticketRepository.findRevokedTicketIdsByEventId(eventId)) {
+            state.revoked.set(Math.toIntExact(ticketId));
+        }
+        state.lastUsed = System.nanoTime();
+        return state;
+    }
+
+    private void updateRevoked(Long eventId, Collection<Long> ticketIds, boolean revoked) {
+        Gate state = gates.get(eventId);
+        if (state == null) {
+            return; // Loaded from the database on the event's first scan
+        }
+        synchronized (state) {
+            for (Long ticketId : ticketIds) {
+                state.revoked.set(Math.toIntExact(ticketId), revoked);
+            }
+        }
+    }
+
+    // A revocation made on another replica; the set is read again rather than shipping ticket IDs
+    private void reloadRevoked(Long eventId) {
+        Gate state = gates.get(eventId);
+        if (state == null) {
+            return;
+        }
+        BitSet revoked = new BitSet();
+        for (Long ticketId : ticketRepository.findRevokedTicketIdsByEventId(eventId)) {
+            revoked.set(Math.toIntExact(ticketId));
+        }
+        synchronized (state) {
+            state.revoked.clear();
+            state.revoked.or(revoked);
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class Gate {
+        private final BitSet admitted = new BitSet();
+        private final BitSet revoked = new BitSet();
+        private long lastUsed;
+        private int unflushed;
+    }
+
+    // A token to admit, with the position of its result
+    private record Scan(int index, TicketToken token, String gate, LocalDateTime at) {
+    }
+
+    private record PendingCheckIn(long ticketId, long eventId, String gate, LocalDateTime checkedInAt, Gate state) {
+    }
+}
@@ -0,0 +1,189 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.cluster.HorizonScheduler;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
+
+/**
+ * Moves events through their lifecycle by the clock: SCHEDULED to ONGOING
+ * when an event starts, which also closes sales of its ticket categories,
+ * and ONGOING to COMPLETED once it has run for the configured duration.
+ * Postponed and cancelled events are left alone.
+ *
+ * Transitions are queued and run on the lease holder by HorizonScheduler,
+ * which refills the queue every reload interval by a range query on the
+ * (status, date) index, never a scan of the events table. Each transition is
+ * a conditional update that checks the status and start time again, so a
+ * transition queued before its event was edited changes nothing.
+ */
+@Service
+public class EventLifecycle extends HorizonScheduler<Long, EventLifecycle.Transition> {
+
+    static final String JOB = "event-lifecycle";
+    static final String REGION = "event-lifecycle";
+
+    private final EventRepository eventRepository;
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final CatalogVersions catalogVersions;
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration duration;
+    private final Counter started;
+    private final Counter completed;
+
+    @Autowired
+    public EventLifecycle(EventRepository eventRepository, TicketCategoryRepository ticketCategoryRepository,
+                          CatalogVersions catalogVersions, TicketAvailabilityCache ticketAvailabilityCache,
+                          CacheInvalidationBus cacheInvalidationBus, JobLeases jobLeases,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${events.lifecycle.duration:4h}") Duration duration,
+                          @Value("${events.lifecycle.horizon:2h}") Duration horizon,
+                          @Value("${events.lifecycle.max-per-tick:500}") int maxPerTick,
+                          MeterRegistry meterRegistry) {
+        super(JOB, REGION, cacheInvalidationBus, jobLeases, horizon, maxPerTick);
+        this.eventRepository = eventRepository;
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.catalogVersions = catalogVersions;
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.duration = duration;
+        this.started = Counter.builder("events.lifecycle.transitions")
+                .tag("to", Event.STATUS_ONGOING)
+                .description("Events moved by the lifecycle engine")
+                .register(meterRegistry);
+        this.completed = Counter.builder("events.lifecycle.transitions")
+                .tag("to", Event.STATUS_COMPLETED)
+                .description("Events moved by the lifecycle engine")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refills the queue with every transition due before now + horizon,
+     * including overdue ones
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${events.lifecycle.reload-interval-ms:1800000}")
+    public void reload() {
+        super.reload();
+    }
+
+    /**
+     * Applies the transitions that are due, at most max-per-tick per run
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${events.lifecycle.tick-interval-ms:1000}")
+    public void tick() {
+        super.tick();
+    }
+
+    @Override
+    protected List<Transition> findDue(LocalDateTime now, LocalDateTime until) {
+        List<Transition> found = new ArrayList<>();
+        for (Object[] row : eventRepository.findStartsByStatusUntil(Event.STATUS_SCHEDULED, until.toLocalDate())) {
+            LocalDateTime start = startOf(row[1], row[2]);
+            if (!start.isAfter(until)) {
+                found.add(new Transition((Long) row[0], Event.STATUS_SCHEDULED, Event.STATUS_ONGOING, start));
+            }
+        }
+        LocalDateTime startedBy = until.minus(duration);
+        for (Object[] row : eventRepository.findStartsByStatusUntil(Event.STATUS_ONGOING, startedBy.toLocalDate())) {
+            LocalDateTime start = startOf(row[1], row[2]);
+            if (!start.isAfter(startedBy)) {
+                found.add(new Transition((Long) row[0], Event.STATUS_ONGOING, Event.STATUS_COMPLETED,
+                        start.plus(duration)));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    protected List<Transition> findByEventId(Long eventId, LocalDateTime now) {
+        List<Object[]> rows = eventRepository.findScheduleById(eventId);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Object[] row = rows.get(0);
+        LocalDateTime start = startOf(row[1], row[2]);
+        if (Event.STATUS_SCHEDULED.equals(row[0])) {
+            return List.of(new Transition(eventId, Event.STATUS_SCHEDULED, Event.STATUS_ONGOING, start));
+        }
+        if (Event.STATUS_ONGOING.equals(row[0])) {
+            return List.of(new Transition(eventId, Event.STATUS_ONGOING, Event.STATUS_COMPLETED, start.plus(duration)));
+        }
+        return List.of();
+    }
+
+    @Override
+    protected List<Long> keysOf(Long eventId) {
+        return List.of(eventId);
+    }
+
+    @Override
+    protected Long keyOf(Transition transition) {
+        return transition.eventId();
+    }
+
+    @Override
+    protected LocalDateTime dueAt(Transition transition) {
+        return transition.at();
+    }
+
+    @Override
+    protected void run(Transition transition, LocalDateTime now) {
+        if (Boolean.TRUE.equals(transactionTemplate.execute(status -> apply(transition, now)))) {
+            afterApplied(transition);
+        }
+    }
+
+    @Override
+    protected String describe(Transition transition) {
+        return "the move of event " + transition.eventId() + " to " + transition.to();
+    }
+
+    private boolean apply(Transition transition, LocalDateTime now) {
+        // Latest start time at which the transition is due
+        LocalDateTime latestStart = Event.STATUS_ONGOING.equals(transition.to()) ? now : now.minus(duration);
+        if (eventRepository.transition(transition.eventId(), transition.from(), transition.to(),
+                latestStart.toLocalDate(), latestStart.toLocalTime()) == 0) {
+            return false;
+        }
+        if (Event.STATUS_ONGOING.equals(transition.to())) {
+            ticketCategoryRepository.closeSalesByEventId(transition.eventId());
+            catalogVersions.bumpTicketCategories(transition.eventId());
+            ticketAvailabilityCache.invalidate(transition.eventId());
+        }
+        catalogVersions.bump(Catalog.EVENTS);
+        return true;
+    }
+
+    private void afterApplied(Transition transition) {
+        if (Event.STATUS_ONGOING.equals(transition.to())) {
+            started.increment();
+            offer(new Transition(transition.eventId(), Event.STATUS_ONGOING, Event.STATUS_COMPLETED,
+                    transition.at().plus(duration)));
+        } else {
+            completed.increment();
+        }
+    }
+
+    record Transition(Long eventId, String from, String to, LocalDateTime at) {
+    }
+}
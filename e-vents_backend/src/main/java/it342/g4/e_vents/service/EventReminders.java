@@ -0,0 +1,224 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.cluster.HorizonScheduler;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.OutboxEvent;
+import it342.g4.e_vents.repository.EventReminderRepository;
+import it342.g4.e_vents.repository.EventRepository;
+
+/**
+ * Reminds ticket holders of scheduled events shortly before they start, by
+ * default 24 hours and 1 hour ahead.
+ *
+ * Reminders are queued and sent on the lease holder by HorizonScheduler,
+ * which refills the queue every reload interval by a range query on the
+ * (status, date) index for the start dates that window covers, never a scan
+ * of the events or tickets tables.
+ *
+ * Sending a reminder claims its row in event_reminders, keyed by event,
+ * offset and start time, and records an outbox event in the same
+ * transaction; the notification handler then writes one notification per
+ * holder in a single INSERT ... SELECT. A reminder queued twice, by a
+ * restart or a change of leader, is therefore sent once. Reminders that
+ * came due more than the grace period ago are dropped rather than sent late.
+ */
+@Service
+public class EventReminders extends HorizonScheduler<EventReminders.Key, EventReminders.Reminder> {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventReminders.class);
+
+    static final String JOB = "event-reminders";
+    static final String REGION = "event-reminders";
+
+    private final EventRepository eventRepository;
+    private final EventReminderRepository eventReminderRepository;
+    private final Outbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Duration> offsets;
+    private final Duration grace;
+    private final int purgeBatchSize;
+    private final Counter sent;
+    private final Counter missed;
+
+    @Autowired
+    public EventReminders(EventRepository eventRepository, EventReminderRepository eventReminderRepository,
+                          Outbox outbox, CacheInvalidationBus cacheInvalidationBus, JobLeases jobLeases,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${events.reminders.offsets:24h,1h}") List<Duration> offsets,
+                          @Value("${events.reminders.horizon:2h}") Duration horizon,
+                          @Value("${events.reminders.grace:30m}") Duration grace,
+                          @Value("${events.reminders.max-per-tick:100}") int maxPerTick,
+                          @Value("${events.reminders.purge-batch-size:1000}") int purgeBatchSize,
+                          MeterRegistry meterRegistry) {
+        super(JOB, REGION, cacheInvalidationBus, jobLeases, horizon, maxPerTick);
+        this.eventRepository = eventRepository;
+        this.eventReminderRepository = eventReminderRepository;
+        this.outbox = outbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.offsets = List.copyOf(offsets);
+        this.grace = grace;
+        this.purgeBatchSize = purgeBatchSize;
+        this.sent = Counter.builder("events.reminders")
+                .tag("result", "sent")
+                .description("Event reminders sent or dropped as too late")
+                .register(meterRegistry);
+        this.missed = Counter.builder("events.reminders")
+                .tag("result", "missed")
+                .description("Event reminders sent or dropped as too late")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refills the queue with every reminder due before now + horizon that is
+     * at most the grace period overdue, and purges old claims on the leader
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${events.reminders.reload-interval-ms:1800000}")
+    public void reload() {
+        super.reload();
+        if (isOwner()) {
+            purgeSent(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Sends the reminders that are due, at most max-per-tick per run
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${events.reminders.tick-interval-ms:1000}")
+    public void tick() {
+        super.tick();
+    }
+
+    @Override
+    protected List<Reminder> findDue(LocalDateTime now, LocalDateTime until) {
+        LocalDateTime firstStart = now.minus(grace).plus(Collections.min(offsets));
+        LocalDateTime lastStart = until.plus(Collections.max(offsets));
+        List<Reminder> found = new ArrayList<>();
+        for (Object[] row : eventRepository.findStartsByStatusBetween(Event.STATUS_SCHEDULED,
+                firstStart.toLocalDate(), lastStart.toLocalDate())) {
+            LocalDateTime start = startOf(row[1], row[2]);
+            for (Duration offset : offsets) {
+                Reminder reminder = new Reminder((Long) row[0], offset, start);
+                if (!reminder.at().isAfter(until) && !isMissed(reminder, now)) {
+                    found.add(reminder);
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    protected List<Reminder> findByEventId(Long eventId, LocalDateTime now) {
+        List<Object[]> rows = eventRepository.findScheduleById(eventId);
+        if (rows.isEmpty() || !Event.STATUS_SCHEDULED.equals(rows.get(0)[0])) {
+            return List.of();
+        }
+        LocalDateTime start = startOf(rows.get(0)[1], rows.get(0)[2]);
+        List<Reminder> found = new ArrayList<>();
+        for (Duration offset : offsets) {
+            Reminder reminder = new Reminder(eventId, offset, start);
+            if (!isMissed(reminder, now)) {
+                found.add(reminder);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    protected List<Key> keysOf(Long eventId) {
+        return offsets.stream().map(offset -> new Key(eventId, offset)).toList();
+    }
+
+    @Override
+    protected Key keyOf(Reminder reminder) {
+        return reminder.key();
+    }
+
+    @Override
+    protected LocalDateTime dueAt(Reminder reminder) {
+        return reminder.at();
+    }
+
+    @Override
+    protected void run(Reminder reminder, LocalDateTime now) {
+        if (isMissed(reminder, now)) {
+            missed.increment();
+            logger.info("Dropped the {} reminder of event {}, due at {}",
+                    reminder.offset(), reminder.eventId(), reminder.at());
+            return;
+        }
+        if (Boolean.TRUE.equals(transactionTemplate.execute(status -> send(reminder, now)))) {
+            sent.increment();
+        }
+    }
+
+    @Override
+    protected String describe(Reminder reminder) {
+        return "the " + reminder.offset() + " reminder of event " + reminder.eventId();
+    }
+
+    private boolean send(Reminder reminder, LocalDateTime now) {
+        // The event may have been edited since the reminder was queued
+        List<Object[]> rows = eventRepository.findScheduleById(reminder.eventId());
+        if (rows.isEmpty() || !Event.STATUS_SCHEDULED.equals(rows.get(0)[0])
+                || !reminder.start().equals(startOf(rows.get(0)[1], rows.get(0)[2]))) {
+            return false;
+        }
+        int offsetMinutes = (int) reminder.offset().toMinutes();
+        if (eventReminderRepository.claim(reminder.eventId(), offsetMinutes, reminder.start(), now) == 0) {
+            return false;
+        }
+        outbox.publish(OutboxEvent.EVENT_REMINDER, reminder.eventId(),
+                Map.of("offsetMinutes", offsetMinutes, "startsAt", reminder.start().toString()));
+        return true;
+    }
+
+    // Claims are only needed until the event starts; keep a day to be safe around clock skew
+    private void purgeSent(LocalDateTime now) {
+        LocalDateTime cutoff = now.minusDays(1);
+        int deleted;
+        do {
+            Integer count = transactionTemplate.execute(status ->
+                    eventReminderRepository.deleteStartedBefore(cutoff, purgeBatchSize));
+            deleted = count != null ? count : 0;
+        } while (deleted == purgeBatchSize);
+    }
+
+    private boolean isMissed(Reminder reminder, LocalDateTime now) {
+        return reminder.at().isBefore(now.minus(grace)) || !reminder.start().isAfter(now);
+    }
+
+    record Key(Long eventId, Duration offset) {
+    }
+
+    record Reminder(Long eventId, Duration offset, LocalDateTime start) {
+        LocalDateTime at() {
+            return start.minus(offset);
+        }
+
+        Key key() {
+            return new Key(eventId, offset);
+        }
+    }
+}
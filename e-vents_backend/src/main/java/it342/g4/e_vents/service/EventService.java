@@ -1,28 +1,47 @@
 package it342.g4.e_vents.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.OutboxEvent;
 import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 
 /**
  * Service for managing Event entities
  */
 @Service
+@Timed("events.service")
 public class EventService {
 
     private final EventRepository eventRepository;
+    private final CatalogVersions catalogVersions;
+    private final RefundService refundService;
+    private final Outbox outbox;
+    private final EventLifecycle eventLifecycle;
+    private final EventReminders eventReminders;
+    private final ArchiveService archiveService;
     
     @Autowired
-    public EventService(EventRepository eventRepository) {
+    public EventService(EventRepository eventRepository, CatalogVersions catalogVersions,
+                        RefundService refundService, Outbox outbox, EventLifecycle eventLifecycle,
+                        EventReminders eventReminders, ArchiveService archiveService) {
         this.eventRepository = eventRepository;
+        this.catalogVersions = catalogVersions;
+        this.refundService = refundService;
+        this.outbox = outbox;
+        this.eventLifecycle = eventLifecycle;
+        this.eventReminders = eventReminders;
+        this.archiveService = archiveService;
     }
 
     /**
@@ -39,9 +58,21 @@ public class EventService {
      * @return List of events with the specified status
      */
     public List<Event> getEventsByStatus(String status) {
-        return eventRepository.findAll().stream()
-                .filter(event -> status.equals(event.getStatus()))
-                .collect(Collectors.toList());
+        return eventRepository.findByStatus(status);
+    }
+
+    /**
+     * Retrieves all events with a specific status, optionally with archived ones
+     * @param status The status to filter by
+     * @param includeArchived Also return events of that status moved to the archive
+     * @return List of events with the specified status
+     */
+    public List<Event> getEventsByStatus(String status, boolean includeArchived) {
+        List<Event> events = getEventsByStatus(status);
+        if (includeArchived) {
+            events.addAll(archiveService.getArchivedEventsByStatus(status));
+        }
+        return events;
     }
     
     /**
@@ -67,6 +98,22 @@ public class EventService {
     public List<Event> getCancelledEvents() {
         return getEventsByStatus(Event.STATUS_CANCELLED);
     }
+
+    /**
+     * Gets all events that have started and not yet ended
+     * @return List of ongoing events
+     */
+    public List<Event> getOngoingEvents() {
+        return getEventsByStatus(Event.STATUS_ONGOING);
+    }
+
+    /**
+     * Gets all events that have ended
+     * @return List of completed events
+     */
+    public List<Event> getCompletedEvents() {
+        return getEventsByStatus(Event.STATUS_COMPLETED);
+    }
     
     /**
      * Finds an event by its ID
@@ -87,6 +134,19 @@ public class EventService {
         return eventRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Event not found with ID: " + id));
     }
+
+    /**
+     * Gets an event by ID, looking in the archive too if asked, or throws an exception if not found
+     * @param id The event ID to look up
+     * @param includeArchived Also look for the event in the archive
+     * @return The event; an archived one is a detached copy
+     * @throws EntityNotFoundException if the event is not found
+     */
+    public Event getEventById(Long id, boolean includeArchived) {
+        return eventRepository.findById(id)
+                .or(() -> includeArchived ? archiveService.findArchivedEvent(id) : Optional.empty())
+                .orElseThrow(() -> new EntityNotFoundException("Event not found with ID: " + id));
+    }
     
     /**
      * Creates a new event
@@ -99,7 +159,11 @@ public class EventService {
         if (event.getStatus() == null) {
             event.setStatus(Event.STATUS_SCHEDULED);
         }
-        return eventRepository.save(event);
+        Event saved = eventRepository.save(event);
+        catalogVersions.bump(Catalog.EVENTS);
+        eventLifecycle.reschedule(saved.getEventId());
+        eventReminders.reschedule(saved.getEventId());
+        return saved;
     }
     
     /**
@@ -107,21 +171,61 @@ public class EventService {
      * @param event The event with updated fields
      * @return The updated event
      */
+    @Transactional
     public Event updateEvent(Event event) {
-        return eventRepository.save(event);
+        String previousStatus = event.getEventId() != null
+                ? eventRepository.findStoredStatusById(event.getEventId()).orElse(null) : null;
+        Event saved = eventRepository.save(event);
+        catalogVersions.bump(Catalog.EVENTS);
+        eventLifecycle.reschedule(saved.getEventId());
+        eventReminders.reschedule(saved.getEventId());
+        syncRefund(saved, previousStatus);
+        publishStatusChange(saved, previousStatus);
+        return saved;
     }
     
     /**
-     * Updates an event's status
+     * Updates an event's status. Cancelling an event queues the refund of all
+     * its tickets, which runs in the background.
      * @param id The ID of the event to update
      * @param status The new status
      * @return The updated event
      * @throws EntityNotFoundException if the event is not found
      */
+    @Transactional
     public Event updateEventStatus(Long id, String status) {
         Event event = getEventById(id);
+        String previousStatus = event.getStatus();
         event.setStatus(status);
-        return eventRepository.save(event);
+        Event saved = eventRepository.save(event);
+        catalogVersions.bump(Catalog.EVENTS);
+        eventLifecycle.reschedule(saved.getEventId());
+        eventReminders.reschedule(saved.getEventId());
+        syncRefund(saved, previousStatus);
+        publishStatusChange(saved, previousStatus);
+        return saved;
+    }
+
+    // Starts refunding a cancelled event, and stops in the same transaction when it is restored
+    private void syncRefund(Event event, String previousStatus) {
+        if (Event.STATUS_CANCELLED.equals(event.getStatus())) {
+            refundService.scheduleEventRefund(event.getEventId());
+        } else if (Event.STATUS_CANCELLED.equals(previousStatus)) {
+            refundService.stopEventRefund(event.getEventId());
+        }
+    }
+
+    // Ticket holders are told once per transition, not on every save of a cancelled or postponed event
+    private void publishStatusChange(Event event, String previousStatus) {
+        String status = event.getStatus();
+        if (status == null || status.equals(previousStatus)) {
+            return;
+        }
+        if (Event.STATUS_CANCELLED.equals(status)) {
+            outbox.publish(OutboxEvent.EVENT_CANCELLED, event.getEventId(), Map.of("eventId", event.getEventId()));
+        } else if (Event.STATUS_POSTPONED.equals(status)) {
+            outbox.publish(OutboxEvent.EVENT_POSTPONED, event.getEventId(), Map.of("eventId", event.getEventId()));
+        }
     }
     
     /**
@@ -130,6 +234,7 @@ public class EventService {
      * @return The updated event
      * @throws EntityNotFoundException if the event is not found
      */
+    @Transactional
     public Event cancelEvent(Long id) {
         return updateEventStatus(id, Event.STATUS_CANCELLED);
     }
@@ -140,6 +245,7 @@ public class EventService {
      * @return The updated event
      * @throws EntityNotFoundException if the event is not found
      */
+    @Transactional
     public Event postponeEvent(Long id) {
         return updateEventStatus(id, Event.STATUS_POSTPONED);
     }
@@ -150,6 +256,7 @@ public class EventService {
      * @return The updated event
      * @throws EntityNotFoundException if the event is not found
      */
+    @Transactional
     public Event restoreEvent(Long id) {
         return updateEventStatus(id, Event.STATUS_SCHEDULED);
     }
@@ -164,6 +271,9 @@ public class EventService {
             throw new EntityNotFoundException("Event not found with ID: " + id);
         }
         eventRepository.deleteById(id);
+        catalogVersions.bump(Catalog.EVENTS);
+        eventLifecycle.reschedule(id);
+        eventReminders.reschedule(id);
     }
     
     /**
@@ -182,10 +292,10 @@ public class EventService {
     public List<Event> getUpcomingEvents(int limit) {
         // This is a simple implementation that returns the first N events
         // In a real application, you would filter by date > now and order by date
-        return eventRepository.findAll().stream()
-                .filter(event -> Event.STATUS_SCHEDULED.equals(event.getStatus()))
-                .limit(limit)
-                .toList();
+        if (limit < 1) {
+            return List.of();
+        }
+        return eventRepository.findByStatus(Event.STATUS_SCHEDULED, PageRequest.of(0, limit));
     }
 
     /**
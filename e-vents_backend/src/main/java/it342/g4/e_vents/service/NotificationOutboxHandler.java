@@ -0,0 +1,139 @@
+package it342.g4.e_vents.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it342.g4.e_vents.model.Notification;
+import it342.g4.e_vents.model.OutboxEvent;
+import it342.g4.e_vents.model.Ticket;
+
+/**
+ * Turns domain events into user notifications: a welcome message on
+ * registration, a confirmation per purchased ticket, and a message to every
+ * ticket holder when an event is cancelled or postponed and when it is about
+ * to start (see EventReminders). Rows are written
+ * with batched inserts, and a holder fan-out is a single INSERT ... SELECT,
+ * so an event with tens of thousands of tickets is one statement.
+ */
+@Service
+public class NotificationOutboxHandler implements OutboxHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxHandler.class);
+
+    private static final Set<String> TYPES = Set.of(OutboxEvent.USER_REGISTERED, OutboxEvent.TICKET_PURCHASED,
+            OutboxEvent.EVENT_CANCELLED, OutboxEvent.EVENT_POSTPONED, OutboxEvent.EVENT_REMINDER);
+
+    private static final String INSERT_NOTIFICATION = "INSERT INTO notifications "
+            + "(user_id, event_id, title, message, type, `read`, created_at, is_active) "
+            + "VALUES (?, ?, ?, ?, ?, FALSE, ?, TRUE)";
+
+    // One notification per holder of a valid ticket, however many they have. Tickets refunded at or
+    // after refundedSince still count, so holders refunded by a cancellation hear about it; NULL excludes every refund
+    private static final String NOTIFY_HOLDERS = "INSERT INTO notifications "
+            + "(user_id, event_id, title, message, type, `read`, created_at, is_active) "
+            + "SELECT h.user_id, e.event_id, ?, CONCAT(e.name, ?), ?, FALSE, ?, TRUE "
+            + "FROM (SELECT DISTINCT t.user_id FROM tickets t "
+            + "JOIN ticket_categories tc ON tc.ticket_category_id = t.ticket_category_id "
+            + "WHERE tc.event_id = ? AND t.is_active = TRUE "
+            + "AND (t.status <> '" + Ticket.STATUS_REFUNDED + "' OR t.refund_date >= ?)) h "
+            + "JOIN events e ON e.event_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NotificationOutboxHandler(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "notifications";
+    }
+
+    @Override
+    public boolean handles(String type) {
+        return TYPES.contains(type);
+    }
+
+    @Override
+    public void handle(List<OutboxEvent> events) {
+        List<Object[]> rows = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            Timestamp createdAt = Timestamp.valueOf(event.getCreatedAt());
+            switch (event.getType()) {
+                case OutboxEvent.USER_REGISTERED -> rows.add(new Object[] {event.getAggregateId(), null,
+                        "Welcome to E-vents", "Your account is ready. Browse upcoming events and get your tickets.",
+                        Notification.TYPE_SYSTEM, createdAt});
+                case OutboxEvent.TICKET_PURCHASED -> {
+                    JsonNode payload = readPayload(event);
+                    if (payload == null) {
+                        continue;
+                    }
+                    rows.add(new Object[] {payload.path("userId").asLong(), payload.path("eventId").asLong(),
+                            "Ticket confirmed", "Your ticket #" + event.getAggregateId() + " for "
+                                    + payload.path("eventName").asText() + " is confirmed.",
+                            Notification.TYPE_TICKET, createdAt});
+                }
+                // The refund job may already have run when this is relayed
+                case OutboxEvent.EVENT_CANCELLED -> notifyHolders(event.getAggregateId(), "Event cancelled",
+                        " has been cancelled. Your tickets are being refunded.",
+                        Notification.TYPE_EVENT_UPDATE, createdAt, createdAt);
+                case OutboxEvent.EVENT_POSTPONED -> notifyHolders(event.getAggregateId(), "Event postponed",
+                        " has been postponed. Your tickets stay valid for the new date.",
+                        Notification.TYPE_EVENT_UPDATE, createdAt, null);
+                case OutboxEvent.EVENT_REMINDER -> {
+                    JsonNode payload = readPayload(event);
+                    if (payload == null) {
+                        continue;
+                    }
+                    notifyHolders(event.getAggregateId(), "Event reminder",
+                            " starts in " + describeLead(payload.path("offsetMinutes").asLong()) + ".",
+                            Notification.TYPE_REMINDER, createdAt, null);
+                }
+                default -> {
+                }
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, rows);
+        }
+    }
+
+    private void notifyHolders(Long eventId, String title, String messageSuffix, String type, Timestamp createdAt,
+                               Timestamp refundedSince) {
+        jdbcTemplate.update(NOTIFY_HOLDERS, title, messageSuffix, type, createdAt, eventId, refundedSince, eventId);
+    }
+
+    // "24 hours", "1 hour", "90 minutes"
+    private static String describeLead(long minutes) {
+        if (minutes % 60 == 0) {
+            long hours = minutes / 60;
+            return hours + (hours == 1 ? " hour" : " hours");
+        }
+        return minutes + (minutes == 1 ? " minute" : " minutes");
+    }
+
+    // A malformed event is skipped rather than retried forever
+    private JsonNode readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (JsonProcessingException e) {
+            logger.warn("Skipping outbox event {} with malformed payload", event.getEventId());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.config.NotificationRetentionPolicy;
+import it342.g4.e_vents.repository.NotificationRepository;
+
+/**
+ * Deletes notifications the retention policy no longer keeps: those older
+ * than their type's TTL, those read longer than the read TTL ago, and each
+ * user's oldest ones beyond the per-user cap.
+ *
+ * Deletes run in batches of batch-size rows, one short transaction each,
+ * on ranges of the notification indexes, so the purge never holds many row
+ * locks at once and never scans the table. A run stops after
+ * max-batches-per-run batches and the next one continues; the lag gauge
+ * shows how long the oldest expired notification has been overdue after
+ * the last run, which stays near zero while the purge keeps up. One replica
+ * at a time purges (see JobLeases).
+ */
+@Service
+public class NotificationRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetention.class);
+
+    static final String JOB = "notification-purge";
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationRetentionPolicy policy;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxUsersPerRun;
+    private final Counter purgedExpired;
+    private final Counter purgedRead;
+    private final Counter purgedOverCap;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    // Only touched by the scheduled purge
+    private int batchesLeft;
+
+    @Autowired
+    public NotificationRetention(NotificationRepository notificationRepository, NotificationRetentionPolicy policy,
+                                 JobLeases jobLeases, PlatformTransactionManager transactionManager,
+                                 @Value("${notifications.retention.batch-size:1000}") int batchSize,
+                                 @Value("${notifications.retention.max-batches-per-run:50}") int maxBatchesPerRun,
+                                 @Value("${notifications.retention.max-users-per-run:500}") int maxUsersPerRun,
+                                 MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.policy = policy;
+        this.jobLeases = jobLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxUsersPerRun = maxUsersPerRun;
+        this.purgedExpired = purgedCounter(meterRegistry, "expired");
+        this.purgedRead = purgedCounter(meterRegistry, "read");
+        this.purgedOverCap = purgedCounter(meterRegistry, "over-cap");
+        Gauge.builder("events.notifications.purge.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("How long the oldest expired notification has been overdue")
+                .register(meterRegistry);
+    }
+
+    private static Counter purgedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("events.notifications.purged")
+                .tag("reason", reason)
+                .description("Notifications deleted by the retention policy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes expired, long-read and over-cap notifications, up to max-batches-per-run batches
+     */
+    @Scheduled(fixedDelayString = "${notifications.retention.purge-interval-ms:300000}")
+    public void purge() {
+        if (!jobLeases.isOwner(JOB)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        batchesLeft = maxBatchesPerRun;
+        long expired = 0;
+        for (Object[] row : notificationRepository.findOldestCreatedAtByType()) {
+            String type = (String) row[0];
+            LocalDateTime cutoff = now.minus(policy.ttlOf(type));
+            if (((LocalDateTime) row[1]).isBefore(cutoff)) {
+                expired += deleteInBatches(purgedExpired, limit -> type != null
+                        ? notificationRepository.deleteByTypeCreatedBefore(type, cutoff, limit)
+                        : notificationRepository.deleteUntypedCreatedBefore(cutoff, limit));
+            }
+        }
+        LocalDateTime readCutoff = now.minus(policy.getReadTtl());
+        long read = deleteInBatches(purgedRead, limit -> notificationRepository.deleteReadBefore(readCutoff, limit));
+        long overCap = 0;
+        int cap = policy.getMaxPerUser();
+        if (batchesLeft > 0) {
+            for (Long userId : notificationRepository.findUserIdsOverCap(cap, PageRequest.of(0, maxUsersPerRun))) {
+                Long maxId = notificationRepository.findNewestIdOverCap(userId, cap).orElse(null);
+                if (maxId != null) {
+                    overCap += deleteInBatches(purgedOverCap,
+                            limit -> notificationRepository.deleteByUserUpTo(userId, maxId, limit));
+                }
+            }
+        }
+        measureLag(LocalDateTime.now());
+        if (expired + read + overCap > 0) {
+            logger.info("Purged {} expired, {} read and {} over-cap notifications", expired, read, overCap);
+        }
+    }
+
+    /**
+     * Runs a bounded delete until it deletes less than a full batch or the run's batches are spent
+     * @param delete Deletes up to the given number of rows and returns how many it deleted
+     */
+    private long deleteInBatches(Counter counter, IntUnaryOperator delete) {
+        long total = 0;
+        while (batchesLeft > 0) {
+            batchesLeft--;
+            Integer deleted = transactionTemplate.execute(status -> delete.applyAsInt(batchSize));
+            int count = deleted != null ? deleted : 0;
+            counter.increment(count);
+            total += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private void measureLag(LocalDateTime now) {
+        Duration lag = Duration.ZERO;
+        for (Object[] row : notificationRepository.findOldestCreatedAtByType()) {
+            lag = max(lag, Duration.between(((LocalDateTime) row[1]).plus(policy.ttlOf((String) row[0])), now));
+        }
+        LocalDateTime oldestRead = notificationRepository.findOldestReadAt();
+        if (oldestRead != null) {
+            lag = max(lag, Duration.between(oldestRead.plus(policy.getReadTtl()), now));
+        }
+        lagSeconds.set(lag.toSeconds());
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -1,13 +1,16 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Event;
 import it342.g4.e_vents.model.Notification;
 import it342.g4.e_vents.model.User;
 import it342.g4.e_vents.repository.EventRepository;
 import it342.g4.e_vents.repository.NotificationRepository;
 import it342.g4.e_vents.repository.UserRepository;
+import it342.g4.e_vents.security.AuthenticatedUser;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -15,17 +18,21 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("events.service")
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final ArchiveService archiveService;
 
     @Autowired
-    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository, EventRepository eventRepository) {
+    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository, EventRepository eventRepository,
+                               ArchiveService archiveService) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
+        this.archiveService = archiveService;
     }
 
     /**
@@ -62,6 +69,20 @@ public class NotificationService {
         return notificationRepository.findByUserUserIdAndIsActiveTrue(userId);
     }
 
+    /**
+     * Retrieves all notifications for a specific user, optionally with those about archived events
+     * @param userId The user ID
+     * @param includeArchived Also return the user's notifications moved to the archive
+     * @return List of active notifications for the specified user
+     */
+    public List<Notification> getNotificationsByUserId(Long userId, boolean includeArchived) {
+        List<Notification> notifications = getNotificationsByUserId(userId);
+        if (includeArchived) {
+            notifications.addAll(archiveService.getArchivedNotificationsByUserId(userId));
+        }
+        return notifications;
+    }
+
     /**
      * Retrieves unread notifications for a specific user
      * @param userId The user ID
@@ -122,12 +143,17 @@ public class NotificationService {
     /**
      * Marks a notification as read
      * @param id The ID of the notification to mark as read
+     * @param caller The authenticated caller
      * @return The updated notification
      * @throws EntityNotFoundException if the notification is not found
+     * @throws AccessDeniedException if the caller is neither the recipient nor an admin
      */
-    public Notification markNotificationAsRead(Long id) {
+    public Notification markNotificationAsRead(Long id, AuthenticatedUser caller) {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Notification not found with ID: " + id));
+        if (!isRecipient(notification, caller)) {
+            throw new AccessDeniedException("Only the recipient can mark a notification as read");
+        }
         
         notification.setRead(true);
         notification.setReadAt(LocalDateTime.now());
@@ -135,6 +161,16 @@ public class NotificationService {
         return notificationRepository.save(notification);
     }
 
+    /**
+     * Whether a caller may see a notification: its recipient or an admin
+     * @param notification The notification
+     * @param caller The authenticated caller, or null
+     * @return true if allowed
+     */
+    public boolean isRecipient(Notification notification, AuthenticatedUser caller) {
+        return caller != null && notification.getUser() != null && caller.canActFor(notification.getUser().getUserId());
+    }
+
     /**
      * Deactivates (soft-deletes) a notification
      * @param id The ID of the notification to deactivate
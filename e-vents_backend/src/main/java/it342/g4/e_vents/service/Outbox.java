@@ -0,0 +1,49 @@
+package it342.g4.e_vents.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it342.g4.e_vents.model.OutboxEvent;
+import it342.g4.e_vents.repository.OutboxEventRepository;
+
+/**
+ * Records domain events in the outbox table. Side effects such as
+ * notifications run later in OutboxRelay instead of on the request thread.
+ */
+@Service
+public class Outbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public Outbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records an event in the caller's transaction, so it is relayed only if the change commits
+     * @param type One of the OutboxEvent type constants
+     * @param aggregateId ID of the ticket, event, rating or user the event is about
+     * @param payload Fields handlers need, serialized as JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String type, Long aggregateId, Map<String, ?> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        outboxEventRepository.save(new OutboxEvent(type, aggregateId, json, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,34 @@
+package it342.g4.e_vents.service;
+
+import java.util.List;
+
+import it342.g4.e_vents.model.OutboxEvent;
+
+/**
+ * Consumer of outbox events. OutboxRelay discovers every bean implementing
+ * this interface and feeds it the event types it handles, in ID order, in
+ * batches. A batch runs in the transaction that moves the handler's
+ * checkpoint: database writes are applied once, while anything outside the
+ * database may see a batch again after a failure and must be idempotent.
+ * An event that committed after the relay skipped its ID comes later, on its
+ * own and out of order.
+ */
+public interface OutboxHandler {
+
+    /**
+     * Stable name the handler's checkpoint is stored under
+     */
+    String name();
+
+    /**
+     * Whether the handler wants events of a type
+     * @param type One of the OutboxEvent type constants
+     */
+    boolean handles(String type);
+
+    /**
+     * Handles a batch of events. Throwing rolls the batch back and it is retried on the next poll.
+     * @param events Events of the handled types, in ID order
+     */
+    void handle(List<OutboxEvent> events);
+}
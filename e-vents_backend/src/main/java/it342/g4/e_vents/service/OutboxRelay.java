@@ -0,0 +1,345 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.cluster.LeaseLostException;
+import it342.g4.e_vents.model.OutboxCheckpoint;
+import it342.g4.e_vents.model.OutboxEvent;
+import it342.g4.e_vents.repository.OutboxCheckpointRepository;
+import it342.g4.e_vents.repository.OutboxEventRepository;
+
+/**
+ * Polls the outbox and dispatches committed events to every OutboxHandler.
+ * Each handler has its own checkpoint, so a failing handler is retried from
+ * where it stopped without holding the others back. One batch is read per
+ * round for the handler furthest behind and shared by all of them.
+ *
+ * Event IDs are handed out at insert but become visible at commit, so a
+ * lower ID can appear after a higher one. A batch therefore stops before a
+ * gap in the IDs until the gap is older than the gap timeout, after which
+ * it is taken to be a rolled-back insert and skipped with a warning. A
+ * transaction that ran longer than that may still commit an event into the
+ * gap, so skipped IDs are looked up again on every run for the gap recheck
+ * period, at most batch-size of them at a time. An event found there is
+ * handed on its own to the handlers already past it. Skipped IDs live in the
+ * relaying node's memory, so a change of owner forgets them.
+ *
+ * Relaying and purging run on one replica at a time (see JobLeases). Each
+ * handler transaction is fenced by the relay's lease and advances the
+ * checkpoint conditionally, so a batch is not applied twice around a change
+ * of owner.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    static final String RELAY_JOB = "outbox-relay";
+    static final String PURGE_JOB = "outbox-purge";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCheckpointRepository outboxCheckpointRepository;
+    private final List<OutboxHandler> handlers;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration gapTimeout;
+    private final Duration gapRecheck;
+    private final Duration retention;
+    private final Map<String, Counter> dispatched = new HashMap<>();
+    private final Map<String, Counter> failures = new HashMap<>();
+
+    // Skipped event IDs, in ID order; only touched by the relay job
+    private final Map<Long, SkippedId> skipped = new LinkedHashMap<>();
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxCheckpointRepository outboxCheckpointRepository,
+                       List<OutboxHandler> handlers, JobLeases jobLeases,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.batch-size:500}") int batchSize,
+                       @Value("${outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${outbox.gap-timeout:10s}") Duration gapTimeout,
+                       @Value("${outbox.gap-recheck:10m}") Duration gapRecheck,
+                       @Value("${outbox.retention:7d}") Duration retention,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxCheckpointRepository = outboxCheckpointRepository;
+        this.handlers = handlers;
+        this.jobLeases = jobLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.gapTimeout = gapTimeout;
+        this.gapRecheck = gapRecheck;
+        this.retention = retention;
+        for (OutboxHandler handler : handlers) {
+            dispatched.put(handler.name(), Counter.builder("events.outbox.dispatched")
+                    .tag("handler", handler.name())
+                    .description("Outbox events handled")
+                    .register(meterRegistry));
+            failures.put(handler.name(), Counter.builder("events.outbox.failures")
+                    .tag("handler", handler.name())
+                    .description("Outbox batches rolled back by a handler")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Dispatches up to max-batches-per-run batches, then yields the scheduler thread until the next poll
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        if (!skipped.isEmpty() && jobLeases.isOwner(RELAY_JOB)) {
+            recheckSkipped();
+        }
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            if (!jobLeases.isOwner(RELAY_JOB) || !relayBatch()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes events every handler is past once they are older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        if (handlers.isEmpty() || !jobLeases.isOwner(PURGE_JOB)) {
+            return;
+        }
+        long handledUpTo = Long.MAX_VALUE;
+        for (OutboxCheckpoint checkpoint : loadCheckpoints().values()) {
+            handledUpTo = Math.min(handledUpTo, checkpoint.getLastEventId());
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long total = 0;
+        int deleted;
+        do {
+            long maxEventId = handledUpTo;
+            Integer count = transactionTemplate.execute(status ->
+                    outboxEventRepository.deleteHandled(maxEventId, cutoff, batchSize));
+            deleted = count != null ? count : 0;
+            total += deleted;
+        } while (deleted == batchSize);
+        if (total > 0) {
+            logger.info("Purged {} handled outbox events", total);
+        }
+    }
+
+    /**
+     * Reads one batch after the lowest checkpoint and offers it to each handler
+     * @return true if a full batch was handled and more events may be waiting
+     */
+    private boolean relayBatch() {
+        long fencingToken = jobLeases.fencingToken(RELAY_JOB);
+        Map<String, OutboxCheckpoint> checkpoints = loadCheckpoints();
+        long from = Long.MAX_VALUE;
+        for (OutboxCheckpoint checkpoint : checkpoints.values()) {
+            from = Math.min(from, checkpoint.getLastEventId());
+        }
+        List<OutboxEvent> read = outboxEventRepository.findBatch(from, PageRequest.of(0, batchSize));
+        List<Long> gaps = new ArrayList<>();
+        List<OutboxEvent> batch = untilGap(read, from, gaps);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        long last = batch.get(batch.size() - 1).getEventId();
+        if (!gaps.isEmpty()) {
+            skip(gaps);
+        }
+
+        boolean complete = true;
+        for (OutboxHandler handler : handlers) {
+            long checkpoint = checkpoints.get(handler.name()).getLastEventId();
+            if (checkpoint >= last) {
+                continue;
+            }
+            List<OutboxEvent> events = new ArrayList<>();
+            for (OutboxEvent event : batch) {
+                if (event.getEventId() > checkpoint && handler.handles(event.getType())) {
+                    events.add(event);
+                }
+            }
+            try {
+                Boolean advanced = transactionTemplate.execute(status -> {
+                    jobLeases.fence(RELAY_JOB, fencingToken);
+                    if (!events.isEmpty()) {
+                        handler.handle(events);
+                    }
+                    if (outboxCheckpointRepository.advance(handler.name(), checkpoint, last, LocalDateTime.now()) == 0) {
+                        // Another instance handled this batch first; undo our copy of it
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(advanced)) {
+                    dispatched.get(handler.name()).increment(events.size());
+                }
+            } catch (LeaseLostException e) {
+                logger.info("Stopped relaying outbox events: {}", e.getMessage());
+                return false;
+            } catch (RuntimeException e) {
+                failures.get(handler.name()).increment();
+                logger.warn("Outbox handler {} failed on events {}-{}, retrying: {}",
+                        handler.name(), checkpoint + 1, last, e.getMessage());
+                complete = false;
+            }
+        }
+        return complete && read.size() == batchSize && batch.size() == read.size();
+    }
+
+    /**
+     * Cuts a batch before the first gap in its IDs that could still be filled by an open transaction
+     * @param gaps Receives the IDs of the older gaps the batch goes past
+     */
+    private List<OutboxEvent> untilGap(List<OutboxEvent> events, long from, List<Long> gaps) {
+        LocalDateTime settled = LocalDateTime.now().minus(gapTimeout);
+        long expected = from + 1;
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            if (event.getEventId() != expected) {
+                if (event.getCreatedAt().isAfter(settled)) {
+                    return events.subList(0, i);
+                }
+                for (long id = expected; id < event.getEventId() && gaps.size() < batchSize; id++) {
+                    gaps.add(id);
+                }
+            }
+            expected = event.getEventId() + 1;
+        }
+        return events;
+    }
+
+    /**
+     * Remembers gap IDs a batch is relayed past, owed to every handler, until the recheck period ends
+     */
+    private void skip(List<Long> gaps) {
+        LocalDateTime recheckUntil = LocalDateTime.now().plus(gapRecheck);
+        int added = 0;
+        for (Long id : gaps) {
+            if (skipped.size() >= batchSize) {
+                logger.warn("Too many skipped outbox event IDs, not rechecking {} and later", id);
+                break;
+            }
+            Set<String> owed = new HashSet<>(dispatched.keySet());
+            if (skipped.putIfAbsent(id, new SkippedId(recheckUntil, owed)) == null) {
+                added++;
+            }
+        }
+        if (added > 0) {
+            logger.warn("{} outbox event IDs from {} were still missing after {}; relaying past them and rechecking for {}",
+                    added, gaps.get(0), gapTimeout, gapRecheck);
+        }
+    }
+
+    /**
+     * Hands events that committed into a skipped gap to the handlers whose checkpoint
+     * is already past them; handlers still behind read them in their next batch
+     */
+    private void recheckSkipped() {
+        LocalDateTime now = LocalDateTime.now();
+        skipped.values().removeIf(id -> id.recheckUntil().isBefore(now));
+        if (skipped.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> late = new ArrayList<>(outboxEventRepository.findAllById(skipped.keySet()));
+        if (late.isEmpty()) {
+            return;
+        }
+        late.sort(Comparator.comparing(OutboxEvent::getEventId));
+        long fencingToken = jobLeases.fencingToken(RELAY_JOB);
+        Map<String, OutboxCheckpoint> checkpoints = loadCheckpoints();
+        for (OutboxHandler handler : handlers) {
+            long checkpoint = checkpoints.get(handler.name()).getLastEventId();
+            List<OutboxEvent> events = new ArrayList<>();
+            for (OutboxEvent event : late) {
+                Set<String> owed = skipped.get(event.getEventId()).handlers();
+                if (event.getEventId() > checkpoint || !handler.handles(event.getType())) {
+                    owed.remove(handler.name());
+                } else if (owed.contains(handler.name())) {
+                    events.add(event);
+                }
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jobLeases.fence(RELAY_JOB, fencingToken);
+                    handler.handle(events);
+                });
+                for (OutboxEvent event : events) {
+                    skipped.get(event.getEventId()).handlers().remove(handler.name());
+                }
+                dispatched.get(handler.name()).increment(events.size());
+                logger.warn("Outbox handler {} got {} events that committed after their IDs were skipped",
+                        handler.name(), events.size());
+            } catch (LeaseLostException e) {
+                logger.info("Stopped relaying outbox events: {}", e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                // Stays owed and is retried on the next run
+                failures.get(handler.name()).increment();
+                logger.warn("Outbox handler {} failed on late events, retrying: {}", handler.name(), e.getMessage());
+            }
+        }
+        for (Iterator<SkippedId> it = skipped.values().iterator(); it.hasNext(); ) {
+            if (it.next().handlers().isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Checkpoints of the registered handlers. A handler seen for the first time
+     * starts at the current end of the outbox instead of replaying its history.
+     */
+    private Map<String, OutboxCheckpoint> loadCheckpoints() {
+        Map<String, OutboxCheckpoint> checkpoints = new HashMap<>();
+        for (OutboxCheckpoint checkpoint : outboxCheckpointRepository.findAllById(dispatched.keySet())) {
+            checkpoints.put(checkpoint.getHandler(), checkpoint);
+        }
+        for (OutboxHandler handler : handlers) {
+            if (!checkpoints.containsKey(handler.name())) {
+                // Another instance may create it at the same time; whichever insert wins is used
+                transactionTemplate.executeWithoutResult(status -> outboxCheckpointRepository.insertIfAbsent(
+                        handler.name(), outboxEventRepository.findMaxEventId(), LocalDateTime.now()));
+                checkpoints.put(handler.name(), outboxCheckpointRepository.findById(handler.name()).orElseThrow());
+            }
+        }
+        return checkpoints;
+    }
+
+    // A gap ID and the handlers it is still owed to
+    private record SkippedId(LocalDateTime recheckUntil, Set<String> handlers) {
+    }
+}
@@ -4,11 +4,13 @@ package it342.g4.e_vents.service;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import java.util.HashMap;
 import java.util.Map;
 
 @Service
+@Timed("events.service")
 public class PaymentService {
 
     public PaymentIntent createPaymentIntent(Long amount, String currency) throws StripeException {
@@ -1,24 +1,35 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.model.OutboxEvent;
 import it342.g4.e_vents.model.Rating;
 import it342.g4.e_vents.model.User;
 import it342.g4.e_vents.repository.RatingRepository;
+import it342.g4.e_vents.security.AuthenticatedUser;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
+@Timed("events.service")
 public class RatingService {
     private final RatingRepository ratingRepository;
     private final UserService userService;
+    private final UserSummaryCache userSummaryCache;
+    private final Outbox outbox;
 
     @Autowired
-    public RatingService(RatingRepository ratingRepository, UserService userService) {
+    public RatingService(RatingRepository ratingRepository, UserService userService,
+                         UserSummaryCache userSummaryCache, Outbox outbox) {
         this.ratingRepository = ratingRepository;
         this.userService = userService;
+        this.userSummaryCache = userSummaryCache;
+        this.outbox = outbox;
     }
 
     @Transactional
@@ -34,7 +45,14 @@ public class RatingService {
                 .user(user)
                 .build();
 
-        return ratingRepository.save(rating);
+        Rating saved = ratingRepository.save(rating);
+        outbox.publish(OutboxEvent.RATING_CREATED, saved.getRatingId(), Map.of(
+                "ratingId", saved.getRatingId(),
+                "userId", userId,
+                "entityId", entityId,
+                "entityType", entityType.name(),
+                "ratingValue", ratingValue));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -44,29 +62,38 @@ public class RatingService {
 
     @Transactional(readOnly = true)
     public List<Rating> getUserRatings(Long userId) {
-        User user = userService.getUser(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
-        return ratingRepository.findByUserAndIsActiveTrue(user);
+        if (userSummaryCache.get(userId).isEmpty()) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
+        return ratingRepository.findByUserUserIdAndIsActiveTrue(userId);
     }
 
     @Transactional
-    public Rating updateRating(Long ratingId, String message) {
-        Rating rating = ratingRepository.findById(ratingId)
-                .orElseThrow(() -> new EntityNotFoundException("Rating not found with id: " + ratingId));
+    public Rating updateRating(Long ratingId, String message, AuthenticatedUser caller) {
+        Rating rating = ownedRating(ratingId, caller);
 
         rating.setMessage(message);
         return ratingRepository.save(rating);
     }
 
     @Transactional
-    public void deleteRating(Long ratingId) {
-        Rating rating = ratingRepository.findById(ratingId)
-                .orElseThrow(() -> new EntityNotFoundException("Rating not found with id: " + ratingId));
+    public void deleteRating(Long ratingId, AuthenticatedUser caller) {
+        Rating rating = ownedRating(ratingId, caller);
         
         rating.setActive(false);
         ratingRepository.save(rating);
     }
 
+    // Only the author of a rating or an admin may change it
+    private Rating ownedRating(Long ratingId, AuthenticatedUser caller) {
+        Rating rating = ratingRepository.findById(ratingId)
+                .orElseThrow(() -> new EntityNotFoundException("Rating not found with id: " + ratingId));
+        if (caller == null || rating.getUser() == null || !caller.canActFor(rating.getUser().getUserId())) {
+            throw new AccessDeniedException("Only the author can change this rating");
+        }
+        return rating;
+    }
+
     @Transactional(readOnly = true)
     public double getAverageRating(Long entityId, Rating.EntityType entityType) {
         List<Rating> ratings = ratingRepository.findByRatedEntityIdAndRatedEntityType(entityId, entityType);
@@ -0,0 +1,176 @@
+package it342.g4.e_vents.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.config.JwtProperties;
+import it342.g4.e_vents.dto.UserSummary;
+import it342.g4.e_vents.model.RefreshToken;
+import it342.g4.e_vents.repository.RefreshTokenRepository;
+import it342.g4.e_vents.repository.UserRepository;
+import it342.g4.e_vents.security.TokenDenylist;
+
+/**
+ * Issues and rotates refresh tokens and revokes sessions. Access tokens are
+ * short-lived; clients trade a refresh token for a new access token and a new
+ * refresh token, and the old refresh token stops working.
+ */
+@Service
+@Timed("events.service")
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    static final String CLEANUP_JOB = "refresh-token-cleanup";
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final TokenDenylist tokenDenylist;
+    private final JwtProperties jwtProperties;
+    private final JobLeases jobLeases;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               UserSummaryCache userSummaryCache, TokenDenylist tokenDenylist,
+                               JwtProperties jwtProperties, JobLeases jobLeases) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.tokenDenylist = tokenDenylist;
+        this.jwtProperties = jwtProperties;
+        this.jobLeases = jobLeases;
+    }
+
+    /**
+     * Result of a successful refresh
+     * @param user The token owner
+     * @param refreshToken The replacement refresh token
+     */
+    public record Rotation(UserSummary user, String refreshToken) {
+    }
+
+    /**
+     * Starts a new session for a user who just logged in
+     * @param userId The user ID
+     * @return The raw refresh token to hand to the client
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return createToken(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one in the same session. A token that
+     * was already used indicates it leaked, so its whole session is revoked.
+     * @param rawToken The refresh token presented by the client
+     * @return The token owner and the replacement refresh token
+     * @throws IllegalArgumentException if the token is unknown, expired, reused, or its user is deactivated
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+
+        if (token.isRevoked() || refreshTokenRepository.revokeIfActive(token.getRefreshTokenId()) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            tokenDenylist.revokeUser(token.getUserId());
+            logger.warn("Refresh token reuse detected for user {}, session revoked", token.getUserId());
+            throw new IllegalArgumentException("Refresh token has already been used");
+        }
+        if (token.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Refresh token has expired");
+        }
+
+        UserSummary user = userSummaryCache.get(token.getUserId())
+                .filter(UserSummary::isActive)
+                .orElseThrow(() -> new IllegalArgumentException("User is no longer active"));
+        return new Rotation(user, createToken(user.getUserId(), token.getFamilyId()));
+    }
+
+    /**
+     * Ends the session a refresh token belongs to
+     * @param rawToken The refresh token presented by the client
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    /**
+     * Ends every session of a user: refresh tokens stop working and access
+     * tokens issued so far are rejected
+     * @param userId The user ID
+     */
+    @Transactional
+    public void revokeAllSessions(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId);
+        tokenDenylist.revokeUser(userId);
+    }
+
+    /**
+     * The denylist lives in memory, so after a restart access tokens still held
+     * by deactivated users are cut off again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void revokeInactiveUsers() {
+        // Every replica rebuilds its own denylist, so nothing is broadcast
+        userRepository.findIdsByIsActiveFalse().forEach(tokenDenylist::revokeUserLocally);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpiredTokens() {
+        if (!jobLeases.isOwner(CLEANUP_JOB)) {
+            return;
+        }
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String createToken(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(rawToken));
+        token.setUserId(userId);
+        token.setFamilyId(familyId);
+        token.setCreatedAt(LocalDateTime.now());
+        token.setExpiresAt(token.getCreatedAt().plusNanos(jwtProperties.getRefreshExpirationMs() * 1_000_000L));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
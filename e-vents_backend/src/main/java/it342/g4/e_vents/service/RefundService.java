@@ -0,0 +1,296 @@
+package it342.g4.e_vents.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.cluster.LeaseLostException;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.RefundJob;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.RefundJobRepository;
+import it342.g4.e_vents.repository.SalesRollupRepository;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Refunds single tickets and every ticket of a cancelled event. A refund is a
+ * conditional status update on the ticket rows followed by returning the seats
+ * to their categories with a relative update, so it never locks more than the
+ * rows it changes and a ticket's seat is returned exactly once.
+ *
+ * Event refunds are persisted as refund jobs and processed by a scheduled
+ * worker in chunks of tickets, one transaction per chunk, so cancelling an
+ * event with tens of thousands of tickets returns immediately and survives
+ * restarts. One replica at a time runs the worker (see JobLeases), and each
+ * chunk is fenced by its lease so a former owner cannot commit one. A job
+ * stops when its event stops being cancelled, both when the status changes
+ * and in every chunk, so a restored event keeps its tickets.
+ */
+@Service
+@Timed("events.service")
+public class RefundService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefundService.class);
+
+    static final String WORKER_JOB = "refund-worker";
+
+    private final TicketRepository ticketRepository;
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final SalesRollupRepository salesRollupRepository;
+    private final RefundJobRepository refundJobRepository;
+    private final EventRepository eventRepository;
+    private final CatalogVersions catalogVersions;
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final AvailabilityStream availabilityStream;
+    private final CheckInService checkInService;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    @Autowired
+    public RefundService(TicketRepository ticketRepository, TicketCategoryRepository ticketCategoryRepository,
+                         SalesRollupRepository salesRollupRepository, RefundJobRepository refundJobRepository,
+                         EventRepository eventRepository, CatalogVersions catalogVersions, TicketAvailabilityCache ticketAvailabilityCache,
+                         AvailabilityStream availabilityStream, CheckInService checkInService,
+                         JobLeases jobLeases, PlatformTransactionManager transactionManager,
+                         @Value("${refunds.chunk-size:500}") int chunkSize,
+                         @Value("${refunds.max-chunks-per-run:20}") int maxChunksPerRun) {
+        this.ticketRepository = ticketRepository;
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.salesRollupRepository = salesRollupRepository;
+        this.refundJobRepository = refundJobRepository;
+        this.eventRepository = eventRepository;
+        this.catalogVersions = catalogVersions;
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.availabilityStream = availabilityStream;
+        this.checkInService = checkInService;
+        this.jobLeases = jobLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+    }
+
+    /**
+     * Refunds a ticket and returns its seat to the ticket category
+     * @param ticketId The ticket ID
+     * @return The refunded ticket
+     * @throws EntityNotFoundException if the ticket is not found
+     * @throws IllegalStateException if the ticket is already refunded or deactivated
+     */
+    @Transactional
+    public Ticket refundTicket(Long ticketId) {
+        Ticket ticket = ticketRepository.findById(ticketId)
+                .orElseThrow(() -> new EntityNotFoundException("Ticket not found with ID: " + ticketId));
+        Long eventId = ticket.getTicketCategory().getEvent().getEventId();
+        Object[] row = {ticket.getTicketId(), ticket.getTicketCategory().getTicketCategoryId(),
+                ticket.getTicketCategory().getPrice(), ticket.getPurchaseDate()};
+        LocalDateTime now = LocalDateTime.now();
+        if (refund(eventId, List.<Object[]>of(row), now) == 0) {
+            throw new IllegalStateException(Ticket.STATUS_REFUNDED.equals(ticket.getStatus())
+                    ? "Ticket is already refunded" : "Only active tickets can be refunded");
+        }
+        ticket.setStatus(Ticket.STATUS_REFUNDED);
+        ticket.setRefundDate(now);
+        ticket.setModifiedAt(now);
+        return ticket;
+    }
+
+    /**
+     * Starts refunding every ticket of an event, or restarts a finished job if
+     * the event is cancelled again. Runs in the caller's transaction, so the
+     * job exists exactly when the cancellation commits.
+     * @param eventId The event ID
+     */
+    @Transactional
+    public void scheduleEventRefund(Long eventId) {
+        RefundJob job = refundJobRepository.findById(eventId).orElseGet(RefundJob::new);
+        if (RefundJob.STATUS_RUNNING.equals(job.getStatus())) {
+            return;
+        }
+        job.setEventId(eventId);
+        job.setStatus(RefundJob.STATUS_RUNNING);
+        // Already refunded tickets are skipped cheaply, and tickets restored since the last run are included
+        job.setLastTicketId(0);
+        job.setStartedAt(LocalDateTime.now());
+        job.setCompletedAt(null);
+        refundJobRepository.save(job);
+    }
+
+    /**
+     * Stops refunding an event that is no longer cancelled. Runs in the
+     * caller's transaction, so the job stops exactly when the status change
+     * commits; tickets refunded before that stay refunded.
+     * @param eventId The event ID
+     */
+    @Transactional
+    public void stopEventRefund(Long eventId) {
+        if (refundJobRepository.stop(eventId, LocalDateTime.now()) == 1) {
+            logger.info("Stopped refunding event {}, which is no longer cancelled", eventId);
+        }
+    }
+
+    /**
+     * Progress of an event's refund job
+     * @param eventId The event ID
+     * @return The job, if the event was ever cancelled
+     */
+    public Optional<RefundJob> getEventRefund(Long eventId) {
+        return refundJobRepository.findById(eventId);
+    }
+
+    /**
+     * Works through running refund jobs, at most max-chunks-per-run chunks per
+     * poll so the shared scheduler thread is not held for a whole event.
+     * Jobs interrupted by a restart are picked up on the next poll.
+     */
+    @Scheduled(fixedDelayString = "${refunds.poll-interval-ms:5000}")
+    public void processRefundJobs() {
+        if (!jobLeases.isOwner(WORKER_JOB)) {
+            return;
+        }
+        long fencingToken = jobLeases.fencingToken(WORKER_JOB);
+        int budget = maxChunksPerRun;
+        for (RefundJob job : refundJobRepository.findByStatus(RefundJob.STATUS_RUNNING)) {
+            Long eventId = job.getEventId();
+            try {
+                while (budget > 0 && jobLeases.isOwner(WORKER_JOB)) {
+                    budget--;
+                    Boolean more = transactionTemplate.execute(status -> {
+                        jobLeases.fence(WORKER_JOB, fencingToken);
+                        return refundNextChunk(eventId);
+                    });
+                    if (!Boolean.TRUE.equals(more)) {
+                        break;
+                    }
+                }
+            } catch (OptimisticLockingFailureException e) {
+                // Another worker committed this chunk first; continue from its checkpoint next time
+                logger.debug("Refund job for event {} advanced concurrently", eventId);
+            } catch (LeaseLostException e) {
+                logger.info("Stopped refunding: {}", e.getMessage());
+                return;
+            }
+            if (budget == 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Refunds the next chunk of an event's tickets and moves the checkpoint past it
+     * @return true if there may be more tickets to refund
+     */
+    private boolean refundNextChunk(Long eventId) {
+        RefundJob job = refundJobRepository.findById(eventId).orElse(null);
+        if (job == null || !RefundJob.STATUS_RUNNING.equals(job.getStatus())) {
+            return false;
+        }
+        // Read in this chunk's transaction; a restore committing meanwhile stops the job and fails this chunk
+        String eventStatus = eventRepository.findStoredStatusById(eventId).orElse(null);
+        if (!Event.STATUS_CANCELLED.equals(eventStatus)) {
+            job.setStatus(RefundJob.STATUS_STOPPED);
+            job.setCompletedAt(LocalDateTime.now());
+            logger.info("Stopped refunding event {} after {} tickets, its status is {}", eventId,
+                    job.getTicketsRefunded(), eventStatus);
+            return false;
+        }
+        List<Object[]> chunk = ticketRepository.findRefundableChunk(eventId, job.getLastTicketId(),
+                PageRequest.of(0, chunkSize));
+        if (chunk.isEmpty()) {
+            job.setStatus(RefundJob.STATUS_COMPLETED);
+            job.setCompletedAt(LocalDateTime.now());
+            logger.info("Refunded {} tickets of cancelled event {}", job.getTicketsRefunded(), eventId);
+            return false;
+        }
+        int refunded = refund(eventId, chunk, LocalDateTime.now());
+        job.setLastTicketId((Long) chunk.get(chunk.size() - 1)[0]);
+        job.setTicketsRefunded(job.getTicketsRefunded() + refunded);
+        return true;
+    }
+
+    /**
+     * Refunds tickets grouped by category and purchase minute, so each group's
+     * refunded count maps exactly onto one sales rollup bucket even if some of
+     * the tickets were refunded concurrently.
+     * @param rows Rows of [ticketId, ticketCategoryId, price, purchaseDate]
+     * @return Number of tickets refunded by this call
+     */
+    private int refund(Long eventId, List<Object[]> rows, LocalDateTime now) {
+        Map<Bucket, List<Long>> groups = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            LocalDateTime purchaseDate = (LocalDateTime) row[3];
+            Bucket bucket = new Bucket((Long) row[1], row[2] != null ? (Double) row[2] : 0,
+                    purchaseDate != null ? purchaseDate.truncatedTo(ChronoUnit.MINUTES) : null);
+            groups.computeIfAbsent(bucket, k -> new ArrayList<>()).add((Long) row[0]);
+        }
+
+        Map<Long, Integer> releasedByCategory = new HashMap<>();
+        List<Long> revoked = new ArrayList<>(rows.size());
+        int total = 0;
+        for (Map.Entry<Bucket, List<Long>> group : groups.entrySet()) {
+            int refunded = ticketRepository.markRefunded(group.getValue(), now);
+            if (refunded == 0) {
+                continue;
+            }
+            // Tickets the update skipped were already refunded or deactivated, so all of them are revoked
+            revoked.addAll(group.getValue());
+            Bucket bucket = group.getKey();
+            if (bucket.minute() != null) {
+                salesRollupRepository.recordRefund(bucket.ticketCategoryId(), bucket.minute(),
+                        refunded, refunded * bucket.price());
+            }
+            releasedByCategory.merge(bucket.ticketCategoryId(), refunded, Integer::sum);
+            total += refunded;
+        }
+
+        releasedByCategory.forEach((ticketCategoryId, count) -> releaseSeats(eventId, ticketCategoryId, count));
+        if (!revoked.isEmpty()) {
+            checkInService.ticketsRevoked(eventId, revoked);
+        }
+        return total;
+    }
+
+    /**
+     * Returns seats to a category and tells caches and availability subscribers
+     * once the transaction commits. Must run inside the caller's transaction.
+     * @param eventId The event the category belongs to
+     * @param ticketCategoryId The ticket category ID
+     * @param count Number of seats
+     */
+    public void releaseSeats(Long eventId, Long ticketCategoryId, int count) {
+        ticketCategoryRepository.releaseTickets(ticketCategoryId, count);
+        catalogVersions.bumpTicketCategories(eventId);
+        ticketAvailabilityCache.recordSold(eventId, ticketCategoryId, -count);
+        ticketCategoryRepository.findById(ticketCategoryId).ifPresent(category -> {
+            int sold = ticketCategoryRepository.findTicketsSold(ticketCategoryId).orElse(0);
+            availabilityStream.publish(eventId, ticketCategoryId, category.getTotalTickets(), sold);
+        });
+    }
+
+    // Tickets of one category bought in the same minute share a sales rollup row
+    private record Bucket(Long ticketCategoryId, double price, LocalDateTime minute) {
+    }
+}
@@ -1,5 +1,6 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Role;
 import it342.g4.e_vents.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import java.util.Optional;
  * Service for managing Role entities
  */
 @Service
+@Timed("events.service")
 public class RoleService {
 
     private final RoleRepository roleRepository;
@@ -0,0 +1,235 @@
+package it342.g4.e_vents.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.dto.EventSalesSummary;
+import it342.g4.e_vents.dto.EventSalesSummary.CategorySales;
+import it342.g4.e_vents.dto.SalesTimeSeriesPoint;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.SalesRollup;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.SalesRollupRepository;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Revenue, sell-through and sale-day curves per event and ticket category.
+ * Reads come from the sales_rollups table, which is updated incrementally
+ * on every purchase, so no query scans the tickets table.
+ */
+@Service
+@Timed("events.service")
+public class SalesAnalyticsService {
+
+    public static final int MAX_INTERVAL_MINUTES = 7 * 24 * 60;
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final EventRepository eventRepository;
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final TicketRepository ticketRepository;
+
+    @Autowired
+    public SalesAnalyticsService(SalesRollupRepository salesRollupRepository, EventRepository eventRepository,
+                                 TicketCategoryRepository ticketCategoryRepository,
+                                 TicketRepository ticketRepository) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.eventRepository = eventRepository;
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.ticketRepository = ticketRepository;
+    }
+
+    /**
+     * Adds a purchase to the rollup of its ticket category. Runs in the
+     * caller's transaction so the rollup commits together with the ticket.
+     * @param ticketCategory The ticket category the ticket was bought in
+     * @param purchaseDate The purchase time
+     */
+    @Transactional
+    public void recordSale(TicketCategory ticketCategory, LocalDateTime purchaseDate) {
+        salesRollupRepository.recordSale(ticketCategory.getEvent().getEventId(),
+                ticketCategory.getTicketCategoryId(),
+                purchaseDate.truncatedTo(ChronoUnit.MINUTES),
+                ticketCategory.getPrice());
+    }
+
+    /**
+     * Computes revenue and sell-through of an event per ticket category
+     * @param eventId The event ID
+     * @return Sales summary of the event
+     * @throws EntityNotFoundException if the event is not found
+     */
+    @Transactional(readOnly = true)
+    public EventSalesSummary getEventSummary(Long eventId) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Event not found with ID: " + eventId));
+
+        Map<Long, Object[]> totals = new HashMap<>();
+        for (Object[] row : salesRollupRepository.sumByTicketCategory(eventId)) {
+            totals.put((Long) row[0], row);
+        }
+
+        List<CategorySales> categories = new ArrayList<>();
+        int totalTickets = 0;
+        int ticketsSold = 0;
+        double revenue = 0;
+        for (TicketCategory category : ticketCategoryRepository.findByEventEventIdAndIsActiveTrue(eventId)) {
+            Object[] row = totals.get(category.getTicketCategoryId());
+            double categoryRevenue = row != null ? ((Number) row[2]).doubleValue() : 0;
+            categories.add(new CategorySales(category.getTicketCategoryId(), category.getName(),
+                    category.getPrice(), category.getTotalTickets(), category.getTicketsSold(),
+                    categoryRevenue, percent(category.getTicketsSold(), category.getTotalTickets()),
+                    row != null ? (LocalDateTime) row[3] : null,
+                    row != null ? (LocalDateTime) row[4] : null));
+            totalTickets += category.getTotalTickets();
+            ticketsSold += category.getTicketsSold();
+            revenue += categoryRevenue;
+        }
+
+        return new EventSalesSummary(event.getEventId(), event.getName(), totalTickets, ticketsSold,
+                revenue, percent(ticketsSold, totalTickets), categories);
+    }
+
+    /**
+     * Builds the sale-day curve of an event or one of its ticket categories.
+     * Only buckets with sales are returned.
+     * @param eventId The event ID
+     * @param ticketCategoryId Optional ticket category to restrict the curve to
+     * @param from Optional inclusive start, defaults to the first sale
+     * @param to Optional exclusive end, defaults to now
+     * @param intervalMinutes Bucket width in minutes
+     * @return Buckets ordered by time
+     * @throws EntityNotFoundException if the event or ticket category is not found
+     * @throws IllegalArgumentException if the interval or range is invalid
+     */
+    @Transactional(readOnly = true)
+    public List<SalesTimeSeriesPoint> getEventTimeSeries(Long eventId, Long ticketCategoryId,
+                                                         LocalDateTime from, LocalDateTime to,
+                                                         int intervalMinutes) {
+        if (intervalMinutes < 1 || intervalMinutes > MAX_INTERVAL_MINUTES) {
+            throw new IllegalArgumentException("Interval must be between 1 and " + MAX_INTERVAL_MINUTES + " minutes");
+        }
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException("Event not found with ID: " + eventId);
+        }
+        LocalDateTime start = from != null ? from.truncatedTo(ChronoUnit.MINUTES) : BEGINNING;
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusMinutes(1);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        int totalTickets;
+        List<SalesRollup> buckets;
+        Object[] baseline;
+        if (ticketCategoryId != null) {
+            TicketCategory category = ticketCategoryRepository.findById(ticketCategoryId)
+                    .filter(tc -> tc.getEvent().getEventId().equals(eventId))
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            "Ticket category not found with ID: " + ticketCategoryId + " for event: " + eventId));
+            totalTickets = category.getTotalTickets();
+            buckets = salesRollupRepository.findTicketCategoryBuckets(ticketCategoryId, start, end);
+            baseline = salesRollupRepository.sumTicketCategoryBefore(ticketCategoryId, start).get(0);
+        } else {
+            totalTickets = ticketCategoryRepository.findByEventEventIdAndIsActiveTrue(eventId).stream()
+                    .mapToInt(TicketCategory::getTotalTickets)
+                    .sum();
+            buckets = salesRollupRepository.findEventBuckets(eventId, start, end);
+            baseline = salesRollupRepository.sumEventBefore(eventId, start).get(0);
+        }
+
+        // Minute rows arrive ordered, so wider buckets can be merged in one pass
+        Map<LocalDateTime, double[]> merged = new LinkedHashMap<>();
+        for (SalesRollup bucket : buckets) {
+            double[] sums = merged.computeIfAbsent(alignToInterval(bucket.getBucketStart(), intervalMinutes),
+                    k -> new double[2]);
+            sums[0] += bucket.getTicketsSold();
+            sums[1] += bucket.getRevenue();
+        }
+
+        long cumulativeSold = ((Number) baseline[0]).longValue();
+        double cumulativeRevenue = ((Number) baseline[1]).doubleValue();
+        List<SalesTimeSeriesPoint> points = new ArrayList<>(merged.size());
+        for (Map.Entry<LocalDateTime, double[]> entry : merged.entrySet()) {
+            int sold = (int) entry.getValue()[0];
+            double revenue = entry.getValue()[1];
+            cumulativeSold += sold;
+            cumulativeRevenue += revenue;
+            points.add(new SalesTimeSeriesPoint(entry.getKey(), sold, revenue,
+                    (double) sold / intervalMinutes, cumulativeSold, cumulativeRevenue,
+                    percent(cumulativeSold, totalTickets)));
+        }
+        return points;
+    }
+
+    /**
+     * Recomputes the rollups of an event from its tickets, e.g. for sales made
+     * before rollups existed. Revenue is taken at the current category price.
+     * @param eventId The event ID
+     * @return Number of minute buckets written
+     * @throws EntityNotFoundException if the event is not found
+     */
+    @Transactional
+    public int rebuildEventRollups(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException("Event not found with ID: " + eventId);
+        }
+        salesRollupRepository.deleteByEventId(eventId);
+
+        Map<Long, Map<LocalDateTime, SalesRollup>> byCategory = new HashMap<>();
+        try (Stream<Object[]> purchases = ticketRepository.streamPurchasesByEventId(eventId)) {
+            purchases.forEach(row -> {
+                Long ticketCategoryId = (Long) row[0];
+                double price = row[1] != null ? (Double) row[1] : 0;
+                LocalDateTime bucketStart = ((LocalDateTime) row[2]).truncatedTo(ChronoUnit.MINUTES);
+                SalesRollup rollup = byCategory
+                        .computeIfAbsent(ticketCategoryId, k -> new HashMap<>())
+                        .computeIfAbsent(bucketStart, k -> newRollup(eventId, ticketCategoryId, bucketStart));
+                rollup.setTicketsSold(rollup.getTicketsSold() + 1);
+                rollup.setRevenue(rollup.getRevenue() + price);
+            });
+        }
+
+        List<SalesRollup> rollups = new ArrayList<>();
+        byCategory.values().forEach(buckets -> rollups.addAll(buckets.values()));
+        salesRollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+
+    private static SalesRollup newRollup(Long eventId, Long ticketCategoryId, LocalDateTime bucketStart) {
+        SalesRollup rollup = new SalesRollup();
+        rollup.setEventId(eventId);
+        rollup.setTicketCategoryId(ticketCategoryId);
+        rollup.setBucketStart(bucketStart);
+        rollup.setTicketsSold(0);
+        rollup.setRevenue(0.0);
+        return rollup;
+    }
+
+    private static LocalDateTime alignToInterval(LocalDateTime minute, int intervalMinutes) {
+        if (intervalMinutes == 1) {
+            return minute;
+        }
+        long epochMinute = minute.toEpochSecond(ZoneOffset.UTC) / 60;
+        return minute.minusMinutes(Math.floorMod(epochMinute, intervalMinutes));
+    }
+
+    private static double percent(long part, long total) {
+        return total > 0 ? Math.round(part * 10000.0 / total) / 100.0 : 0;
+    }
+}
@@ -1,8 +1,10 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Category;
 import it342.g4.e_vents.model.Tags;
 import it342.g4.e_vents.repository.TagsRepository;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,13 +13,16 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("events.service")
 public class TagsService {
 
     private final TagsRepository tagsRepository;
+    private final CatalogVersions catalogVersions;
 
     @Autowired
-    public TagsService(TagsRepository tagsRepository) {
+    public TagsService(TagsRepository tagsRepository, CatalogVersions catalogVersions) {
         this.tagsRepository = tagsRepository;
+        this.catalogVersions = catalogVersions;
     }
     
     /**
@@ -71,7 +76,9 @@ public class TagsService {
         }
         // Set active by default
         tag.setActive(true);
-        return tagsRepository.save(tag);
+        Tags saved = tagsRepository.save(tag);
+        catalogVersions.bump(Catalog.TAGS);
+        return saved;
     }
     
     /**
@@ -86,7 +93,9 @@ public class TagsService {
             throw new EntityNotFoundException("Tag not found with ID: " + tag.getTagId());
         }
         
-        return tagsRepository.save(tag);
+        Tags saved = tagsRepository.save(tag);
+        catalogVersions.bump(Catalog.TAGS);
+        return saved;
     }
     
     /**
@@ -100,6 +109,7 @@ public class TagsService {
         
         tag.setActive(false);
         tagsRepository.save(tag);
+        catalogVersions.bump(Catalog.TAGS);
     }
     
     /**
@@ -113,6 +123,7 @@ public class TagsService {
         
         tag.setActive(true);
         tagsRepository.save(tag);
+        catalogVersions.bump(Catalog.TAGS);
     }
 
     public boolean existsByName(String name) {
@@ -128,6 +139,7 @@ public class TagsService {
 
     public void deleteTag(Long id) {
         tagsRepository.deleteById(id);
+        catalogVersions.bump(Catalog.TAGS);
     }
 
     /**
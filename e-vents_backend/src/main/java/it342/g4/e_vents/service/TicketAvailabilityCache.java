@@ -0,0 +1,184 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.dto.CategoryAvailability;
+import it342.g4.e_vents.model.Act;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.util.TransactionHooks;
+
+/**
+ * In-memory availability of each event's ticket categories, so the
+ * availability endpoint polled during an on-sale does not query the database.
+ * Each category's sold count is an atomic counter that purchases and refunds
+ * adjust after they commit; changes to the categories themselves evict the
+ * event. Both kinds of change evict the event on the other replicas through
+ * the cache invalidation bus, since their counters cannot be adjusted from
+ * here. Entries are also reloaded in the background after the refresh
+ * interval, which bounds staleness for writes made outside the services.
+ */
+@Component
+public class TicketAvailabilityCache {
+
+    static final String REGION = "ticket-availability";
+
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoadingCache<Long, EventAvailability> cache;
+
+    @Autowired
+    public TicketAvailabilityCache(TicketCategoryRepository ticketCategoryRepository,
+                                   CacheInvalidationBus cacheInvalidationBus,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${cache.availability.max-events:1000}") long maxEvents,
+                                   @Value("${cache.availability.refresh:5s}") Duration refresh,
+                                   @Value("${cache.availability.idle:10m}") Duration idle,
+                                   MeterRegistry meterRegistry) {
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEvents)
+                .refreshAfterWrite(refresh)
+                .expireAfterAccess(idle)
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ticketAvailability");
+        cacheInvalidationBus.subscribe(REGION, (key, issuedAt) -> {
+            if (key != null) {
+                cache.invalidate(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * Active ticket categories of an event that are on sale and still have tickets left
+     * @param eventId The event ID
+     * @return Copies of the categories with their current sold counts
+     */
+    public List<TicketCategory> getAvailable(Long eventId) {
+        EventAvailability availability = cache.get(eventId);
+        List<TicketCategory> available = new ArrayList<>(availability.slots.size());
+        for (Slot slot : availability.slots.values()) {
+            int sold = slot.sold.get();
+            if (sold < slot.category.getTotalTickets()) {
+                available.add(copyOf(slot.category, sold));
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Remaining tickets of every active category of an event still on sale, sold-out ones included
+     * @param eventId The event ID
+     * @return One entry per category
+     */
+    public List<CategoryAvailability> snapshot(Long eventId) {
+        EventAvailability availability = cache.get(eventId);
+        List<CategoryAvailability> snapshot = new ArrayList<>(availability.slots.size());
+        for (Slot slot : availability.slots.values()) {
+            snapshot.add(new CategoryAvailability(slot.category.getTicketCategoryId(),
+                    slot.category.getTotalTickets(), slot.sold.get()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Adjusts a category's sold count once the current transaction commits
+     * @param eventId The event the category belongs to
+     * @param ticketCategoryId The ticket category ID
+     * @param delta Tickets sold (positive) or released by a refund (negative)
+     */
+    public void recordSold(Long eventId, Long ticketCategoryId, int delta) {
+        TransactionHooks.afterCommit(() -> {
+            EventAvailability availability = cache.getIfPresent(eventId);
+            Slot slot = availability != null ? availability.slots.get(ticketCategoryId) : null;
+            if (slot != null) {
+                slot.sold.updateAndGet(sold -> Math.max(0, sold + delta));
+            }
+        });
+        cacheInvalidationBus.publish(REGION, eventId.toString());
+    }
+
+    /**
+     * Drops an event's entry once the current transaction commits, after its
+     * categories were created, edited, deactivated or restored
+     * @param eventId The event ID
+     */
+    public void invalidate(Long eventId) {
+        if (eventId != null) {
+            TransactionHooks.afterCommit(() -> cache.invalidate(eventId));
+            cacheInvalidationBus.publish(REGION, eventId.toString());
+        }
+    }
+
+    private EventAvailability load(Long eventId) {
+        return readOnlyTransaction.execute(status -> {
+            Map<Long, Slot> slots = new LinkedHashMap<>();
+            for (TicketCategory category : ticketCategoryRepository.findByEventEventIdAndIsActiveTrue(eventId)) {
+                if (TicketCategory.STATUS_CLOSED.equals(category.getStatus())) {
+                    continue;
+                }
+                // Serialized long after this transaction ends, so load the one lazy association in the graph
+                if (category.getEvent().getLineup() != null) {
+                    for (Act act : category.getEvent().getLineup()) {
+                        if (act.getCategory() != null) {
+                            Hibernate.initialize(act.getCategory().getTags());
+                        }
+                    }
+                }
+                slots.put(category.getTicketCategoryId(), new Slot(category, category.getTicketsSold()));
+            }
+            return new EventAvailability(slots);
+        });
+    }
+
+    private static TicketCategory copyOf(TicketCategory category, int sold) {
+        TicketCategory copy = new TicketCategory();
+        copy.setTicketCategoryId(category.getTicketCategoryId());
+        copy.setName(category.getName());
+        copy.setPrice(category.getPrice());
+        copy.setDescription(category.getDescription());
+        copy.setTotalTickets(category.getTotalTickets());
+        copy.setTicketsSold(sold);
+        copy.setStatus(category.getStatus());
+        copy.setActive(category.isActive());
+        copy.setEvent(category.getEvent());
+        return copy;
+    }
+
+    private record EventAvailability(Map<Long, Slot> slots) {
+    }
+
+    // The category is never modified after loading; only the counter changes
+    private static final class Slot {
+        private final TicketCategory category;
+        private final AtomicInteger sold;
+
+        private Slot(TicketCategory category, int sold) {
+            this.category = category;
+            this.sold = new AtomicInteger(sold);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
 import it342.g4.e_vents.model.Event;
 import it342.g4.e_vents.model.TicketCategory;
 import it342.g4.e_vents.repository.EventRepository;
@@ -12,15 +13,24 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("events.service")
 public class TicketCategoryService {
 
     private final TicketCategoryRepository ticketCategoryRepository;
     private final EventRepository eventRepository;
+    private final CatalogVersions catalogVersions;
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final AvailabilityStream availabilityStream;
 
     @Autowired
-    public TicketCategoryService(TicketCategoryRepository ticketCategoryRepository, EventRepository eventRepository) {
+    public TicketCategoryService(TicketCategoryRepository ticketCategoryRepository, EventRepository eventRepository,
+                                 CatalogVersions catalogVersions, TicketAvailabilityCache ticketAvailabilityCache,
+                                 AvailabilityStream availabilityStream) {
         this.ticketCategoryRepository = ticketCategoryRepository;
         this.eventRepository = eventRepository;
+        this.catalogVersions = catalogVersions;
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.availabilityStream = availabilityStream;
     }
 
     /**
@@ -94,12 +104,12 @@ public class TicketCategoryService {
     }
 
     /**
-     * Retrieves available ticket categories for an event
+     * Retrieves available ticket categories for an event, from TicketAvailabilityCache
      * @param eventId The event ID
      * @return List of active ticket categories with available tickets for the specified event
      */
     public List<TicketCategory> getAvailableTicketCategoriesByEventId(Long eventId) {
-        return ticketCategoryRepository.findAvailableTicketCategoriesByEventId(eventId);
+        return ticketAvailabilityCache.getAvailable(eventId);
     }
 
     /**
@@ -117,7 +127,9 @@ public class TicketCategoryService {
         ticketCategory.setActive(true);
         ticketCategory.setTicketsSold(0); // Initialize ticketsSold to 0
         
-        return ticketCategoryRepository.save(ticketCategory);
+        TicketCategory saved = ticketCategoryRepository.save(ticketCategory);
+        ticketCategoriesChanged(event.getEventId());
+        return saved;
     }
 
     /**
@@ -130,6 +142,8 @@ public class TicketCategoryService {
     public TicketCategory updateTicketCategory(Long id, TicketCategory ticketCategoryDetails) {
         TicketCategory existingTicketCategory = ticketCategoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ticket category not found with ID: " + id));
+        Long previousEventId = existingTicketCategory.getEvent() != null
+                ? existingTicketCategory.getEvent().getEventId() : null;
         
         // Update fields
         existingTicketCategory.setName(ticketCategoryDetails.getName());
@@ -156,7 +170,15 @@ public class TicketCategoryService {
             existingTicketCategory.setEvent(event);
         }
         
-        return ticketCategoryRepository.save(existingTicketCategory);
+        TicketCategory saved = ticketCategoryRepository.save(existingTicketCategory);
+        // A category moved to another event changes both events' listings
+        ticketCategoriesChanged(previousEventId);
+        ticketCategoriesChanged(saved.getEvent() != null ? saved.getEvent().getEventId() : null);
+        if (saved.getEvent() != null && saved.isActive()) {
+            availabilityStream.publish(saved.getEvent().getEventId(), saved.getTicketCategoryId(),
+                    saved.getTotalTickets(), saved.getTicketsSold());
+        }
+        return saved;
     }
 
     /**
@@ -170,6 +192,7 @@ public class TicketCategoryService {
         
         ticketCategory.setActive(false);
         ticketCategoryRepository.save(ticketCategory);
+        bumpEventOf(ticketCategory);
     }
 
     /**
@@ -183,6 +206,18 @@ public class TicketCategoryService {
         
         ticketCategory.setActive(true);
         ticketCategoryRepository.save(ticketCategory);
+        bumpEventOf(ticketCategory);
+    }
+
+    private void bumpEventOf(TicketCategory ticketCategory) {
+        if (ticketCategory.getEvent() != null) {
+            ticketCategoriesChanged(ticketCategory.getEvent().getEventId());
+        }
+    }
+
+    private void ticketCategoriesChanged(Long eventId) {
+        catalogVersions.bumpTicketCategories(eventId);
+        ticketAvailabilityCache.invalidate(eventId);
     }
 
     /**
@@ -0,0 +1,156 @@
+package it342.g4.e_vents.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.dto.AttendeeRow;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import it342.g4.e_vents.util.CsvUtils;
+import it342.g4.e_vents.util.DataFormat;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Streams tickets and attendee lists straight from a database cursor to an
+ * output stream. Rows are flat projections, so memory stays constant no
+ * matter how many tickets an event has.
+ */
+@Service
+@Timed("events.service")
+public class TicketExportService {
+
+    private static final String CSV_HEADER = "ticketId,status,purchaseDate,eventId,ticketCategoryId,"
+            + "ticketCategoryName,price,userId,firstName,lastName,email";
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final TicketRepository ticketRepository;
+    private final EventRepository eventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public TicketExportService(TicketRepository ticketRepository, EventRepository eventRepository,
+                               ObjectMapper objectMapper) {
+        this.ticketRepository = ticketRepository;
+        this.eventRepository = eventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Verifies that an event exists before a response is committed
+     * @param eventId The event ID
+     * @throws EntityNotFoundException if the event is not found
+     */
+    public void requireEvent(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException("Event not found with ID: " + eventId);
+        }
+    }
+
+    /**
+     * Writes the active tickets of an event to the output stream
+     * @param eventId The event ID
+     * @param format CSV or NDJSON
+     * @param out The destination stream (not closed)
+     * @return The number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportAttendees(Long eventId, DataFormat format, OutputStream out) throws IOException {
+        try (Stream<AttendeeRow> rows = ticketRepository.streamAttendeesByEventId(eventId)) {
+            return write(rows, format, out);
+        }
+    }
+
+    /**
+     * Writes every active ticket to the output stream
+     * @param format CSV or NDJSON
+     * @param out The destination stream (not closed)
+     * @return The number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportAllTickets(DataFormat format, OutputStream out) throws IOException {
+        try (Stream<AttendeeRow> rows = ticketRepository.streamAllActiveAttendees()) {
+            return write(rows, format, out);
+        }
+    }
+
+    private long write(Stream<AttendeeRow> rows, DataFormat format, OutputStream out) throws IOException {
+        return format == DataFormat.NDJSON ? writeNdjson(rows.iterator(), out) : writeCsv(rows.iterator(), out);
+    }
+
+    private long writeCsv(Iterator<AttendeeRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        StringBuilder line = new StringBuilder(256);
+        long count = 0;
+        while (rows.hasNext()) {
+            AttendeeRow row = rows.next();
+            line.setLength(0);
+            CsvUtils.appendField(line, row.getTicketId());
+            line.append(',');
+            CsvUtils.appendField(line, row.getStatus());
+            line.append(',');
+            CsvUtils.appendField(line, row.getPurchaseDate());
+            line.append(',');
+            CsvUtils.appendField(line, row.getEventId());
+            line.append(',');
+            CsvUtils.appendField(line, row.getTicketCategoryId());
+            line.append(',');
+            CsvUtils.appendField(line, row.getTicketCategoryName());
+            line.append(',');
+            CsvUtils.appendField(line, row.getPrice());
+            line.append(',');
+            CsvUtils.appendField(line, row.getUserId());
+            line.append(',');
+            CsvUtils.appendField(line, row.getFirstName());
+            line.append(',');
+            CsvUtils.appendField(line, row.getLastName());
+            line.append(',');
+            CsvUtils.appendField(line, row.getEmail());
+            line.append('\n');
+            writer.append(line);
+
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long writeNdjson(Iterator<AttendeeRow> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        // Flushing is batched below instead of once per row
+        ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long count = 0;
+        while (rows.hasNext()) {
+            rowWriter.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return count;
+    }
+}
@@ -1,5 +1,8 @@
 package it342.g4.e_vents.service;
 
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.OutboxEvent;
 import it342.g4.e_vents.model.Ticket;
 import it342.g4.e_vents.model.TicketCategory;
 import it342.g4.e_vents.model.User;
@@ -13,21 +16,48 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
+@Timed("events.service")
 public class TicketService {
 
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
     private final TicketCategoryRepository ticketCategoryRepository;
+    private final SalesAnalyticsService salesAnalyticsService;
+    private final CatalogVersions catalogVersions;
+    private final TicketAvailabilityCache ticketAvailabilityCache;
+    private final AvailabilityStream availabilityStream;
+    private final RefundService refundService;
+    private final CheckInService checkInService;
+    private final Outbox outbox;
+    private final ArchiveService archiveService;
 
     @Autowired
     public TicketService(TicketRepository ticketRepository, UserRepository userRepository, 
-                        TicketCategoryRepository ticketCategoryRepository) {
+                        TicketCategoryRepository ticketCategoryRepository,
+                        SalesAnalyticsService salesAnalyticsService,
+                        CatalogVersions catalogVersions,
+                        TicketAvailabilityCache ticketAvailabilityCache,
+                        AvailabilityStream availabilityStream,
+                        RefundService refundService,
+                        CheckInService checkInService,
+                        Outbox outbox,
+                        ArchiveService archiveService) {
         this.ticketRepository = ticketRepository;
         this.userRepository = userRepository;
         this.ticketCategoryRepository = ticketCategoryRepository;
+        this.salesAnalyticsService = salesAnalyticsService;
+        this.catalogVersions = catalogVersions;
+        this.ticketAvailabilityCache = ticketAvailabilityCache;
+        this.availabilityStream = availabilityStream;
+        this.refundService = refundService;
+        this.checkInService = checkInService;
+        this.outbox = outbox;
+        this.archiveService = archiveService;
     }
 
     /**
@@ -82,6 +112,34 @@ public class TicketService {
         return ticketRepository.findByTicketCategoryEventEventIdAndIsActiveTrue(eventId);
     }
 
+    /**
+     * Retrieves tickets by user ID, optionally with tickets of archived events
+     * @param userId The user ID
+     * @param includeArchived Also return the user's tickets moved to the archive
+     * @return List of active tickets for the specified user
+     */
+    public List<Ticket> getTicketsByUserId(Long userId, boolean includeArchived) {
+        List<Ticket> tickets = getTicketsByUserId(userId);
+        if (includeArchived) {
+            tickets.addAll(archiveService.getArchivedTicketsByUserId(userId));
+        }
+        return tickets;
+    }
+
+    /**
+     * Retrieves tickets by event ID, looking in the archive if asked
+     * @param eventId The event ID
+     * @param includeArchived Also return tickets moved to the archive with their event
+     * @return List of active tickets for the specified event
+     */
+    public List<Ticket> getTicketsByEventId(Long eventId, boolean includeArchived) {
+        List<Ticket> tickets = getTicketsByEventId(eventId);
+        if (includeArchived) {
+            tickets.addAll(archiveService.getArchivedTicketsByEventId(eventId));
+        }
+        return tickets;
+    }
+
     /**
      * Retrieves tickets by ticket category ID
      * @param ticketCategoryId The ticket category ID
@@ -105,7 +163,7 @@ public class TicketService {
      * @param ticket The ticket to create
      * @return The created ticket with ID
      * @throws EntityNotFoundException if the user or ticket category is not found
-     * @throws IllegalStateException if there are no available tickets in the category
+     * @throws IllegalStateException if there are no available tickets in the category, its sales have closed or the event is cancelled
      */
     @Transactional
     public Ticket createTicket(Ticket ticket) {
@@ -113,19 +171,18 @@ public class TicketService {
         User user = userRepository.findById(ticket.getUser().getUserId())
                 .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + ticket.getUser().getUserId()));
         
-        // Verify ticket category exists
-        TicketCategory ticketCategory = ticketCategoryRepository.findById(ticket.getTicketCategory().getTicketCategoryId())
-                .orElseThrow(() -> new EntityNotFoundException("Ticket category not found with ID: " + 
-                        ticket.getTicketCategory().getTicketCategoryId()));
-        
-        // Check if tickets are available
-        if (ticketCategory.getAvailableTickets() <= 0) {
-            throw new IllegalStateException("No tickets available in this category");
+        // Take a seat first: the capacity check and the increment are one conditional row update,
+        // and the category is loaded afterwards so it carries the new count
+        Long ticketCategoryId = ticket.getTicketCategory().getTicketCategoryId();
+        boolean reserved = ticketCategoryRepository.reserveTicket(ticketCategoryId) == 1;
+        TicketCategory ticketCategory = ticketCategoryRepository.findById(ticketCategoryId)
+                .orElseThrow(() -> new EntityNotFoundException("Ticket category not found with ID: " + ticketCategoryId));
+        if (!reserved) {
+            throw new IllegalStateException(TicketCategory.STATUS_CLOSED.equals(ticketCategory.getStatus())
+                    ? "Ticket sales for this event have closed" : "No tickets available in this category");
         }
-        
-        // Validate that ticketsSold will not exceed totalTickets
-        if (ticketCategory.getTicketsSold() >= ticketCategory.getTotalTickets()) {
-            throw new IllegalStateException("Cannot create ticket: All tickets in this category have been sold");
+        if (Event.STATUS_CANCELLED.equals(ticketCategory.getEvent().getStatus())) {
+            throw new IllegalStateException("Cannot create ticket: The event has been cancelled");
         }
         
         // Set references
@@ -135,14 +192,27 @@ public class TicketService {
         // Set default values
         ticket.setActive(true);
         ticket.setPurchaseDate(LocalDateTime.now());
-        ticket.setStatus("PURCHASED");
+        ticket.setStatus(Ticket.STATUS_PURCHASED);
+        ticket.setModifiedAt(ticket.getPurchaseDate());
+        
+        Long eventId = ticketCategory.getEvent().getEventId();
+        catalogVersions.bumpTicketCategories(eventId);
+        ticketAvailabilityCache.recordSold(eventId, ticketCategoryId, 1);
+        availabilityStream.publish(eventId, ticketCategoryId,
+                ticketCategory.getTotalTickets(), ticketCategory.getTicketsSold());
         
-        // Increment ticketsSold in the ticket category
-        ticketCategory.incrementTicketsSold();
-        ticketCategoryRepository.save(ticketCategory);
+        // Keep the sales rollup in step with ticketsSold
+        salesAnalyticsService.recordSale(ticketCategory, ticket.getPurchaseDate());
         
-        // Save and return the ticket
-        return ticketRepository.save(ticket);
+        // Save and return the ticket; the confirmation goes out through the outbox
+        Ticket saved = ticketRepository.save(ticket);
+        outbox.publish(OutboxEvent.TICKET_PURCHASED, saved.getTicketId(), Map.of(
+                "ticketId", saved.getTicketId(),
+                "userId", user.getUserId(),
+                "eventId", eventId,
+                "eventName", Objects.toString(ticketCategory.getEvent().getName(), ""),
+                "ticketCategoryId", ticketCategoryId));
+        return saved;
     }
 
     /**
@@ -151,11 +221,18 @@ public class TicketService {
      * @param ticketDetails Updated ticket data
      * @return The updated ticket
      * @throws EntityNotFoundException if the ticket is not found
+     * @throws IllegalArgumentException if the update would set or clear the refunded status
      */
     public Ticket updateTicket(Long id, Ticket ticketDetails) {
         Ticket existingTicket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ticket not found with ID: " + id));
         
+        // Refunds move seats back to the category, so they only go through RefundService
+        if (Ticket.STATUS_REFUNDED.equals(existingTicket.getStatus())
+                != Ticket.STATUS_REFUNDED.equals(ticketDetails.getStatus())) {
+            throw new IllegalArgumentException("Refund status can only be changed by refunding the ticket");
+        }
+        
         // Update fields (only status can be updated)
         existingTicket.setStatus(ticketDetails.getStatus());
         
@@ -163,29 +240,64 @@ public class TicketService {
     }
 
     /**
-     * Deactivates (soft-deletes) a ticket
+     * Deactivates (soft-deletes) a ticket and returns its seat to the ticket category
      * @param id The ID of the ticket to deactivate
      * @throws EntityNotFoundException if the ticket is not found
      */
+    @Transactional
     public void deactivateTicket(Long id) {
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ticket not found with ID: " + id));
+        TicketCategory ticketCategory = ticket.getTicketCategory();
+        Long eventId = ticketCategory.getEvent().getEventId();
+        LocalDateTime now = LocalDateTime.now();
         
-        ticket.setActive(false);
-        ticketRepository.save(ticket);
+        // The database decides who returns the seat: this update or a refund committing concurrently, never both
+        if (ticketRepository.deactivateHoldingSeat(id, now) == 1) {
+            checkInService.ticketsRevoked(eventId, List.of(id));
+            refundService.releaseSeats(eventId, ticketCategory.getTicketCategoryId(), 1);
+        } else if (ticketRepository.deactivate(id, now) == 1) {
+            // Refunded already, so the refund gave the seat back
+            checkInService.ticketsRevoked(eventId, List.of(id));
+        }
     }
 
     /**
-     * Restores a previously deactivated ticket
+     * Restores a previously deactivated ticket, taking its seat back if one is left
      * @param id The ID of the ticket to restore
      * @throws EntityNotFoundException if the ticket is not found
+     * @throws IllegalStateException if the ticket was refunded, its event was cancelled,
+     *         or the ticket category has no tickets left or its sales have closed
      */
+    @Transactional
     public void restoreTicket(Long id) {
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Ticket not found with ID: " + id));
+        TicketCategory ticketCategory = ticket.getTicketCategory();
+        Event event = ticketCategory.getEvent();
+        if (Ticket.STATUS_REFUNDED.equals(ticket.getStatus())) {
+            throw new IllegalStateException("Cannot restore ticket: It has been refunded");
+        }
+        if (Event.STATUS_CANCELLED.equals(event.getStatus())) {
+            throw new IllegalStateException("Cannot restore ticket: The event has been cancelled");
+        }
         
-        ticket.setActive(true);
-        ticketRepository.save(ticket);
+        // Rechecks both in the update, in case a refund or cancellation commits meanwhile
+        if (ticketRepository.restore(id, LocalDateTime.now()) == 1) {
+            Long eventId = event.getEventId();
+            // Rolls back the restore when the seat has been sold to someone else or sales have closed meanwhile
+            if (ticketCategoryRepository.reserveTicket(ticketCategory.getTicketCategoryId()) == 0) {
+                boolean closed = ticketCategoryRepository.findStatusById(ticketCategory.getTicketCategoryId())
+                        .map(TicketCategory.STATUS_CLOSED::equals).orElse(false);
+                throw new IllegalStateException(closed ? "Cannot restore ticket: Ticket sales for this event have closed"
+                        : "Cannot restore ticket: All tickets in this category have been sold");
+            }
+            catalogVersions.bumpTicketCategories(eventId);
+            ticketAvailabilityCache.recordSold(eventId, ticketCategory.getTicketCategoryId(), 1);
+            availabilityStream.publish(eventId, ticketCategory.getTicketCategoryId(), ticketCategory.getTotalTickets(),
+                    ticketCategoryRepository.findTicketsSold(ticketCategory.getTicketCategoryId()).orElse(0));
+            checkInService.ticketRestored(eventId, id);
+        }
     }
 
     /**
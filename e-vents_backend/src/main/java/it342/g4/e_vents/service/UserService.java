@@ -1,17 +1,29 @@
 package it342.g4.e_vents.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import io.micrometer.core.annotation.Timed;
+import it342.g4.e_vents.model.OutboxEvent;
 import it342.g4.e_vents.model.Role;
 import it342.g4.e_vents.model.User;
 import it342.g4.e_vents.repository.RoleRepository;
 import it342.g4.e_vents.repository.UserRepository;
+import it342.g4.e_vents.security.LoginRateLimiter;
+import it342.g4.e_vents.service.CatalogVersions.Catalog;
 import jakarta.persistence.EntityNotFoundException;
 
 import org.json.JSONArray;
@@ -21,17 +33,42 @@ import java.util.Date;
 import java.text.SimpleDateFormat;
 
 @Service
+@Timed("events.service")
 public class UserService {
     
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final LoginRateLimiter loginRateLimiter;
+    private final ExecutorService passwordHashingExecutor;
+    private final ExecutorService authCompletionExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final RefreshTokenService refreshTokenService;
+    private final UserSummaryCache userSummaryCache;
+    private final CatalogVersions catalogVersions;
+    private final Outbox outbox;
     
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       LoginRateLimiter loginRateLimiter,
+                       @Qualifier("passwordHashingExecutor") ExecutorService passwordHashingExecutor,
+                       @Qualifier("authCompletionExecutor") ExecutorService authCompletionExecutor,
+                       PlatformTransactionManager transactionManager,
+                       RefreshTokenService refreshTokenService, UserSummaryCache userSummaryCache,
+                       CatalogVersions catalogVersions, Outbox outbox) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.loginRateLimiter = loginRateLimiter;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.authCompletionExecutor = authCompletionExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.refreshTokenService = refreshTokenService;
+        this.userSummaryCache = userSummaryCache;
+        this.catalogVersions = catalogVersions;
+        this.outbox = outbox;
     }
 
     /**
@@ -52,28 +89,35 @@ public class UserService {
     }
 
     /**
-     * Registers a new user with encrypted password and default role
+     * Registers a new user with encrypted password and default role. The
+     * password is hashed on the password hashing pool and the user saved on
+     * the auth completion pool.
      * @param user The user to register
-     * @return The registered user with ID
-     * @throws RuntimeException if user already exists or default role not found
+     * @return Future completing with the registered user with ID, or exceptionally if the default role is not found
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     * @throws RuntimeException if user already exists
      */
-    public User registerUser(User user) {
+    public CompletableFuture<User> registerUser(User user) {
         if (userRepository.existsByEmail(user.getEmail())) {
             throw new RuntimeException("Error: User already exists");
         }
 
-        // Encrypt the password before saving
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        
-        // Set default role to 'attendee' with roleId 1
-        Role defaultRole = roleRepository.findById(2L)
-                .orElseThrow(() -> new RuntimeException("Default role not found"));
-        user.setRole(defaultRole);
+        return hashPassword(user.getPassword()).thenApplyAsync(hash -> transactionTemplate.execute(status -> {
+            // Encrypt the password before saving
+            user.setPassword(hash);
+
+            // Set default role to 'attendee' with roleId 1
+            Role defaultRole = roleRepository.findById(2L)
+                    .orElseThrow(() -> new RuntimeException("Default role not found"));
+            user.setRole(defaultRole);
 
-        // Set creation date to current time (same handling as birthdate)
-        user.setDateCreated(new Date());
+            // Set creation date to current time (same handling as birthdate)
+            user.setDateCreated(new Date());
 
-        return userRepository.save(user);
+            User saved = userRepository.save(user);
+            outbox.publish(OutboxEvent.USER_REGISTERED, saved.getUserId(), Map.of("userId", saved.getUserId()));
+            return saved;
+        }), authCompletionExecutor);
     }
 
     public User getUserById(Long id) {
@@ -81,21 +125,37 @@ public class UserService {
     }
 
     /**
-     * Authenticates a user by email and password
+     * Authenticates a user by email and password. The password check runs on the
+     * password hashing pool; a hash stored at an older BCrypt cost is replaced
+     * with one at the current cost after a successful match.
      * @param email The user's email
      * @param password The user's password (plain text)
-     * @return The authenticated user
-     * @throws RuntimeException if user not found or password invalid
+     * @param clientIp Remote address of the request, used for rate limiting
+     * @return Future completing with the authenticated user, or exceptionally if the password is invalid
+     * @throws it342.g4.e_vents.security.LoginThrottledException if the IP or email exceeded its rate limit
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
+     * @throws RuntimeException if user not found
      */
-    public User login(String email, String password) {
+    public CompletableFuture<User> login(String email, String password, String clientIp) {
+        loginRateLimiter.acquire(clientIp, email);
+
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Error: User not found"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw new RuntimeException("Invalid password");
-        }
-
-        return user;
+        return CompletableFuture.supplyAsync(() -> {
+            if (!passwordEncoder.matches(password, user.getPassword())) {
+                throw new RuntimeException("Invalid password");
+            }
+            if (!user.isActive()) {
+                throw new RuntimeException("Account is deactivated");
+            }
+            if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                user.setPassword(passwordEncoder.encode(password));
+                userRepository.updatePassword(user.getUserId(), user.getPassword());
+                logger.info("Rehashed password of user {} at the current BCrypt cost", user.getUserId());
+            }
+            return user;
+        }, passwordHashingExecutor);
     }
 
     /**
@@ -108,7 +168,7 @@ public class UserService {
             String url = "https://restcountries.com/v3.1/all?fields=name";
             return fetchCountriesFromAPI(url);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.warn("Failed to fetch countries: {}", e.getMessage());
             // Fallback to N/A if API fails
             return new String[]{"N/A"};
         }
@@ -164,19 +224,30 @@ public class UserService {
     }
 
     /**
-     * Changes a user's password by email
+     * Changes a user's password by email. The new password is hashed on the
+     * password hashing pool and saved on the auth completion pool.
      * @param email The email of the user
      * @param newPassword The new password (plain text)
-     * @return true if password changed successfully, false if user not found
+     * @return Future completing with true if password changed successfully, false if user not found
+     * @throws java.util.concurrent.RejectedExecutionException if the hashing pool is saturated
      */
-    public boolean changePasswordByEmail(String email, String newPassword) {
-        return userRepository.findByEmail(email)
-                .map(user -> {
-                    user.setPassword(passwordEncoder.encode(newPassword));
-                    userRepository.save(user);
-                    return true;
-                })
-                .orElse(false);
+    public CompletableFuture<Boolean> changePasswordByEmail(String email, String newPassword) {
+        Optional<User> found = userRepository.findByEmail(email);
+        if (found.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        User user = found.get();
+        return hashPassword(newPassword).thenApplyAsync(hash -> {
+            user.setPassword(hash);
+            userRepository.save(user);
+            userChanged(user.getUserId());
+            return true;
+        }, authCompletionExecutor);
+    }
+
+    // BCrypt is slow on purpose, so it runs on the bounded hashing pool
+    private CompletableFuture<String> hashPassword(String password) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(password), passwordHashingExecutor);
     }
 
     /**
@@ -223,7 +294,9 @@ public class UserService {
             }
 
             // Save and return updated user
-            return Optional.of(userRepository.save(user));
+            User saved = userRepository.save(user);
+            userChanged(id);
+            return Optional.of(saved);
         }
 
         return Optional.empty();
@@ -244,13 +317,16 @@ public class UserService {
     }
     
     /**
-     * Soft deletes a user by setting their is_active attribute to false
+     * Soft deletes a user by setting their is_active attribute to false and
+     * revoking all of their sessions
      * @param userId The ID of the user to soft delete
      * @return The updated User object
      * @throws EntityNotFoundException if the user is not found
      */
     public User softDeleteUser(Long userId) {
-        return updateUserActiveStatus(userId, false);
+        User user = updateUserActiveStatus(userId, false);
+        refreshTokenService.revokeAllSessions(userId);
+        return user;
     }
     
     /**
@@ -275,7 +351,9 @@ public class UserService {
                 .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + userId));
         
         user.setActive(activeStatus);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userChanged(userId);
+        return saved;
     }
     
     /**
@@ -293,7 +371,9 @@ public class UserService {
      */
     public boolean deleteUser(Long id) {
         if (userRepository.existsById(id)) {
+            refreshTokenService.revokeAllSessions(id);
             userRepository.deleteById(id);
+            userChanged(id);
             return true;
         }
         return false;
@@ -306,4 +386,10 @@ public class UserService {
     public long countActiveUsers() {
         return userRepository.countByIsActiveTrue();
     }
+
+    // Events embed their host, so a user change is also a catalog change
+    private void userChanged(Long userId) {
+        userSummaryCache.invalidate(userId);
+        catalogVersions.bump(Catalog.USERS);
+    }
 }
@@ -0,0 +1,78 @@
+package it342.g4.e_vents.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it342.g4.e_vents.cluster.CacheInvalidationBus;
+import it342.g4.e_vents.dto.UserSummary;
+import it342.g4.e_vents.repository.UserRepository;
+
+/**
+ * Bounded, time-limited cache of user summaries by user ID. UserService
+ * invalidates an entry whenever the user's profile, role, password or active
+ * flag changes, here and, through the cache invalidation bus, on the other
+ * replicas; the TTL bounds staleness for changes made outside the services.
+ */
+@Component
+public class UserSummaryCache {
+
+    static final String REGION = "user-summary";
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Cache<Long, UserSummary> cache;
+
+    @Autowired
+    public UserSummaryCache(UserRepository userRepository, CacheInvalidationBus cacheInvalidationBus,
+                            @Value("${cache.user-summary.max-size:10000}") long maxSize,
+                            @Value("${cache.user-summary.ttl:5m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userSummaries");
+        cacheInvalidationBus.subscribe(REGION, (key, issuedAt) -> {
+            if (key != null) {
+                cache.invalidate(Long.valueOf(key));
+            }
+        });
+    }
+
+    /**
+     * Looks up a user summary, loading only its columns from the database on a miss
+     * @param userId The user ID
+     * @return Optional containing the summary if the user exists
+     */
+    public Optional<UserSummary> get(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        // Missing users are not cached so a later registration is visible immediately
+        return Optional.ofNullable(cache.get(userId,
+                id -> userRepository.findSummaryById(id).orElse(null)));
+    }
+
+    /**
+     * Drops a user's cached summary after it changed
+     * @param userId The user ID
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+            cacheInvalidationBus.publish(REGION, userId.toString());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package it342.g4.e_vents.util;
+
+import java.util.Locale;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Line-oriented formats accepted by the bulk import and produced by the
+ * streaming export endpoints.
+ */
+public enum DataFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    DataFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Resolves the format of a request body from its Content-Type header
+     * @param contentType The Content-Type header value
+     * @return NDJSON for application/x-ndjson, CSV otherwise
+     */
+    public static DataFormat fromContentType(String contentType) {
+        return contentType != null && MediaType.parseMediaType(contentType).isCompatibleWith(NDJSON.mediaType)
+                ? NDJSON
+                : CSV;
+    }
+
+    /**
+     * Resolves a format from a request parameter such as "csv" or "ndjson"
+     * @param value The parameter value
+     * @return The matching format
+     * @throws IllegalArgumentException if the value is not a known format
+     */
+    public static DataFormat fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported format: " + value);
+        }
+    }
+}
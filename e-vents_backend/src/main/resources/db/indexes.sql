@@ -0,0 +1,72 @@
+-- Indexes declared on the entities, for patching a deployed MySQL schema by hand.
+--
+-- spring.jpa.hibernate.ddl-auto=update creates a missing index by name but
+-- never alters or drops one that already exists, so an index whose columns
+-- changed, or one created by hand under another name, stays as it is. This
+-- file is not run by the application. Before a release that changes the
+-- @Table(indexes = ...) of an entity, compare the deployed definitions:
+--
+--   SELECT table_name, index_name, GROUP_CONCAT(column_name ORDER BY seq_in_index) AS columns
+--   FROM information_schema.statistics WHERE table_schema = DATABASE()
+--   GROUP BY table_name, index_name ORDER BY table_name, index_name;
+--
+-- then DROP INDEX any stale definition and run the matching statement below.
+-- A statement for an index that is already correct fails with "Duplicate key
+-- name" and can be skipped. Keep this file in step with the entities; the
+-- plans that depend on these indexes are checked by QueryPlanTest.
+
+-- users
+CREATE INDEX idx_user_active ON users (is_active);
+
+-- events
+CREATE INDEX idx_event_status_date ON events (status, date);
+
+-- ticket_categories
+CREATE INDEX idx_ticket_category_event_active ON ticket_categories (event_id, is_active);
+CREATE INDEX idx_ticket_category_status ON ticket_categories (status);
+CREATE INDEX idx_ticket_category_name ON ticket_categories (name);
+
+-- tickets
+CREATE INDEX idx_ticket_category_modified ON tickets (ticket_category_id, modified_at);
+CREATE INDEX idx_ticket_user_active ON tickets (user_id, is_active);
+CREATE INDEX idx_ticket_status ON tickets (status);
+
+-- ratings
+CREATE INDEX idx_rating_entity ON ratings (rated_entity_id, rated_entity_type, is_active);
+CREATE INDEX idx_rating_user_active ON ratings (user_id, is_active);
+
+-- notifications
+CREATE INDEX idx_notification_user ON notifications (user_id, notification_id);
+CREATE INDEX idx_notification_type_created ON notifications (type, created_at);
+CREATE INDEX idx_notification_read_at ON notifications (read_at);
+CREATE INDEX idx_notification_user_unread ON notifications (user_id, `read`, is_active);
+CREATE INDEX idx_notification_event ON notifications (event_id, notification_id);
+
+-- acts, tags, categories
+CREATE INDEX idx_act_name ON acts (name);
+CREATE INDEX idx_tag_name ON tags (name);
+CREATE INDEX idx_category_name ON categories (name);
+
+-- refresh_tokens
+CREATE UNIQUE INDEX uk_refresh_token_hash ON refresh_tokens (token_hash);
+CREATE INDEX idx_refresh_token_user ON refresh_tokens (user_id);
+CREATE INDEX idx_refresh_token_family ON refresh_tokens (family_id);
+CREATE INDEX idx_refresh_token_expires ON refresh_tokens (expires_at);
+
+-- Background jobs and check-in
+CREATE INDEX idx_refund_job_status ON refund_jobs (status);
+CREATE INDEX idx_check_in_event ON check_ins (event_id);
+CREATE INDEX idx_cache_invalidation_issued ON cache_invalidations (issued_at);
+CREATE UNIQUE INDEX uk_event_reminder ON event_reminders (event_id, offset_minutes, starts_at);
+CREATE INDEX idx_event_reminder_starts_at ON event_reminders (starts_at);
+
+-- sales_rollups
+CREATE UNIQUE INDEX uk_sales_rollup_bucket ON sales_rollups (ticket_category_id, bucket_start);
+CREATE INDEX idx_sales_rollup_event_bucket ON sales_rollups (event_id, bucket_start);
+
+-- Archive tables
+CREATE INDEX idx_event_archive_status_date ON events_archive (status, date);
+CREATE INDEX idx_ticket_category_archive_event ON ticket_categories_archive (event_id);
+CREATE INDEX idx_ticket_archive_user ON tickets_archive (user_id);
+CREATE INDEX idx_ticket_archive_event ON tickets_archive (event_id);
+CREATE INDEX idx_notification_archive_user ON notifications_archive (user_id);
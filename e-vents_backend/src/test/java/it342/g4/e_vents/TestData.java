@@ -0,0 +1,131 @@
+package it342.g4.e_vents;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import it342.g4.e_vents.cluster.JobLeases;
+import it342.g4.e_vents.cluster.NodeIdentity;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.RoleRepository;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+import it342.g4.e_vents.repository.UserRepository;
+
+/**
+ * Creates users, events, ticket categories and tickets for tests. Every
+ * call makes new rows, so tests sharing a context do not see each other's data.
+ */
+@TestComponent
+public class TestData {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TicketCategoryRepository ticketCategoryRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Autowired
+    private NodeIdentity nodeIdentity;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public User user(String role) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName(role);
+        user.setEmail("test-" + UUID.randomUUID() + "@events.test");
+        user.setContactNumber("09170000000");
+        user.setCountry("Philippines");
+        user.setPassword("unused");
+        user.setRole(roleRepository.findByName(role).orElseThrow());
+        return userRepository.save(user);
+    }
+
+    public Event event(User host, LocalDateTime start, String status) {
+        Event event = new Event();
+        event.setName("Test event " + UUID.randomUUID());
+        event.setDate(start.toLocalDate());
+        event.setTime(start.toLocalTime());
+        event.setVenue("Test venue");
+        event.setUser(host);
+        event.setStatus(status);
+        event.setActive(true);
+        event.setLineup(new ArrayList<>());
+        return eventRepository.save(event);
+    }
+
+    public TicketCategory ticketCategory(Event event, int totalTickets, int ticketsSold) {
+        TicketCategory category = new TicketCategory();
+        category.setName("General " + UUID.randomUUID());
+        category.setPrice(1000.0);
+        category.setTotalTickets(totalTickets);
+        category.setTicketsSold(ticketsSold);
+        category.setStatus(TicketCategory.STATUS_AVAILABLE);
+        category.setActive(true);
+        category.setEvent(event);
+        return ticketCategoryRepository.save(category);
+    }
+
+    /**
+     * A purchased ticket; the category's sold count is not changed
+     */
+    public Ticket ticket(TicketCategory category, User holder) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketCategory(category);
+        ticket.setUser(holder);
+        ticket.setStatus(Ticket.STATUS_PURCHASED);
+        ticket.setPurchaseDate(LocalDateTime.now());
+        ticket.setModifiedAt(LocalDateTime.now());
+        ticket.setActive(true);
+        return ticketRepository.save(ticket);
+    }
+
+    /**
+     * Makes this context the owner of a cluster-wide job, waiting for its lease
+     * renewer to pick up the new fencing token. Contexts cached by other test classes share the
+     * database and may hold the lease.
+     */
+    public void takeLease(String jobName) {
+        jobLeases.isOwner(jobName);
+        jdbcTemplate.update("UPDATE job_leases SET owner = ?, fencing_token = fencing_token + 1, "
+                + "expires_at = TIMESTAMPADD(SECOND, 30, CURRENT_TIMESTAMP(6)) WHERE job_name = ?",
+                nodeIdentity.getId(), jobName);
+        long fencingToken = jdbcTemplate.queryForObject("SELECT fencing_token FROM job_leases WHERE job_name = ?",
+                Long.class, jobName);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!jobLeases.isOwner(jobName) || jobLeases.fencingToken(jobName) != fencingToken) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Did not take over job lease " + jobName);
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
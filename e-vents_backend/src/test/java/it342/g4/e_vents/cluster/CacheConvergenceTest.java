@@ -0,0 +1,142 @@
+package it342.g4.e_vents.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.EVentsApplication;
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.dto.CheckInResult;
+import it342.g4.e_vents.dto.CheckInResult.Outcome;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.security.TicketTokens;
+import it342.g4.e_vents.service.CheckInService;
+import it342.g4.e_vents.service.RefundService;
+import it342.g4.e_vents.service.UserService;
+import it342.g4.e_vents.service.UserSummaryCache;
+
+/**
+ * Runs a second application context against the test database, standing in
+ * for another replica, and checks that changes made through this context
+ * reach the other one's caches through the invalidation bus.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class CacheConvergenceTest {
+
+	// Flush and poll intervals plus the bus's gap timeout, with room for a slow build machine
+	private static final Duration BOUND = Duration.ofSeconds(10);
+
+	private static ConfigurableApplicationContext replica;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private RefundService refundService;
+
+	@Autowired
+	private TicketTokens ticketTokens;
+
+	@Autowired
+	private TestData testData;
+
+	// Started once this test's context is up, so the replica finds the schema it created
+	@BeforeEach
+	void startReplica() {
+		if (replica == null) {
+			replica = new SpringApplicationBuilder(EVentsApplication.class)
+					.web(WebApplicationType.NONE)
+					.profiles("test")
+					.run("--cluster.node-id=replica-b", "--spring.jpa.hibernate.ddl-auto=none",
+							"--spring.jmx.enabled=false", "--cluster.cache-bus.poll-interval-ms=100");
+		}
+	}
+
+	@AfterAll
+	static void stopReplica() {
+		if (replica != null) {
+			replica.close();
+		}
+	}
+
+	@Test
+	void profileChangesReachTheOtherReplica() {
+		User user = testData.user("USER");
+		UserSummaryCache replicaCache = replica.getBean(UserSummaryCache.class);
+		assertThat(replicaCache.get(user.getUserId()).orElseThrow().getFirstName()).isEqualTo("Test");
+
+		User update = new User();
+		update.setFirstName("Renamed");
+		userService.updateUser(user.getUserId(), update);
+
+		assertThat(eventually(() -> replicaCache.get(user.getUserId()).orElseThrow().getFirstName(), "Renamed"))
+				.isEqualTo("Renamed");
+	}
+
+	@Test
+	void deactivationReachesTheOtherReplica() {
+		User user = testData.user("USER");
+		UserSummaryCache replicaCache = replica.getBean(UserSummaryCache.class);
+		assertThat(replicaCache.get(user.getUserId()).orElseThrow().isActive()).isTrue();
+
+		userService.softDeleteUser(user.getUserId());
+
+		assertThat(eventually(() -> replicaCache.get(user.getUserId()).orElseThrow().isActive(), false)).isFalse();
+	}
+
+	@Test
+	void refundsAreRefusedAtTheOtherReplicasGate() {
+		Event event = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(1), Event.STATUS_SCHEDULED);
+		TicketCategory category = testData.ticketCategory(event, 100, 10);
+		Ticket scanned = testData.ticket(category, testData.user("USER"));
+		Ticket refunded = testData.ticket(category, testData.user("USER"));
+		CheckInService replicaGate = replica.getBean(CheckInService.class);
+		// Loads the event's gate state on the replica before the refund
+		assertThat(replicaGate.checkIn(event.getEventId(), null, List.of(token(scanned, category))))
+				.extracting(CheckInResult::getOutcome).containsExactly(Outcome.ADMITTED);
+
+		refundService.refundTicket(refunded.getTicketId());
+
+		// REVOKED is checked before DUPLICATE, so scans made before the change arrives do not mask it
+		assertThat(eventually(() -> replicaGate.checkIn(event.getEventId(), null,
+				List.of(token(refunded, category))).get(0).getOutcome(), Outcome.REVOKED)).isEqualTo(Outcome.REVOKED);
+	}
+
+	private String token(Ticket ticket, TicketCategory category) {
+		return ticketTokens.issue(ticket.getTicketId(), category.getEvent().getEventId(), category.getTicketCategoryId());
+	}
+
+	private static <T> T eventually(Supplier<T> probe, T expected) {
+		long deadline = System.nanoTime() + BOUND.toNanos();
+		T value = probe.get();
+		while (!expected.equals(value) && System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			value = probe.get();
+		}
+		return value;
+	}
+}
@@ -0,0 +1,71 @@
+package it342.g4.e_vents.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import it342.g4.e_vents.model.JobLease;
+import it342.g4.e_vents.repository.JobLeaseRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JobLeasesTest {
+
+	@Autowired
+	private JobLeases jobLeases;
+
+	@Autowired
+	private JobLeaseRepository jobLeaseRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private String job;
+
+	@BeforeEach
+	void setUp() {
+		job = "test-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	@Test
+	void fenceAcceptsTheTokenOfTheCurrentOwner() {
+		assertThat(jobLeases.isOwner(job)).isTrue();
+		long fencingToken = jobLeases.fencingToken(job);
+
+		assertThat(fencingToken).isEqualTo(jobLeaseRepository.findById(job).orElseThrow().getFencingToken());
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> jobLeases.fence(job, fencingToken));
+	}
+
+	@Test
+	void formerOwnerCannotCommitAfterATakeOver() {
+		assertThat(jobLeases.isOwner(job)).isTrue();
+		long fencingToken = jobLeases.fencingToken(job);
+		// Another node takes the lease over while this one is paused
+		JobLease lease = jobLeaseRepository.findById(job).orElseThrow();
+		lease.setOwner("other-node");
+		lease.setFencingToken(fencingToken + 1);
+		lease.setExpiresAt(LocalDateTime.now().plusMinutes(1));
+		jobLeaseRepository.save(lease);
+
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> jobLeases.fence(job, fencingToken)))
+				.isInstanceOf(LeaseLostException.class);
+		// The renewer finds the lease held by a live node
+		assertThat(jobLeaseRepository.findById(job).orElseThrow().getOwner()).isEqualTo("other-node");
+	}
+
+	@Test
+	void nodesWithoutTheLeaseHaveNoToken() {
+		assertThat(jobLeases.fencingToken(job)).isZero();
+	}
+}
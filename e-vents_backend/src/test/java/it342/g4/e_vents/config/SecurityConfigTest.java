@@ -0,0 +1,88 @@
+package it342.g4.e_vents.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import it342.g4.e_vents.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletRequest;
+
+class SecurityConfigTest {
+
+	private static final Supplier<Authentication> ANONYMOUS = () -> new AnonymousAuthenticationToken("key", "anonymousUser",
+			List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS")));
+
+	private final AuthorizationManager<HttpServletRequest> rules = SecurityConfig.authorizationRules();
+
+	@Test
+	void usersUpdateOnlyTheirOwnProfile() {
+		assertThat(allowed(user(5L, "USER"), "PUT", "/api/users/5")).isTrue();
+		assertThat(allowed(user(6L, "USER"), "PUT", "/api/users/5")).isFalse();
+		assertThat(allowed(user(1L, "ADMIN"), "PUT", "/api/users/5")).isTrue();
+		assertThat(allowed(ANONYMOUS, "PUT", "/api/users/5")).isFalse();
+		assertThat(allowed(ANONYMOUS, "POST", "/api/users/change-password")).isFalse();
+	}
+
+	@Test
+	void ticketHolderDataNeedsTheHolderOrStaff() {
+		assertThat(allowed(user(5L, "USER"), "GET", "/api/tickets/user/5")).isTrue();
+		assertThat(allowed(user(6L, "USER"), "GET", "/api/tickets/user/5")).isFalse();
+		assertThat(allowed(user(6L, "USER"), "GET", "/api/tickets/category/3")).isFalse();
+		assertThat(allowed(user(6L, "ORGANIZER"), "GET", "/api/tickets/category/3")).isTrue();
+		assertThat(allowed(ANONYMOUS, "GET", "/api/tickets/7")).isFalse();
+		assertThat(allowed(ANONYMOUS, "GET", "/api/tickets")).isFalse();
+		assertThat(allowed(ANONYMOUS, "GET", "/api/tickets/count")).isTrue();
+	}
+
+	@Test
+	void notificationsAreWrittenByAdminsAndReadByRecipients() {
+		assertThat(allowed(user(5L, "USER"), "POST", "/api/notifications")).isFalse();
+		assertThat(allowed(user(5L, "USER"), "PUT", "/api/notifications/9")).isFalse();
+		assertThat(allowed(user(5L, "USER"), "DELETE", "/api/notifications/9/deactivate")).isFalse();
+		assertThat(allowed(user(5L, "USER"), "PUT", "/api/notifications/9/read")).isTrue();
+		assertThat(allowed(user(5L, "USER"), "GET", "/api/notifications/user/5/unread")).isTrue();
+		assertThat(allowed(user(6L, "USER"), "GET", "/api/notifications/user/5")).isFalse();
+		assertThat(allowed(user(1L, "ADMIN"), "POST", "/api/notifications")).isTrue();
+	}
+
+	@Test
+	void ratingsAndPaymentsNeedALogin() {
+		assertThat(allowed(ANONYMOUS, "PUT", "/api/ratings/4")).isFalse();
+		assertThat(allowed(ANONYMOUS, "DELETE", "/api/ratings/4")).isFalse();
+		assertThat(allowed(user(5L, "USER"), "DELETE", "/api/ratings/4")).isTrue();
+		assertThat(allowed(ANONYMOUS, "POST", "/api/payment/create-payment-intent")).isFalse();
+		assertThat(allowed(user(5L, "USER"), "POST", "/api/payment/create-payment-intent")).isTrue();
+	}
+
+	@Test
+	void onlyHealthIsPublicOnTheActuator() {
+		assertThat(allowed(ANONYMOUS, "GET", "/actuator/health")).isTrue();
+		assertThat(allowed(ANONYMOUS, "GET", "/actuator/health/liveness")).isTrue();
+		assertThat(allowed(ANONYMOUS, "GET", "/actuator/prometheus")).isFalse();
+		assertThat(allowed(user(5L, "USER"), "GET", "/actuator/metrics")).isFalse();
+		assertThat(allowed(user(1L, "ADMIN"), "GET", "/actuator/prometheus")).isTrue();
+	}
+
+	private boolean allowed(Supplier<Authentication> authentication, String method, String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		AuthorizationResult result = rules.authorize(authentication, request);
+		return result != null && result.isGranted();
+	}
+
+	private static Supplier<Authentication> user(Long userId, String role) {
+		AuthenticatedUser principal = new AuthenticatedUser(userId, "user" + userId + "@events.test", role);
+		return () -> new UsernamePasswordAuthenticationToken(principal, null,
+				List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+	}
+}
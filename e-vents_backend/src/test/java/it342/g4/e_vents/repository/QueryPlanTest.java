@@ -0,0 +1,323 @@
+package it342.g4.e_vents.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import it342.g4.e_vents.metrics.SqlStatementInspector;
+import it342.g4.e_vents.model.Category;
+import it342.g4.e_vents.model.Rating;
+import it342.g4.e_vents.model.User;
+
+/**
+ * Checks that the selective repository queries are answered from an index.
+ * Every statement Hibernate prepares for a repository call is taken from the
+ * SqlStatementInspector log, with the sample rate at 1, and explained on H2;
+ * a plan that reads a table from end to end fails the test. Queries that read
+ * a whole table on purpose (findAll, findByIsActiveTrue, the
+ * count*ByIsActiveTrue totals, substring searches and the aggregates of the
+ * notification purge) are not called. Add a call here with every new
+ * repository query.
+ *
+ * The context has a database of its own so the inspector setting does not
+ * leak into the other tests.
+ */
+@SpringBootTest(properties = {
+		"metrics.sql.sample-rate=1",
+		"spring.datasource.url=jdbc:h2:mem:e-vents-plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("test")
+@Transactional
+class QueryPlanTest {
+
+	// H2 names the access path of each table in a comment: /* public.tickets.tableScan */ or /* public.idx: cond */
+	private static final Pattern H2_ACCESS = Pattern.compile("/\\* ([\\w.]+)(:[^*]*)? \\*/");
+
+	private static final LocalDateTime CUTOFF = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketCategoryRepository ticketCategoryRepository;
+
+	@Autowired
+	private RatingRepository ratingRepository;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private EventRepository eventRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private ActRepository actRepository;
+
+	@Autowired
+	private TagsRepository tagsRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private RefundJobRepository refundJobRepository;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private CacheInvalidationRepository cacheInvalidationRepository;
+
+	@Autowired
+	private EventReminderRepository eventReminderRepository;
+
+	@Autowired
+	private SalesRollupRepository salesRollupRepository;
+
+	@Autowired
+	private CheckInRepository checkInRepository;
+
+	@Autowired
+	private ArchivedEventRepository archivedEventRepository;
+
+	private final Logger inspectorLogger = (Logger) LoggerFactory.getLogger(SqlStatementInspector.class);
+
+	private final ListAppender<ILoggingEvent> statements = new ListAppender<>();
+
+	@BeforeEach
+	void captureStatements() {
+		statements.start();
+		inspectorLogger.addAppender(statements);
+	}
+
+	@AfterEach
+	void stopCapturing() {
+		inspectorLogger.detachAppender(statements);
+		statements.stop();
+	}
+
+	@Test
+	void ticketQueriesUseAnIndex() {
+		assertIndexed("findByUserUserIdAndIsActiveTrue", () -> ticketRepository.findByUserUserIdAndIsActiveTrue(1L));
+		assertIndexed("findByTicketCategoryEventEventIdAndIsActiveTrue",
+				() -> ticketRepository.findByTicketCategoryEventEventIdAndIsActiveTrue(1L));
+		assertIndexed("findByTicketCategoryTicketCategoryIdAndIsActiveTrue",
+				() -> ticketRepository.findByTicketCategoryTicketCategoryIdAndIsActiveTrue(1L));
+		assertIndexed("findByStatus", () -> ticketRepository.findByStatus("REFUNDED"));
+		assertIndexed("findByTicketIdAndIsActiveTrue", () -> ticketRepository.findByTicketIdAndIsActiveTrue(1L));
+		assertIndexed("streamAttendeesByEventId", () -> drain(ticketRepository.streamAttendeesByEventId(1L)));
+		assertIndexed("streamPurchasesByEventId", () -> drain(ticketRepository.streamPurchasesByEventId(1L)));
+		assertIndexed("findRefundableChunk", () -> ticketRepository.findRefundableChunk(1L, 0, PageRequest.of(0, 500)));
+		assertIndexed("markRefunded", () -> ticketRepository.markRefunded(List.of(1L, 2L, 3L), CUTOFF));
+		assertIndexed("deactivateHoldingSeat", () -> ticketRepository.deactivateHoldingSeat(1L, CUTOFF));
+		assertIndexed("deactivate", () -> ticketRepository.deactivate(1L, CUTOFF));
+		assertIndexed("restore", () -> ticketRepository.restore(1L, CUTOFF));
+		assertIndexed("findRevokedTicketIdsByEventId", () -> ticketRepository.findRevokedTicketIdsByEventId(1L));
+		assertIndexed("streamAdmittingTicketsByEventId",
+				() -> drain(ticketRepository.streamAdmittingTicketsByEventId(1L, CUTOFF)));
+		assertIndexed("streamRevokedTicketIdsByEventId",
+				() -> drain(ticketRepository.streamRevokedTicketIdsByEventId(1L, CUTOFF)));
+		assertIndexed("findIdsByEventId", () -> ticketRepository.findIdsByEventId(1L, PageRequest.of(0, 500)));
+		assertIndexed("deleteByIds", () -> ticketRepository.deleteByIds(List.of(1L, 2L, 3L)));
+	}
+
+	@Test
+	void ticketCategoryQueriesUseAnIndex() {
+		assertIndexed("findByStatus", () -> ticketCategoryRepository.findByStatus("CLOSED"));
+		assertIndexed("existsByName", () -> ticketCategoryRepository.existsByName("VIP"));
+		assertIndexed("findByEventEventIdAndIsActiveTrue",
+				() -> ticketCategoryRepository.findByEventEventIdAndIsActiveTrue(1L));
+		assertIndexed("findAvailableTicketCategoriesByEventId",
+				() -> ticketCategoryRepository.findAvailableTicketCategoriesByEventId(1L));
+		assertIndexed("reserveTicket", () -> ticketCategoryRepository.reserveTicket(1L));
+		assertIndexed("closeSalesByEventId", () -> ticketCategoryRepository.closeSalesByEventId(1L));
+		assertIndexed("releaseTickets", () -> ticketCategoryRepository.releaseTickets(1L, 1));
+		assertIndexed("findTicketsSold", () -> ticketCategoryRepository.findTicketsSold(1L));
+		assertIndexed("deleteByEventId", () -> ticketCategoryRepository.deleteByEventId(1L));
+	}
+
+	@Test
+	void ratingAndNotificationQueriesUseAnIndex() {
+		User user = new User();
+		user.setUserId(1L);
+
+		assertIndexed("findByRatedEntityIdAndRatedEntityTypeAndIsActiveTrue",
+				() -> ratingRepository.findByRatedEntityIdAndRatedEntityTypeAndIsActiveTrue(1L, Rating.EntityType.EVENT));
+		assertIndexed("findByRatedEntityIdAndRatedEntityType",
+				() -> ratingRepository.findByRatedEntityIdAndRatedEntityType(1L, Rating.EntityType.EVENT));
+		assertIndexed("findByUserUserIdAndIsActiveTrue", () -> ratingRepository.findByUserUserIdAndIsActiveTrue(1L));
+		assertIndexed("findByUserAndIsActiveTrue", () -> ratingRepository.findByUserAndIsActiveTrue(user));
+
+		assertIndexed("findByUserUserIdAndIsActiveTrue",
+				() -> notificationRepository.findByUserUserIdAndIsActiveTrue(1L));
+		assertIndexed("findByUserUserIdAndReadFalseAndIsActiveTrue",
+				() -> notificationRepository.findByUserUserIdAndReadFalseAndIsActiveTrue(1L));
+		assertIndexed("findIdsByEventId", () -> notificationRepository.findIdsByEventId(1L, PageRequest.of(0, 500)));
+		assertIndexed("deleteByIds", () -> notificationRepository.deleteByIds(List.of(1L, 2L, 3L)));
+		assertIndexed("deleteByTypeCreatedBefore",
+				() -> notificationRepository.deleteByTypeCreatedBefore("SYSTEM", CUTOFF, 1000));
+		assertIndexed("deleteReadBefore", () -> notificationRepository.deleteReadBefore(CUTOFF, 1000));
+		assertIndexed("findNewestIdOverCap", () -> notificationRepository.findNewestIdOverCap(1L, 200));
+		assertIndexed("deleteByUserUpTo", () -> notificationRepository.deleteByUserUpTo(1L, 1000, 1000));
+	}
+
+	@Test
+	void eventAndUserQueriesUseAnIndex() {
+		assertIndexed("findByStatus", () -> eventRepository.findByStatus("SCHEDULED"));
+		assertIndexed("findByStatus(Pageable)", () -> eventRepository.findByStatus("SCHEDULED", PageRequest.of(0, 20)));
+		assertIndexed("findStoredStatusById", () -> eventRepository.findStoredStatusById(1L));
+		assertIndexed("findStartsByStatusUntil",
+				() -> eventRepository.findStartsByStatusUntil("SCHEDULED", CUTOFF.toLocalDate()));
+		assertIndexed("findStartsByStatusBetween", () -> eventRepository.findStartsByStatusBetween("SCHEDULED",
+				CUTOFF.toLocalDate(), CUTOFF.toLocalDate().plusDays(1)));
+		assertIndexed("findScheduleById", () -> eventRepository.findScheduleById(1L));
+		assertIndexed("transition", () -> eventRepository.transition(1L, "SCHEDULED", "ONGOING",
+				LocalDate.of(2026, 1, 1), LocalTime.NOON));
+		assertIndexed("findArchivable",
+				() -> eventRepository.findArchivable(CUTOFF.toLocalDate(), PageRequest.of(0, 20)));
+		assertIndexed("countArchivable", () -> eventRepository.countArchivable(1L, CUTOFF.toLocalDate()));
+		assertIndexed("deleteLineup", () -> eventRepository.deleteLineup(1L));
+		assertIndexed("deleteRow", () -> eventRepository.deleteRow(1L));
+
+		assertIndexed("findByEmail", () -> userRepository.findByEmail("admin@events.com"));
+		assertIndexed("existsByEmail", () -> userRepository.existsByEmail("admin@events.com"));
+		assertIndexed("findIdsByIsActiveFalse", () -> userRepository.findIdsByIsActiveFalse());
+		assertIndexed("findSummaryById", () -> userRepository.findSummaryById(1L));
+
+		assertIndexed("findByTokenHash", () -> refreshTokenRepository.findByTokenHash("x"));
+		assertIndexed("revokeIfActive", () -> refreshTokenRepository.revokeIfActive(1L));
+		assertIndexed("revokeFamily", () -> refreshTokenRepository.revokeFamily("x"));
+		assertIndexed("revokeAllForUser", () -> refreshTokenRepository.revokeAllForUser(1L));
+		assertIndexed("deleteExpiredBefore", () -> refreshTokenRepository.deleteExpiredBefore(CUTOFF));
+	}
+
+	@Test
+	void catalogAndJobQueriesUseAnIndex() {
+		Category category = new Category();
+		category.setCategoryId(1L);
+
+		assertIndexed("findByName", () -> actRepository.findByName("x"));
+		assertIndexed("existsByName", () -> actRepository.existsByName("x"));
+		assertIndexed("findByName", () -> tagsRepository.findByName("x"));
+		assertIndexed("existsByName", () -> tagsRepository.existsByName("x"));
+		assertIndexed("findByCategory", () -> tagsRepository.findByCategory(category));
+		assertIndexed("findByTagIdAndIsActiveTrue", () -> tagsRepository.findByTagIdAndIsActiveTrue(1L));
+		assertIndexed("findByName", () -> categoryRepository.findByName("x"));
+		assertIndexed("existsByName", () -> categoryRepository.existsByName("x"));
+		assertIndexed("findByName", () -> roleRepository.findByName("ADMIN"));
+		assertIndexed("existsByName", () -> roleRepository.existsByName("ADMIN"));
+
+		assertIndexed("findByStatus", () -> refundJobRepository.findByStatus("RUNNING"));
+		assertIndexed("findBatch", () -> outboxEventRepository.findBatch(0, PageRequest.of(0, 500)));
+		assertIndexed("deleteHandled", () -> outboxEventRepository.deleteHandled(0, CUTOFF, 1000));
+		assertIndexed("findBatch", () -> cacheInvalidationRepository.findBatch(0, PageRequest.of(0, 1000)));
+		assertIndexed("deleteIssuedBefore", () -> cacheInvalidationRepository.deleteIssuedBefore(0));
+		assertIndexed("deleteStartedBefore", () -> eventReminderRepository.deleteStartedBefore(CUTOFF, 1000));
+		assertIndexed("recordRefund", () -> salesRollupRepository.recordRefund(1L, CUTOFF, 1, 1000.0));
+		assertIndexed("sumByTicketCategory", () -> salesRollupRepository.sumByTicketCategory(1L));
+		assertIndexed("findEventBuckets",
+				() -> salesRollupRepository.findEventBuckets(1L, CUTOFF, CUTOFF.plusDays(1)));
+		assertIndexed("findTicketCategoryBuckets",
+				() -> salesRollupRepository.findTicketCategoryBuckets(1L, CUTOFF, CUTOFF.plusDays(1)));
+		assertIndexed("sumEventBefore", () -> salesRollupRepository.sumEventBefore(1L, CUTOFF));
+		assertIndexed("sumTicketCategoryBefore", () -> salesRollupRepository.sumTicketCategoryBefore(1L, CUTOFF));
+		assertIndexed("deleteByEventId", () -> salesRollupRepository.deleteByEventId(1L));
+		assertIndexed("findTicketIdsByEventId", () -> checkInRepository.findTicketIdsByEventId(1L));
+		assertIndexed("countByEventId", () -> checkInRepository.countByEventId(1L));
+		assertIndexed("findByStatus", () -> archivedEventRepository.findByStatus("COMPLETED"));
+	}
+
+	/**
+	 * Runs a repository call and fails if any statement it prepared reads a table by a full scan
+	 * @param method Repository method, for the failure message
+	 * @param call The repository call
+	 */
+	private void assertIndexed(String method, Runnable call) {
+		statements.list.clear();
+		call.run();
+		List<String> sql = capturedStatements();
+		assertThat(sql).as("statements of %s", method).isNotEmpty();
+		for (String statement : sql) {
+			assertThat(accessPaths(statement))
+					.as("%s: %s", method, statement)
+					.noneMatch(path -> path.startsWith("SCAN "));
+		}
+	}
+
+	private List<String> capturedStatements() {
+		String thread = Thread.currentThread().getName();
+		List<String> sql = new ArrayList<>();
+		for (ILoggingEvent event : statements.list) {
+			// Scheduled jobs of the context run on other threads
+			if (thread.equals(event.getThreadName())) {
+				sql.add(String.valueOf(event.getArgumentArray()[0]));
+			}
+		}
+		return sql;
+	}
+
+	/**
+	 * Access path per table: "SCAN table" for a full table or index scan, the index used otherwise
+	 */
+	private List<String> accessPaths(String sql) {
+		List<String> access = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection();
+			 PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql);
+			 ResultSet rows = explain.executeQuery()) {
+			rows.next();
+			Matcher matcher = H2_ACCESS.matcher(rows.getString(1));
+			while (matcher.find()) {
+				String path = matcher.group(1);
+				// An index without a condition is read from end to end
+				access.add(path.endsWith(".tableScan") || matcher.group(2) == null
+						? "SCAN " + path.replace(".tableScan", "") : path);
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not explain " + sql, e);
+		}
+		return access;
+	}
+
+	private static void drain(Stream<?> rows) {
+		try (rows) {
+			rows.forEach(row -> { });
+		}
+	}
+}
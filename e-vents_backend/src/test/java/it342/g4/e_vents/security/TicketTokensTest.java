@@ -0,0 +1,67 @@
+package it342.g4.e_vents.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import it342.g4.e_vents.security.TicketTokens.TicketToken;
+
+class TicketTokensTest {
+
+	private final TicketTokens ticketTokens = new TicketTokens("test-secret-for-ticket-tokens-0123456789");
+
+	@Test
+	void issuedTokensVerifyToTheirIds() {
+		assertThat(ticketTokens.verify(ticketTokens.issue(1, 2, 3))).isEqualTo(new TicketToken(1, 2, 3));
+		assertThat(ticketTokens.verify(ticketTokens.issue(123456789, 0, 42))).isEqualTo(new TicketToken(123456789, 0, 42));
+		assertThat(ticketTokens.verify(ticketTokens.issue(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE)))
+				.isEqualTo(new TicketToken(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE));
+	}
+
+	@Test
+	void tokensStayShortEnoughForASmallQrCode() {
+		assertThat(ticketTokens.issue(20_000_000, 100_000, 500_000)).hasSizeLessThanOrEqualTo(40);
+	}
+
+	@Test
+	void changingAnyByteIsRejected() {
+		byte[] bytes = decode(ticketTokens.issue(1001, 7, 19));
+		for (int i = 0; i < bytes.length; i++) {
+			byte[] tampered = bytes.clone();
+			tampered[i] ^= 0x01;
+			assertThat(ticketTokens.verify(encode(tampered))).as("byte %d flipped", i).isNull();
+		}
+	}
+
+	@Test
+	void tokensSignedWithAnotherSecretAreRejected() {
+		TicketTokens other = new TicketTokens("some-other-secret-for-ticket-tokens-987");
+
+		assertThat(ticketTokens.verify(other.issue(1001, 7, 19))).isNull();
+	}
+
+	@Test
+	void malformedTokensAreRejected() {
+		String token = ticketTokens.issue(1001, 7, 19);
+		byte[] bytes = decode(token);
+		byte[] extended = new byte[bytes.length + 1];
+		System.arraycopy(bytes, 0, extended, 0, bytes.length);
+
+		assertThat(ticketTokens.verify(null)).isNull();
+		assertThat(ticketTokens.verify("")).isNull();
+		assertThat(ticketTokens.verify("not base64!")).isNull();
+		assertThat(ticketTokens.verify(token.substring(0, token.length() - 2))).isNull();
+		assertThat(ticketTokens.verify(encode(extended))).isNull();
+		assertThat(ticketTokens.verify("A".repeat(200))).isNull();
+	}
+
+	private static byte[] decode(String token) {
+		return Base64.getUrlDecoder().decode(token);
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
@@ -0,0 +1,115 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.dto.ImportReport;
+import it342.g4.e_vents.dto.ImportReport.RowError;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.util.DataFormat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class BulkImportServiceTest {
+
+	@Autowired
+	private BulkImportService bulkImportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TestData testData;
+
+	private Event event;
+
+	@BeforeEach
+	void createEvent() {
+		event = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(30), Event.STATUS_SCHEDULED);
+	}
+
+	@Test
+	void csvRowErrorsAreReportedAndTheOtherRowsImported() {
+		ImportReport report = importTicketCategories(DataFormat.CSV,
+				"eventId,name,price,totalTickets\n"
+				+ event.getEventId() + ",VIP,5000,100\n"
+				+ event.getEventId() + ",Cheap,-1,100\n"
+				+ event.getEventId() + ",,1000,100\n"
+				+ "999999,Ghost,1000,100\n"
+				+ event.getEventId() + ",Balcony,1500,abc\n"
+				+ event.getEventId() + ",General,1000,500\n");
+
+		assertThat(report.getRowsRead()).isEqualTo(6);
+		assertThat(report.getRowsImported()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RowError::getRow).containsExactly(2L, 3L, 4L, 5L);
+		assertThat(report.getErrors()).extracting(RowError::getMessage).containsExactly(
+				"Price cannot be negative", "Missing required column: name",
+				"Event not found with ID: 999999", "Invalid totalTickets: abc");
+		assertThat(categoryCount()).isEqualTo(2);
+	}
+
+	@Test
+	void malformedNdjsonLinesAreRowErrors() {
+		long id = event.getEventId();
+		ImportReport report = importTicketCategories(DataFormat.NDJSON,
+				"{\"eventId\": " + id + ", \"name\": \"VIP\", \"price\": 5000, \"totalTickets\": 100}\n"
+				+ "{\"eventId\": " + id + ", \"name\": \n"
+				+ "[1, 2, 3]\n"
+				+ "\n"
+				+ "{\"eventId\": " + id + ", \"name\": \"General\", \"price\": 1000, \"totalTickets\": 500}\n");
+
+		assertThat(report.getRowsRead()).isEqualTo(4);
+		assertThat(report.getRowsImported()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RowError::getRow).containsExactly(2L, 3L);
+		assertThat(report.getErrors().get(0).getMessage()).startsWith("Malformed JSON");
+		assertThat(report.getErrors().get(1).getMessage()).isEqualTo("Expected a JSON object per line");
+		assertThat(categoryCount()).isEqualTo(2);
+	}
+
+	@Test
+	void ticketCategoryStatusMustBeKnown() {
+		ImportReport report = importTicketCategories(DataFormat.CSV,
+				"eventId,name,price,totalTickets,status\n"
+				+ event.getEventId() + ",VIP,5000,100,BOGUS\n"
+				+ event.getEventId() + ",General,1000,500,CLOSED\n");
+
+		assertThat(report.getRowsImported()).isEqualTo(1);
+		assertThat(report.getErrors()).extracting(RowError::getMessage).containsExactly("Invalid status: BOGUS");
+	}
+
+	@Test
+	void ticketCategoriesOfDeletedEventsAreRejected() {
+		jdbcTemplate.update("UPDATE events SET is_active = false WHERE event_id = ?", event.getEventId());
+
+		ImportReport report = importTicketCategories(DataFormat.CSV,
+				"eventId,name,price,totalTickets\n" + event.getEventId() + ",VIP,5000,100\n");
+
+		assertThat(report.getRowsImported()).isZero();
+		assertThat(report.getErrors()).extracting(RowError::getMessage)
+				.containsExactly("Event not found with ID: " + event.getEventId());
+	}
+
+	private ImportReport importTicketCategories(DataFormat format, String body) {
+		return bulkImportService.importTicketCategories(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+	}
+
+	private long categoryCount() {
+		Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ticket_categories WHERE event_id = ?",
+				Long.class, event.getEventId());
+		return count != null ? count : 0;
+	}
+}
@@ -0,0 +1,163 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.dto.CheckInResult;
+import it342.g4.e_vents.dto.CheckInResult.Outcome;
+import it342.g4.e_vents.dto.ScanLogEntry;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.repository.CheckInRepository;
+import it342.g4.e_vents.security.TicketTokens;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class CheckInServiceTest {
+
+	@Autowired
+	private CheckInService checkInService;
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private RefundService refundService;
+
+	@Autowired
+	private TicketTokens ticketTokens;
+
+	@Autowired
+	private CheckInRepository checkInRepository;
+
+	@Autowired
+	private TestData testData;
+
+	private Event event;
+
+	private TicketCategory category;
+
+	@BeforeEach
+	void setUp() {
+		event = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(1), Event.STATUS_SCHEDULED);
+		category = testData.ticketCategory(event, 100, 10);
+	}
+
+	@Test
+	void secondScanOfATicketIsADuplicate() {
+		String token = token(newTicket());
+
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), "North", List.of(token))))
+				.containsExactly(Outcome.ADMITTED);
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), "South", List.of(token))))
+				.containsExactly(Outcome.DUPLICATE);
+		assertThat(checkInService.countCheckedIn(event.getEventId())).isEqualTo(1);
+	}
+
+	@Test
+	void duplicatesWithinOneBatchAreCaught() {
+		String first = token(newTicket());
+		String second = token(newTicket());
+
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(first, second, first))))
+				.containsExactly(Outcome.ADMITTED, Outcome.ADMITTED, Outcome.DUPLICATE);
+	}
+
+	@Test
+	void admissionsSurviveAFlush() {
+		String token = token(newTicket());
+		checkInService.checkIn(event.getEventId(), "North", List.of(token));
+
+		checkInService.flush();
+
+		assertThat(checkInRepository.countByEventId(event.getEventId())).isEqualTo(1);
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), "North", List.of(token))))
+				.containsExactly(Outcome.DUPLICATE);
+	}
+
+	@Test
+	void ticketsRevokedBeforeTheFirstScanAreRefused() {
+		Ticket deactivated = newTicket();
+		Ticket refunded = newTicket();
+		ticketService.deactivateTicket(deactivated.getTicketId());
+		refundService.refundTicket(refunded.getTicketId());
+
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(token(deactivated), token(refunded)))))
+				.containsExactly(Outcome.REVOKED, Outcome.REVOKED);
+	}
+
+	@Test
+	void ticketsRevokedAfterScanningStartedAreRefused() {
+		Ticket ticket = newTicket();
+		checkInService.checkIn(event.getEventId(), null, List.of(token(newTicket())));
+
+		refundService.refundTicket(ticket.getTicketId());
+
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(token(ticket)))))
+				.containsExactly(Outcome.REVOKED);
+		assertThat(checkInService.countCheckedIn(event.getEventId())).isEqualTo(1);
+	}
+
+	@Test
+	void restoredTicketsAreAdmittedAgain() {
+		Ticket ticket = newTicket();
+		checkInService.checkIn(event.getEventId(), null, List.of(token(newTicket())));
+		ticketService.deactivateTicket(ticket.getTicketId());
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(token(ticket)))))
+				.containsExactly(Outcome.REVOKED);
+
+		ticketService.restoreTicket(ticket.getTicketId());
+
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(token(ticket)))))
+				.containsExactly(Outcome.ADMITTED);
+	}
+
+	@Test
+	void forgedAndForeignTokensAreRefused() {
+		Ticket ticket = newTicket();
+		String forged = new TicketTokens("not-the-configured-secret-0123456789abcd")
+				.issue(ticket.getTicketId(), event.getEventId(), category.getTicketCategoryId());
+		String otherEvent = ticketTokens.issue(ticket.getTicketId(), event.getEventId() + 1, category.getTicketCategoryId());
+
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(forged, otherEvent, "garbage"))))
+				.containsExactly(Outcome.INVALID, Outcome.WRONG_EVENT, Outcome.INVALID);
+		assertThat(outcomes(checkInService.checkIn(event.getEventId(), null, List.of(token(ticket)))))
+				.containsExactly(Outcome.ADMITTED);
+	}
+
+	@Test
+	void earlierOfflineScanKeepsTheAdmission() {
+		String token = token(newTicket());
+		LocalDateTime now = LocalDateTime.now();
+
+		List<CheckInResult> results = checkInService.reconcile(event.getEventId(), List.of(
+				new ScanLogEntry(token, "South", now.minusMinutes(1)),
+				new ScanLogEntry(token, "North", now.minusMinutes(5))));
+
+		assertThat(outcomes(results)).containsExactly(Outcome.DUPLICATE, Outcome.ADMITTED);
+	}
+
+	private Ticket newTicket() {
+		return testData.ticket(category, testData.user("USER"));
+	}
+
+	private String token(Ticket ticket) {
+		return ticketTokens.issue(ticket.getTicketId(), event.getEventId(), category.getTicketCategoryId());
+	}
+
+	private static List<Outcome> outcomes(List<CheckInResult> results) {
+		return results.stream().map(CheckInResult::getOutcome).toList();
+	}
+}
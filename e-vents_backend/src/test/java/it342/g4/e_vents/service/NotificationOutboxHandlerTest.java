@@ -0,0 +1,103 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Notification;
+import it342.g4.e_vents.model.OutboxEvent;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.NotificationRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class NotificationOutboxHandlerTest {
+
+	@Autowired
+	private NotificationOutboxHandler notificationOutboxHandler;
+
+	@Autowired
+	private RefundService refundService;
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private TestData testData;
+
+	private Event event;
+
+	private User holder;
+
+	private User refunded;
+
+	private User deactivated;
+
+	@BeforeEach
+	void setUp() {
+		event = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(30), Event.STATUS_SCHEDULED);
+		TicketCategory category = testData.ticketCategory(event, 10, 3);
+		holder = testData.user("USER");
+		refunded = testData.user("USER");
+		deactivated = testData.user("USER");
+		testData.ticket(category, holder);
+		refundService.refundTicket(testData.ticket(category, refunded).getTicketId());
+		ticketService.deactivateTicket(testData.ticket(category, deactivated).getTicketId());
+	}
+
+	@Test
+	void postponementReachesOnlyHoldersOfValidTickets() {
+		notificationOutboxHandler.handle(List.of(new OutboxEvent(OutboxEvent.EVENT_POSTPONED, event.getEventId(),
+				"{}", LocalDateTime.now())));
+
+		assertThat(notificationTitles(holder)).containsExactly("Event postponed");
+		assertThat(notificationTitles(refunded)).isEmpty();
+		assertThat(notificationTitles(deactivated)).isEmpty();
+	}
+
+	@Test
+	void remindersReachOnlyHoldersOfValidTickets() {
+		notificationOutboxHandler.handle(List.of(new OutboxEvent(OutboxEvent.EVENT_REMINDER, event.getEventId(),
+				"{\"offsetMinutes\":60}", LocalDateTime.now())));
+
+		assertThat(notificationTitles(holder)).containsExactly("Event reminder");
+		assertThat(notificationTitles(refunded)).isEmpty();
+	}
+
+	@Test
+	void cancellationAlsoReachesHoldersItRefunded() {
+		// Relayed after the refund job already refunded a holder's ticket
+		LocalDateTime cancelledAt = LocalDateTime.now();
+		User refundedByCancellation = testData.user("USER");
+		TicketCategory category = testData.ticketCategory(event, 10, 1);
+		refundService.refundTicket(testData.ticket(category, refundedByCancellation).getTicketId());
+
+		notificationOutboxHandler.handle(List.of(new OutboxEvent(OutboxEvent.EVENT_CANCELLED, event.getEventId(),
+				"{}", cancelledAt)));
+
+		assertThat(notificationTitles(holder)).containsExactly("Event cancelled");
+		assertThat(notificationTitles(refundedByCancellation)).containsExactly("Event cancelled");
+		assertThat(notificationTitles(refunded)).isEmpty();
+	}
+
+	private List<String> notificationTitles(User user) {
+		return notificationRepository.findByUserUserIdAndIsActiveTrue(user.getUserId()).stream()
+				.map(Notification::getTitle)
+				.toList();
+	}
+}
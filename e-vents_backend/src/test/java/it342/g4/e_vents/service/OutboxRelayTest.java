@@ -0,0 +1,119 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.model.OutboxEvent;
+import it342.g4.e_vents.repository.OutboxCheckpointRepository;
+import it342.g4.e_vents.repository.OutboxEventRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import({TestData.class, OutboxRelayTest.LateEventRecorder.class})
+class OutboxRelayTest {
+
+	// Poll interval, with room for a slow build machine
+	private static final Duration BOUND = Duration.ofSeconds(15);
+
+	@Autowired
+	private LateEventRecorder recorder;
+
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+
+	@Autowired
+	private OutboxCheckpointRepository outboxCheckpointRepository;
+
+	@Autowired
+	private TestData testData;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void relayOnThisContext() {
+		testData.takeLease(OutboxRelay.RELAY_JOB);
+		awaitTrue(() -> outboxCheckpointRepository.existsById(LateEventRecorder.NAME));
+	}
+
+	@Test
+	void eventCommittedAfterItsGapWasSkippedIsStillRelayed() {
+		// The first insert stands in for a slow transaction that has not committed yet
+		LocalDateTime createdAt = LocalDateTime.now().minusMinutes(1);
+		OutboxEvent[] events = new TransactionTemplate(transactionManager).execute(status -> {
+			OutboxEvent slow = outboxEventRepository.save(new OutboxEvent(LateEventRecorder.TYPE, 1L, "{}", createdAt));
+			OutboxEvent next = outboxEventRepository.save(new OutboxEvent(LateEventRecorder.TYPE, 2L, "{}", createdAt));
+			outboxEventRepository.delete(slow);
+			return new OutboxEvent[] {slow, next};
+		});
+		Long slowId = events[0].getEventId();
+		Long nextId = events[1].getEventId();
+		awaitTrue(() -> outboxCheckpointRepository.findById(LateEventRecorder.NAME).orElseThrow()
+				.getLastEventId() >= nextId);
+		assertThat(recorder.eventIds).containsExactly(nextId);
+
+		jdbcTemplate.update("INSERT INTO outbox_events (event_id, type, aggregate_id, payload, created_at) "
+				+ "VALUES (?, ?, 1, '{}', ?)", slowId, LateEventRecorder.TYPE, Timestamp.valueOf(createdAt));
+
+		awaitTrue(() -> recorder.eventIds.size() == 2);
+		assertThat(recorder.eventIds).containsExactly(nextId, slowId);
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + BOUND.toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition within %s", BOUND).isLessThan(deadline);
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	@TestComponent
+	static class LateEventRecorder implements OutboxHandler {
+
+		static final String NAME = "test-late-event-recorder";
+		static final String TYPE = "TEST_LATE_EVENT";
+
+		final List<Long> eventIds = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String name() {
+			return NAME;
+		}
+
+		@Override
+		public boolean handles(String type) {
+			return TYPE.equals(type);
+		}
+
+		@Override
+		public void handle(List<OutboxEvent> events) {
+			events.forEach(event -> eventIds.add(event.getEventId()));
+		}
+	}
+}
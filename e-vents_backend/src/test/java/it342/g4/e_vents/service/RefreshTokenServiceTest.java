@@ -0,0 +1,74 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.model.User;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class RefreshTokenServiceTest {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private TestData testData;
+
+	private User user;
+
+	@BeforeEach
+	void createUser() {
+		user = testData.user("USER");
+	}
+
+	@Test
+	void rotationReplacesTheToken() {
+		String first = refreshTokenService.issue(user.getUserId());
+
+		RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+		assertThat(rotation.user().getUserId()).isEqualTo(user.getUserId());
+		assertThat(rotation.refreshToken()).isNotEqualTo(first);
+		assertThat(refreshTokenService.rotate(rotation.refreshToken()).user().getUserId()).isEqualTo(user.getUserId());
+	}
+
+	@Test
+	void reusingATokenRevokesTheWholeSession() {
+		String first = refreshTokenService.issue(user.getUserId());
+		String second = refreshTokenService.rotate(first).refreshToken();
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(first))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Refresh token has already been used");
+		assertThatThrownBy(() -> refreshTokenService.rotate(second))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Refresh token has already been used");
+	}
+
+	@Test
+	void otherSessionsSurviveReuse() {
+		String leaked = refreshTokenService.issue(user.getUserId());
+		String otherDevice = refreshTokenService.issue(user.getUserId());
+		refreshTokenService.rotate(leaked);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(leaked)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(refreshTokenService.rotate(otherDevice).refreshToken()).isNotBlank();
+	}
+
+	@Test
+	void unknownTokensAreRejected() {
+		assertThatThrownBy(() -> refreshTokenService.rotate("not-a-token"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid refresh token");
+	}
+}
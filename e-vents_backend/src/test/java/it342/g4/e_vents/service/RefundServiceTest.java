@@ -0,0 +1,137 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.RefundJob;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.EventRepository;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class RefundServiceTest {
+
+	@Autowired
+	private RefundService refundService;
+
+	@Autowired
+	private EventService eventService;
+
+	@Autowired
+	private EventRepository eventRepository;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketCategoryRepository ticketCategoryRepository;
+
+	@Autowired
+	private TestData testData;
+
+	private User holder;
+
+	private Event event;
+
+	private TicketCategory category;
+
+	@BeforeEach
+	void setUp() {
+		testData.takeLease(RefundService.WORKER_JOB);
+		holder = testData.user("USER");
+		event = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(30), Event.STATUS_SCHEDULED);
+		category = testData.ticketCategory(event, 10, 2);
+	}
+
+	@Test
+	void cancellingAnEventRefundsEveryTicket() {
+		Ticket first = testData.ticket(category, holder);
+		Ticket second = testData.ticket(category, holder);
+
+		eventService.cancelEvent(event.getEventId());
+		processRefundJobs();
+
+		assertThat(jobStatus()).isEqualTo(RefundJob.STATUS_COMPLETED);
+		assertThat(ticketStatus(first)).isEqualTo(Ticket.STATUS_REFUNDED);
+		assertThat(ticketStatus(second)).isEqualTo(Ticket.STATUS_REFUNDED);
+		assertThat(ticketsSold()).isZero();
+	}
+
+	@Test
+	void restoringACancelledEventStopsItsRefund() {
+		Ticket first = testData.ticket(category, holder);
+		Ticket second = testData.ticket(category, holder);
+
+		eventService.cancelEvent(event.getEventId());
+		eventService.restoreEvent(event.getEventId());
+		processRefundJobs();
+
+		assertThat(jobStatus()).isEqualTo(RefundJob.STATUS_STOPPED);
+		assertThat(ticketStatus(first)).isEqualTo(Ticket.STATUS_PURCHASED);
+		assertThat(ticketStatus(second)).isEqualTo(Ticket.STATUS_PURCHASED);
+		assertThat(ticketsSold()).isEqualTo(2);
+	}
+
+	@Test
+	void workerStopsAJobWhoseEventIsNoLongerCancelled() {
+		Ticket ticket = testData.ticket(category, holder);
+		eventService.cancelEvent(event.getEventId());
+		// A status change that does not go through EventService leaves the job running
+		Event stored = eventRepository.findById(event.getEventId()).orElseThrow();
+		stored.setStatus(Event.STATUS_SCHEDULED);
+		eventRepository.save(stored);
+
+		processRefundJobs();
+
+		assertThat(jobStatus()).isEqualTo(RefundJob.STATUS_STOPPED);
+		assertThat(ticketStatus(ticket)).isEqualTo(Ticket.STATUS_PURCHASED);
+		assertThat(ticketsSold()).isEqualTo(2);
+	}
+
+	@Test
+	void cancellingAgainRestartsAStoppedJob() {
+		Ticket ticket = testData.ticket(category, holder);
+		eventService.cancelEvent(event.getEventId());
+		eventService.restoreEvent(event.getEventId());
+
+		eventService.cancelEvent(event.getEventId());
+		processRefundJobs();
+
+		assertThat(jobStatus()).isEqualTo(RefundJob.STATUS_COMPLETED);
+		assertThat(ticketStatus(ticket)).isEqualTo(Ticket.STATUS_REFUNDED);
+	}
+
+	// Other tests' jobs share the budget of a run, so runs are repeated until this event's job ends
+	private void processRefundJobs() {
+		for (int run = 0; run < 20 && RefundJob.STATUS_RUNNING.equals(jobStatus()); run++) {
+			refundService.processRefundJobs();
+		}
+	}
+
+	private String jobStatus() {
+		return refundService.getEventRefund(event.getEventId()).map(RefundJob::getStatus).orElse(null);
+	}
+
+	private String ticketStatus(Ticket ticket) {
+		return ticketRepository.findById(ticket.getTicketId()).orElseThrow().getStatus();
+	}
+
+	private int ticketsSold() {
+		return ticketCategoryRepository.findTicketsSold(category.getTicketCategoryId()).orElseThrow();
+	}
+}
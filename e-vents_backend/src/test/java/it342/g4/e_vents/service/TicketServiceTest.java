@@ -0,0 +1,238 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.model.Event;
+import it342.g4.e_vents.model.Ticket;
+import it342.g4.e_vents.model.TicketCategory;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.TicketCategoryRepository;
+import it342.g4.e_vents.repository.TicketRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class TicketServiceTest {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private RefundService refundService;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketCategoryRepository ticketCategoryRepository;
+
+	@Autowired
+	private TestData testData;
+
+	private ExecutorService executor;
+
+	private User holder;
+
+	private Event event;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newFixedThreadPool(8);
+		holder = testData.user("USER");
+		event = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(30), Event.STATUS_SCHEDULED);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentPurchasesNeverOversell() throws Exception {
+		TicketCategory category = testData.ticketCategory(event, 5, 0);
+
+		List<Callable<Boolean>> purchases = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			purchases.add(() -> {
+				try {
+					ticketService.createTicket(newTicket(category));
+					return true;
+				} catch (IllegalStateException e) {
+					return false;
+				}
+			});
+		}
+
+		assertThat(runTogether(purchases)).filteredOn(Boolean::booleanValue).hasSize(5);
+		assertThat(ticketsSold(category)).isEqualTo(5);
+		assertThatThrownBy(() -> ticketService.createTicket(newTicket(category)))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("No tickets available in this category");
+	}
+
+	@Test
+	void deactivatingTwiceReleasesTheSeatOnce() {
+		TicketCategory category = testData.ticketCategory(event, 10, 3);
+		Ticket ticket = testData.ticket(category, holder);
+
+		ticketService.deactivateTicket(ticket.getTicketId());
+		ticketService.deactivateTicket(ticket.getTicketId());
+
+		assertThat(ticketsSold(category)).isEqualTo(2);
+		assertThat(ticketRepository.findById(ticket.getTicketId()).orElseThrow().isActive()).isFalse();
+	}
+
+	@Test
+	void deactivatingARefundedTicketKeepsTheSeatCount() {
+		TicketCategory category = testData.ticketCategory(event, 10, 3);
+		Ticket ticket = testData.ticket(category, holder);
+
+		refundService.refundTicket(ticket.getTicketId());
+		ticketService.deactivateTicket(ticket.getTicketId());
+
+		assertThat(ticketsSold(category)).isEqualTo(2);
+		assertThat(ticketRepository.findById(ticket.getTicketId()).orElseThrow().isActive()).isFalse();
+	}
+
+	@Test
+	void racingRefundAndDeactivationReleaseEachSeatOnce() throws Exception {
+		int tickets = 20;
+		TicketCategory category = testData.ticketCategory(event, 100, 50);
+		List<Callable<Boolean>> actions = new ArrayList<>();
+		for (int i = 0; i < tickets; i++) {
+			Long ticketId = testData.ticket(category, holder).getTicketId();
+			actions.add(() -> {
+				ticketService.deactivateTicket(ticketId);
+				return true;
+			});
+			actions.add(() -> {
+				try {
+					refundService.refundTicket(ticketId);
+					return true;
+				} catch (IllegalStateException e) {
+					return false;
+				}
+			});
+		}
+
+		runTogether(actions);
+
+		assertThat(ticketsSold(category)).isEqualTo(50 - tickets);
+	}
+
+	@Test
+	void restoreTakesTheSeatBack() {
+		TicketCategory category = testData.ticketCategory(event, 10, 3);
+		Ticket ticket = testData.ticket(category, holder);
+		ticketService.deactivateTicket(ticket.getTicketId());
+
+		ticketService.restoreTicket(ticket.getTicketId());
+
+		assertThat(ticketsSold(category)).isEqualTo(3);
+		assertThat(ticketRepository.findById(ticket.getTicketId()).orElseThrow().isActive()).isTrue();
+	}
+
+	@Test
+	void restoreIntoASoldOutCategoryIsRolledBack() {
+		TicketCategory category = testData.ticketCategory(event, 1, 1);
+		Ticket ticket = testData.ticket(category, holder);
+		ticketService.deactivateTicket(ticket.getTicketId());
+		ticketService.createTicket(newTicket(category));
+
+		assertThatThrownBy(() -> ticketService.restoreTicket(ticket.getTicketId()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cannot restore ticket: All tickets in this category have been sold");
+		assertThat(ticketsSold(category)).isEqualTo(1);
+		assertThat(ticketRepository.findById(ticket.getTicketId()).orElseThrow().isActive()).isFalse();
+	}
+
+	@Test
+	void restoreIntoAClosedCategorySaysSalesHaveClosed() {
+		TicketCategory category = testData.ticketCategory(event, 10, 3);
+		Ticket ticket = testData.ticket(category, holder);
+		ticketService.deactivateTicket(ticket.getTicketId());
+		TicketCategory stored = ticketCategoryRepository.findById(category.getTicketCategoryId()).orElseThrow();
+		stored.setStatus(TicketCategory.STATUS_CLOSED);
+		ticketCategoryRepository.save(stored);
+
+		assertThatThrownBy(() -> ticketService.restoreTicket(ticket.getTicketId()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cannot restore ticket: Ticket sales for this event have closed");
+		assertThat(ticketsSold(category)).isEqualTo(2);
+		assertThat(ticketRepository.findById(ticket.getTicketId()).orElseThrow().isActive()).isFalse();
+	}
+
+	@Test
+	void refundedTicketsCannotBeRestored() {
+		TicketCategory category = testData.ticketCategory(event, 10, 3);
+		Ticket ticket = testData.ticket(category, holder);
+		refundService.refundTicket(ticket.getTicketId());
+		ticketService.deactivateTicket(ticket.getTicketId());
+
+		assertThatThrownBy(() -> ticketService.restoreTicket(ticket.getTicketId()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cannot restore ticket: It has been refunded");
+		assertThat(ticketsSold(category)).isEqualTo(2);
+	}
+
+	@Test
+	void ticketsOfCancelledEventsCannotBeRestored() {
+		Event cancelled = testData.event(testData.user("ORGANIZER"), LocalDateTime.now().plusDays(30), Event.STATUS_CANCELLED);
+		TicketCategory category = testData.ticketCategory(cancelled, 10, 3);
+		Ticket ticket = testData.ticket(category, holder);
+		ticketService.deactivateTicket(ticket.getTicketId());
+
+		assertThatThrownBy(() -> ticketService.restoreTicket(ticket.getTicketId()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Cannot restore ticket: The event has been cancelled");
+		assertThat(ticketsSold(category)).isEqualTo(2);
+	}
+
+	private Ticket newTicket(TicketCategory category) {
+		Ticket ticket = new Ticket();
+		ticket.setUser(holder);
+		ticket.setTicketCategory(category);
+		return ticket;
+	}
+
+	private int ticketsSold(TicketCategory category) {
+		return ticketCategoryRepository.findTicketsSold(category.getTicketCategoryId()).orElseThrow();
+	}
+
+	// Starts all tasks at once so their updates contend for the same rows
+	private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<T>> futures = new ArrayList<>();
+		for (Callable<T> task : tasks) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return task.call();
+			}));
+		}
+		start.countDown();
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : futures) {
+			results.add(future.get());
+		}
+		return results;
+	}
+}
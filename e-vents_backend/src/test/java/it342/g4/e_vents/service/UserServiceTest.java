@@ -0,0 +1,67 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class UserServiceTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private TestData testData;
+
+	@Test
+	void registrationStoresAHashOfThePassword() throws Exception {
+		User user = new User();
+		user.setFirstName("New");
+		user.setLastName("User");
+		user.setEmail("new-" + UUID.randomUUID() + "@events.test");
+		user.setContactNumber("09170000000");
+		user.setCountry("Philippines");
+		user.setPassword("correct horse");
+
+		User registered = userService.registerUser(user).get();
+
+		String stored = userRepository.findById(registered.getUserId()).orElseThrow().getPassword();
+		assertThat(passwordEncoder.matches("correct horse", stored)).isTrue();
+		assertThat(registered.getRole().getName()).isEqualTo("USER");
+	}
+
+	@Test
+	void changingThePasswordStoresAHashOfTheNewOne() throws Exception {
+		User user = testData.user("USER");
+
+		assertThat(userService.changePasswordByEmail(user.getEmail(), "battery staple").get()).isTrue();
+
+		String stored = userRepository.findById(user.getUserId()).orElseThrow().getPassword();
+		assertThat(passwordEncoder.matches("battery staple", stored)).isTrue();
+	}
+
+	@Test
+	void changingThePasswordOfAnUnknownEmailChangesNothing() throws Exception {
+		assertThat(userService.changePasswordByEmail("nobody-" + UUID.randomUUID() + "@events.test", "x").get())
+				.isFalse();
+	}
+}
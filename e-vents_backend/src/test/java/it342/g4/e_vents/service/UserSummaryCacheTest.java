@@ -0,0 +1,60 @@
+package it342.g4.e_vents.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import it342.g4.e_vents.TestData;
+import it342.g4.e_vents.dto.UserSummary;
+import it342.g4.e_vents.model.User;
+import it342.g4.e_vents.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class UserSummaryCacheTest {
+
+	@Autowired
+	private UserSummaryCache userSummaryCache;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TestData testData;
+
+	@Test
+	void missLoadsTheSummaryColumns() {
+		User user = testData.user("ORGANIZER");
+
+		UserSummary summary = userSummaryCache.get(user.getUserId()).orElseThrow();
+
+		assertThat(summary.getEmail()).isEqualTo(user.getEmail());
+		assertThat(summary.getFirstName()).isEqualTo(user.getFirstName());
+		assertThat(summary.getLastName()).isEqualTo(user.getLastName());
+		assertThat(summary.getRole()).isEqualTo("ORGANIZER");
+		assertThat(summary.isActive()).isTrue();
+	}
+
+	@Test
+	void invalidationPicksUpDeactivation() {
+		User user = testData.user("USER");
+		assertThat(userSummaryCache.get(user.getUserId()).orElseThrow().isActive()).isTrue();
+
+		user.setActive(false);
+		userRepository.save(user);
+		assertThat(userSummaryCache.get(user.getUserId()).orElseThrow().isActive()).isTrue();
+
+		userSummaryCache.invalidate(user.getUserId());
+		assertThat(userSummaryCache.get(user.getUserId()).orElseThrow().isActive()).isFalse();
+	}
+
+	@Test
+	void unknownUsersAreNotFound() {
+		assertThat(userSummaryCache.get(Long.MAX_VALUE)).isEmpty();
+	}
+}
@@ -25,18 +25,58 @@ api.interceptors.request.use(
   (error) => Promise.reject(error)
 );
 
-// Response interceptor for handling errors
+const clearSession = () => {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('userData');
+  localStorage.removeItem('isLoggedIn');
+  if (!window.location.pathname.includes('/login')) {
+    window.location.href = '/login';
+  }
+};
+
+// Concurrent 401s share one refresh call, since each refresh token works only once
+let refreshPromise = null;
+
+const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem('refreshToken');
+    refreshPromise = (refreshToken
+      ? axios.post(`${API_URL}/users/refresh`, null, { params: { refreshToken } })
+      : Promise.reject(new Error('No refresh token')))
+      .then((response) => {
+        localStorage.setItem('token', response.data.token);
+        localStorage.setItem('refreshToken', response.data.refreshToken);
+        return response.data.token;
+      })
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
+// Response interceptor for handling errors: an expired access token is renewed
+// once with the refresh token before the user is sent back to the login page
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
-    if (error.response?.status === 401) {
-      localStorage.removeItem('token');
-      localStorage.removeItem('userData');
-      localStorage.removeItem('isLoggedIn');
-      if (!window.location.pathname.includes('/login')) {
-        window.location.href = '/login';
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._retried
+        && !original.url?.includes('/users/login') && !original.url?.includes('/users/refresh')) {
+      original._retried = true;
+      try {
+        const token = await refreshAccessToken();
+        original.headers['Authorization'] = `Bearer ${token}`;
+        return api(original);
+      } catch (refreshError) {
+        clearSession();
+        return Promise.reject(error);
       }
     }
+    if (error.response?.status === 401) {
+      clearSession();
+    }
     return Promise.reject(error);
   }
 );
@@ -58,9 +98,10 @@ export const userService = {
         params: { email, password }
       });
 
-      const { token, ...userData } = response.data;
+      const { token, refreshToken, expiresIn, ...userData } = response.data;
       if (token) {
         localStorage.setItem('token', token);
+        localStorage.setItem('refreshToken', refreshToken);
         localStorage.setItem('userData', JSON.stringify(userData));
         localStorage.setItem('isLoggedIn', 'true');
         localStorage.setItem('userEmail', email);
@@ -215,6 +256,16 @@ export const userService = {
   },
 
   logout() {
+    const refreshToken = localStorage.getItem('refreshToken');
+    const token = localStorage.getItem('token');
+    // Best effort: the session is revoked server-side, local state is cleared regardless.
+    // keepalive lets the request finish after the page navigates away
+    const query = refreshToken ? `?refreshToken=${encodeURIComponent(refreshToken)}` : '';
+    fetch(`${API_URL}/users/logout${query}`, {
+      method: 'POST',
+      keepalive: true,
+      headers: token ? { Authorization: `Bearer ${token}` } : {},
+    }).catch(() => {});
     localStorage.clear();
     window.location.href = '/';
   },
@@ -514,7 +565,7 @@ export const adminService = {
     return Array.isArray(response.data) ? response.data.length : 0;
   },
   async getEventCount() {
-    const response = await api.get('/events');
+    const response = await api.get('/events', { params: { view: 'summary' } });
     return Array.isArray(response.data) ? response.data.length : 0;
   },
   async getActCount() {
@@ -1285,7 +1336,20 @@ export const ticketCategoryService = {
       return [];
     }
   },
-  
+
+  // Live availability for an event page. onUpdate receives the full list first, then only changed
+  // categories. EventSource reconnects on its own; call the returned function to stop listening.
+  subscribeToAvailability(eventId, onUpdate) {
+    const source = new EventSource(`${API_URL}/ticket-categories/event/${eventId}/availability/stream`);
+    source.addEventListener('availability', (event) => {
+      onUpdate(JSON.parse(event.data));
+    });
+    source.onerror = (error) => {
+      console.error(`API Service: Availability stream error for event ID ${eventId}:`, error);
+    };
+    return () => source.close();
+  },
+
   async create(data) { 
     console.log('API Service: Creating new ticket category:', data);
     try {